@@ -0,0 +1,339 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.incremental
+
+import org.jetbrains.kotlin.incremental.storage.ConstantsMapExternalizer
+import org.jetbrains.kotlin.incremental.storage.ProtoMapValue
+import org.jetbrains.kotlin.incremental.storage.ProtoMapValueExternalizer
+import org.jetbrains.kotlin.incremental.storage.StringToLongMapExternalizer
+import org.jetbrains.kotlin.load.kotlin.header.KotlinClassHeader
+import org.jetbrains.kotlin.name.FqName
+import org.jetbrains.kotlin.protobuf.MessageLite
+import org.jetbrains.kotlin.resolve.jvm.JvmClassName
+import org.jetbrains.kotlin.serialization.jvm.BitEncoding
+import org.jetbrains.kotlin.serialization.jvm.JvmProtoBufUtil
+import org.jetbrains.org.objectweb.asm.*
+import java.io.*
+import java.util.*
+import java.util.zip.ZipFile
+
+/**
+ * ABI of a classpath jar: the Kotlin metadata, constant values and inline function body hashes of its Kotlin classes,
+ * and hashes of the non-private signatures of the others. Two snapshots of the same jar can be compared with [compareTo] without any history of the builds in between.
+ */
+class ClasspathEntrySnapshot private constructor(
+        val stamp: Long,
+        private val kotlinClasses: Map<String, ProtoMapValue>,
+        private val constants: Map<String, Map<String, Any>>,
+        private val inlineFunctions: Map<String, Map<String, Long>>,
+        private val javaClasses: Map<String, JavaClassAbi>
+) {
+    class JavaClassAbi(val classHash: Long, val memberHashes: Map<String, Long>)
+
+    /**
+     * Returns the changes made to the ABI of the jar since [old] was taken.
+     */
+    fun compareTo(old: ClasspathEntrySnapshot): DirtyData {
+        val changes = ArrayList<ChangeInfo>()
+
+        for ((internalName, newValue) in kotlinClasses) {
+            val className = JvmClassName.byInternalName(internalName)
+            val oldValue = old.kotlinClasses[internalName]
+
+            when {
+                oldValue == null -> changes.addAll(addedOrRemoved(className, newValue, isRemoved = false))
+                oldValue.isPackageFacade == newValue.isPackageFacade &&
+                Arrays.equals(oldValue.bytes, newValue.bytes) &&
+                Arrays.equals(oldValue.strings, newValue.strings) -> {}
+                else -> {
+                    val fqName = if (newValue.isPackageFacade) className.packageFqName else className.fqNameForClassNameWithoutDollars
+                    val difference = difference(oldValue, newValue)
+
+                    if (difference.isClassAffected) {
+                        changes.add(ChangeInfo.SignatureChanged(fqName, difference.areSubclassesAffected))
+                    }
+                    if (difference.changedMembersNames.isNotEmpty()) {
+                        changes.add(ChangeInfo.MembersChanged(fqName, difference.changedMembersNames))
+                    }
+                }
+            }
+        }
+
+        for ((internalName, oldValue) in old.kotlinClasses) {
+            if (internalName !in kotlinClasses) {
+                changes.addAll(addedOrRemoved(JvmClassName.byInternalName(internalName), oldValue, isRemoved = true))
+            }
+        }
+
+        // neither constant values nor inline function bodies are a part of the metadata
+        changes.addAll(changedMembers(constants, old.constants, old) { it })
+        changes.addAll(changedMembers(inlineFunctions, old.inlineFunctions, old) { it.substringBefore("(") })
+
+        for ((internalName, newAbi) in javaClasses) {
+            val fqName = JvmClassName.byInternalName(internalName).fqNameForClassNameWithoutDollars
+            val oldAbi = old.javaClasses[internalName]
+
+            if (oldAbi == null) {
+                changes.add(ChangeInfo.SignatureChanged(fqName, areSubclassesAffected = false))
+                continue
+            }
+
+            if (oldAbi.classHash != newAbi.classHash) {
+                changes.add(ChangeInfo.SignatureChanged(fqName, areSubclassesAffected = true))
+            }
+
+            val changedMembers = (oldAbi.memberHashes.keys + newAbi.memberHashes.keys).filter {
+                oldAbi.memberHashes[it] != newAbi.memberHashes[it]
+            }
+            if (changedMembers.isNotEmpty()) {
+                changes.add(ChangeInfo.MembersChanged(fqName, changedMembers))
+            }
+        }
+
+        for (internalName in old.javaClasses.keys) {
+            if (internalName !in javaClasses) {
+                val fqName = JvmClassName.byInternalName(internalName).fqNameForClassNameWithoutDollars
+                changes.add(ChangeInfo.SignatureChanged(fqName, areSubclassesAffected = true))
+            }
+        }
+
+        return changes.toDirtyData()
+    }
+
+    private fun <V> changedMembers(
+            newMembers: Map<String, Map<String, V>>,
+            oldMembers: Map<String, Map<String, V>>,
+            old: ClasspathEntrySnapshot,
+            memberName: (String) -> String
+    ): List<ChangeInfo> {
+        val changes = ArrayList<ChangeInfo>()
+
+        for (internalName in newMembers.keys + oldMembers.keys) {
+            val newValues = newMembers[internalName] ?: emptyMap()
+            val oldValues = oldMembers[internalName] ?: emptyMap()
+            val changedNames = (newValues.keys + oldValues.keys).filter { newValues[it] != oldValues[it] }.map(memberName).distinct()
+            if (changedNames.isEmpty()) continue
+
+            val className = JvmClassName.byInternalName(internalName)
+            val isPackage = (kotlinClasses[internalName] ?: old.kotlinClasses[internalName])?.isPackageFacade ?: false
+            val fqName = if (isPackage) className.packageFqName else className.fqNameForClassNameWithoutDollars
+            changes.add(ChangeInfo.MembersChanged(fqName, changedNames))
+        }
+
+        return changes
+    }
+
+    private fun addedOrRemoved(className: JvmClassName, value: ProtoMapValue, isRemoved: Boolean): List<ChangeInfo> {
+        if (!value.isPackageFacade) {
+            return listOf(ChangeInfo.SignatureChanged(className.fqNameForClassNameWithoutDollars, areSubclassesAffected = isRemoved))
+        }
+
+        val packageData = JvmProtoBufUtil.readPackageDataFrom(value.bytes, value.strings)
+        val members: List<MessageLite> = with(packageData.packageProto) { functionList + propertyList + typeAliasList }
+        val names = members.filterNot { it.isPrivate }.names(packageData.nameResolver)
+        return listOf(ChangeInfo.MembersChanged(className.packageFqName, names))
+    }
+
+    // Unlike CompilationResult.getDirtyData, subtypes are not known here: the caller expands the dirty FQ names with
+    // the subtypes from its own caches
+    private fun List<ChangeInfo>.toDirtyData(): DirtyData {
+        val dirtyLookupSymbols = HashSet<LookupSymbol>()
+        val dirtyClassesFqNames = HashSet<FqName>()
+
+        for (change in this) {
+            if (change is ChangeInfo.SignatureChanged) {
+                if (change.fqName.isRoot) continue
+
+                dirtyLookupSymbols.add(LookupSymbol(change.fqName.shortName().asString(), change.fqName.parent().asString()))
+                if (change.areSubclassesAffected) {
+                    dirtyClassesFqNames.add(change.fqName)
+                }
+            }
+            else if (change is ChangeInfo.MembersChanged) {
+                dirtyClassesFqNames.add(change.fqName)
+                change.names.mapTo(dirtyLookupSymbols) { LookupSymbol(it, change.fqName.asString()) }
+            }
+        }
+
+        return DirtyData(dirtyLookupSymbols, dirtyClassesFqNames)
+    }
+
+    companion object {
+        private val FORMAT_VERSION = 2
+
+        /**
+         * Stamp of the jar's current state, used to tell whether a saved snapshot is still up to date.
+         */
+        fun stampOf(jar: File): Long =
+                jar.lastModified() * 31 + jar.length()
+
+        fun create(jar: File): ClasspathEntrySnapshot {
+            val kotlinClasses = HashMap<String, ProtoMapValue>()
+            val constants = HashMap<String, Map<String, Any>>()
+            val inlineFunctions = HashMap<String, Map<String, Long>>()
+            val javaClasses = HashMap<String, JavaClassAbi>()
+            val stamp = stampOf(jar)
+
+            ZipFile(jar).use { zip ->
+                entries@ for (zipEntry in zip.entries()) {
+                    if (zipEntry.isDirectory || !zipEntry.name.endsWith(".class")) continue
+
+                    val bytes = zip.getInputStream(zipEntry).use { it.readBytes() }
+                    val kotlinClass = LocalFileKotlinClass.create(File(jar, zipEntry.name), bytes)
+                    if (kotlinClass == null) {
+                        readJavaClassAbi(bytes)?.let { javaClasses[it.first] = it.second }
+                        continue
+                    }
+
+                    val header = kotlinClass.classHeader
+                    val isPackage = when (header.kind) {
+                        KotlinClassHeader.Kind.CLASS -> false
+                        KotlinClassHeader.Kind.FILE_FACADE, KotlinClassHeader.Kind.MULTIFILE_CLASS_PART -> true
+                        else -> continue@entries
+                    }
+                    val data = header.data ?: continue
+                    val strings = header.strings ?: continue
+                    val internalName = kotlinClass.className.internalName
+                    kotlinClasses[internalName] = ProtoMapValue(isPackage, BitEncoding.decodeBytes(data), strings)
+                    getConstantsMap(bytes)?.let { constants[internalName] = it }
+                    getInlineFunctionsMap(header, bytes).let { if (it.isNotEmpty()) inlineFunctions[internalName] = it }
+                }
+            }
+
+            return ClasspathEntrySnapshot(stamp, kotlinClasses, constants, inlineFunctions, javaClasses)
+        }
+
+        fun readStamp(file: File): Long? {
+            if (!file.exists()) return null
+
+            return try {
+                DataInputStream(BufferedInputStream(FileInputStream(file))).use { input ->
+                    if (input.readInt() != FORMAT_VERSION) null else input.readLong()
+                }
+            }
+            catch (e: IOException) {
+                null
+            }
+        }
+
+        fun read(file: File): ClasspathEntrySnapshot? {
+            if (!file.exists()) return null
+
+            return try {
+                DataInputStream(BufferedInputStream(FileInputStream(file))).use { input ->
+                    if (input.readInt() != FORMAT_VERSION) return null
+
+                    val stamp = input.readLong()
+                    val kotlinClasses = HashMap<String, ProtoMapValue>()
+                    repeat(input.readInt()) {
+                        kotlinClasses[input.readUTF()] = ProtoMapValueExternalizer.read(input)
+                    }
+                    val constants = HashMap<String, Map<String, Any>>()
+                    repeat(input.readInt()) {
+                        constants[input.readUTF()] = ConstantsMapExternalizer.read(input)!!
+                    }
+                    val inlineFunctions = HashMap<String, Map<String, Long>>()
+                    repeat(input.readInt()) {
+                        inlineFunctions[input.readUTF()] = StringToLongMapExternalizer.read(input)!!
+                    }
+                    val javaClasses = HashMap<String, JavaClassAbi>()
+                    repeat(input.readInt()) {
+                        val internalName = input.readUTF()
+                        val classHash = input.readLong()
+                        val memberHashes = HashMap<String, Long>()
+                        repeat(input.readInt()) {
+                            memberHashes[input.readUTF()] = input.readLong()
+                        }
+                        javaClasses[internalName] = JavaClassAbi(classHash, memberHashes)
+                    }
+                    ClasspathEntrySnapshot(stamp, kotlinClasses, constants, inlineFunctions, javaClasses)
+                }
+            }
+            catch (e: IOException) {
+                null
+            }
+        }
+
+        fun write(snapshot: ClasspathEntrySnapshot, file: File) {
+            file.parentFile.mkdirs()
+            DataOutputStream(BufferedOutputStream(FileOutputStream(file))).use { output ->
+                output.writeInt(FORMAT_VERSION)
+                output.writeLong(snapshot.stamp)
+                output.writeInt(snapshot.kotlinClasses.size)
+                for ((internalName, value) in snapshot.kotlinClasses) {
+                    output.writeUTF(internalName)
+                    ProtoMapValueExternalizer.save(output, value)
+                }
+                output.writeInt(snapshot.constants.size)
+                for ((internalName, values) in snapshot.constants) {
+                    output.writeUTF(internalName)
+                    ConstantsMapExternalizer.save(output, values)
+                }
+                output.writeInt(snapshot.inlineFunctions.size)
+                for ((internalName, hashes) in snapshot.inlineFunctions) {
+                    output.writeUTF(internalName)
+                    StringToLongMapExternalizer.save(output, hashes)
+                }
+                output.writeInt(snapshot.javaClasses.size)
+                for ((internalName, abi) in snapshot.javaClasses) {
+                    output.writeUTF(internalName)
+                    output.writeLong(abi.classHash)
+                    output.writeInt(abi.memberHashes.size)
+                    for ((name, hash) in abi.memberHashes) {
+                        output.writeUTF(name)
+                        output.writeLong(hash)
+                    }
+                }
+            }
+        }
+
+        private fun readJavaClassAbi(bytes: ByteArray): Pair<String, JavaClassAbi>? {
+            var className: String? = null
+            var classSignature = ""
+            val memberSignatures = HashMap<String, MutableList<String>>()
+
+            fun addMember(access: Int, name: String, desc: String, signature: String?) {
+                if (access and (Opcodes.ACC_PRIVATE or Opcodes.ACC_SYNTHETIC) != 0) return
+
+                memberSignatures.getOrPut(name) { ArrayList() }.add("$access $desc $signature")
+            }
+
+            ClassReader(bytes).accept(object : ClassVisitor(Opcodes.ASM5) {
+                override fun visit(version: Int, access: Int, name: String, signature: String?, superName: String?, interfaces: Array<out String>?) {
+                    if (access and Opcodes.ACC_SYNTHETIC != 0) return
+
+                    className = name
+                    classSignature = "$access $signature $superName ${interfaces?.joinToString()}"
+                }
+
+                override fun visitField(access: Int, name: String, desc: String, signature: String?, value: Any?): FieldVisitor? {
+                    addMember(access, name, desc, signature + " " + value)
+                    return null
+                }
+
+                override fun visitMethod(access: Int, name: String, desc: String, signature: String?, exceptions: Array<out String>?): MethodVisitor? {
+                    addMember(access, name, desc, signature)
+                    return null
+                }
+            }, ClassReader.SKIP_CODE or ClassReader.SKIP_DEBUG or ClassReader.SKIP_FRAMES)
+
+            val name = className ?: return null
+            val memberHashes = memberSignatures.mapValues { it.value.sorted().joinToString("\n").toByteArray().md5() }
+            return name to JavaClassAbi(classSignature.toByteArray().md5(), memberHashes)
+        }
+    }
+}
@@ -27,6 +27,9 @@ import org.jetbrains.kotlin.utils.Printer
 import org.jetbrains.kotlin.utils.keysToMap
 import java.io.File
 import java.util.*
+import java.util.concurrent.locks.ReentrantReadWriteLock
+import kotlin.concurrent.read
+import kotlin.concurrent.write
 
 
 open class LookupStorage(private val targetDataDir: File) : BasicMapsOwner() {
@@ -43,6 +46,9 @@ open class LookupStorage(private val targetDataDir: File) : BasicMapsOwner() {
     private val fileToId = registerMap(FileToIdMap("file-to-id".storageFile))
     private val lookupMap = registerMap(LookupMap("lookups".storageFile))
 
+    // lookups are read by many parallel builds at once, while the updates are rare
+    private val lock = ReentrantReadWriteLock()
+
     @Volatile
     private var size: Int = 0
 
@@ -57,67 +63,72 @@ open class LookupStorage(private val targetDataDir: File) : BasicMapsOwner() {
         }
     }
 
-    @Synchronized
     fun get(lookupSymbol: LookupSymbol): Collection<String> {
-        val key = LookupSymbolKey(lookupSymbol.name, lookupSymbol.scope)
-        val fileIds = lookupMap[key] ?: return emptySet()
+        lock.read {
+            val key = LookupSymbolKey(lookupSymbol.name, lookupSymbol.scope)
+            val fileIds = lookupMap[key] ?: return emptySet()
 
-        return fileIds.mapNotNull {
-            // null means it's outdated
-            idToFile[it]?.path
+            return fileIds.mapNotNull {
+                // null means it's outdated
+                idToFile[it]?.path
+            }
         }
     }
 
-    @Synchronized
     fun addAll(lookups: Set<Map.Entry<LookupSymbol, Collection<String>>>, allPaths: Set<String>) {
-        val pathToId = allPaths.keysToMap { addFileIfNeeded(File(it)) }
-
-        for ((lookupSymbol, paths) in lookups) {
-            val key = LookupSymbolKey(lookupSymbol.name, lookupSymbol.scope)
-            val fileIds = paths.mapTo(HashSet<Int>()) { pathToId[it]!! }
-            fileIds.addAll(lookupMap[key] ?: emptySet())
-            lookupMap[key] = fileIds
+        lock.write {
+            val pathToId = allPaths.keysToMap { addFileIfNeeded(File(it)) }
+
+            for ((lookupSymbol, paths) in lookups) {
+                val key = LookupSymbolKey(lookupSymbol.name, lookupSymbol.scope)
+                val fileIds = paths.mapTo(HashSet<Int>()) { pathToId[it]!! }
+                fileIds.addAll(lookupMap[key] ?: emptySet())
+                lookupMap[key] = fileIds
+            }
         }
     }
 
-    @Synchronized
     fun removeLookupsFrom(files: Sequence<File>) {
-        for (file in files) {
-            val id = fileToId[file] ?: continue
-            idToFile.remove(id)
-            fileToId.remove(file)
-            deletedCount++
+        lock.write {
+            for (file in files) {
+                val id = fileToId[file] ?: continue
+                idToFile.remove(id)
+                fileToId.remove(file)
+                deletedCount++
+            }
         }
     }
 
-    @Synchronized
     override fun clean() {
-        if (countersFile.exists()) {
-            countersFile.delete()
-        }
+        lock.write {
+            if (countersFile.exists()) {
+                countersFile.delete()
+            }
 
-        size = 0
-        deletedCount = 0
+            size = 0
+            deletedCount = 0
 
-        super.clean()
+            super.clean()
+        }
     }
 
-    @Synchronized
     override fun flush(memoryCachesOnly: Boolean) {
-        try {
-            removeGarbageIfNeeded()
+        lock.write {
+            try {
+                removeGarbageIfNeeded()
 
-            if (size > 0) {
-                if (!countersFile.exists()) {
-                    countersFile.parentFile.mkdirs()
-                    countersFile.createNewFile()
-                }
+                if (size > 0) {
+                    if (!countersFile.exists()) {
+                        countersFile.parentFile.mkdirs()
+                        countersFile.createNewFile()
+                    }
 
-                countersFile.writeText("$size\n$deletedCount")
+                    countersFile.writeText("$size\n$deletedCount")
+                }
+            }
+            finally {
+                super.flush(memoryCachesOnly)
             }
-        }
-        finally {
-            super.flush(memoryCachesOnly)
         }
     }
 
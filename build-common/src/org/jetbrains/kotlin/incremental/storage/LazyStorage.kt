@@ -32,7 +32,7 @@ class LazyStorage<K, V>(
         private val storageFile: File,
         private val keyDescriptor: KeyDescriptor<K>,
         private val valueExternalizer: DataExternalizer<V>
-) {
+) : MapStorage<K, V> {
     @Volatile
     private var storage: PersistentHashMap<K, V>? = null
 
@@ -57,33 +57,33 @@ class LazyStorage<K, V>(
         return storage!!
     }
 
-    val keys: Collection<K>
+    override val keys: Collection<K>
         get() = getStorageIfExists()?.allKeysWithExistingMapping ?: listOf()
 
-    operator fun contains(key: K): Boolean =
+    override operator fun contains(key: K): Boolean =
             getStorageIfExists()?.containsMapping(key) ?: false
 
-    operator fun get(key: K): V? =
+    override operator fun get(key: K): V? =
             getStorageIfExists()?.get(key)
 
-    operator fun set(key: K, value: V) {
+    override operator fun set(key: K, value: V) {
         getStorageOrCreateNew().put(key, value)
     }
 
-    fun remove(key: K) {
+    override fun remove(key: K) {
         getStorageIfExists()?.remove(key)
     }
 
-    fun append(key: K, value: String) {
+    override fun append(key: K, value: String) {
         append(key) { out -> IOUtil.writeUTF(out, value) }
     }
 
-    fun append(key: K, value: Int) {
+    override fun append(key: K, value: Int) {
         append(key) { out -> out.writeInt(value) }
     }
 
     @Synchronized
-    fun clean() {
+    override fun clean() {
         try {
             storage?.close()
         }
@@ -95,7 +95,7 @@ class LazyStorage<K, V>(
     }
 
     @Synchronized
-    fun flush(memoryCachesOnly: Boolean) {
+    override fun flush(memoryCachesOnly: Boolean) {
         val existingStorage = storage ?: return
 
         if (memoryCachesOnly) {
@@ -109,7 +109,7 @@ class LazyStorage<K, V>(
     }
 
     @Synchronized
-    fun close() {
+    override fun close() {
         storage?.close()
     }
 
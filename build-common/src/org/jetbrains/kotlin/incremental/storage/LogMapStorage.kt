@@ -0,0 +1,522 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.incremental.storage
+
+import com.intellij.util.io.DataExternalizer
+import com.intellij.util.io.IOUtil
+import com.intellij.util.io.KeyDescriptor
+import java.io.*
+import java.nio.ByteBuffer
+import java.util.*
+
+/**
+ * Keeps the map in a [LogStructuredStore] shared by all maps of the same directory, instead of a separate
+ * PersistentHashMap per map.
+ */
+internal class LogMapStorage<K, V>(
+        storageFile: File,
+        private val keyDescriptor: KeyDescriptor<K>,
+        private val valueExternalizer: DataExternalizer<V>
+) : MapStorage<K, V> {
+    private val storeFile = File(storageFile.parentFile, LogStructuredStore.FILE_NAME)
+    private val mapName = storageFile.name
+
+    @Volatile
+    private var store: LogStructuredStore? = null
+
+    val storeExists: Boolean
+        get() = store != null || storeFile.exists()
+
+    @Synchronized
+    private fun getStoreIfExists(): LogStructuredStore? {
+        if (store == null && storeFile.exists()) {
+            store = LogStructuredStore.acquire(storeFile)
+        }
+
+        return store
+    }
+
+    @Synchronized
+    private fun getStoreOrCreateNew(): LogStructuredStore {
+        if (store == null) {
+            store = LogStructuredStore.acquire(storeFile)
+        }
+
+        return store!!
+    }
+
+    override val keys: Collection<K>
+        get() = getStoreIfExists()?.keys(mapName, keyDescriptor) ?: listOf()
+
+    override operator fun contains(key: K): Boolean =
+            getStoreIfExists()?.contains(mapName, keyDescriptor, key) ?: false
+
+    override operator fun get(key: K): V? {
+        val bytes = getStoreIfExists()?.get(mapName, keyDescriptor, key) ?: return null
+        return valueExternalizer.read(DataInputStream(ByteArrayInputStream(bytes)))
+    }
+
+    override operator fun set(key: K, value: V) {
+        getStoreOrCreateNew().put(mapName, keyDescriptor, key, toBytes { valueExternalizer.save(it, value) })
+    }
+
+    override fun remove(key: K) {
+        getStoreIfExists()?.remove(mapName, keyDescriptor, key)
+    }
+
+    override fun append(key: K, value: String) {
+        getStoreOrCreateNew().append(mapName, keyDescriptor, key, toBytes { IOUtil.writeUTF(it, value) })
+    }
+
+    override fun append(key: K, value: Int) {
+        getStoreOrCreateNew().append(mapName, keyDescriptor, key, toBytes { it.writeInt(value) })
+    }
+
+    @Synchronized
+    override fun clean() {
+        getStoreIfExists()?.clear(mapName)
+    }
+
+    @Synchronized
+    override fun flush(memoryCachesOnly: Boolean) {
+        store?.flush(memoryCachesOnly)
+    }
+
+    @Synchronized
+    override fun close() {
+        store?.release()
+        store = null
+    }
+}
+
+private inline fun toBytes(write: (DataOutput) -> Unit): ByteArray {
+    val bytes = ByteArrayOutputStream()
+    DataOutputStream(bytes).use(write)
+    return bytes.toByteArray()
+}
+
+/**
+ * Append-only file holding the records of all maps of one directory.
+ *
+ * The file is read once, sequentially, into an index which keeps the keys of the maps and the positions of their values
+ * in the file; the values are read from the file on demand. Keys are compared by the [KeyDescriptor] of their map,
+ * so the records of a map are only indexed when the map is opened. Writes are buffered and synced to disk once per [flush],
+ * however many maps are flushed. Superseded records are dropped by rewriting the file when the last user closes it
+ * and most of it is garbage.
+ *
+ * The format is a header (magic number and version) followed by records: an operation byte, then the map name, the key
+ * and the value, where present, each prefixed with its size. A truncated record at the end, left by an interrupted build,
+ * is dropped when the file is read.
+ */
+internal class LogStructuredStore private constructor(private val file: File) {
+    companion object {
+        val FILE_NAME = "caches.log"
+
+        internal val MAGIC = 0x4b4c4f47
+        internal val VERSION = 1
+        private val HEADER_SIZE = 8L
+        private val COMPACTION_THRESHOLD = 1L shl 20
+
+        internal val PUT: Byte = 1
+        internal val APPEND: Byte = 2
+        internal val REMOVE: Byte = 3
+        internal val CLEAR: Byte = 4
+
+        private val openStores = HashMap<File, LogStructuredStore>()
+
+        @Synchronized
+        fun acquire(file: File): LogStructuredStore {
+            val store = openStores.getOrPut(file.canonicalFile) { LogStructuredStore(file.canonicalFile) }
+            store.users++
+            return store
+        }
+
+        @Synchronized
+        private fun release(store: LogStructuredStore) {
+            if (--store.users > 0) return
+
+            openStores.remove(store.file)
+            store.close()
+        }
+    }
+
+    private class Segment(val offset: Long, val length: Int)
+
+    // a value written by put() and followed by the values of the subsequent append() calls
+    private class Entry(val keyBytes: ByteArray, val segments: MutableList<Segment>)
+
+    private class MapKey<K>(val key: K, private val keyDescriptor: KeyDescriptor<K>) {
+        override fun hashCode(): Int = keyDescriptor.getHashCode(key)
+
+        @Suppress("UNCHECKED_CAST")
+        override fun equals(other: Any?): Boolean = other is MapKey<*> && keyDescriptor.isEqual(key, other.key as K)
+    }
+
+    private class MapIndex<K>(val keyDescriptor: KeyDescriptor<K>) {
+        val entries = LinkedHashMap<MapKey<K>, Entry>()
+
+        fun mapKey(key: K): MapKey<K> = MapKey(key, keyDescriptor)
+
+        fun mapKey(keyBytes: ByteArray): MapKey<K> = mapKey(keyDescriptor.read(DataInputStream(ByteArrayInputStream(keyBytes))))
+
+        fun put(keyBytes: ByteArray, segment: Segment) {
+            entries[mapKey(keyBytes)] = Entry(keyBytes, arrayListOf(segment))
+        }
+
+        fun append(mapKey: MapKey<K>, keyBytes: ByteArray, segment: Segment) {
+            val entry = entries[mapKey]
+            if (entry != null) {
+                entry.segments.add(segment)
+            }
+            else {
+                entries[mapKey] = Entry(keyBytes, arrayListOf(segment))
+            }
+        }
+    }
+
+    private class Record(val op: Byte, val key: ByteArray, val value: Segment?)
+
+    private val backupFile = File(file.path + ".bak")
+    private val indexes = HashMap<String, MapIndex<*>>()
+    // records of the maps which have not been opened yet, since the last CLEAR of each map
+    private val unindexedRecords = LinkedHashMap<String, MutableList<Record>>()
+    private var users = 0
+    private var fileOutput: FileOutputStream? = null
+    private var output: DataOutputStream? = null
+    private var input: RandomAccessFile? = null
+    private var endOffset = 0L
+    private var unsynced = false
+
+    init {
+        if (!file.exists() && backupFile.exists() && !backupFile.renameTo(file)) {
+            // compaction was interrupted after the old file had been moved away
+            throw IOException("Cannot restore incremental caches storage $file from $backupFile")
+        }
+        load()
+    }
+
+    @Synchronized
+    fun <K> keys(mapName: String, keyDescriptor: KeyDescriptor<K>): List<K> =
+            index(mapName, keyDescriptor).entries.keys.map { it.key }
+
+    @Synchronized
+    fun <K> contains(mapName: String, keyDescriptor: KeyDescriptor<K>, key: K): Boolean {
+        val index = index(mapName, keyDescriptor)
+        return index.mapKey(key) in index.entries
+    }
+
+    @Synchronized
+    fun <K> get(mapName: String, keyDescriptor: KeyDescriptor<K>, key: K): ByteArray? {
+        val index = index(mapName, keyDescriptor)
+        return index.entries[index.mapKey(key)]?.let { readValue(it.segments) }
+    }
+
+    @Synchronized
+    fun <K> put(mapName: String, keyDescriptor: KeyDescriptor<K>, key: K, value: ByteArray) {
+        val index = index(mapName, keyDescriptor)
+        val keyBytes = toBytes { keyDescriptor.save(it, key) }
+        val segment = write(PUT, mapName, keyBytes, value)
+        index.entries[index.mapKey(key)] = Entry(keyBytes, arrayListOf(segment))
+    }
+
+    @Synchronized
+    fun <K> append(mapName: String, keyDescriptor: KeyDescriptor<K>, key: K, value: ByteArray) {
+        val index = index(mapName, keyDescriptor)
+        val keyBytes = toBytes { keyDescriptor.save(it, key) }
+        index.append(index.mapKey(key), keyBytes, write(APPEND, mapName, keyBytes, value))
+    }
+
+    @Synchronized
+    fun <K> remove(mapName: String, keyDescriptor: KeyDescriptor<K>, key: K) {
+        val index = index(mapName, keyDescriptor)
+        if (index.entries.remove(index.mapKey(key)) == null) return
+
+        write(REMOVE, mapName, toBytes { keyDescriptor.save(it, key) }, null)
+    }
+
+    @Synchronized
+    fun clear(mapName: String) {
+        val indexEntries = indexes[mapName]?.entries
+        val records = unindexedRecords.remove(mapName)
+        if ((indexEntries == null || indexEntries.isEmpty()) && (records == null || records.isEmpty())) return
+
+        indexEntries?.clear()
+        write(CLEAR, mapName, null, null)
+    }
+
+    @Synchronized
+    fun flush(memoryCachesOnly: Boolean) {
+        output?.flush()
+
+        if (!memoryCachesOnly && unsynced) {
+            fileOutput!!.fd.sync()
+            unsynced = false
+        }
+    }
+
+    fun release() {
+        LogStructuredStore.release(this)
+    }
+
+    @Synchronized
+    private fun close() {
+        try {
+            output?.close()
+            output = null
+            fileOutput = null
+            unsynced = false
+            input?.close()
+            input = null
+
+            // a file which can't be deleted is still valid, all of its maps are cleared in it
+            if (isEmpty() && (file.delete() || !file.exists())) return
+
+            val fileSize = file.length()
+            if (fileSize > COMPACTION_THRESHOLD && fileSize > 2 * liveSize()) {
+                compact()
+            }
+        }
+        finally {
+            // compaction reads the values through a new handle and closes it before replacing the file
+            input?.close()
+            input = null
+        }
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun <K> index(mapName: String, keyDescriptor: KeyDescriptor<K>): MapIndex<K> =
+            indexes.getOrPut(mapName) {
+                val index = MapIndex(keyDescriptor)
+                for (record in unindexedRecords.remove(mapName).orEmpty()) {
+                    when (record.op) {
+                        PUT -> index.put(record.key, record.value!!)
+                        APPEND -> index.append(index.mapKey(record.key), record.key, record.value!!)
+                        REMOVE -> index.entries.remove(index.mapKey(record.key))
+                    }
+                }
+                index
+            } as MapIndex<K>
+
+    private fun isEmpty(): Boolean =
+            indexes.values.all { it.entries.isEmpty() } && unindexedRecords.values.all { it.isEmpty() }
+
+    private fun write(op: Byte, mapName: String, key: ByteArray?, value: ByteArray?): Segment {
+        val out = output ?: openOutput()
+        val nameBytes = mapName.toByteArray(Charsets.UTF_8)
+        writeRecord(out, op, nameBytes, key, value)
+        unsynced = true
+
+        val valueSize = value?.size ?: 0
+        endOffset += 1 + 4 + nameBytes.size + (if (key != null) 4 + key.size else 0) + (if (value != null) 4 + valueSize else 0)
+        return Segment(endOffset - valueSize, valueSize)
+    }
+
+    private fun openOutput(): DataOutputStream {
+        file.parentFile.mkdirs()
+        val isNew = file.length() == 0L
+        val fos = FileOutputStream(file, true)
+        val out = DataOutputStream(BufferedOutputStream(fos))
+        if (isNew) {
+            writeHeader(out)
+            endOffset = HEADER_SIZE
+        }
+        fileOutput = fos
+        output = out
+        return out
+    }
+
+    private fun writeHeader(out: DataOutputStream) {
+        out.writeInt(MAGIC)
+        out.writeInt(VERSION)
+    }
+
+    private fun writeRecord(out: DataOutputStream, op: Byte, mapName: ByteArray, key: ByteArray?, value: ByteArray?) {
+        out.writeByte(op.toInt())
+        writeBytes(out, mapName)
+        if (key != null) writeBytes(out, key)
+        if (value != null) writeBytes(out, value)
+    }
+
+    private fun writeBytes(out: DataOutputStream, bytes: ByteArray) {
+        out.writeInt(bytes.size)
+        out.write(bytes)
+    }
+
+    private fun readValue(segments: List<Segment>): ByteArray {
+        // the value may still be in the buffer of the output
+        output?.flush()
+
+        val channel = (input ?: RandomAccessFile(file, "r").apply { input = this }).channel
+        val result = ByteArray(segments.sumBy { it.length })
+        var resultOffset = 0
+        for (segment in segments) {
+            val buffer = ByteBuffer.wrap(result, resultOffset, segment.length)
+            var position = segment.offset
+            while (buffer.hasRemaining()) {
+                val read = channel.read(buffer, position)
+                if (read < 0) throw EOFException("Incremental caches storage is truncated: $file")
+                position += read
+            }
+            resultOffset += segment.length
+        }
+        return result
+    }
+
+    private fun load() {
+        val length = file.length()
+        if (length == 0L) return
+
+        val validLength = DataInputStream(BufferedInputStream(FileInputStream(file))).use { readRecords(RecordReader(it, length)) }
+        endOffset = validLength
+
+        if (validLength < length) {
+            // the tail was left by a build that didn't finish writing it
+            RandomAccessFile(file, "rw").use { it.setLength(validLength) }
+        }
+    }
+
+    private fun readRecords(reader: RecordReader): Long {
+        if (reader.length < HEADER_SIZE || reader.readInt() != MAGIC || reader.readInt() != VERSION) {
+            throw IOException("Incremental caches storage has unknown format: $file")
+        }
+
+        val mapNames = HashMap<String, String>()
+        var validLength = reader.position
+
+        try {
+            loop@ while (reader.position < reader.length) {
+                val op = reader.readByte()
+                val mapName = String(reader.readBytes(), Charsets.UTF_8).let { mapNames.getOrPut(it) { it } }
+                val records = unindexedRecords.getOrPut(mapName) { arrayListOf() }
+
+                when (op) {
+                    PUT, APPEND -> records.add(Record(op, reader.readBytes(), reader.skipBytes()))
+                    REMOVE -> records.add(Record(op, reader.readBytes(), null))
+                    CLEAR -> records.clear()
+                    else -> break@loop
+                }
+
+                validLength = reader.position
+            }
+        }
+        catch (e: EOFException) {
+        }
+
+        return validLength
+    }
+
+    private fun liveSize(): Long {
+        var size = HEADER_SIZE
+        for ((mapName, index) in indexes) {
+            val nameSize = mapName.toByteArray(Charsets.UTF_8).size + 13L
+            for (entry in index.entries.values) {
+                size += nameSize + entry.keyBytes.size + entry.segments.sumBy { it.length }
+            }
+        }
+        for ((mapName, records) in unindexedRecords) {
+            val nameSize = mapName.toByteArray(Charsets.UTF_8).size + 13L
+            for (record in records) {
+                size += nameSize + record.key.size + (record.value?.length ?: 0)
+            }
+        }
+        return size
+    }
+
+    private fun compact() {
+        val compactedFile = File(file.path + ".tmp")
+        FileOutputStream(compactedFile).use { fos ->
+            val out = DataOutputStream(BufferedOutputStream(fos))
+            writeHeader(out)
+            for ((mapName, index) in indexes) {
+                val nameBytes = mapName.toByteArray(Charsets.UTF_8)
+                for (entry in index.entries.values) {
+                    writeRecord(out, PUT, nameBytes, entry.keyBytes, readValue(entry.segments))
+                }
+            }
+            // the maps which haven't been opened keep their records as they are, since their keys can't be compared
+            for ((mapName, records) in unindexedRecords) {
+                val nameBytes = mapName.toByteArray(Charsets.UTF_8)
+                for (record in records) {
+                    writeRecord(out, record.op, nameBytes, record.key, record.value?.let { readValue(listOf(it)) })
+                }
+            }
+            out.flush()
+            fos.fd.sync()
+        }
+
+        // the file can't be replaced on Windows while a handle to it is open
+        input?.close()
+        input = null
+
+        if (backupFile.exists() && !backupFile.delete() || !file.renameTo(backupFile)) {
+            // the old file is still in place and valid
+            compactedFile.delete()
+            return
+        }
+        if (!compactedFile.renameTo(file)) {
+            if (!backupFile.renameTo(file)) {
+                throw IOException("Cannot restore incremental caches storage $file from $backupFile")
+            }
+            compactedFile.delete()
+            return
+        }
+        // a backup left next to the file is ignored, and deleted by the next compaction
+        backupFile.delete()
+    }
+
+    private class RecordReader(private val input: DataInputStream, val length: Long) {
+        var position = 0L
+            private set
+
+        fun readByte(): Byte {
+            val result = input.readByte()
+            position++
+            return result
+        }
+
+        fun readInt(): Int {
+            val result = input.readInt()
+            position += 4
+            return result
+        }
+
+        fun readBytes(): ByteArray {
+            val bytes = ByteArray(readSize())
+            input.readFully(bytes)
+            position += bytes.size
+            return bytes
+        }
+
+        fun skipBytes(): Segment {
+            val segment = Segment(position + 4, readSize())
+            var remaining = segment.length
+            while (remaining > 0) {
+                val skipped = input.skipBytes(remaining)
+                if (skipped <= 0) throw EOFException()
+                remaining -= skipped
+            }
+            position += segment.length
+            return segment
+        }
+
+        private fun readSize(): Int {
+            val size = readInt()
+            if (size < 0 || position + size > length) throw EOFException()
+            return size
+        }
+    }
+}
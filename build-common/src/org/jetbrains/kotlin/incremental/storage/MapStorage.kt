@@ -0,0 +1,78 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.incremental.storage
+
+import com.intellij.util.io.DataExternalizer
+import com.intellij.util.io.KeyDescriptor
+import org.jetbrains.kotlin.config.IncrementalCompilation
+import java.io.File
+
+interface MapStorage<K, V> {
+    val keys: Collection<K>
+
+    operator fun contains(key: K): Boolean
+
+    operator fun get(key: K): V?
+
+    operator fun set(key: K, value: V)
+
+    fun remove(key: K)
+
+    fun append(key: K, value: String)
+
+    fun append(key: K, value: Int)
+
+    fun clean()
+
+    fun flush(memoryCachesOnly: Boolean)
+
+    fun close()
+}
+
+/**
+ * Creates a storage for the map which is kept in [storageFile] when the single file storage is off,
+ * moving the data of the map over if it was left in the other format by a previous build.
+ */
+internal fun <K, V> createMapStorage(
+        storageFile: File,
+        keyDescriptor: KeyDescriptor<K>,
+        valueExternalizer: DataExternalizer<V>
+): MapStorage<K, V> {
+    val lazyStorage = LazyStorage(storageFile, keyDescriptor, valueExternalizer)
+    val logStorage = LogMapStorage(storageFile, keyDescriptor, valueExternalizer)
+
+    return if (IncrementalCompilation.isSingleFileStorage()) {
+        if (storageFile.exists()) {
+            lazyStorage.moveTo(logStorage)
+        }
+        logStorage
+    }
+    else {
+        if (logStorage.storeExists) {
+            logStorage.moveTo(lazyStorage)
+            logStorage.close()
+        }
+        lazyStorage
+    }
+}
+
+private fun <K, V> MapStorage<K, V>.moveTo(target: MapStorage<K, V>) {
+    for (key in keys) {
+        target[key] = this[key] ?: continue
+    }
+    clean()
+}
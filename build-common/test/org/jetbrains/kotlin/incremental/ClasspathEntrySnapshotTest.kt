@@ -0,0 +1,87 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.incremental
+
+import org.jetbrains.kotlin.name.FqName
+import org.jetbrains.kotlin.test.MockLibraryUtil
+import org.jetbrains.kotlin.test.TestCaseWithTmpdir
+import java.io.File
+
+class ClasspathEntrySnapshotTest : TestCaseWithTmpdir() {
+    fun testNoChanges() {
+        val source = "package test\nclass A { fun foo() {} }\nconst val X = 1\ninline fun f() = 1"
+        val dirtyData = compare(source, source)
+
+        assertEquals(emptySet<LookupSymbol>(), dirtyData.dirtyLookupSymbols.toSet())
+        assertEquals(emptySet<FqName>(), dirtyData.dirtyClassesFqNames.toSet())
+    }
+
+    fun testProtoChanged() {
+        val dirtyData = compare(
+                "package test\nclass A { fun foo() {} }\nconst val X = 1",
+                "package test\nclass A { fun foo() {}\nfun bar() {} }\nconst val X = 1"
+        )
+
+        assertEquals(setOf(LookupSymbol("bar", "test.A")), dirtyData.dirtyLookupSymbols.toSet())
+        assertEquals(setOf(FqName("test.A")), dirtyData.dirtyClassesFqNames.toSet())
+    }
+
+    fun testConstantChanged() {
+        val dirtyData = compare(
+                "package test\nconst val X = 1\nconst val Y = 1",
+                "package test\nconst val X = 2\nconst val Y = 1"
+        )
+
+        assertEquals(setOf(LookupSymbol("X", "test")), dirtyData.dirtyLookupSymbols.toSet())
+        assertEquals(setOf(FqName("test")), dirtyData.dirtyClassesFqNames.toSet())
+    }
+
+    fun testConstantInObjectChanged() {
+        val dirtyData = compare(
+                "package test\nobject O { const val X = \"a\" }",
+                "package test\nobject O { const val X = \"b\" }"
+        )
+
+        assertEquals(setOf(LookupSymbol("X", "test.O")), dirtyData.dirtyLookupSymbols.toSet())
+    }
+
+    fun testInlineFunctionBodyChanged() {
+        val dirtyData = compare(
+                "package test\ninline fun f() = 1\ninline fun g() = 1",
+                "package test\ninline fun f() = 2\ninline fun g() = 1"
+        )
+
+        assertEquals(setOf(LookupSymbol("f", "test")), dirtyData.dirtyLookupSymbols.toSet())
+        assertEquals(setOf(FqName("test")), dirtyData.dirtyClassesFqNames.toSet())
+    }
+
+    // the old snapshot is written and read back, as it is between builds
+    private fun compare(oldSource: String, newSource: String): DirtyData {
+        val snapshotFile = File(tmpdir, "snapshot.bin")
+        ClasspathEntrySnapshot.write(ClasspathEntrySnapshot.create(compile("old", oldSource)), snapshotFile)
+        val oldSnapshot = ClasspathEntrySnapshot.read(snapshotFile)!!
+
+        return ClasspathEntrySnapshot.create(compile("new", newSource)).compareTo(oldSnapshot)
+    }
+
+    private fun compile(name: String, source: String): File {
+        val sourceFile = File(tmpdir, "$name/src/test.kt")
+        sourceFile.parentFile.mkdirs()
+        sourceFile.writeText(source)
+        return MockLibraryUtil.compileLibraryToJar(sourceFile.parent, File(tmpdir, name), name, false, false)
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2010-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.incremental.storage
+
+import com.intellij.util.io.EnumeratorStringDescriptor
+import com.intellij.util.io.IOUtil
+import com.intellij.util.io.KeyDescriptor
+import org.jetbrains.kotlin.config.IncrementalCompilation
+import org.jetbrains.kotlin.test.TestCaseWithTmpdir
+import java.io.DataInput
+import java.io.DataInputStream
+import java.io.DataOutput
+import java.io.File
+
+class LogMapStorageTest : TestCaseWithTmpdir() {
+    private val storeFile: File
+        get() = File(tmpdir, LogStructuredStore.FILE_NAME)
+
+    fun testFormat() {
+        withStorage("a.tab") { it["key"] = "value" }
+
+        DataInputStream(storeFile.inputStream()).use { input ->
+            assertEquals(LogStructuredStore.MAGIC, input.readInt())
+            assertEquals(LogStructuredStore.VERSION, input.readInt())
+            assertEquals(LogStructuredStore.PUT, input.readByte())
+            assertEquals("a.tab", String(readBytes(input), Charsets.UTF_8))
+            assertEquals("key", EnumeratorStringDescriptor().read(DataInputStream(readBytes(input).inputStream())))
+            assertEquals("value", EnumeratorStringDescriptor().read(DataInputStream(readBytes(input).inputStream())))
+            assertEquals(-1, input.read())
+        }
+    }
+
+    fun testRoundTrip() {
+        withStorage("a.tab") {
+            it["removed"] = "1"
+            it["overwritten"] = "2"
+            it["kept"] = "3"
+            it.remove("removed")
+            it["overwritten"] = "4"
+        }
+        withStorage("b.tab") {
+            it["cleaned"] = "5"
+            it.clean()
+            it["added"] = "6"
+        }
+        withIntsStorage("c.tab") {
+            it.append("ints", 1)
+            it.append("ints", 2)
+        }
+
+        withStorage("a.tab") {
+            assertEquals(setOf("overwritten", "kept"), it.keys.toSet())
+            assertEquals("4", it["overwritten"])
+            assertEquals("3", it["kept"])
+            assertFalse("removed" in it)
+        }
+        withStorage("b.tab") {
+            assertEquals(listOf("added"), it.keys.toList())
+            assertEquals("6", it["added"])
+        }
+        withIntsStorage("c.tab") {
+            assertEquals(setOf(1, 2), it["ints"])
+            it.append("ints", 3)
+            assertEquals(setOf(1, 2, 3), it["ints"])
+        }
+    }
+
+    fun testTruncatedTailIsDropped() {
+        withStorage("a.tab") { it["key"] = "value" }
+        val validLength = storeFile.length()
+
+        // a record interrupted in the middle of the map name
+        storeFile.appendBytes(byteArrayOf(LogStructuredStore.PUT, 0, 0, 0, 5, 'a'.toByte()))
+
+        withStorage("a.tab") {
+            assertEquals("value", it["key"])
+            assertEquals(validLength, storeFile.length())
+            it["other"] = "value2"
+        }
+        withStorage("a.tab") {
+            assertEquals("value", it["key"])
+            assertEquals("value2", it["other"])
+        }
+    }
+
+    fun testCompaction() {
+        withStorage("b.tab") { it["unopened"] = "value" }
+
+        val value = "x".repeat(1000)
+        withStorage("a.tab") {
+            for (i in 1..3000) {
+                it["key"] = value + i
+            }
+            it["other"] = "value"
+        }
+
+        val size = storeFile.length()
+        assertTrue("Storage is not compacted, its size is $size", size < 10000)
+        assertFalse(File(storeFile.path + ".bak").exists())
+        assertFalse(File(storeFile.path + ".tmp").exists())
+
+        withStorage("a.tab") {
+            assertEquals(value + 3000, it["key"])
+            assertEquals("value", it["other"])
+        }
+        withStorage("b.tab") { assertEquals("value", it["unopened"]) }
+    }
+
+    fun testFileIsDeletedWhenAllMapsAreCleaned() {
+        withStorage("a.tab") { it["key"] = "value" }
+        withStorage("a.tab") { it.clean() }
+
+        assertFalse(storeFile.exists())
+    }
+
+    fun testKeysAreComparedByDescriptor() {
+        withStorage("a.tab", CaseInsensitiveDescriptor) {
+            it["Key"] = "1"
+            it["KEY"] = "2"
+            assertEquals(1, it.keys.size)
+            assertEquals("2", it["key"])
+        }
+        withStorage("a.tab", CaseInsensitiveDescriptor) {
+            assertEquals(1, it.keys.size)
+            assertEquals("2", it["kEy"])
+            it.remove("key")
+            assertEquals(0, it.keys.size)
+        }
+    }
+
+    fun testMigrationFromPersistentHashMap() {
+        val wasSingleFileStorage = IncrementalCompilation.isSingleFileStorage()
+        val mapFile = File(tmpdir, "a.tab")
+        try {
+            IncrementalCompilation.setIsSingleFileStorage(false)
+            createMapStorage(mapFile, EnumeratorStringDescriptor(), EnumeratorStringDescriptor()).use {
+                it["key1"] = "value1"
+                it["key2"] = "value2"
+            }
+            assertTrue(mapFile.exists())
+
+            IncrementalCompilation.setIsSingleFileStorage(true)
+            createMapStorage(mapFile, EnumeratorStringDescriptor(), EnumeratorStringDescriptor()).use {
+                assertEquals(setOf("key1", "key2"), it.keys.toSet())
+                assertEquals("value1", it["key1"])
+            }
+            assertFalse(mapFile.exists())
+            assertTrue(storeFile.exists())
+
+            IncrementalCompilation.setIsSingleFileStorage(false)
+            createMapStorage(mapFile, EnumeratorStringDescriptor(), EnumeratorStringDescriptor()).use {
+                assertEquals("value2", it["key2"])
+            }
+            assertFalse(storeFile.exists())
+        }
+        finally {
+            IncrementalCompilation.setIsSingleFileStorage(wasSingleFileStorage)
+        }
+    }
+
+    private fun readBytes(input: DataInputStream): ByteArray {
+        val bytes = ByteArray(input.readInt())
+        input.readFully(bytes)
+        return bytes
+    }
+
+    private fun withStorage(
+            name: String,
+            keyDescriptor: KeyDescriptor<String> = EnumeratorStringDescriptor(),
+            body: (MapStorage<String, String>) -> Unit
+    ) {
+        LogMapStorage(File(tmpdir, name), keyDescriptor, EnumeratorStringDescriptor()).use(body)
+    }
+
+    private fun withIntsStorage(name: String, body: (MapStorage<String, Collection<Int>>) -> Unit) {
+        LogMapStorage(File(tmpdir, name), EnumeratorStringDescriptor(), IntCollectionExternalizer).use(body)
+    }
+
+    private inline fun <S : MapStorage<*, *>> S.use(body: (S) -> Unit) {
+        try {
+            body(this)
+        }
+        finally {
+            close()
+        }
+    }
+
+    private object CaseInsensitiveDescriptor : KeyDescriptor<String> {
+        override fun save(output: DataOutput, value: String) = IOUtil.writeUTF(output, value)
+
+        override fun read(input: DataInput): String = IOUtil.readUTF(input)
+
+        override fun getHashCode(value: String): Int = value.toLowerCase().hashCode()
+
+        override fun isEqual(val1: String, val2: String): Boolean = val1.equals(val2, ignoreCase = true)
+    }
+}
@@ -1536,20 +1536,20 @@ public class ExpressionCodegen extends KtVisitor<StackValue, StackValue> impleme
             return StackValue.operation(JAVA_STRING_TYPE, new Function1<InstructionAdapter, Unit>() {
                 @Override
                 public Unit invoke(InstructionAdapter v) {
-                    genStringBuilderConstructor(v);
+                    StringConcatGenerator generator = StringConcatGenerator.create(state, v);
+                    generator.genStringBuilderConstructor();
                     for (KtStringTemplateEntry entry : entries) {
                         if (entry instanceof KtStringTemplateEntryWithExpression) {
-                            invokeAppend(entry.getExpression());
+                            invokeAppend(generator, entry.getExpression());
                         }
                         else {
                             String text = entry instanceof KtEscapeStringTemplateEntry
                                           ? ((KtEscapeStringTemplateEntry) entry).getUnescapedValue()
                                           : entry.getText();
-                            v.aconst(text);
-                            genInvokeAppendMethod(v, JAVA_STRING_TYPE);
+                            generator.addStringConstant(text);
                         }
                     }
-                    v.invokevirtual("java/lang/StringBuilder", "toString", "()Ljava/lang/String;", false);
+                    generator.genToString();
                     return Unit.INSTANCE;
                 }
             });
@@ -1601,6 +1601,11 @@ public class ExpressionCodegen extends KtVisitor<StackValue, StackValue> impleme
         FunctionDescriptor descriptor = bindingContext.get(FUNCTION, declaration);
         assert descriptor != null : "Function is not resolved to descriptor: " + declaration.getText();
 
+        IndyLambdaCodegen indyLambdaCodegen = IndyLambdaCodegen.create(this, declaration, descriptor, samType);
+        if (indyLambdaCodegen != null) {
+            return indyLambdaCodegen.generate();
+        }
+
         return genClosure(
                 declaration, descriptor, new ClosureGenerationStrategy(state, declaration), samType, null, null
         );
@@ -3816,7 +3821,7 @@ public class ExpressionCodegen extends KtVisitor<StackValue, StackValue> impleme
         }
     }
 
-    public void invokeAppend(KtExpression expr) {
+    public void invokeAppend(@NotNull StringConcatGenerator generator, KtExpression expr) {
         ConstantValue<?> compileTimeConstant = getPrimitiveOrStringCompileTimeConstant(expr, bindingContext, state.getShouldInlineConstVals());
 
         if (compileTimeConstant == null && expr instanceof KtBinaryExpression) {
@@ -3827,20 +3832,25 @@ public class ExpressionCodegen extends KtVisitor<StackValue, StackValue> impleme
                 Type leftType = expressionType(left);
 
                 if (leftType.equals(JAVA_STRING_TYPE)) {
-                    invokeAppend(left);
-                    invokeAppend(right);
+                    invokeAppend(generator, left);
+                    invokeAppend(generator, right);
                     return;
                 }
             }
         }
 
         Type exprType = expressionType(expr);
+        if (compileTimeConstant != null && compileTimeConstant.getValue() instanceof String && exprType.equals(JAVA_STRING_TYPE)) {
+            generator.addStringConstant((String) compileTimeConstant.getValue());
+            return;
+        }
+
         if (compileTimeConstant != null) {
             StackValue.constant(compileTimeConstant.getValue(), exprType).put(exprType, v);
         } else {
             gen(expr, exprType);
         }
-        genInvokeAppendMethod(v, exprType.getSort() == Type.ARRAY ? OBJECT_TYPE : exprType);
+        generator.invokeAppend(exprType.getSort() == Type.ARRAY ? OBJECT_TYPE : exprType);
     }
 
     @Nullable
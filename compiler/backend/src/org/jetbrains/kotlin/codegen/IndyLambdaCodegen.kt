@@ -0,0 +1,291 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.codegen
+
+import com.intellij.psi.PsiElement
+import com.intellij.psi.util.PsiTreeUtil
+import org.jetbrains.kotlin.codegen.binding.CodegenBinding
+import org.jetbrains.kotlin.codegen.context.CodegenContext
+import org.jetbrains.kotlin.codegen.context.InlineLambdaContext
+import org.jetbrains.kotlin.descriptors.ClassDescriptor
+import org.jetbrains.kotlin.descriptors.FunctionDescriptor
+import org.jetbrains.kotlin.descriptors.PropertyDescriptor
+import org.jetbrains.kotlin.name.FqName
+import org.jetbrains.kotlin.psi.*
+import org.jetbrains.kotlin.resolve.BindingContext
+import org.jetbrains.kotlin.resolve.DescriptorUtils
+import org.jetbrains.kotlin.resolve.descriptorUtil.fqNameSafe
+import org.jetbrains.kotlin.resolve.descriptorUtil.getAllSuperClassifiers
+import org.jetbrains.kotlin.resolve.calls.callUtil.getResolvedCall
+import org.jetbrains.kotlin.resolve.inline.InlineUtil
+import org.jetbrains.kotlin.resolve.jvm.AsmTypes
+import org.jetbrains.kotlin.resolve.jvm.diagnostics.JvmDeclarationOrigin
+import org.jetbrains.kotlin.resolve.jvm.diagnostics.OtherOrigin
+import org.jetbrains.org.objectweb.asm.Handle
+import org.jetbrains.org.objectweb.asm.Opcodes
+import org.jetbrains.org.objectweb.asm.Label
+import org.jetbrains.org.objectweb.asm.Type
+import org.jetbrains.org.objectweb.asm.commons.InstructionAdapter
+import org.jetbrains.org.objectweb.asm.commons.Method
+import java.util.*
+
+/**
+ * Generates a lambda as an `invokedynamic` instruction bootstrapped by `LambdaMetafactory` instead of a separate class.
+ * The body of the lambda becomes a private static synthetic method of the class containing the lambda.
+ *
+ * Only non-capturing function literals are generated this way, and only if they don't contain declarations which would need
+ * the lambda class as their outer class. Instances created by `LambdaMetafactory` are not `kotlin.jvm.internal.Lambda`,
+ * so their `toString()` differs and `reflect()` is not supported for them.
+ *
+ * Kotlin lambdas are serializable, as are SAM-converted lambdas of serializable interfaces. Such lambdas are bootstrapped by
+ * `LambdaMetafactory.altMetafactory` with `FLAG_SERIALIZABLE`, and the containing class gets a `$deserializeLambda$` method
+ * (see [SerializableIndyLambdas]) which `SerializedLambda.readResolve` calls to recreate them.
+ */
+class IndyLambdaCodegen private constructor(
+        private val codegen: ExpressionCodegen,
+        private val declaration: KtFunctionLiteral,
+        private val descriptor: FunctionDescriptor,
+        private val interfaceType: Type,
+        private val samMethod: Method,
+        private val instantiatedMethodType: Type,
+        private val isSerializable: Boolean
+) {
+    fun generate(): StackValue {
+        val state = codegen.state
+        val parentCodegen = codegen.parentCodegen
+        val signature = state.typeMapper.mapSignatureSkipGeneric(descriptor)
+        val implMethod = Method(implMethodName(parentCodegen.className), signature.asmMethod.descriptor)
+
+        val mv = parentCodegen.v.newMethod(
+                OtherOrigin(declaration, descriptor), Opcodes.ACC_PRIVATE or Opcodes.ACC_STATIC or Opcodes.ACC_SYNTHETIC,
+                implMethod.name, implMethod.descriptor, null, null
+        )
+        val closureContext = codegen.context.intoClosure(descriptor, codegen, state.typeMapper)
+        FunctionCodegen.generateMethodBody(
+                mv, descriptor, closureContext.intoStaticFunction(descriptor), signature,
+                ClosureGenerationStrategy(state, declaration), parentCodegen
+        )
+        FunctionCodegen.endVisit(mv, "lambda body", declaration)
+
+        val call = IndyLambdaCall(
+                interfaceType, samMethod, Handle(Opcodes.H_INVOKESTATIC, parentCodegen.className, implMethod.name, implMethod.descriptor),
+                instantiatedMethodType, isSerializable
+        )
+        if (isSerializable) {
+            parentCodegen.serializableIndyLambdas.add(call)
+        }
+        return StackValue.operation(interfaceType) { v -> call.generate(v) }
+    }
+
+    private fun implMethodName(ownerClassName: String): String {
+        val lambdaClassName = CodegenBinding.asmTypeForAnonymousClass(codegen.bindingContext, descriptor).internalName
+        val suffix =
+                if (lambdaClassName.startsWith(ownerClassName + "$")) lambdaClassName.substring(ownerClassName.length + 1)
+                else lambdaClassName.substringAfterLast('/')
+        return "lambda$" + suffix
+    }
+
+    companion object {
+        private val SERIALIZABLE_FQ_NAME = FqName("java.io.Serializable")
+
+        @JvmStatic
+        fun create(
+                codegen: ExpressionCodegen,
+                declaration: KtDeclarationWithBody,
+                descriptor: FunctionDescriptor,
+                samType: SamType?
+        ): IndyLambdaCodegen? {
+            val state = codegen.state
+            if (!state.generateIndyLambdas || !state.classBuilderMode.generateBodies) return null
+            if (declaration !is KtFunctionLiteral || descriptor.isSuspend) return null
+
+            val bindingContext = codegen.bindingContext
+            val closure = bindingContext.get(CodegenBinding.CLOSURE, CodegenBinding.anonymousClassForCallable(bindingContext, descriptor))
+            if (closure == null || !JvmCodegenUtil.isConst(closure)) return null
+
+            if (isInlined(codegen.context) || InlineUtil.isInlineOrContainingInline(descriptor.containingDeclaration)) return null
+            if (DescriptorUtils.isInterface(DescriptorUtils.getParentOfType(descriptor, ClassDescriptor::class.java))) return null
+            if (needsLambdaClass(declaration, bindingContext)) return null
+
+            val erasedInterfaceFunction = samType?.abstractMethod?.original ?: ClosureCodegen.getErasedInvokeFunction(descriptor)
+            // Bridges for the other signatures of the SAM method can't be requested from the plain metafactory
+            if (samType != null && erasedInterfaceFunction.overriddenDescriptors.isNotEmpty()) return null
+
+            val typeMapper = state.typeMapper
+            val interfaceType =
+                    if (samType != null) typeMapper.mapType(samType.type)
+                    else typeMapper.mapType((erasedInterfaceFunction.containingDeclaration as ClassDescriptor).defaultType)
+            val samMethod = typeMapper.mapAsmMethod(erasedInterfaceFunction)
+            val implMethod = typeMapper.mapAsmMethod(descriptor)
+
+            val instantiatedMethodType = instantiatedMethodType(samMethod, implMethod) ?: return null
+            // Kotlin lambdas are serializable just like the kotlin.jvm.internal.Lambda subclasses generated for them otherwise
+            val isSerializable = samType == null || samType.javaClassDescriptor.getAllSuperClassifiers().any {
+                it.fqNameSafe == SERIALIZABLE_FQ_NAME
+            }
+            return IndyLambdaCodegen(codegen, declaration, descriptor, interfaceType, samMethod, instantiatedMethodType, isSerializable)
+        }
+
+        private fun isInlined(context: CodegenContext<*>): Boolean {
+            var current: CodegenContext<*>? = context
+            while (current != null) {
+                if (current is InlineLambdaContext || current.isInlineMethodContext) return true
+                current = current.parentContext
+            }
+            return false
+        }
+
+        // Classes, objects and callable references declared in the lambda would have the lambda class as their outer class,
+        // and anonymous objects from inline functions are regenerated with names based on it
+        private fun needsLambdaClass(declaration: KtFunctionLiteral, bindingContext: BindingContext): Boolean {
+            val body = declaration.bodyExpression ?: return false
+            if (PsiTreeUtil.findChildOfAnyType(
+                    body, KtLambdaExpression::class.java, KtNamedFunction::class.java, KtClassOrObject::class.java,
+                    KtObjectLiteralExpression::class.java, KtCallableReferenceExpression::class.java, KtPropertyDelegate::class.java
+            ) != null) return true
+
+            return PsiTreeUtil.findChildrenOfType(body, KtExpression::class.java).any { expression ->
+                val target = expression.getResolvedCall(bindingContext)?.resultingDescriptor
+                InlineUtil.isInline(target) || target is PropertyDescriptor && InlineUtil.hasInlineAccessors(target)
+            } || PsiTreeUtil.findChildrenOfType(body, KtForExpression::class.java).any { loop ->
+                val range = loop.loopRange
+                range != null && InlineUtil.isInline(bindingContext.get(BindingContext.LOOP_RANGE_ITERATOR_RESOLVED_CALL, range)?.resultingDescriptor)
+            }
+        }
+
+        // LambdaMetafactory boxes primitive values of the body method where the interface method has a reference type,
+        // but can't produce a value for a `void` body method
+        private fun instantiatedMethodType(samMethod: Method, implMethod: Method): Type? {
+            val samParameters = samMethod.argumentTypes
+            val implParameters = implMethod.argumentTypes
+            if (samParameters.size != implParameters.size) return null
+
+            val parameters = samParameters.indices.map { i -> instantiatedType(samParameters[i], implParameters[i]) ?: return null }
+            val returnType =
+                    if (samMethod.returnType == Type.VOID_TYPE) Type.VOID_TYPE
+                    else if (implMethod.returnType == Type.VOID_TYPE) return null
+                    else instantiatedType(samMethod.returnType, implMethod.returnType) ?: return null
+
+            return Type.getMethodType(returnType, *parameters.toTypedArray())
+        }
+
+        private fun instantiatedType(samType: Type, implType: Type): Type? =
+                when {
+                    AsmUtil.isPrimitive(samType) -> if (samType == implType) samType else null
+                    AsmUtil.isPrimitive(implType) -> AsmUtil.boxType(implType)
+                    else -> implType
+                }
+    }
+}
+
+class IndyLambdaCall(
+        val interfaceType: Type,
+        val samMethod: Method,
+        val implMethod: Handle,
+        val instantiatedMethodType: Type,
+        val isSerializable: Boolean
+) {
+    fun generate(v: InstructionAdapter) {
+        val samMethodType = Type.getMethodType(samMethod.descriptor)
+        if (isSerializable) {
+            v.invokedynamic(
+                    samMethod.name, Type.getMethodDescriptor(interfaceType), ALT_METAFACTORY,
+                    arrayOf(samMethodType, implMethod, instantiatedMethodType, FLAG_SERIALIZABLE)
+            )
+        }
+        else {
+            v.invokedynamic(
+                    samMethod.name, Type.getMethodDescriptor(interfaceType), METAFACTORY,
+                    arrayOf(samMethodType, implMethod, instantiatedMethodType)
+            )
+        }
+    }
+
+    private companion object {
+        val METAFACTORY = Handle(
+                Opcodes.H_INVOKESTATIC, "java/lang/invoke/LambdaMetafactory", "metafactory",
+                "(Ljava/lang/invoke/MethodHandles\$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;" +
+                "Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodHandle;Ljava/lang/invoke/MethodType;)" +
+                "Ljava/lang/invoke/CallSite;"
+        )
+
+        val ALT_METAFACTORY = Handle(
+                Opcodes.H_INVOKESTATIC, "java/lang/invoke/LambdaMetafactory", "altMetafactory",
+                "(Ljava/lang/invoke/MethodHandles\$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;[Ljava/lang/Object;)" +
+                "Ljava/lang/invoke/CallSite;"
+        )
+
+        // LambdaMetafactory.FLAG_SERIALIZABLE
+        const val FLAG_SERIALIZABLE = 1
+    }
+}
+
+/**
+ * Generates the `$deserializeLambda$` method of a class with serializable lambdas generated by [IndyLambdaCodegen].
+ * The lambdas don't capture anything, so a lambda is recreated by repeating its `invokedynamic` instruction.
+ */
+class SerializableIndyLambdas {
+    private val lambdas = ArrayList<IndyLambdaCall>()
+
+    fun add(lambda: IndyLambdaCall) {
+        lambdas.add(lambda)
+    }
+
+    fun generateDeserializeLambdaMethod(builder: ClassBuilder) {
+        if (lambdas.isEmpty()) return
+
+        val mv = builder.newMethod(
+                JvmDeclarationOrigin.NO_ORIGIN, Opcodes.ACC_PRIVATE or Opcodes.ACC_STATIC or Opcodes.ACC_SYNTHETIC,
+                "\$deserializeLambda\$", "(L$SERIALIZED_LAMBDA;)Ljava/lang/Object;", null, null
+        )
+        mv.visitCode()
+        val v = InstructionAdapter(mv)
+
+        for (lambda in lambdas) {
+            val next = Label()
+            checkProperty(v, "getImplMethodName", lambda.implMethod.name, next)
+            checkProperty(v, "getImplMethodSignature", lambda.implMethod.desc, next)
+            checkProperty(v, "getImplClass", lambda.implMethod.owner, next)
+            checkProperty(v, "getFunctionalInterfaceClass", lambda.interfaceType.internalName, next)
+            checkProperty(v, "getFunctionalInterfaceMethodName", lambda.samMethod.name, next)
+            checkProperty(v, "getFunctionalInterfaceMethodSignature", lambda.samMethod.descriptor, next)
+            lambda.generate(v)
+            v.areturn(AsmTypes.OBJECT_TYPE)
+            v.mark(next)
+        }
+
+        v.anew(Type.getObjectType("java/lang/IllegalArgumentException"))
+        v.dup()
+        v.aconst("Invalid lambda deserialization")
+        v.invokespecial("java/lang/IllegalArgumentException", "<init>", "(Ljava/lang/String;)V", false)
+        v.athrow()
+
+        FunctionCodegen.endVisit(mv, "\$deserializeLambda\$", null as PsiElement?)
+    }
+
+    private fun checkProperty(v: InstructionAdapter, getter: String, expected: String, otherwise: Label) {
+        v.load(0, Type.getObjectType(SERIALIZED_LAMBDA))
+        v.invokevirtual(SERIALIZED_LAMBDA, getter, "()Ljava/lang/String;", false)
+        v.aconst(expected)
+        v.invokevirtual("java/lang/String", "equals", "(Ljava/lang/Object;)Z", false)
+        v.ifeq(otherwise)
+    }
+
+    private companion object {
+        const val SERIALIZED_LAMBDA = "java/lang/invoke/SerializedLambda"
+    }
+}
@@ -98,6 +98,8 @@ public abstract class MemberCodegen<T extends KtPureElement/* TODO: & KtDeclarat
 
     private DefaultSourceMapper sourceMapper;
 
+    private SerializableIndyLambdas serializableIndyLambdas;
+
     public MemberCodegen(
             @NotNull GenerationState state,
             @Nullable MemberCodegen<?> parentCodegen,
@@ -170,6 +172,10 @@ public abstract class MemberCodegen<T extends KtPureElement/* TODO: & KtDeclarat
     }
 
     protected void done() {
+        if (serializableIndyLambdas != null) {
+            serializableIndyLambdas.generateDeserializeLambdaMethod(v);
+        }
+
         if (clInit != null) {
             clInit.v.visitInsn(RETURN);
             FunctionCodegen.endVisit(clInit.v, "static initializer", element);
@@ -184,6 +190,14 @@ public abstract class MemberCodegen<T extends KtPureElement/* TODO: & KtDeclarat
         v.done();
     }
 
+    @NotNull
+    public SerializableIndyLambdas getSerializableIndyLambdas() {
+        if (serializableIndyLambdas == null) {
+            serializableIndyLambdas = new SerializableIndyLambdas();
+        }
+        return serializableIndyLambdas;
+    }
+
     public void genSimpleMember(@NotNull KtDeclaration declaration) {
         if (declaration instanceof KtNamedFunction) {
             try {
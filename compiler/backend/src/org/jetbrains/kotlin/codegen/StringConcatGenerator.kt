@@ -0,0 +1,123 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.codegen
+
+import org.jetbrains.kotlin.codegen.state.GenerationState
+import org.jetbrains.kotlin.resolve.jvm.AsmTypes
+import org.jetbrains.org.objectweb.asm.Handle
+import org.jetbrains.org.objectweb.asm.Opcodes
+import org.jetbrains.org.objectweb.asm.Type
+import org.jetbrains.org.objectweb.asm.commons.InstructionAdapter
+
+/**
+ * Generates string concatenation either as a `StringBuilder` chain, or, for JVM 9+ targets,
+ * as a single `invokedynamic` bootstrapped by `StringConcatFactory.makeConcatWithConstants`.
+ *
+ * Usage: [genStringBuilderConstructor], then [addStringConstant] and [invokeAppend] (after putting a value on the stack)
+ * for each part, then [genToString].
+ */
+class StringConcatGenerator(private val useIndy: Boolean, private val mv: InstructionAdapter) {
+    private val template = StringBuilder()
+    private val specialConstants = arrayListOf<String>()
+    private val parameterTypes = arrayListOf<Type>()
+    private var parameterSlots = 0
+
+    fun genStringBuilderConstructor() {
+        if (!useIndy) {
+            AsmUtil.genStringBuilderConstructor(mv)
+        }
+    }
+
+    fun addStringConstant(value: String) {
+        if (!useIndy) {
+            mv.aconst(value)
+            AsmUtil.genInvokeAppendMethod(mv, AsmTypes.JAVA_STRING_TYPE)
+        }
+        else if (value.contains(TAG_ARGUMENT) || value.contains(TAG_CONSTANT)) {
+            template.append(TAG_CONSTANT)
+            specialConstants.add(value)
+        }
+        else {
+            template.append(value)
+        }
+    }
+
+    fun invokeAppend(type: Type) {
+        if (!useIndy) {
+            AsmUtil.genInvokeAppendMethod(mv, type)
+            return
+        }
+
+        val parameterType = concatParameterType(type)
+        template.append(TAG_ARGUMENT)
+        parameterTypes.add(parameterType)
+        parameterSlots += parameterType.size
+
+        if (parameterSlots >= MAX_PARAMETER_SLOTS) {
+            // Concatenate the arguments collected so far, the result becomes the first argument of the rest
+            genToString()
+            template.append(TAG_ARGUMENT)
+            parameterTypes.add(AsmTypes.JAVA_STRING_TYPE)
+            parameterSlots = 1
+        }
+    }
+
+    fun genToString() {
+        if (!useIndy) {
+            mv.invokevirtual("java/lang/StringBuilder", "toString", "()Ljava/lang/String;", false)
+            return
+        }
+
+        val bootstrapArguments = arrayListOf<Any>(template.toString())
+        bootstrapArguments.addAll(specialConstants)
+        mv.invokedynamic(
+                "makeConcatWithConstants",
+                Type.getMethodDescriptor(AsmTypes.JAVA_STRING_TYPE, *parameterTypes.toTypedArray()),
+                MAKE_CONCAT_WITH_CONSTANTS,
+                bootstrapArguments.toTypedArray()
+        )
+
+        template.setLength(0)
+        specialConstants.clear()
+        parameterTypes.clear()
+        parameterSlots = 0
+    }
+
+    private fun concatParameterType(type: Type): Type =
+            when (type.sort) {
+                Type.ARRAY -> AsmTypes.OBJECT_TYPE
+                Type.OBJECT -> if (type == AsmTypes.JAVA_STRING_TYPE) type else AsmTypes.OBJECT_TYPE
+                else -> type
+            }
+
+    companion object {
+        @JvmStatic
+        fun create(state: GenerationState, mv: InstructionAdapter) = StringConcatGenerator(state.useIndyStringConcat, mv)
+
+        private val TAG_ARGUMENT = '\u0001'
+        private val TAG_CONSTANT = '\u0002'
+
+        // StringConcatFactory accepts at most 200 argument slots
+        private val MAX_PARAMETER_SLOTS = 199
+
+        private val MAKE_CONCAT_WITH_CONSTANTS = Handle(
+                Opcodes.H_INVOKESTATIC, "java/lang/invoke/StringConcatFactory", "makeConcatWithConstants",
+                "(Ljava/lang/invoke/MethodHandles\$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;" +
+                "Ljava/lang/String;[Ljava/lang/Object;)Ljava/lang/invoke/CallSite;"
+        )
+    }
+}
@@ -304,6 +304,11 @@ public abstract class CodegenContext<T extends DeclarationDescriptor> {
         return new MethodContext(descriptor, getContextKind(), this, null);
     }
 
+    @NotNull
+    public MethodContext intoStaticFunction(FunctionDescriptor descriptor) {
+        return new MethodContext(descriptor, OwnerKind.PACKAGE, this, null);
+    }
+
     @NotNull
     public MethodContext intoInlinedLambda(FunctionDescriptor descriptor, boolean isCrossInline, boolean isPropertyReference) {
         return new InlineLambdaContext(descriptor, getContextKind(), this, null, isCrossInline, isPropertyReference);
@@ -38,6 +38,7 @@ import org.jetbrains.kotlin.descriptors.*;
 import org.jetbrains.kotlin.fileClasses.FileClasses;
 import org.jetbrains.kotlin.fileClasses.JvmFileClassesProvider;
 import org.jetbrains.kotlin.load.java.JvmAbi;
+import org.jetbrains.kotlin.load.kotlin.FileBasedKotlinClass;
 import org.jetbrains.kotlin.load.kotlin.JvmVirtualFileFinder;
 import org.jetbrains.kotlin.name.ClassId;
 import org.jetbrains.kotlin.name.FqName;
@@ -89,7 +90,7 @@ public class InlineCodegenUtil {
             ClassId classId,
             final @NotNull GenerationState state
     ) {
-        ClassReader cr = new ClassReader(classData);
+        ClassReader cr = FileBasedKotlinClass.createClassReader(classData);
         final MethodNode[] node = new MethodNode[1];
         final String[] debugInfo = new String[2];
         final int[] lines = new int[2];
@@ -405,11 +406,11 @@ public class InlineCodegenUtil {
         try {
             OutputFile outputFile = state.getFactory().get(internalName + ".class");
             if (outputFile != null) {
-                return new ClassReader(outputFile.asByteArray());
+                return FileBasedKotlinClass.createClassReader(outputFile.asByteArray());
             }
             VirtualFile file = findVirtualFileImprecise(state, internalName);
             if (file != null) {
-                return new ClassReader(file.contentsToByteArray());
+                return FileBasedKotlinClass.createClassReader(file.contentsToByteArray());
             }
             throw new RuntimeException("Couldn't find virtual file for " + internalName);
         }
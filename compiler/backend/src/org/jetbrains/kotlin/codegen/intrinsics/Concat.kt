@@ -18,8 +18,8 @@ package org.jetbrains.kotlin.codegen.intrinsics
 
 import com.intellij.psi.PsiElement
 import org.jetbrains.kotlin.codegen.*
-import org.jetbrains.kotlin.codegen.AsmUtil.genInvokeAppendMethod
 import org.jetbrains.kotlin.codegen.AsmUtil.genStringBuilderConstructor
+import org.jetbrains.kotlin.descriptors.FunctionDescriptor
 import org.jetbrains.kotlin.lexer.KtTokens
 import org.jetbrains.kotlin.psi.KtBinaryExpression
 import org.jetbrains.kotlin.psi.KtCallableReferenceExpression
@@ -40,26 +40,32 @@ class Concat : IntrinsicMethod() {
             arguments: List<KtExpression>,
             receiver: StackValue
     ): Type {
+        val generator = StringConcatGenerator.create(codegen.state, v)
         if (element is KtBinaryExpression && element.operationReference.getReferencedNameElementType() == KtTokens.PLUS) {
             // LHS + RHS
-            genStringBuilderConstructor(v)
-            codegen.invokeAppend(element.left)
-            codegen.invokeAppend(element.right)
+            generator.genStringBuilderConstructor()
+            codegen.invokeAppend(generator, element.left)
+            codegen.invokeAppend(generator, element.right)
         }
         else {
             // LHS?.plus(RHS)
             receiver.put(AsmTypes.OBJECT_TYPE, v)
-            genStringBuilderConstructor(v)
-            v.swap()
-            genInvokeAppendMethod(v, returnType)
-            codegen.invokeAppend(arguments.get(0))
+            if (!codegen.state.useIndyStringConcat) {
+                genStringBuilderConstructor(v)
+                v.swap()
+            }
+            generator.invokeAppend(returnType)
+            codegen.invokeAppend(generator, arguments.get(0))
         }
 
-        v.invokevirtual("java/lang/StringBuilder", "toString", "()Ljava/lang/String;", false)
+        generator.genToString()
         return JAVA_STRING_TYPE
     }
 
-    override fun toCallable(method: CallableMethod): Callable =
+    override fun toCallable(fd: FunctionDescriptor, isSuper: Boolean, resolvedCall: ResolvedCall<*>, codegen: ExpressionCodegen): Callable =
+            toCallable(codegen.state.typeMapper.mapToCallableMethod(fd, false), codegen.state.useIndyStringConcat)
+
+    private fun toCallable(method: CallableMethod, useIndyStringConcat: Boolean): Callable =
             object : IntrinsicCallable(method) {
                 override fun invokeMethodWithArguments(
                         resolvedCall: ResolvedCall<*>,
@@ -84,6 +90,8 @@ class Concat : IntrinsicMethod() {
                 }
 
                 override fun afterReceiverGeneration(v: InstructionAdapter) {
+                    if (useIndyStringConcat) return
+
                     v.visitTypeInsn(Opcodes.NEW, "java/lang/StringBuilder")
                     v.dupX1()
                     v.swap()
@@ -95,6 +103,13 @@ class Concat : IntrinsicMethod() {
                     // in case of callable reference passed to a generic function, e.g.:
                     //      charArrayOf('O', 'K').fold("", String::plus)
                     // TODO Make String::plus generic, and invoke proper StringBuilder#append.
+                    if (useIndyStringConcat) {
+                        val generator = StringConcatGenerator(true, v)
+                        generator.invokeAppend(AsmTypes.JAVA_STRING_TYPE)
+                        generator.invokeAppend(AsmTypes.OBJECT_TYPE)
+                        generator.genToString()
+                        return
+                    }
                     AsmUtil.genInvokeAppendMethod(v, AsmTypes.OBJECT_TYPE)
                     v.invokevirtual("java/lang/StringBuilder", "toString", "()Ljava/lang/String;", false)
                 }
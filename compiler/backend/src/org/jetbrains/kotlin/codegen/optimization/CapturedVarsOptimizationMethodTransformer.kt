@@ -0,0 +1,254 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.codegen.optimization
+
+import org.jetbrains.kotlin.codegen.StackValue
+import org.jetbrains.kotlin.codegen.optimization.common.OptimizationBasicInterpreter
+import org.jetbrains.kotlin.codegen.optimization.common.StrictBasicValue
+import org.jetbrains.kotlin.codegen.optimization.transformer.MethodTransformer
+import org.jetbrains.kotlin.resolve.jvm.AsmTypes
+import org.jetbrains.kotlin.resolve.jvm.JvmPrimitiveType
+import org.jetbrains.org.objectweb.asm.Opcodes
+import org.jetbrains.org.objectweb.asm.Type
+import org.jetbrains.org.objectweb.asm.tree.*
+import org.jetbrains.org.objectweb.asm.tree.analysis.BasicValue
+import org.jetbrains.org.objectweb.asm.tree.analysis.Frame
+import java.util.*
+
+class CapturedVarsOptimizationMethodTransformer : MethodTransformer() {
+    /**
+     * Replaces `kotlin.jvm.internal.Ref.*` wrappers of captured variables with plain local variables,
+     * when the wrapper does not escape the method, i.e. all lambdas capturing the variable were inlined.
+     *
+     * A wrapper is replaced if it is created in this method, and it is only stored to and loaded from local variables,
+     * duplicated with DUP (but not moved around with any other stack instruction), initialized with its constructor
+     * and used as a receiver of its `element` field reads and writes.
+     */
+    override fun transform(internalClassName: String, methodNode: MethodNode) {
+        if (methodNode.instructions.toArray().none { it.opcode == Opcodes.NEW && (it as TypeInsnNode).desc in REF_ELEMENT_TYPES }) return
+
+        val interpreter = CapturedVarsInterpreter()
+        val frames = MethodTransformer.analyze(internalClassName, methodNode, interpreter)
+        markPoppedAndShuffledValues(methodNode.instructions, frames)
+
+        for (capturedVar in interpreter.capturedVars) {
+            if (!capturedVar.hazard && capturedVar.initCalls.size == 1) {
+                rewrite(methodNode, capturedVar)
+            }
+        }
+    }
+
+    // POP doesn't go through the interpreter, so values dropped from the stack are checked separately.
+    // Stack shuffling instructions other than DUP are not rewritten, so a wrapper anywhere in the part of the stack
+    // they touch (e.g. below the value duplicated with DUP_X1) can't be replaced.
+    private fun markPoppedAndShuffledValues(instructions: InsnList, frames: Array<Frame<BasicValue>?>) {
+        for ((index, insn) in instructions.toArray().withIndex()) {
+            val frame = frames[index] ?: continue
+            val affected = when (insn.opcode) {
+                Opcodes.POP -> 1
+                Opcodes.POP2, Opcodes.DUP2, Opcodes.DUP_X1, Opcodes.SWAP -> 2
+                Opcodes.DUP_X2, Opcodes.DUP2_X1 -> 3
+                Opcodes.DUP2_X2 -> 4
+                else -> continue
+            }
+            for (i in 1..Math.min(affected, frame.stackSize)) {
+                (frame.getStack(frame.stackSize - i) as? CapturedVarValue)?.descriptor?.hazard = true
+            }
+        }
+    }
+
+    private fun rewrite(methodNode: MethodNode, capturedVar: CapturedVarDescriptor) {
+        val instructions = methodNode.instructions
+        val valueType = capturedVar.valueType
+        val index = methodNode.maxLocals
+        methodNode.maxLocals += valueType.size
+
+        rewriteLocalVariables(methodNode, capturedVar, index)
+
+        instructions.remove(capturedVar.newInsn)
+        capturedVar.dups.forEach { instructions.remove(it) }
+        capturedVar.loads.forEach { instructions.remove(it) }
+        capturedVar.stores.forEach { instructions.remove(it) }
+
+        // The wrapper is created with a default element value, keep it so that the new variable is always initialized
+        for (initCall in capturedVar.initCalls) {
+            instructions.insertBefore(initCall, InsnNode(defaultValueOpcode(valueType)))
+            instructions.set(initCall, VarInsnNode(valueType.getOpcode(Opcodes.ISTORE), index))
+        }
+        capturedVar.getFields.forEach { instructions.set(it, VarInsnNode(valueType.getOpcode(Opcodes.ILOAD), index)) }
+        capturedVar.putFields.forEach { instructions.set(it, VarInsnNode(valueType.getOpcode(Opcodes.ISTORE), index)) }
+    }
+
+    private fun rewriteLocalVariables(methodNode: MethodNode, capturedVar: CapturedVarDescriptor, newIndex: Int) {
+        val localVariables = methodNode.localVariables ?: return
+        val instructions = methodNode.instructions
+
+        val slots = capturedVar.stores.mapTo(HashSet()) { it.`var` }
+        val usages = (capturedVar.stores + capturedVar.loads).map { instructions.indexOf(it) }
+
+        for (localVariable in localVariables) {
+            if (localVariable.index !in slots || localVariable.desc != capturedVar.refType.descriptor) continue
+
+            val range = instructions.indexOf(localVariable.start)..instructions.indexOf(localVariable.end)
+            if (usages.any { it in range }) {
+                localVariable.index = newIndex
+                localVariable.desc = capturedVar.valueType.descriptor
+            }
+        }
+    }
+
+    private fun defaultValueOpcode(type: Type): Int =
+            when (type.sort) {
+                Type.LONG -> Opcodes.LCONST_0
+                Type.FLOAT -> Opcodes.FCONST_0
+                Type.DOUBLE -> Opcodes.DCONST_0
+                Type.OBJECT, Type.ARRAY -> Opcodes.ACONST_NULL
+                else -> Opcodes.ICONST_0
+            }
+}
+
+private val REF_ELEMENT_FIELD = "element"
+
+private val REF_ELEMENT_TYPES: Map<String, Type> =
+        JvmPrimitiveType.values().map { Type.getType(it.desc) }.associateBy { StackValue.sharedTypeForType(it).internalName } +
+        (AsmTypes.OBJECT_REF_TYPE.internalName to AsmTypes.OBJECT_TYPE)
+
+private class CapturedVarDescriptor(val newInsn: TypeInsnNode) {
+    val refType: Type = Type.getObjectType(newInsn.desc)
+    val valueType: Type = REF_ELEMENT_TYPES[newInsn.desc]!!
+
+    var hazard = false
+
+    val initCalls = LinkedHashSet<MethodInsnNode>()
+    val dups = LinkedHashSet<AbstractInsnNode>()
+    val loads = LinkedHashSet<VarInsnNode>()
+    val stores = LinkedHashSet<VarInsnNode>()
+    val getFields = LinkedHashSet<FieldInsnNode>()
+    val putFields = LinkedHashSet<FieldInsnNode>()
+
+    fun isElementField(insn: AbstractInsnNode) =
+            insn is FieldInsnNode && insn.owner == refType.internalName && insn.name == REF_ELEMENT_FIELD && insn.desc == valueType.descriptor
+}
+
+private class CapturedVarValue(val descriptor: CapturedVarDescriptor) : StrictBasicValue(descriptor.refType) {
+    override fun equals(other: Any?) = other is CapturedVarValue && other.descriptor === descriptor
+
+    override fun hashCode() = descriptor.hashCode()
+}
+
+private class CapturedVarsInterpreter : OptimizationBasicInterpreter() {
+    private val descriptorsByNewInsn = LinkedHashMap<AbstractInsnNode, CapturedVarDescriptor>()
+
+    val capturedVars: Collection<CapturedVarDescriptor>
+        get() = descriptorsByNewInsn.values
+
+    override fun newOperation(insn: AbstractInsnNode): BasicValue {
+        if (insn.opcode == Opcodes.NEW && (insn as TypeInsnNode).desc in REF_ELEMENT_TYPES) {
+            return CapturedVarValue(descriptorsByNewInsn.getOrPut(insn) { CapturedVarDescriptor(insn) })
+        }
+        return super.newOperation(insn)
+    }
+
+    override fun copyOperation(insn: AbstractInsnNode, value: BasicValue): BasicValue {
+        if (value is CapturedVarValue) {
+            val descriptor = value.descriptor
+            when (insn.opcode) {
+                Opcodes.ALOAD -> descriptor.loads.add(insn as VarInsnNode)
+                Opcodes.ASTORE -> descriptor.stores.add(insn as VarInsnNode)
+                Opcodes.DUP -> descriptor.dups.add(insn)
+                // DUP_X1, DUP_X2, DUP2, DUP2_X1, DUP2_X2 and SWAP, see also markPoppedAndShuffledValues
+                else -> descriptor.hazard = true
+            }
+        }
+        return super.copyOperation(insn, value)
+    }
+
+    override fun unaryOperation(insn: AbstractInsnNode, value: BasicValue): BasicValue? {
+        if (value is CapturedVarValue) {
+            val descriptor = value.descriptor
+            if (insn.opcode == Opcodes.GETFIELD && descriptor.isElementField(insn)) {
+                descriptor.getFields.add(insn as FieldInsnNode)
+            }
+            else {
+                descriptor.hazard = true
+            }
+        }
+        return super.unaryOperation(insn, value)
+    }
+
+    override fun binaryOperation(insn: AbstractInsnNode, value1: BasicValue, value2: BasicValue): BasicValue? {
+        if (value1 is CapturedVarValue) {
+            val descriptor = value1.descriptor
+            if (insn.opcode == Opcodes.PUTFIELD && descriptor.isElementField(insn)) {
+                descriptor.putFields.add(insn as FieldInsnNode)
+            }
+            else {
+                descriptor.hazard = true
+            }
+        }
+        markEscaped(value2)
+        return super.binaryOperation(insn, value1, value2)
+    }
+
+    override fun ternaryOperation(insn: AbstractInsnNode, value1: BasicValue, value2: BasicValue, value3: BasicValue): BasicValue? {
+        markEscaped(value1)
+        markEscaped(value2)
+        markEscaped(value3)
+        return super.ternaryOperation(insn, value1, value2, value3)
+    }
+
+    override fun naryOperation(insn: AbstractInsnNode, values: List<BasicValue>): BasicValue? {
+        for ((index, value) in values.withIndex()) {
+            if (value !is CapturedVarValue) continue
+
+            val descriptor = value.descriptor
+            if (index == 0 && insn.isConstructorCallOf(descriptor.refType)) {
+                descriptor.initCalls.add(insn as MethodInsnNode)
+            }
+            else {
+                descriptor.hazard = true
+            }
+        }
+        return super.naryOperation(insn, values)
+    }
+
+    override fun returnOperation(insn: AbstractInsnNode, value: BasicValue, expected: BasicValue) {
+        markEscaped(value)
+        super.returnOperation(insn, value, expected)
+    }
+
+    override fun merge(v: BasicValue, w: BasicValue): BasicValue {
+        if (v == w) return v
+
+        val result = super.merge(v, w)
+        // A wrapper merged with some other value is only harmless if the result can't be used
+        if (result != StrictBasicValue.UNINITIALIZED_VALUE) {
+            markEscaped(v)
+            markEscaped(w)
+        }
+        return result
+    }
+
+    private fun markEscaped(value: BasicValue) {
+        if (value is CapturedVarValue) {
+            value.descriptor.hazard = true
+        }
+    }
+
+    private fun AbstractInsnNode.isConstructorCallOf(type: Type) =
+            opcode == Opcodes.INVOKESPECIAL && this is MethodInsnNode && owner == type.internalName && name == "<init>" && desc == "()V"
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.codegen.optimization
+
+import org.jetbrains.kotlin.codegen.optimization.common.OptimizationBasicInterpreter
+import org.jetbrains.kotlin.codegen.optimization.common.StrictBasicValue
+import org.jetbrains.kotlin.codegen.optimization.transformer.MethodTransformer
+import org.jetbrains.org.objectweb.asm.Opcodes
+import org.jetbrains.org.objectweb.asm.Type
+import org.jetbrains.org.objectweb.asm.tree.*
+import org.jetbrains.org.objectweb.asm.tree.analysis.BasicValue
+import org.jetbrains.org.objectweb.asm.tree.analysis.Frame
+
+class ConstantPropagationMethodTransformer : MethodTransformer() {
+    /**
+     * Folds int arithmetic, conditional jumps and switches on int values (which also represent booleans) known to be constant,
+     * e.g. after inlining a function called with constant arguments, or with default arguments (checks of the default mask).
+     * Branches which become unreachable are removed later by [DeadCodeEliminationMethodTransformer].
+     */
+    override fun transform(internalClassName: String, methodNode: MethodNode) {
+        val instructions = methodNode.instructions
+        if (instructions.toArray().none { it.opcode in FOLDABLE_OPCODES }) return
+
+        val frames = MethodTransformer.analyze(internalClassName, methodNode, ConstantPropagationInterpreter())
+        val insertedPops = arrayListOf<AbstractInsnNode>()
+
+        for ((index, insn) in instructions.toArray().withIndex()) {
+            val frame = frames[index] ?: continue
+            when (insn.opcode) {
+                in Opcodes.IFEQ..Opcodes.IFLE -> {
+                    val value = frame.peek(0) as? IntConstantValue ?: continue
+                    foldJump(instructions, insn as JumpInsnNode, Opcodes.POP, isJumpTaken(insn.opcode, value.value, 0), insertedPops)
+                }
+                in Opcodes.IF_ICMPEQ..Opcodes.IF_ICMPLE -> {
+                    val value2 = frame.peek(0) as? IntConstantValue ?: continue
+                    val value1 = frame.peek(1) as? IntConstantValue ?: continue
+                    foldJump(instructions, insn as JumpInsnNode, Opcodes.POP2, isJumpTaken(insn.opcode, value1.value, value2.value), insertedPops)
+                }
+                Opcodes.TABLESWITCH, Opcodes.LOOKUPSWITCH -> {
+                    val value = frame.peek(0) as? IntConstantValue ?: continue
+                    val pop = InsnNode(Opcodes.POP)
+                    instructions.insertBefore(insn, pop)
+                    instructions.set(insn, JumpInsnNode(Opcodes.GOTO, switchTarget(insn, value.value)))
+                    insertedPops.add(pop)
+                }
+                in Opcodes.IADD..Opcodes.IXOR -> {
+                    val value2 = frame.peek(0) as? IntConstantValue ?: continue
+                    val value1 = frame.peek(1) as? IntConstantValue ?: continue
+                    val result = foldBinary(insn.opcode, value1.value, value2.value) ?: continue
+                    foldOperation(instructions, insn, Opcodes.POP2, result, insertedPops)
+                }
+                Opcodes.INEG, Opcodes.I2B, Opcodes.I2C, Opcodes.I2S -> {
+                    val value = frame.peek(0) as? IntConstantValue ?: continue
+                    val result = foldUnary(insn.opcode, value.value) ?: continue
+                    foldOperation(instructions, insn, Opcodes.POP, result, insertedPops)
+                }
+            }
+        }
+
+        removePushesOfPoppedValues(instructions, insertedPops)
+    }
+
+    private fun foldJump(
+            instructions: InsnList,
+            insn: JumpInsnNode,
+            popOpcode: Int,
+            isTaken: Boolean,
+            insertedPops: MutableList<AbstractInsnNode>
+    ) {
+        val pop = InsnNode(popOpcode)
+        instructions.insertBefore(insn, pop)
+        insertedPops.add(pop)
+        if (isTaken) {
+            instructions.set(insn, JumpInsnNode(Opcodes.GOTO, insn.label))
+        }
+        else {
+            instructions.remove(insn)
+        }
+    }
+
+    private fun foldOperation(
+            instructions: InsnList,
+            insn: AbstractInsnNode,
+            popOpcode: Int,
+            result: Int,
+            insertedPops: MutableList<AbstractInsnNode>
+    ) {
+        val pop = InsnNode(popOpcode)
+        instructions.insertBefore(insn, pop)
+        instructions.set(insn, intConstantInsn(result))
+        insertedPops.add(pop)
+    }
+
+    // Operands of a folded instruction are usually pushed right before it, so they can be removed together with the POP
+    private fun removePushesOfPoppedValues(instructions: InsnList, insertedPops: MutableList<AbstractInsnNode>) {
+        do {
+            var changed = false
+            val iterator = insertedPops.iterator()
+            while (iterator.hasNext()) {
+                val pop = iterator.next()
+                val pushes = if (pop.opcode == Opcodes.POP2) 2 else 1
+
+                val operands = generateSequence(pop.previous) { it.previous }.take(pushes).toList()
+                if (operands.size < pushes || !operands.all { it.isSimplePushOfSingleSlotValue() }) continue
+
+                operands.forEach { instructions.remove(it) }
+                instructions.remove(pop)
+                iterator.remove()
+                changed = true
+            }
+        }
+        while (changed)
+    }
+
+    private fun AbstractInsnNode.isSimplePushOfSingleSlotValue(): Boolean =
+            when (opcode) {
+                in Opcodes.ACONST_NULL..Opcodes.ICONST_5, in Opcodes.FCONST_0..Opcodes.FCONST_2,
+                Opcodes.BIPUSH, Opcodes.SIPUSH, Opcodes.ILOAD, Opcodes.FLOAD, Opcodes.ALOAD -> true
+                Opcodes.LDC -> (this as LdcInsnNode).cst.let { it !is Long && it !is Double }
+                else -> false
+            }
+
+    private fun switchTarget(insn: AbstractInsnNode, key: Int): LabelNode =
+            when (insn) {
+                is TableSwitchInsnNode -> if (key in insn.min..insn.max) insn.labels[key - insn.min] else insn.dflt
+                is LookupSwitchInsnNode -> insn.keys.indexOf(key).let { if (it >= 0) insn.labels[it] else insn.dflt }
+                else -> throw AssertionError("Switch instruction expected: $insn")
+            }
+
+    private fun isJumpTaken(opcode: Int, value1: Int, value2: Int): Boolean =
+            when (opcode) {
+                Opcodes.IFEQ, Opcodes.IF_ICMPEQ -> value1 == value2
+                Opcodes.IFNE, Opcodes.IF_ICMPNE -> value1 != value2
+                Opcodes.IFLT, Opcodes.IF_ICMPLT -> value1 < value2
+                Opcodes.IFGE, Opcodes.IF_ICMPGE -> value1 >= value2
+                Opcodes.IFGT, Opcodes.IF_ICMPGT -> value1 > value2
+                Opcodes.IFLE, Opcodes.IF_ICMPLE -> value1 <= value2
+                else -> throw AssertionError("Conditional jump expected: $opcode")
+            }
+
+    private fun intConstantInsn(value: Int): AbstractInsnNode =
+            when (value) {
+                in -1..5 -> InsnNode(Opcodes.ICONST_0 + value)
+                in Byte.MIN_VALUE..Byte.MAX_VALUE -> IntInsnNode(Opcodes.BIPUSH, value)
+                in Short.MIN_VALUE..Short.MAX_VALUE -> IntInsnNode(Opcodes.SIPUSH, value)
+                else -> LdcInsnNode(value)
+            }
+
+    private fun Frame<BasicValue>.peek(depth: Int): BasicValue = getStack(stackSize - 1 - depth)
+}
+
+private val FOLDABLE_OPCODES: Set<Int> =
+        (Opcodes.IFEQ..Opcodes.IF_ICMPLE).toSet() + (Opcodes.IADD..Opcodes.IXOR) +
+        setOf(Opcodes.TABLESWITCH, Opcodes.LOOKUPSWITCH, Opcodes.INEG, Opcodes.I2B, Opcodes.I2C, Opcodes.I2S)
+
+private fun foldBinary(opcode: Int, value1: Int, value2: Int): Int? =
+        when (opcode) {
+            Opcodes.IADD -> value1 + value2
+            Opcodes.ISUB -> value1 - value2
+            Opcodes.IMUL -> value1 * value2
+            // Division by zero must still throw at runtime
+            Opcodes.IDIV -> if (value2 != 0) value1 / value2 else null
+            Opcodes.IREM -> if (value2 != 0) value1 % value2 else null
+            Opcodes.ISHL -> value1 shl value2
+            Opcodes.ISHR -> value1 shr value2
+            Opcodes.IUSHR -> value1 ushr value2
+            Opcodes.IAND -> value1 and value2
+            Opcodes.IOR -> value1 or value2
+            Opcodes.IXOR -> value1 xor value2
+            else -> null
+        }
+
+private fun foldUnary(opcode: Int, value: Int): Int? =
+        when (opcode) {
+            Opcodes.INEG -> -value
+            Opcodes.I2B -> value.toByte().toInt()
+            Opcodes.I2C -> value.toChar().toInt()
+            Opcodes.I2S -> value.toShort().toInt()
+            else -> null
+        }
+
+private class IntConstantValue(val value: Int) : StrictBasicValue(Type.INT_TYPE) {
+    override fun equals(other: Any?) = other is IntConstantValue && other.value == value
+
+    override fun hashCode() = value
+}
+
+private class ConstantPropagationInterpreter : OptimizationBasicInterpreter() {
+    override fun newOperation(insn: AbstractInsnNode): BasicValue {
+        when (insn.opcode) {
+            in Opcodes.ICONST_M1..Opcodes.ICONST_5 -> return IntConstantValue(insn.opcode - Opcodes.ICONST_0)
+            Opcodes.BIPUSH, Opcodes.SIPUSH -> return IntConstantValue((insn as IntInsnNode).operand)
+            Opcodes.LDC -> (insn as LdcInsnNode).cst.let { if (it is Int) return IntConstantValue(it) }
+        }
+        return super.newOperation(insn)
+    }
+
+    override fun unaryOperation(insn: AbstractInsnNode, value: BasicValue): BasicValue? {
+        if (value is IntConstantValue) {
+            val result =
+                    if (insn.opcode == Opcodes.IINC) value.value + (insn as IincInsnNode).incr
+                    else foldUnary(insn.opcode, value.value)
+            if (result != null) return IntConstantValue(result)
+        }
+        return super.unaryOperation(insn, value)
+    }
+
+    override fun binaryOperation(insn: AbstractInsnNode, value1: BasicValue, value2: BasicValue): BasicValue? {
+        if (value1 is IntConstantValue && value2 is IntConstantValue) {
+            val result = foldBinary(insn.opcode, value1.value, value2.value)
+            if (result != null) return IntConstantValue(result)
+        }
+        return super.binaryOperation(insn, value1, value2)
+    }
+
+    override fun merge(v: BasicValue, w: BasicValue): BasicValue {
+        if (v == w) return v
+        return super.merge(v.withoutConstant(), w.withoutConstant())
+    }
+
+    private fun BasicValue.withoutConstant() = if (this is IntConstantValue) StrictBasicValue.INT_VALUE else this
+}
@@ -35,6 +35,7 @@ import org.jetbrains.kotlin.descriptors.ModuleDescriptor
 import org.jetbrains.kotlin.descriptors.ScriptDescriptor
 import org.jetbrains.kotlin.diagnostics.Diagnostic
 import org.jetbrains.kotlin.diagnostics.DiagnosticSink
+import org.jetbrains.kotlin.load.kotlin.FileBasedKotlinClass
 import org.jetbrains.kotlin.load.kotlin.incremental.components.IncrementalCache
 import org.jetbrains.kotlin.modules.TargetId
 import org.jetbrains.kotlin.name.FqName
@@ -124,8 +125,11 @@ class GenerationState @JvmOverloads constructor(
         extraJvmDiagnosticsTrace.bindingContext.diagnostics
     }
 
-    val isJvm8Target: Boolean = configuration.get(JVMConfigurationKeys.JVM_TARGET) == JvmTarget.JVM_1_8
+    val jvmTarget: JvmTarget = configuration.get(JVMConfigurationKeys.JVM_TARGET) ?: JvmTarget.DEFAULT
+    val isJvm8Target: Boolean = jvmTarget >= JvmTarget.JVM_1_8
+    val useIndyStringConcat: Boolean = jvmTarget >= JvmTarget.JVM_9
     val generateDefaultImplsForJvm8: Boolean = configuration.getBoolean(JVMConfigurationKeys.INTERFACE_COMPATIBILITY)
+    val generateIndyLambdas: Boolean = isJvm8Target && configuration.getBoolean(JVMConfigurationKeys.INDY_LAMBDAS)
 
     val moduleName: String = moduleName ?: JvmCodegenUtil.getModuleName(module)
     val classBuilderMode: ClassBuilderMode = builderFactory.classBuilderMode
@@ -162,7 +166,12 @@ class GenerationState @JvmOverloads constructor(
 
     val rootContext: CodegenContext<*> = RootContext(this)
 
-    val classFileVersion: Int = if (isJvm8Target) Opcodes.V1_8 else Opcodes.V1_6
+    // The bundled ASM has no constant for Java 9, see FileBasedKotlinClass.createClassReader for how such class files are read
+    val classFileVersion: Int = when {
+        jvmTarget >= JvmTarget.JVM_9 -> FileBasedKotlinClass.JVM_9_CLASS_FILE_VERSION
+        isJvm8Target -> Opcodes.V1_8
+        else -> Opcodes.V1_6
+    }
 
     val generateParametersMetadata: Boolean = configuration.getBoolean(JVMConfigurationKeys.PARAMETERS_METADATA)
 
@@ -73,6 +73,16 @@ public class K2JSCompilerArguments extends CommonCompilerArguments {
     @ValueDescription("<path>")
     public String outputPostfix;
 
+    @Argument(value = "Xdce", description = "Remove unreachable declarations from the output, and write JS files of libraries without them next to it")
+    public boolean deadCodeElimination;
+
+    @Argument(value = "Xdce-keep", description = "Declarations to keep with -Xdce, e.g. when they are only called from a page")
+    @ValueDescription("<name[,]>")
+    public String[] deadCodeEliminationKeep;
+
+    @Argument(value = "Xtyped-arrays", description = "Translate primitive arrays to JS typed arrays, e.g. IntArray to Int32Array")
+    public boolean typedArrays;
+
     @Override
     @NotNull
     public String executableScriptFileName() {
@@ -68,7 +68,7 @@ public class K2JVMCompilerArguments extends CommonCompilerArguments {
     public String moduleName;
 
     @GradleOption(DefaultValues.JvmTargetVersions.class)
-    @Argument(value = "jvm-target", description = "Target version of the generated JVM bytecode (1.6 or 1.8), default is 1.6")
+    @Argument(value = "jvm-target", description = "Target version of the generated JVM bytecode (1.6, 1.8 or 9), default is 1.6")
     @ValueDescription("<version>")
     public String jvmTarget;
 
@@ -101,6 +101,12 @@ public class K2JVMCompilerArguments extends CommonCompilerArguments {
     @Argument(value = "Xskip-runtime-version-check", description = "Allow Kotlin runtime libraries of incompatible versions in the classpath")
     public boolean skipRuntimeVersionCheck;
 
+    @Argument(value = "Xlazy-body-parsing", description = "Parse bodies of functions, accessors and initializers only when they are accessed")
+    public boolean lazyBodyParsing;
+
+    @Argument(value = "Xindy-lambdas", description = "Generate non-capturing lambdas with invokedynamic when targeting JVM 1.8")
+    public boolean indyLambdas;
+
     @Argument(value = "Xdump-declarations-to", description = "Path to JSON file to dump Java to Kotlin declaration mappings")
     @ValueDescription("<path>")
     public String declarationsOutputPath;
@@ -114,6 +120,10 @@ public class K2JVMCompilerArguments extends CommonCompilerArguments {
     @Argument(value = "Xload-builtins-from-dependencies", description = "Load definitions of built-in declarations from module dependencies, instead of from the compiler")
     public boolean loadBuiltInsFromDependencies;
 
+    @Argument(value = "Xscript-cache", description = "Cache compiled scripts in the given directory, reusing them while the script, its templates and classpath are unchanged")
+    @ValueDescription("<path>")
+    public String scriptCacheDirectory;
+
     // Paths to output directories for friend modules.
     public String[] friendPaths;
 
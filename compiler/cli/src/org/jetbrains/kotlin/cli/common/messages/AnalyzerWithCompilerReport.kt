@@ -29,6 +29,8 @@ import org.jetbrains.kotlin.diagnostics.DiagnosticUtils.sortedDiagnostics
 import org.jetbrains.kotlin.diagnostics.rendering.DefaultErrorMessages
 import org.jetbrains.kotlin.load.java.JvmBytecodeBinaryVersion
 import org.jetbrains.kotlin.load.java.components.TraceBasedErrorReporter
+import org.jetbrains.kotlin.parsing.KtLazyBlockElementType
+import org.jetbrains.kotlin.psi.KtBlockExpression
 import org.jetbrains.kotlin.psi.KtFile
 import org.jetbrains.kotlin.resolve.AnalyzingUtils
 import org.jetbrains.kotlin.resolve.BindingContext
@@ -191,6 +193,13 @@ class AnalyzerWithCompilerReport(private val messageCollector: MessageCollector)
                     reportDiagnostic(element, SYNTAX_ERROR_FACTORY,
                                      if (StringUtil.isEmpty(description)) "Syntax error" else description)
                 }
+
+                override fun visitBlockExpression(expression: KtBlockExpression) {
+                    // a lazy body which was never expanded is only expanded here if it contains errors
+                    if (KtLazyBlockElementType.isCollapsedWithoutErrors(expression.node)) return
+
+                    super.visitBlockExpression(expression)
+                }
             }
 
             val visitor = ErrorReportingVisitor()
@@ -63,6 +63,7 @@ import org.jetbrains.kotlin.serialization.js.ModuleKind;
 import org.jetbrains.kotlin.utils.PathUtil;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -197,7 +198,14 @@ public class K2JSCompiler extends CLICompiler<K2JSCompilerArguments> {
         if (!(translationResult instanceof TranslationResult.Success)) return ExitCode.COMPILATION_ERROR;
 
         TranslationResult.Success successResult = (TranslationResult.Success) translationResult;
-        OutputFileCollection outputFiles = successResult.getOutputFiles(outputFile, outputPrefixFile, outputPostfixFile);
+        OutputFileCollection outputFiles = successResult.getOutputFiles(
+                outputFile, outputPrefixFile, outputPostfixFile, new Function1<String, Unit>() {
+                    @Override
+                    public Unit invoke(String message) {
+                        messageCollector.report(CompilerMessageSeverity.WARNING, message, CompilerMessageLocation.NO_LOCATION);
+                        return Unit.INSTANCE;
+                    }
+                });
 
         if (outputFile.isDirectory()) {
             messageCollector.report(CompilerMessageSeverity.ERROR,
@@ -273,6 +281,15 @@ public class K2JSCompiler extends CLICompiler<K2JSCompilerArguments> {
         if (arguments.kjsm) {
             configuration.put(JSConfigurationKeys.KJSM, true);
         }
+        if (arguments.deadCodeElimination) {
+            configuration.put(JSConfigurationKeys.DEAD_CODE_ELIMINATION, true);
+        }
+        if (arguments.deadCodeEliminationKeep != null) {
+            configuration.put(JSConfigurationKeys.DEAD_CODE_ELIMINATION_KEEP, Arrays.asList(arguments.deadCodeEliminationKeep));
+        }
+        if (arguments.typedArrays) {
+            configuration.put(JSConfigurationKeys.TYPED_ARRAYS, true);
+        }
 
         List<String> libraryFiles = new SmartList<String>();
         if (!arguments.noStdlib) {
@@ -18,12 +18,14 @@ package org.jetbrains.kotlin.cli.jvm
 
 import com.google.common.base.Predicates.`in`
 import com.intellij.openapi.Disposable
+import com.sampullara.cli.Argument
 import org.jetbrains.kotlin.cli.common.CLICompiler
 import org.jetbrains.kotlin.cli.common.CLIConfigurationKeys
 import org.jetbrains.kotlin.cli.common.ExitCode
 import org.jetbrains.kotlin.cli.common.ExitCode.*
 import org.jetbrains.kotlin.cli.common.arguments.K2JVMCompilerArguments
 import org.jetbrains.kotlin.cli.common.messages.*
+import org.jetbrains.kotlin.cli.jvm.compiler.CompiledScriptCache
 import org.jetbrains.kotlin.cli.jvm.compiler.CompileEnvironmentUtil
 import org.jetbrains.kotlin.cli.jvm.compiler.EnvironmentConfigFiles
 import org.jetbrains.kotlin.cli.jvm.compiler.KotlinCoreEnvironment
@@ -133,12 +135,15 @@ class K2JVMCompiler : CLICompiler<K2JVMCompilerArguments>() {
         if (arguments.jvmTarget != null) {
             val jvmTarget = JvmTarget.fromString(arguments.jvmTarget)
             if (jvmTarget != null) {
-                if (jvmTarget == JvmTarget.JVM_1_8) {
+                // The target is only passed on where the generated code depends on it: string concatenation for JVM 9
+                // and -Xindy-lambdas for 1.8, otherwise the default target is used for now
+                if (jvmTarget == JvmTarget.JVM_9 || jvmTarget == JvmTarget.JVM_1_8 && arguments.indyLambdas) {
+                    configuration.put(JVMConfigurationKeys.JVM_TARGET, jvmTarget)
+                }
+                else if (jvmTarget != JvmTarget.DEFAULT) {
                     val warning = "The -jvm-target option has no effect yet"
                     messageCollector.report(CompilerMessageSeverity.WARNING, warning, CompilerMessageLocation.NO_LOCATION)
                 }
-                //use default target for now
-                //configuration.put(JVMConfigurationKeys.JVM_TARGET, jvmTarget)
             }
             else {
                 val errorMessage = "Unknown JVM target version: ${arguments.jvmTarget}\n" +
@@ -147,6 +152,11 @@ class K2JVMCompiler : CLICompiler<K2JVMCompilerArguments>() {
             }
         }
 
+        if (arguments.indyLambdas && (configuration.get(JVMConfigurationKeys.JVM_TARGET) ?: JvmTarget.DEFAULT) < JvmTarget.JVM_1_8) {
+            val warning = "The -Xindy-lambdas option has no effect unless -jvm-target is 1.8 or higher"
+            messageCollector.report(CompilerMessageSeverity.WARNING, warning, CompilerMessageLocation.NO_LOCATION)
+        }
+
         configuration.put(JVMConfigurationKeys.PARAMETERS_METADATA, arguments.javaParameters)
 
         putAdvancedOptions(configuration, arguments)
@@ -181,12 +191,25 @@ class K2JVMCompiler : CLICompiler<K2JVMCompilerArguments>() {
             else if (arguments.script) {
                 val scriptArgs = arguments.freeArgs.subList(1, arguments.freeArgs.size)
 
+                val cacheEntry = arguments.scriptCacheDirectory?.let {
+                    CompiledScriptCache(File(it)).entry(
+                            File(arguments.freeArgs[0]), arguments.scriptTemplates?.toList().orEmpty(), classpath,
+                            scriptCompilerOptions(arguments), arguments.pluginClasspaths?.map(::File).orEmpty()
+                    )
+                }
+                val cachedScriptClass = cacheEntry?.load { scriptClasspath ->
+                    KotlinToJVMBytecodeCompiler.makeScriptParentClassLoader(paths, scriptClasspath)
+                }
+                if (cachedScriptClass != null) {
+                    return KotlinToJVMBytecodeCompiler.executeScript(cachedScriptClass, scriptArgs)
+                }
+
                 configuration.put(JVMConfigurationKeys.RETAIN_OUTPUT_IN_MEMORY, true)
 
                 val environment = createEnvironmentWithScriptingSupport(rootDisposable, configuration, arguments, messageCollector)
                                   ?: return COMPILATION_ERROR
 
-                return KotlinToJVMBytecodeCompiler.compileAndExecuteScript(environment, paths, scriptArgs)
+                return KotlinToJVMBytecodeCompiler.compileAndExecuteScript(environment, paths, scriptArgs, cacheEntry)
             }
             else {
                 if (destination != null) {
@@ -258,6 +281,24 @@ class K2JVMCompiler : CLICompiler<K2JVMCompilerArguments>() {
         return result
     }
 
+    // all the options which may change the classes generated for a script, so that the cached ones can't be reused,
+    // e.g. -Xcoroutines among the extra flags
+    private fun scriptCompilerOptions(arguments: K2JVMCompilerArguments): List<String> {
+        val result = arrayListOf<String>()
+        var argumentsClass: Class<*>? = arguments.javaClass
+        while (argumentsClass != null) {
+            for (field in argumentsClass.declaredFields) {
+                if (field.getAnnotation(Argument::class.java) == null || field.name in SCRIPT_CACHE_IGNORED_ARGUMENTS) continue
+
+                val value = field.get(arguments)
+                result.add("${field.name}=${if (value is Array<*>) value.joinToString(",") else value}")
+            }
+            argumentsClass = argumentsClass.superclass
+        }
+        result.sort()
+        return result + arguments.unknownExtraFlags
+    }
+
     override fun setupPlatformSpecificArgumentsAndServices(
             configuration: CompilerConfiguration, arguments: K2JVMCompilerArguments, services: Services
     ) {
@@ -285,6 +326,12 @@ class K2JVMCompiler : CLICompiler<K2JVMCompilerArguments>() {
     }
 
     companion object {
+        // keyed by the script cache on their own, or not affecting the generated classes
+        private val SCRIPT_CACHE_IGNORED_ARGUMENTS = setOf(
+                "script", "classpath", "scriptTemplates", "pluginClasspaths", "scriptCacheDirectory",
+                "destination", "suppressWarnings", "verbose", "version", "help", "extraHelp", "reportPerf", "repeat"
+        )
+
         private var initStartNanos = System.nanoTime()
         // allows to track GC time for each run when repeated compilation is used
         private val elapsedGCTime = hashMapOf<String, Long>()
@@ -332,6 +379,8 @@ class K2JVMCompiler : CLICompiler<K2JVMCompilerArguments>() {
             configuration.put(JVMConfigurationKeys.SKIP_RUNTIME_VERSION_CHECK, arguments.skipRuntimeVersionCheck)
             configuration.put(CLIConfigurationKeys.ALLOW_KOTLIN_PACKAGE, arguments.allowKotlinPackage)
             configuration.put(CLIConfigurationKeys.REPORT_PERF, arguments.reportPerf)
+            configuration.put(CLIConfigurationKeys.LAZY_BODY_PARSING, arguments.lazyBodyParsing)
+            configuration.put(JVMConfigurationKeys.INDY_LAMBDAS, arguments.indyLambdas)
             configuration.put(JVMConfigurationKeys.USE_SINGLE_MODULE, arguments.singleModule)
             configuration.put(JVMConfigurationKeys.ADD_BUILT_INS_FROM_COMPILER_TO_DEPENDENCIES, arguments.addCompilerBuiltIns)
             configuration.put(JVMConfigurationKeys.CREATE_BUILT_INS_FROM_MODULE_DEPENDENCIES, arguments.loadBuiltInsFromDependencies)
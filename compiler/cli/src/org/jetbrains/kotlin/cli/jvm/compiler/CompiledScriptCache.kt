@@ -0,0 +1,172 @@
+/*
+ * Copyright 2010-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.jvm.compiler
+
+import org.jetbrains.kotlin.backend.common.output.OutputFileCollection
+import org.jetbrains.kotlin.config.KotlinCompilerVersion
+import java.io.File
+import java.io.IOException
+import java.net.URLClassLoader
+import java.security.MessageDigest
+
+/**
+ * On-disk cache of compiled scripts. An entry is keyed by the compiler version, the compiler options affecting code generation,
+ * the script text, the script templates and the stamps of the compilation classpath and of the compiler plugins, so that
+ * an unchanged script can be run without analysis and code generation.
+ * Entries are evicted in the least recently used order when the total size of the cache exceeds [maxSizeBytes].
+ */
+class CompiledScriptCache(private val cacheDir: File, private val maxSizeBytes: Long = DEFAULT_MAX_SIZE_BYTES) {
+    /**
+     * Returns the entry of the script, or null if the script can't be read.
+     * [compilerOptions] are the options affecting the compiled classes, such as the language version or the JVM target.
+     */
+    fun entry(
+            scriptFile: File,
+            scriptTemplates: List<String>,
+            classpath: List<File>,
+            compilerOptions: List<String>,
+            compilerPlugins: List<File>
+    ): Entry? {
+        if (!scriptFile.isFile) return null
+
+        val scriptText = try {
+            scriptFile.readBytes()
+        }
+        catch (e: IOException) {
+            return null
+        }
+
+        val digest = MessageDigest.getInstance("SHA-1")
+        fun update(value: String) {
+            digest.update(value.toByteArray())
+            digest.update(0.toByte())
+        }
+
+        update(KotlinCompilerVersion.VERSION)
+        compilerOptions.forEach(::update)
+        digest.update(scriptText)
+        scriptTemplates.forEach(::update)
+        for (root in classpath + compilerPlugins) {
+            val files = if (root.isDirectory) root.walk().filter { it.isFile }.sortedBy { it.path }.toList() else listOf(root)
+            for (file in files) {
+                update("${file.absolutePath}:${file.length()}:${file.lastModified()}")
+            }
+        }
+
+        return Entry(digest.digest().joinToString("") { String.format("%02x", it) })
+    }
+
+    inner class Entry internal constructor(val key: String) {
+        private val dir = File(cacheDir, key)
+
+        /**
+         * Loads the cached script class, or returns null if the script has not been cached yet.
+         * [makeParentClassLoader] receives the classpath the script was compiled against.
+         */
+        fun load(makeParentClassLoader: (List<File>) -> ClassLoader): Class<*>? {
+            if (!dir.exists()) return null
+
+            val infoFile = File(dir, INFO_FILE_NAME)
+            val lines = try {
+                infoFile.readLines()
+            }
+            catch (e: IOException) {
+                delete()
+                return null
+            }
+            val scriptClassName = lines.firstOrNull()
+            if (scriptClassName == null) {
+                delete()
+                return null
+            }
+            val classpath = lines.drop(1).filter(String::isNotEmpty).map(::File)
+
+            dir.setLastModified(System.currentTimeMillis())
+
+            val classLoader = URLClassLoader(arrayOf(File(dir, CLASSES_DIR_NAME).toURI().toURL()), makeParentClassLoader(classpath))
+            return try {
+                classLoader.loadClass(scriptClassName)
+            }
+            catch (e: ClassNotFoundException) {
+                delete()
+                null
+            }
+        }
+
+        fun save(outputFiles: OutputFileCollection, scriptClassName: String, classpath: List<File>) {
+            // The entry is written aside and then renamed, so that a concurrent reader never sees it half-written
+            val tempDir = File(cacheDir, "$key$TEMP_DIR_SUFFIX${System.nanoTime()}")
+            try {
+                for (outputFile in outputFiles.asList()) {
+                    val file = File(tempDir, CLASSES_DIR_NAME + "/" + outputFile.relativePath)
+                    file.parentFile.mkdirs()
+                    file.writeBytes(outputFile.asByteArray())
+                }
+                File(tempDir, INFO_FILE_NAME).writeText((listOf(scriptClassName) + classpath.map { it.absolutePath }).joinToString("\n"))
+
+                if (!tempDir.renameTo(dir)) {
+                    // the entry is corrupt, or another process has cached the same script in the meantime
+                    delete()
+                    if (!tempDir.renameTo(dir)) {
+                        tempDir.deleteRecursively()
+                    }
+                }
+            }
+            catch (e: IOException) {
+                tempDir.deleteRecursively()
+                return
+            }
+
+            evictLeastRecentlyUsed()
+        }
+
+        // the entry is moved aside first, so that it's never seen partially deleted
+        private fun delete() {
+            val deletedDir = File(cacheDir, "$key$TEMP_DIR_SUFFIX${System.nanoTime()}")
+            if (dir.renameTo(deletedDir)) {
+                deletedDir.deleteRecursively()
+            }
+        }
+    }
+
+    private fun evictLeastRecentlyUsed() {
+        val entries = cacheDir.listFiles { file -> file.isDirectory && !file.name.contains(TEMP_DIR_SUFFIX) } ?: return
+        var totalSize = 0L
+        for (entryDir in entries.sortedByDescending { it.lastModified() }) {
+            totalSize += entryDir.walk().filter { it.isFile }.sumByLong { it.length() }
+            if (totalSize > maxSizeBytes) {
+                entryDir.deleteRecursively()
+            }
+        }
+    }
+
+    private inline fun <T> Sequence<T>.sumByLong(selector: (T) -> Long): Long {
+        var sum = 0L
+        for (element in this) {
+            sum += selector(element)
+        }
+        return sum
+    }
+
+    companion object {
+        const val DEFAULT_MAX_SIZE_BYTES = 64L * 1024 * 1024
+
+        private const val CLASSES_DIR_NAME = "classes"
+        private const val INFO_FILE_NAME = "script.txt"
+        private const val TEMP_DIR_SUFFIX = ".tmp-"
+    }
+}
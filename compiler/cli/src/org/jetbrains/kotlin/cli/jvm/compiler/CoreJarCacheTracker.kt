@@ -0,0 +1,183 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.jvm.compiler
+
+import com.intellij.openapi.vfs.VirtualFileSystem
+import com.intellij.openapi.vfs.impl.ZipHandler
+import com.intellij.openapi.vfs.impl.jar.CoreJarFileSystem
+import java.io.File
+import java.io.IOException
+import java.lang.reflect.Field
+import java.nio.file.Files
+import java.nio.file.attribute.BasicFileAttributes
+import java.nio.file.attribute.FileTime
+import java.util.*
+
+/**
+ * Tracks jars opened through the jar file system of the application environment, which keeps the contents of each opened jar
+ * for the lifetime of the application. Allows a long-living application (i.e. the compile daemon) to keep these caches
+ * between compilations and to discard them only when some cached jar has been changed on disk since it was opened.
+ * A changed jar is detected when it's accessed again, before its stale contents could be used.
+ *
+ * A jar is considered changed when its size, modification time or file key (the inode on Unix) differs. The contents are
+ * not compared, so a jar rewritten in place with the same size within the resolution of the file system timestamps
+ * is not detected.
+ *
+ * The cached jars are evicted in the least recently used order, when their total size exceeds [maxCachedJarsSize].
+ * The memory the jar file system retains for a jar (the entries of its central directory) is not measured,
+ * the size of the jar on disk is used as an estimate of it.
+ */
+object CoreJarCacheTracker {
+    class Statistics(val opened: Int, val reused: Int, val evicted: Int, val cached: Int, val cachedSize: Long)
+
+    private class JarStamp(val length: Long, val lastModified: FileTime?, val fileKey: Any?) {
+        fun isUpToDate(jar: File): Boolean {
+            val current = stampOf(jar)
+            return current.length == length && current.lastModified == lastModified && current.fileKey == fileKey
+        }
+    }
+
+    // keys are the paths of jars as the jar file system gets them, in the order of access
+    private val stamps = LinkedHashMap<String, JarStamp>(16, 0.75f, true)
+    private var cachedSize = 0L
+    private var opened = 0
+    private var reused = 0
+    private var evicted = 0
+
+    @Volatile
+    var maxCachedJarsSize: Long = Long.MAX_VALUE
+
+    /**
+     * Should be called before the jar is looked up in [jarFileSystem]. If the jar has been changed since it was cached,
+     * it's evicted from [jarFileSystem], so that it's read anew. Then the least recently used jars are evicted
+     * if the cache has grown over [maxCachedJarsSize]. The roots already obtained by running compilations stay valid,
+     * as they keep their own handlers, and so do the files these handlers have open.
+     */
+    @JvmStatic
+    @Synchronized
+    fun recordAccess(jar: File, jarFileSystem: VirtualFileSystem) {
+        val path = jar.path
+        val stamp = stamps[path]
+        if (stamp != null && stamp.isUpToDate(jar)) {
+            reused++
+            return
+        }
+
+        if (stamp != null) {
+            evict(path, jarFileSystem)
+        }
+        opened++
+        val newStamp = stampOf(jar)
+        stamps[path] = newStamp
+        cachedSize += newStamp.length
+
+        val iterator = stamps.entries.iterator()
+        while (cachedSize > maxCachedJarsSize && stamps.size > 1) {
+            val eldest = iterator.next()
+            iterator.remove()
+            cachedSize -= eldest.value.length
+            evicted++
+            if (!removeHandler(eldest.key, jarFileSystem)) break
+        }
+    }
+
+    /**
+     * Evicts the jars which were changed, or deleted, after they had been opened. Returns their paths.
+     */
+    @JvmStatic
+    @Synchronized
+    fun evictChangedJars(jarFileSystem: VirtualFileSystem?): List<String> {
+        val changed = stamps.filter { !it.value.isUpToDate(File(it.key)) }.keys.toList()
+        for (path in changed) {
+            evict(path, jarFileSystem)
+        }
+        return changed
+    }
+
+    /**
+     * Clears the cached contents of all the jars opened through [jarFileSystem] and closes their file handles.
+     * Should only be called while no compilation is running.
+     */
+    @JvmStatic
+    @Synchronized
+    fun clearCaches(jarFileSystem: VirtualFileSystem?) {
+        ZipHandler.clearFileAccessorCache()
+        (jarFileSystem as? CoreJarFileSystem)?.clearHandlersCache()
+        stamps.clear()
+        cachedSize = 0
+    }
+
+    private fun evict(path: String, jarFileSystem: VirtualFileSystem?) {
+        val stamp = stamps.remove(path) ?: return
+        cachedSize -= stamp.length
+        removeHandler(path, jarFileSystem)
+        evicted++
+    }
+
+    // Returns false if the handlers of all the jars had to be dropped
+    private fun removeHandler(path: String, jarFileSystem: VirtualFileSystem?): Boolean {
+        if (jarFileSystem !is CoreJarFileSystem) return true
+
+        @Suppress("UNCHECKED_CAST")
+        val handlers = handlersField?.get(jarFileSystem) as? MutableMap<String, Any?>
+        if (handlers != null) {
+            handlers.remove(path)
+            return true
+        }
+
+        // the handlers of single jars can't be reached, so the contents of all the jars are read anew
+        jarFileSystem.clearHandlersCache()
+        stamps.clear()
+        cachedSize = 0
+        return false
+    }
+
+    @Synchronized
+    fun cachedJars(): List<String> = stamps.keys.toList()
+
+    /**
+     * Returns the statistics of jar accesses since the previous call.
+     */
+    @Synchronized
+    fun takeStatistics(): Statistics {
+        val statistics = Statistics(opened, reused, evicted, stamps.size, cachedSize)
+        opened = 0
+        reused = 0
+        evicted = 0
+        return statistics
+    }
+
+    // CoreJarFileSystem can only drop all of its handlers at once
+    private val handlersField: Field? by lazy {
+        try {
+            CoreJarFileSystem::class.java.getDeclaredField("myHandlers").apply { isAccessible = true }
+        }
+        catch (e: Exception) {
+            null
+        }
+    }
+
+    private fun stampOf(jar: File): JarStamp {
+        try {
+            val attributes = Files.readAttributes(jar.toPath(), BasicFileAttributes::class.java)
+            return JarStamp(attributes.size(), attributes.lastModifiedTime(), attributes.fileKey())
+        }
+        catch (e: IOException) {
+            return JarStamp(0, null, null)
+        }
+    }
+}
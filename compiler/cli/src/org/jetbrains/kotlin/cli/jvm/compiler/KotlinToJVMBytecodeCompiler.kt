@@ -221,10 +221,19 @@ object KotlinToJVMBytecodeCompiler {
     fun compileAndExecuteScript(
             environment: KotlinCoreEnvironment,
             paths: KotlinPaths,
-            scriptArgs: List<String>): ExitCode
+            scriptArgs: List<String>,
+            cacheEntry: CompiledScriptCache.Entry? = null): ExitCode
     {
-        val scriptClass = compileScript(environment, paths) ?: return ExitCode.COMPILATION_ERROR
+        val classpath = environment.configuration.jvmClasspathRoots
+        val scriptClass = compileScript(environment,
+                                        { makeScriptParentClassLoader(paths, classpath) },
+                                        { state, scriptClassName -> cacheEntry?.save(state.factory, scriptClassName, classpath) })
+                          ?: return ExitCode.COMPILATION_ERROR
 
+        return executeScript(scriptClass, scriptArgs)
+    }
+
+    fun executeScript(scriptClass: Class<*>, scriptArgs: List<String>): ExitCode {
         try {
             try {
                 tryConstructClassFromStringArgs(scriptClass, scriptArgs)
@@ -293,25 +302,30 @@ object KotlinToJVMBytecodeCompiler {
     }
 
     fun compileScript(environment: KotlinCoreEnvironment, paths: KotlinPaths): Class<*>? =
-            compileScript(environment,
-                          {
-                              val classPaths = arrayListOf(paths.runtimePath.toURI().toURL())
-                              environment.configuration.jvmClasspathRoots.mapTo(classPaths) { it.toURI().toURL() }
-                              URLClassLoader(classPaths.toTypedArray())
-                          })
+            compileScript(environment, { makeScriptParentClassLoader(paths, environment.configuration.jvmClasspathRoots) }, { state, scriptClassName -> })
 
-    fun compileScript(environment: KotlinCoreEnvironment, parentClassLoader: ClassLoader): Class<*>? = compileScript(environment, { parentClassLoader })
+    fun compileScript(environment: KotlinCoreEnvironment, parentClassLoader: ClassLoader): Class<*>? =
+            compileScript(environment, { parentClassLoader }, { state, scriptClassName -> })
+
+    fun makeScriptParentClassLoader(paths: KotlinPaths, classpath: List<File>): ClassLoader {
+        val classPaths = arrayListOf(paths.runtimePath.toURI().toURL())
+        classpath.mapTo(classPaths) { it.toURI().toURL() }
+        return URLClassLoader(classPaths.toTypedArray())
+    }
 
     private inline fun compileScript(
             environment: KotlinCoreEnvironment,
-            makeParentClassLoader: () -> ClassLoader): Class<*>? {
+            makeParentClassLoader: () -> ClassLoader,
+            onGenerated: (GenerationState, String) -> Unit): Class<*>? {
         val state = analyzeAndGenerate(environment) ?: return null
 
         try {
-            val classLoader = GeneratedClassLoader(state.factory, makeParentClassLoader())
-
             val script = environment.getSourceFiles()[0].script ?: error("Script must be parsed")
-            return classLoader.loadClass(script.fqName.asString())
+            val scriptClassName = script.fqName.asString()
+            onGenerated(state, scriptClassName)
+
+            val classLoader = GeneratedClassLoader(state.factory, makeParentClassLoader())
+            return classLoader.loadClass(scriptClassName)
         }
         catch (e: Exception) {
             throw RuntimeException("Failed to evaluate script: " + e, e)
@@ -73,6 +73,9 @@ interface CompileService : Remote {
     @Throws(RemoteException::class)
     fun getUsedMemory(): CallResult<Long>
 
+    @Throws(RemoteException::class)
+    fun getCompilationQueueInfo(): CallResult<CompilationQueueInfo>
+
     @Throws(RemoteException::class)
     fun getDaemonOptions(): CallResult<DaemonOptions>
 
@@ -48,6 +48,9 @@ val COMPILE_DAEMON_DEFAULT_SHUTDOWN_DELAY_MS: Long = 1000L // 1 sec
 val COMPILE_DAEMON_MEMORY_THRESHOLD_INFINITE: Long = 0L
 val COMPILE_DAEMON_FORCE_SHUTDOWN_DEFAULT_TIMEOUT_MS: Long = 10000L // 10 secs
 val COMPILE_DAEMON_TIMEOUT_INFINITE_MS: Long = 0L
+val COMPILE_DAEMON_DEFAULT_COMPILATION_MEMORY_BUDGET_PERCENT: Int = 75
+val COMPILE_DAEMON_DEFAULT_COMPILATION_MAX_BYPASS_MS: Long = 30000L // 30 secs
+val COMPILE_DAEMON_DEFAULT_COMPILATION_MEMORY_PER_SOURCE_BYTE: Long = 200L
 
 val COMPILE_DAEMON_DEFAULT_RUN_DIR_PATH: String get() =
     FileSystem.getRuntimeStateFilesPath("kotlin", "daemon")
@@ -207,7 +210,11 @@ data class DaemonOptions(
         var shutdownDelayMilliseconds: Long = COMPILE_DAEMON_DEFAULT_SHUTDOWN_DELAY_MS,
         var forceShutdownTimeoutMilliseconds: Long = COMPILE_DAEMON_FORCE_SHUTDOWN_DEFAULT_TIMEOUT_MS,
         var verbose: Boolean = false,
-        var reportPerf: Boolean = false
+        var reportPerf: Boolean = false,
+        var warmUp: Boolean = false,
+        var compilationMemoryBudgetPercent: Int = COMPILE_DAEMON_DEFAULT_COMPILATION_MEMORY_BUDGET_PERCENT,
+        var compilationMaxBypassMilliseconds: Long = COMPILE_DAEMON_DEFAULT_COMPILATION_MAX_BYPASS_MS,
+        var compilationMemoryPerSourceByte: Long = COMPILE_DAEMON_DEFAULT_COMPILATION_MEMORY_PER_SOURCE_BYTE
 ) : OptionsGroup {
 
     override val mappers: List<PropMapper<*, *, *>>
@@ -219,7 +226,11 @@ data class DaemonOptions(
                        PropMapper(this, DaemonOptions::shutdownDelayMilliseconds, fromString = { it.toLong() }, skipIf = { it == COMPILE_DAEMON_DEFAULT_SHUTDOWN_DELAY_MS }, mergeDelimiter = "="),
                        PropMapper(this, DaemonOptions::forceShutdownTimeoutMilliseconds, fromString = { it.toLong() }, skipIf = { it == COMPILE_DAEMON_FORCE_SHUTDOWN_DEFAULT_TIMEOUT_MS }, mergeDelimiter = "="),
                        BoolPropMapper(this, DaemonOptions::verbose),
-                       BoolPropMapper(this, DaemonOptions::reportPerf))
+                       BoolPropMapper(this, DaemonOptions::reportPerf),
+                       BoolPropMapper(this, DaemonOptions::warmUp),
+                       PropMapper(this, DaemonOptions::compilationMemoryBudgetPercent, fromString = { it.toInt() }, skipIf = { it == COMPILE_DAEMON_DEFAULT_COMPILATION_MEMORY_BUDGET_PERCENT }, mergeDelimiter = "="),
+                       PropMapper(this, DaemonOptions::compilationMaxBypassMilliseconds, fromString = { it.toLong() }, skipIf = { it == COMPILE_DAEMON_DEFAULT_COMPILATION_MAX_BYPASS_MS }, mergeDelimiter = "="),
+                       PropMapper(this, DaemonOptions::compilationMemoryPerSourceByte, fromString = { it.toLong() }, skipIf = { it == COMPILE_DAEMON_DEFAULT_COMPILATION_MEMORY_PER_SOURCE_BYTE }, mergeDelimiter = "="))
 }
 
 // TODO: consider implementing generic approach to it or may be replace getters with ones returning default if necessary
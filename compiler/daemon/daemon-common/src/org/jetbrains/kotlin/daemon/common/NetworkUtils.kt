@@ -57,13 +57,16 @@ object LoopbackNetworkInterface {
 
     // base socket factories by default don't implement equals properly (see e.g. http://stackoverflow.com/questions/21555710/rmi-and-jmx-socket-factories)
     // so implementing it in derived classes using the fact that they are singletons
+    // TCP_NODELAY is set on all sockets, since RMI calls are mostly small request-response exchanges, delayed by Nagle's algorithm otherwise
 
     class ServerLoopbackSocketFactory : RMIServerSocketFactory, Serializable {
         override fun equals(other: Any?): Boolean = other === this || super.equals(other)
         override fun hashCode(): Int = super.hashCode()
 
         @Throws(IOException::class)
-        override fun createServerSocket(port: Int): ServerSocket = ServerSocket(port, SERVER_SOCKET_BACKLOG_SIZE, InetAddress.getByName(null))
+        override fun createServerSocket(port: Int): ServerSocket = object : ServerSocket(port, SERVER_SOCKET_BACKLOG_SIZE, InetAddress.getByName(null)) {
+            override fun accept(): Socket = super.accept().apply { tcpNoDelay = true }
+        }
     }
 
 
@@ -72,7 +75,7 @@ object LoopbackNetworkInterface {
         override fun hashCode(): Int = super.hashCode()
 
         @Throws(IOException::class)
-        override fun createSocket(host: String, port: Int): Socket = Socket(InetAddress.getByName(null), port)
+        override fun createSocket(host: String, port: Int): Socket = Socket(InetAddress.getByName(null), port).apply { tcpNoDelay = true }
     }
 }
 
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.daemon
+
+import com.sampullara.cli.Args
+import org.jetbrains.kotlin.cli.common.arguments.K2JSCompilerArguments
+import org.jetbrains.kotlin.cli.common.arguments.K2JVMCompilerArguments
+import org.jetbrains.kotlin.cli.common.messages.MessageCollector
+import org.jetbrains.kotlin.cli.common.modules.ModuleXmlParser
+import org.jetbrains.kotlin.daemon.common.COMPILE_DAEMON_DEFAULT_COMPILATION_MAX_BYPASS_MS
+import org.jetbrains.kotlin.daemon.common.COMPILE_DAEMON_DEFAULT_COMPILATION_MEMORY_PER_SOURCE_BYTE
+import org.jetbrains.kotlin.daemon.common.CompilationQueueInfo
+import org.jetbrains.kotlin.daemon.common.CompileService
+import java.io.File
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+/**
+ * Admits concurrent compilations while their estimated memory fits into [memoryBudget], queueing the rest.
+ * Queued compilations with smaller estimates are admitted first, unless some compilation has been waiting for longer
+ * than [maxBypassMilliseconds]. A compilation is always admitted when no other one is running, however big it is.
+ * A waiting compilation holds no locks of the daemon, so it should be admitted before it takes any.
+ */
+class CompilationScheduler(
+        val memoryBudget: Long,
+        private val maxBypassMilliseconds: Long = COMPILE_DAEMON_DEFAULT_COMPILATION_MAX_BYPASS_MS
+) {
+    init {
+        require(memoryBudget > 0) { "Memory budget of compilations should be positive: $memoryBudget" }
+        require(maxBypassMilliseconds >= 0) { "Time a compilation can be bypassed for should not be negative: $maxBypassMilliseconds" }
+    }
+
+    private class Ticket(val estimate: Long) {
+        val enqueuedNanos = System.nanoTime()
+    }
+
+    private val lock = ReentrantLock()
+    private val queueChanged = lock.newCondition()
+    private val queue = arrayListOf<Ticket>()
+    private var running = 0
+    private var reservedMemory = 0L
+    private var admitted = 0L
+    private var totalWaitNanos = 0L
+    private var maxWaitNanos = 0L
+
+    fun <R> withAdmission(estimatedMemory: Long, body: () -> R): R {
+        val ticket = Ticket(Math.min(estimatedMemory, memoryBudget))
+        admit(ticket)
+        try {
+            return body()
+        }
+        finally {
+            lock.withLock {
+                running--
+                reservedMemory -= ticket.estimate
+                queueChanged.signalAll()
+            }
+        }
+    }
+
+    fun getInfo(): CompilationQueueInfo = lock.withLock {
+        CompilationQueueInfo(running, queue.size, reservedMemory, memoryBudget, admitted,
+                             TimeUnit.NANOSECONDS.toMillis(totalWaitNanos), TimeUnit.NANOSECONDS.toMillis(maxWaitNanos))
+    }
+
+    private fun admit(ticket: Ticket) {
+        lock.withLock {
+            queue.add(ticket)
+            try {
+                while (nextInQueue() !== ticket || running > 0 && reservedMemory + ticket.estimate > memoryBudget) {
+                    queueChanged.await()
+                }
+            }
+            catch (e: InterruptedException) {
+                queue.remove(ticket)
+                queueChanged.signalAll()
+                throw e
+            }
+
+            queue.remove(ticket)
+            running++
+            reservedMemory += ticket.estimate
+
+            val waitNanos = System.nanoTime() - ticket.enqueuedNanos
+            admitted++
+            totalWaitNanos += waitNanos
+            maxWaitNanos = Math.max(maxWaitNanos, waitNanos)
+
+            // the next compilation in the queue may fit as well
+            queueChanged.signalAll()
+        }
+    }
+
+    private fun nextInQueue(): Ticket? {
+        val bypassDeadline = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(maxBypassMilliseconds)
+        return queue.firstOrNull { it.enqueuedNanos < bypassDeadline } ?: queue.minBy { it.estimate }
+    }
+}
+
+private val BASE_COMPILATION_MEMORY = 64L * 1024 * 1024
+private val MEMORY_PER_CLASSPATH_BYTE_DIVISOR = 2L
+
+/**
+ * Roughly estimates memory needed by a compilation with the given command line arguments: analysis and code generation
+ * take a lot of memory per byte of source code ([memoryPerSourceByte]), while classpath jars are mostly read lazily.
+ */
+fun estimateCompilationMemory(
+        targetPlatform: CompileService.TargetPlatform,
+        args: Array<out String>,
+        memoryPerSourceByte: Long = COMPILE_DAEMON_DEFAULT_COMPILATION_MEMORY_PER_SOURCE_BYTE
+): Long {
+    require(memoryPerSourceByte >= 0) { "Memory per byte of source code should not be negative: $memoryPerSourceByte" }
+
+    val sources = arrayListOf<File>()
+    val classpath = arrayListOf<File>()
+
+    try {
+        when (targetPlatform) {
+            CompileService.TargetPlatform.JVM -> {
+                val arguments = K2JVMCompilerArguments()
+                sources.addAll(Args.parse(arguments, args, false).map(::File))
+                arguments.classpath?.split(File.pathSeparatorChar)?.mapTo(classpath, ::File)
+                arguments.module?.let { moduleFile ->
+                    for (module in ModuleXmlParser.parseModuleScript(moduleFile, MessageCollector.NONE).modules) {
+                        module.getSourceFiles().mapTo(sources, ::File)
+                        module.getClasspathRoots().mapTo(classpath, ::File)
+                    }
+                }
+            }
+            CompileService.TargetPlatform.JS -> {
+                val arguments = K2JSCompilerArguments()
+                sources.addAll(Args.parse(arguments, args, false).map(::File))
+                arguments.libraryFiles?.mapTo(classpath, ::File)
+            }
+        }
+    }
+    catch (e: IllegalArgumentException) {
+        // the compiler reports invalid arguments itself
+    }
+
+    val sourceBytes = sources.sumByLong { root ->
+        root.walk().filter { it.isFile && (it.extension == "kt" || it.extension == "java") }.sumByLong { it.length() }
+    }
+    val classpathBytes = classpath.filter { it.isFile }.sumByLong { it.length() }
+
+    return BASE_COMPILATION_MEMORY + sourceBytes * memoryPerSourceByte + classpathBytes / MEMORY_PER_CLASSPATH_BYTE_DIVISOR
+}
+
+private inline fun <T> Sequence<T>.sumByLong(selector: (T) -> Long): Long = fold(0L) { sum, element -> sum + selector(element) }
+
+private inline fun <T> Iterable<T>.sumByLong(selector: (T) -> Long): Long = fold(0L) { sum, element -> sum + selector(element) }
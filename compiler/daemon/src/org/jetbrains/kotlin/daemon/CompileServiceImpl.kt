@@ -19,7 +19,6 @@ package org.jetbrains.kotlin.daemon
 import com.intellij.openapi.Disposable
 import com.intellij.openapi.util.Disposer
 import com.intellij.openapi.vfs.impl.ZipHandler
-import com.intellij.openapi.vfs.impl.jar.CoreJarFileSystem
 import org.jetbrains.kotlin.cli.common.CLICompiler
 import org.jetbrains.kotlin.cli.common.ExitCode
 import org.jetbrains.kotlin.cli.common.KOTLIN_COMPILER_ENVIRONMENT_KEEPALIVE_PROPERTY
@@ -27,6 +26,7 @@ import org.jetbrains.kotlin.cli.common.repl.ReplCheckResult
 import org.jetbrains.kotlin.cli.common.repl.ReplCodeLine
 import org.jetbrains.kotlin.cli.common.repl.ReplCompileResult
 import org.jetbrains.kotlin.cli.common.repl.ReplEvalResult
+import org.jetbrains.kotlin.cli.jvm.compiler.CoreJarCacheTracker
 import org.jetbrains.kotlin.cli.jvm.compiler.KotlinCoreEnvironment
 import org.jetbrains.kotlin.config.Services
 import org.jetbrains.kotlin.daemon.common.*
@@ -49,10 +49,44 @@ import java.util.logging.Logger
 import kotlin.comparisons.compareByDescending
 import kotlin.concurrent.read
 import kotlin.concurrent.schedule
+import kotlin.concurrent.thread
 import kotlin.concurrent.write
 
 const val REMOTE_STREAM_BUFFER_SIZE = 4096
 
+private const val WARM_UP_ITERATIONS = 5
+
+// the pause before the next warm-up compilation is doubled after each one
+private const val WARM_UP_INITIAL_PAUSE_MS = 500L
+
+private val WARM_UP_SOURCE = """
+package warmup
+
+data class Item(val name: String, val weight: Int)
+
+interface Shape { fun area(): Double }
+class Rect(val w: Double, val h: Double) : Shape { override fun area() = w * h }
+class Circle(val r: Double) : Shape { override fun area() = Math.PI * r * r }
+
+inline fun <T, R> T.transform(f: (T) -> R): R = f(this)
+
+fun describe(x: Any?): String = when (x) {
+    null -> "null"
+    is Int -> "int ${'$'}x"
+    is String -> "string of ${'$'}{x.length}"
+    is Shape -> "shape with area ${'$'}{x.area()}"
+    else -> x.toString()
+}
+
+fun main(args: Array<String>) {
+    val items = (1..100).map { Item("item${'$'}it", it % 7) }
+    val groups = items.filter { it.weight > 2 }.groupBy { it.weight }.mapValues { it.value.size }
+    val shapes = listOf<Shape>(Rect(1.0, 2.0), Circle(3.0))
+    val total = shapes.sumByDouble { it.area() }.transform { it * 2 }
+    println(groups.entries.joinToString { describe(it.key) + describe(it.value) } + describe(total))
+}
+"""
+
 fun nowSeconds() = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime())
 
 interface CompilerSelector {
@@ -88,6 +122,9 @@ class CompileServiceImpl(
 
     init {
         System.setProperty(KOTLIN_COMPILER_ENVIRONMENT_KEEPALIVE_PROPERTY, "true")
+        // The jar file system keeps the central directory of each cached jar, which takes a small part of the jar size,
+        // so limiting the total size of the cached jars by the heap size keeps the retained memory to a fraction of the heap
+        CoreJarCacheTracker.maxCachedJarsSize = Runtime.getRuntime().maxMemory()
     }
 
     // wrapped in a class to encapsulate alive check logic
@@ -176,8 +213,18 @@ class CompileServiceImpl(
 
     private val log by lazy { Logger.getLogger("compiler") }
 
+    // Concurrent compilations are admitted while their estimated memory fits into a part of the heap (3/4 by default),
+    // leaving the rest for the daemon itself and for estimation errors
+    private val compilationScheduler = createCompilationScheduler()
+
+    private val compilationMemoryPerSourceByte =
+            daemonOptions.compilationMemoryPerSourceByte.takeValidOrDefault("compilationMemoryPerSourceByte", COMPILE_DAEMON_DEFAULT_COMPILATION_MEMORY_PER_SOURCE_BYTE) { it >= 0 }
+
     private val rwlock = ReentrantReadWriteLock()
 
+    // the warm-up stops as soon as the daemon gets its first real request
+    @Volatile private var compilationRequested = false
+
     private var runFile: File
 
     init {
@@ -197,6 +244,10 @@ class CompileServiceImpl(
 
     // RMI-exposed API
 
+    override fun getCompilationQueueInfo(): CompileService.CallResult<CompilationQueueInfo> = ifAlive {
+        CompileService.CallResult.Good(compilationScheduler.getInfo())
+    }
+
     override fun getDaemonOptions(): CompileService.CallResult<DaemonOptions> = ifAlive {
         CompileService.CallResult.Good(daemonOptions)
     }
@@ -231,7 +282,7 @@ class CompileServiceImpl(
         state.sessions.remove(sessionId)
         log.info("cleaning after session $sessionId")
         rwlock.write {
-            clearJarCache()
+            releaseJarCache()
         }
         if (state.sessions.isEmpty()) {
             // TODO: and some goes here
@@ -283,7 +334,7 @@ class CompileServiceImpl(
                                serviceOutputStream: RemoteOutputStream,
                                operationsTracer: RemoteOperationsTracer?
     ): CompileService.CallResult<Int> =
-            doCompile(sessionId, args, compilerOutputStream, serviceOutputStream, operationsTracer) { printStream, eventManager, profiler ->
+            doCompile(sessionId, targetPlatform, args, compilerOutputStream, serviceOutputStream, operationsTracer) { printStream, eventManager, profiler ->
                 when (outputFormat) {
                     CompileService.OutputFormat.PLAIN -> compiler[targetPlatform].exec(printStream, *args)
                     CompileService.OutputFormat.XML -> compiler[targetPlatform].execAndOutputXml(printStream, createCompileServices(servicesFacade, eventManager, profiler), *args)
@@ -299,7 +350,7 @@ class CompileServiceImpl(
                                           serviceOutputStream: RemoteOutputStream,
                                           operationsTracer: RemoteOperationsTracer?
     ): CompileService.CallResult<Int> =
-            doCompile(sessionId, args, compilerOutputStream, serviceOutputStream, operationsTracer) { printStream, eventManager, profiler ->
+            doCompile(sessionId, targetPlatform, args, compilerOutputStream, serviceOutputStream, operationsTracer) { printStream, eventManager, profiler ->
                 when (compilerOutputFormat) {
                     CompileService.OutputFormat.PLAIN -> throw NotImplementedError("Only XML output is supported in remote incremental compilation")
                     CompileService.OutputFormat.XML -> compiler[targetPlatform].execAndOutputXml(printStream, createCompileServices(servicesFacade, eventManager, profiler), *args)
@@ -320,6 +371,7 @@ class CompileServiceImpl(
             evalInputStream: RemoteInputStream?,
             operationsTracer: RemoteOperationsTracer?
     ): CompileService.CallResult<Int> = ifAlive(minAliveness = Aliveness.Alive) {
+        compilationRequested = true
         if (targetPlatform != CompileService.TargetPlatform.JVM)
             CompileService.CallResult.Error("Sorry, only JVM target platform is supported now")
         else {
@@ -390,6 +442,11 @@ class CompileServiceImpl(
         timer.schedule(0) {
             initiateElections()
         }
+        if (daemonOptions.warmUp) {
+            thread(isDaemon = true, name = "warm-up") {
+                warmUp()
+            }
+        }
         timer.schedule(delay = DAEMON_PERIODIC_CHECK_INTERVAL_MS, period = DAEMON_PERIODIC_CHECK_INTERVAL_MS) {
             try {
                 periodicAndAfterSessionCheck()
@@ -450,7 +507,7 @@ class CompileServiceImpl(
                 }
 
                 if (anyDead && !shuttingDown) {
-                    clearJarCache()
+                    releaseJarCache()
                 }
             }
             CompileService.CallResult.Ok()
@@ -529,11 +586,16 @@ class CompileServiceImpl(
     }
 
     private fun doCompile(sessionId: Int,
+                          targetPlatform: CompileService.TargetPlatform,
                           args: Array<out String>,
                           compilerMessagesStreamProxy: RemoteOutputStream,
                           serviceOutputStreamProxy: RemoteOutputStream,
                           operationsTracer: RemoteOperationsTracer?,
-                          body: (PrintStream, EventManger, Profiler) -> ExitCode): CompileService.CallResult<Int> =
+                          body: (PrintStream, EventManger, Profiler) -> ExitCode): CompileService.CallResult<Int> {
+        compilationRequested = true
+        // the compilation is admitted before it takes the lock, so that the queued ones don't hold off the operations
+        // that need the write lock, e.g. releasing of sessions or shutdown
+        return compilationScheduler.withAdmission(estimateMemory(targetPlatform, args)) {
             ifAlive {
                 withValidClientOrSessionProxy(sessionId) { session ->
                     operationsTracer?.before("compile")
@@ -555,6 +617,33 @@ class CompileServiceImpl(
                     }
                 }
             }
+        }
+    }
+
+    private fun estimateMemory(targetPlatform: CompileService.TargetPlatform, args: Array<out String>): Long =
+            try {
+                estimateCompilationMemory(targetPlatform, args, compilationMemoryPerSourceByte)
+            }
+            catch (e: Exception) {
+                log.log(Level.WARNING, "Cannot estimate memory of compilation, admitting it as a small one", e)
+                0L
+            }
+
+    private fun createCompilationScheduler(): CompilationScheduler {
+        val budgetPercent = daemonOptions.compilationMemoryBudgetPercent
+                .takeValidOrDefault("compilationMemoryBudgetPercent", COMPILE_DAEMON_DEFAULT_COMPILATION_MEMORY_BUDGET_PERCENT) { it in 1..100 }
+        val maxBypassMilliseconds = daemonOptions.compilationMaxBypassMilliseconds
+                .takeValidOrDefault("compilationMaxBypassMilliseconds", COMPILE_DAEMON_DEFAULT_COMPILATION_MAX_BYPASS_MS) { it >= 0 }
+        val maxMemory = Runtime.getRuntime().maxMemory()
+        return CompilationScheduler(if (maxMemory == Long.MAX_VALUE) maxMemory else maxMemory / 100 * budgetPercent, maxBypassMilliseconds)
+    }
+
+    private fun <T> T.takeValidOrDefault(optionName: String, default: T, isValid: (T) -> Boolean): T {
+        if (isValid(this)) return this
+
+        log.warning("Invalid value of daemon option $optionName: $this, using the default one: $default")
+        return default
+    }
 
     private fun createCompileServices(facade: CompilerCallbackServicesFacade, eventManger: EventManger, rpcProfiler: Profiler): Services {
         val builder = Services.Builder()
@@ -610,11 +699,71 @@ class CompileServiceImpl(
         }
     }
 
-    private fun clearJarCache() {
+    // Contents of jars opened by previous compilations are reused by the next ones, the least recently used jars are evicted
+    // when the cache grows too big. A changed jar is evicted when a compilation accesses it, changed jars are also evicted here,
+    // so that they are not kept in memory until then. Open file handles are always closed, so that jars can be replaced between builds
+    private fun releaseJarCache() {
         ZipHandler.clearFileAccessorCache()
-        (KotlinCoreEnvironment.applicationEnvironment?.jarFileSystem as? CoreJarFileSystem)?.clearHandlersCache()
+
+        val changedJars = CoreJarCacheTracker.evictChangedJars(KotlinCoreEnvironment.applicationEnvironment?.jarFileSystem)
+        if (changedJars.isNotEmpty()) {
+            log.info("Jar cache: evicted changed jars: ${changedJars.joinToString()}")
+        }
+
+        val statistics = CoreJarCacheTracker.takeStatistics()
+        log.info("Jar cache: ${statistics.opened} jars opened, ${statistics.reused} reused, ${statistics.evicted} evicted, " +
+                 "${statistics.cached} cached (${statistics.cachedSize / 1024} kb)")
+    }
+
+    // Compiles a small synthetic source a few times after the start, so that the first real compilations don't run on a cold JVM:
+    // compiler classes get loaded and JIT-compiled, and the application environment, which the daemon keeps alive, gets initialized.
+    // Project environments and built-ins are still created by each compilation. Warm-up compilations are admitted by the scheduler
+    // like the real ones, pause for longer and longer in between, and stop at the first real request or when the daemon is shutting down
+    private fun warmUp() {
+        val workingDir = createTempDir("kotlin-daemon-warm-up")
+        try {
+            val source = File(workingDir, "WarmUp.kt")
+            source.writeText(WARM_UP_SOURCE)
+            val outputDir = File(workingDir, "out")
+            val args = arrayOf(source.path, "-d", outputDir.path)
+            val compilerOutput = PrintStream(LogStream("warm-up"))
+            var pauseMs = WARM_UP_INITIAL_PAUSE_MS
+
+            for (iteration in 1..WARM_UP_ITERATIONS) {
+                val exitCode = compilationScheduler.withAdmission(estimateMemory(CompileService.TargetPlatform.JVM, args)) {
+                    rwlock.read {
+                        if (shouldContinueWarmUp()) {
+                            val startNanos = System.nanoTime()
+                            val result = compiler[CompileService.TargetPlatform.JVM].exec(compilerOutput, *args)
+                            log.info("Warm-up compilation $iteration of $WARM_UP_ITERATIONS: $result in ${TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)} ms")
+                            result
+                        }
+                        else null
+                    }
+                }
+                if (exitCode == null) {
+                    log.info("Warm-up stopped after ${iteration - 1} compilations")
+                    return
+                }
+                if (exitCode != ExitCode.OK) break
+
+                if (iteration < WARM_UP_ITERATIONS) {
+                    Thread.sleep(pauseMs)
+                    pauseMs *= 2
+                }
+            }
+        }
+        catch (e: Exception) {
+            log.log(Level.WARNING, "Warm-up failed", e)
+        }
+        finally {
+            workingDir.deleteRecursively()
+        }
     }
 
+    private fun shouldContinueWarmUp(): Boolean =
+            !compilationRequested && state.alive.get() == Aliveness.Alive.ordinal
+
     private fun<R> ifAlive(minAliveness: Aliveness = Aliveness.Alive,
                            ignoreCompilerChanged: Boolean = false,
                            body: () -> CompileService.CallResult<R>
@@ -23,17 +23,45 @@ import org.jetbrains.kotlin.load.kotlin.incremental.components.IncrementalCache
 import org.jetbrains.kotlin.load.kotlin.incremental.components.JvmPackagePartProto
 import org.jetbrains.kotlin.modules.TargetId
 
+// Caches on the client side are not updated while a target is compiled, so the data read from them is remembered
+// to avoid repeated remote calls, until the cache is closed
 class RemoteIncrementalCacheClient(val facade: CompilerCallbackServicesFacade, val target: TargetId, val profiler: Profiler = DummyProfiler()): IncrementalCache {
+    private var obsoletePackageParts: Collection<String>? = null
+    private var obsoleteMultifileClasses: Collection<String>? = null
+    private var moduleMappingData: Remembered<ByteArray?>? = null
+    private val multifileFacadeParts = hashMapOf<String, Collection<String>?>()
+    private val packagePartData = hashMapOf<String, JvmPackagePartProto?>()
 
-    override fun getObsoletePackageParts(): Collection<String> = profiler.withMeasure(this) { facade.incrementalCache_getObsoletePackageParts(target) }
+    @Synchronized
+    override fun getObsoletePackageParts(): Collection<String> =
+            obsoletePackageParts ?: profiler.withMeasure(this) { facade.incrementalCache_getObsoletePackageParts(target) }.apply {
+                obsoletePackageParts = this
+            }
 
-    override fun getObsoleteMultifileClasses(): Collection<String> = profiler.withMeasure(this) { facade.incrementalCache_getObsoleteMultifileClassFacades(target) }
+    @Synchronized
+    override fun getObsoleteMultifileClasses(): Collection<String> =
+            obsoleteMultifileClasses ?: profiler.withMeasure(this) { facade.incrementalCache_getObsoleteMultifileClassFacades(target) }.apply {
+                obsoleteMultifileClasses = this
+            }
 
-    override fun getStableMultifileFacadeParts(facadeInternalName: String): Collection<String>? = profiler.withMeasure(this) { facade.incrementalCache_getMultifileFacadeParts(target, facadeInternalName) }
+    @Synchronized
+    override fun getStableMultifileFacadeParts(facadeInternalName: String): Collection<String>? =
+            multifileFacadeParts.getOrPutNullable(facadeInternalName) {
+                profiler.withMeasure(this) { facade.incrementalCache_getMultifileFacadeParts(target, facadeInternalName) }
+            }
 
-    override fun getPackagePartData(partInternalName: String): JvmPackagePartProto? = profiler.withMeasure(this) { facade.incrementalCache_getPackagePartData(target, partInternalName) }
+    @Synchronized
+    override fun getPackagePartData(partInternalName: String): JvmPackagePartProto? =
+            packagePartData.getOrPutNullable(partInternalName) {
+                profiler.withMeasure(this) { facade.incrementalCache_getPackagePartData(target, partInternalName) }
+            }
 
-    override fun getModuleMappingData(): ByteArray? = profiler.withMeasure(this) { facade.incrementalCache_getModuleMappingData(target) }
+    @Synchronized
+    override fun getModuleMappingData(): ByteArray? {
+        val remembered = moduleMappingData ?: Remembered(profiler.withMeasure(this) { facade.incrementalCache_getModuleMappingData(target) })
+        moduleMappingData = remembered
+        return remembered.value
+    }
 
     override fun registerInline(fromPath: String, jvmSignature: String, toPath: String) {
         profiler.withMeasure(this) { facade.incrementalCache_registerInline(target, fromPath, jvmSignature, toPath) }
@@ -41,5 +69,23 @@ class RemoteIncrementalCacheClient(val facade: CompilerCallbackServicesFacade, v
 
     override fun getClassFilePath(internalClassName: String): String = profiler.withMeasure(this) { facade.incrementalCache_getClassFilePath(target,internalClassName) }
 
-    override fun close(): Unit = profiler.withMeasure(this) { facade.incrementalCache_close(target) }
+    override fun close() {
+        synchronized(this) {
+            obsoletePackageParts = null
+            obsoleteMultifileClasses = null
+            moduleMappingData = null
+            multifileFacadeParts.clear()
+            packagePartData.clear()
+        }
+        profiler.withMeasure(this) { facade.incrementalCache_close(target) }
+    }
+
+    private class Remembered<out T>(val value: T)
+
+    private inline fun <K, V> MutableMap<K, V?>.getOrPutNullable(key: K, compute: () -> V?): V? {
+        if (key in this) return get(key)
+        val value = compute()
+        put(key, value)
+        return value
+    }
 }
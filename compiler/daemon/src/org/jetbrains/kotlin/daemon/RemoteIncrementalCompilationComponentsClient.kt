@@ -29,7 +29,11 @@ import org.jetbrains.kotlin.incremental.components.SourceRetentionAnnotationHand
 class RemoteIncrementalCompilationComponentsClient(val facade: CompilerCallbackServicesFacade, eventManger: EventManger, val profiler: Profiler = DummyProfiler()) : IncrementalCompilationComponents {
     val remoteLookupTrackerClient = RemoteLookupTrackerClient(facade, eventManger, profiler)
 
-    override fun getIncrementalCache(target: TargetId): IncrementalCache = RemoteIncrementalCacheClient(facade, target, profiler)
+    private val incrementalCaches = hashMapOf<TargetId, RemoteIncrementalCacheClient>()
+
+    @Synchronized
+    override fun getIncrementalCache(target: TargetId): IncrementalCache =
+            incrementalCaches.getOrPut(target) { RemoteIncrementalCacheClient(facade, target, profiler) }
 
     override fun getLookupTracker(): LookupTracker = remoteLookupTrackerClient
 }
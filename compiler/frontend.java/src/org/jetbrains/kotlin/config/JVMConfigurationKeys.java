@@ -88,6 +88,9 @@ public class JVMConfigurationKeys {
     public static final CompilerConfigurationKey<Boolean> INTERFACE_COMPATIBILITY =
             CompilerConfigurationKey.create("Generate additional 'DefaultImpls' class files for jvm 8 target for compatibility with 6 target interfaces");
 
+    public static final CompilerConfigurationKey<Boolean> INDY_LAMBDAS =
+            CompilerConfigurationKey.create("Generate non-capturing lambdas with invokedynamic for jvm 8 target");
+
     public static final CompilerConfigurationKey<IncrementalCompilationComponents> INCREMENTAL_COMPILATION_COMPONENTS =
             CompilerConfigurationKey.create("incremental cache provider");
 
@@ -35,8 +35,11 @@ import java.util.*;
 
 import static org.jetbrains.org.objectweb.asm.ClassReader.*;
 import static org.jetbrains.org.objectweb.asm.Opcodes.ASM5;
+import static org.jetbrains.org.objectweb.asm.Opcodes.V1_8;
 
 public abstract class FileBasedKotlinClass implements KotlinJvmBinaryClass {
+    public static final int JVM_9_CLASS_FILE_VERSION = 53;
+
     private final ClassId classId;
     private final int classVersion;
     private final KotlinClassHeader classHeader;
@@ -83,6 +86,21 @@ public abstract class FileBasedKotlinClass implements KotlinJvmBinaryClass {
     @NotNull
     protected abstract byte[] getFileContents();
 
+    /**
+     * The bundled ASM rejects class files newer than Java 8. Class files generated for the JVM 9 target only differ from
+     * the Java 8 ones in the version, so they are read as if they had the Java 8 version.
+     */
+    @NotNull
+    public static ClassReader createClassReader(@NotNull byte[] fileContents) {
+        if (fileContents.length > 7 && (((fileContents[6] & 0xFF) << 8) | (fileContents[7] & 0xFF)) == JVM_9_CLASS_FILE_VERSION) {
+            byte[] copy = fileContents.clone();
+            copy[6] = (byte) (V1_8 >>> 8);
+            copy[7] = (byte) V1_8;
+            return new ClassReader(copy);
+        }
+        return new ClassReader(fileContents);
+    }
+
     // TODO public to be accessible in companion object of subclass, workaround for KT-3974
     @Nullable
     public static <T extends FileBasedKotlinClass> T create(
@@ -93,7 +111,7 @@ public abstract class FileBasedKotlinClass implements KotlinJvmBinaryClass {
         final Ref<String> classNameRef = Ref.create();
         final Ref<Integer> classVersion = Ref.create();
         final InnerClassesInfo innerClasses = new InnerClassesInfo();
-        new ClassReader(fileContents).accept(new ClassVisitor(ASM5) {
+        createClassReader(fileContents).accept(new ClassVisitor(ASM5) {
             @Override
             public void visit(int version, int access, @NotNull String name, String signature, String superName, String[] interfaces) {
                 classNameRef.set(name);
@@ -144,7 +162,7 @@ public abstract class FileBasedKotlinClass implements KotlinJvmBinaryClass {
 
     @Override
     public void loadClassAnnotations(@NotNull final AnnotationVisitor annotationVisitor) {
-        new ClassReader(getFileContents()).accept(new ClassVisitor(ASM5) {
+        createClassReader(getFileContents()).accept(new ClassVisitor(ASM5) {
             @Override
             public org.jetbrains.org.objectweb.asm.AnnotationVisitor visitAnnotation(@NotNull String desc, boolean visible) {
                 return convertAnnotationVisitor(annotationVisitor, desc, innerClasses);
@@ -216,7 +234,7 @@ public abstract class FileBasedKotlinClass implements KotlinJvmBinaryClass {
 
     @Override
     public void visitMembers(@NotNull final MemberVisitor memberVisitor) {
-        new ClassReader(getFileContents()).accept(new ClassVisitor(ASM5) {
+        createClassReader(getFileContents()).accept(new ClassVisitor(ASM5) {
             @Override
             public FieldVisitor visitField(int access, @NotNull String name, @NotNull String desc, String signature, Object value) {
                 final AnnotationVisitor v = memberVisitor.visitField(Name.identifier(name), desc, value);
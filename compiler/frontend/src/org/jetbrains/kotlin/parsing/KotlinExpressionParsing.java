@@ -1034,7 +1034,11 @@ public class KotlinExpressionParsing extends AbstractKotlinParsing {
      *   ;
      */
     private void parseFunctionLiteral() {
-        parseFunctionLiteral(/* preferBlock = */false, /* collapse = */true);
+        parseFunctionLiteral(/* preferBlock = */false, /* collapse = */collapseLambdas());
+    }
+
+    protected boolean collapseLambdas() {
+        return true;
     }
 
     /**
@@ -1084,7 +1088,7 @@ public class KotlinExpressionParsing extends AbstractKotlinParsing {
         }
 
         if (collapse) {
-            advanceLambdaBlock();
+            advanceBalancedBlock();
             literal.done(FUNCTION_LITERAL);
             literalExpression.collapse(LAMBDA_EXPRESSION);
         }
@@ -1103,7 +1107,7 @@ public class KotlinExpressionParsing extends AbstractKotlinParsing {
         myBuilder.restoreNewlinesState();
     }
 
-    private void advanceLambdaBlock() {
+    /*package*/ void advanceBalancedBlock() {
         int braceCount = 1;
         while (!eof()) {
             if (_at(LBRACE)) {
@@ -20,17 +20,25 @@ import com.intellij.lang.ASTNode;
 import com.intellij.lang.PsiBuilder;
 import com.intellij.lang.PsiParser;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.tree.IElementType;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.kotlin.script.KotlinScriptDefinitionProvider;
 
 public class KotlinParser implements PsiParser {
+    /**
+     * When set for a project, block bodies of functions, accessors, constructors and initializers are not parsed along with
+     * the file, but kept as {@link KtLazyBlockElementType#LAZY_BLOCK} chameleons which are parsed on the first access to their children.
+     */
+    public static final Key<Boolean> LAZY_DECLARATION_BODIES = Key.create("LAZY_DECLARATION_BODIES");
 
     private final KotlinScriptDefinitionProvider scriptDefinitionProvider;
+    private final boolean lazyDeclarationBodies;
 
     public KotlinParser(Project project) {
         scriptDefinitionProvider = KotlinScriptDefinitionProvider.getInstance(project);
+        lazyDeclarationBodies = Boolean.TRUE.equals(project.getUserData(LAZY_DECLARATION_BODIES));
     }
 
     @Override
@@ -42,7 +50,7 @@ public class KotlinParser implements PsiParser {
     // we need this method because we need psiFile
     @NotNull
     public ASTNode parse(IElementType iElementType, PsiBuilder psiBuilder, PsiFile psiFile) {
-        KotlinParsing ktParsing = KotlinParsing.createForTopLevel(new SemanticWhitespaceAwarePsiBuilderImpl(psiBuilder));
+        KotlinParsing ktParsing = KotlinParsing.createForTopLevel(new SemanticWhitespaceAwarePsiBuilderImpl(psiBuilder), lazyDeclarationBodies);
         if (scriptDefinitionProvider != null && scriptDefinitionProvider.isScript(psiFile)
             || psiFile.getName().endsWith(KotlinParserDefinition.STD_SCRIPT_EXT)) {
             ktParsing.parseScript();
@@ -80,4 +88,16 @@ public class KotlinParser implements PsiParser {
         ktParsing.parseLambdaExpression();
         return psiBuilder.getTreeBuilt();
     }
+
+    @NotNull
+    public static ASTNode parseBlockExpression(PsiBuilder psiBuilder) {
+        KotlinParsing ktParsing = KotlinParsing.createForTopLevel(new SemanticWhitespaceAwarePsiBuilderImpl(psiBuilder));
+        ktParsing.parseBlock();
+        return psiBuilder.getTreeBuilt();
+    }
+
+    public static void parseBlockExpressionExpandingLambdas(PsiBuilder psiBuilder) {
+        KotlinParsing ktParsing = KotlinParsing.createWithExpandedLambdas(new SemanticWhitespaceAwarePsiBuilderImpl(psiBuilder));
+        ktParsing.parseBlock();
+    }
 }
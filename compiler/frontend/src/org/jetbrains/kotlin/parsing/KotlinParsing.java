@@ -58,14 +58,30 @@ public class KotlinParsing extends AbstractKotlinParsing {
             RECEIVER_KEYWORD, PARAM_KEYWORD, SETPARAM_KEYWORD, DELEGATE_KEYWORD);
 
     static KotlinParsing createForTopLevel(SemanticWhitespaceAwarePsiBuilder builder) {
-        KotlinParsing kotlinParsing = new KotlinParsing(builder);
+        return createForTopLevel(builder, false);
+    }
+
+    static KotlinParsing createForTopLevel(SemanticWhitespaceAwarePsiBuilder builder, boolean lazyDeclarationBodies) {
+        KotlinParsing kotlinParsing = new KotlinParsing(builder, lazyDeclarationBodies);
         kotlinParsing.myExpressionParsing = new KotlinExpressionParsing(builder, kotlinParsing);
         return kotlinParsing;
     }
 
+    // lambdas are parsed in place instead of being collapsed into chameleons, so that the whole tree is built at once
+    static KotlinParsing createWithExpandedLambdas(SemanticWhitespaceAwarePsiBuilder builder) {
+        KotlinParsing kotlinParsing = new KotlinParsing(builder, false);
+        kotlinParsing.myExpressionParsing = new KotlinExpressionParsing(builder, kotlinParsing) {
+            @Override
+            protected boolean collapseLambdas() {
+                return false;
+            }
+        };
+        return kotlinParsing;
+    }
+
     private static KotlinParsing createForByClause(SemanticWhitespaceAwarePsiBuilder builder) {
         final SemanticWhitespaceAwarePsiBuilderForByClause builderForByClause = new SemanticWhitespaceAwarePsiBuilderForByClause(builder);
-        KotlinParsing kotlinParsing = new KotlinParsing(builderForByClause);
+        KotlinParsing kotlinParsing = new KotlinParsing(builderForByClause, false);
         kotlinParsing.myExpressionParsing = new KotlinExpressionParsing(builderForByClause, kotlinParsing) {
             @Override
             protected boolean parseCallWithClosure() {
@@ -84,9 +100,11 @@ public class KotlinParsing extends AbstractKotlinParsing {
     }
 
     private KotlinExpressionParsing myExpressionParsing;
+    private final boolean lazyDeclarationBodies;
 
-    private KotlinParsing(SemanticWhitespaceAwarePsiBuilder builder) {
+    private KotlinParsing(SemanticWhitespaceAwarePsiBuilder builder, boolean lazyDeclarationBodies) {
         super(builder);
+        this.lazyDeclarationBodies = lazyDeclarationBodies;
     }
 
     /*
@@ -1083,7 +1101,7 @@ public class KotlinParsing extends AbstractKotlinParsing {
         else if (at(INIT_KEYWORD)) {
             advance(); // init
             if (at(LBRACE)) {
-                parseBlock();
+                parseDeclarationBody();
             }
             else {
                 mark().error("Expecting '{' after 'init'");
@@ -1160,7 +1178,7 @@ public class KotlinParsing extends AbstractKotlinParsing {
         }
 
         if (at(LBRACE)) {
-            parseBlock();
+            parseDeclarationBody();
         }
     }
 
@@ -1634,7 +1652,7 @@ public class KotlinParsing extends AbstractKotlinParsing {
      */
     private void parseFunctionBody() {
         if (at(LBRACE)) {
-            parseBlock();
+            parseDeclarationBody();
         }
         else if (at(EQ)) {
             advance(); // EQ
@@ -1665,6 +1683,28 @@ public class KotlinParsing extends AbstractKotlinParsing {
         block.done(BLOCK);
     }
 
+    /*
+     * Block body of a function, accessor, constructor or initializer.
+     * With lazy declaration bodies only the braces are matched here, the contents are parsed when the LAZY_BLOCK chameleon is expanded
+     */
+    private void parseDeclarationBody() {
+        if (!lazyDeclarationBodies) {
+            parseBlock();
+            return;
+        }
+
+        assert _at(LBRACE);
+
+        PsiBuilder.Marker block = mark();
+
+        myBuilder.enableNewlines();
+        advance(); // LBRACE
+        myExpressionParsing.advanceBalancedBlock();
+        myBuilder.restoreNewlinesState();
+
+        block.collapse(KtLazyBlockElementType.LAZY_BLOCK);
+    }
+
     /*
      * delegationSpecifier{","}
      */
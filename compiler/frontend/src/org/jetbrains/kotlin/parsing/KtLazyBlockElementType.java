@@ -0,0 +1,86 @@
+/*
+ * Copyright 2010-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.parsing;
+
+import com.intellij.lang.*;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Ref;
+import com.intellij.psi.TokenType;
+import com.intellij.psi.impl.source.tree.LazyParseableElement;
+import com.intellij.psi.tree.ILazyParseableElementType;
+import com.intellij.util.diff.FlyweightCapableTreeStructure;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.idea.KotlinLanguage;
+import org.jetbrains.kotlin.lexer.KotlinLexer;
+
+/**
+ * Block body of a declaration which is kept collapsed until its children are accessed.
+ * Only created by the parser when {@link KotlinParser#LAZY_DECLARATION_BODIES} is set for the project,
+ * otherwise bodies are parsed into regular {@link org.jetbrains.kotlin.KtNodeTypes#BLOCK} nodes.
+ */
+public class KtLazyBlockElementType extends ILazyParseableElementType {
+    public static final KtLazyBlockElementType LAZY_BLOCK = new KtLazyBlockElementType();
+
+    private KtLazyBlockElementType() {
+        super("LAZY_BLOCK", KotlinLanguage.INSTANCE);
+    }
+
+    @Override
+    public ASTNode parseContents(ASTNode chameleon) {
+        Project project = chameleon.getPsi().getProject();
+        PsiBuilder builder = PsiBuilderFactory.getInstance().createBuilder(project, chameleon, null, KotlinLanguage.INSTANCE, chameleon.getChars());
+        return KotlinParser.parseBlockExpression(builder).getFirstChildNode();
+    }
+
+    @Nullable
+    @Override
+    public ASTNode createNode(CharSequence text) {
+        return new LazyParseableElement(this, text);
+    }
+
+    /**
+     * Returns true if the node is a lazy block which has not been expanded yet and has no syntax errors inside,
+     * including the errors in nested lambdas. The check builds a light tree only and leaves the node collapsed.
+     */
+    public static boolean isCollapsedWithoutErrors(@NotNull ASTNode node) {
+        if (node.getElementType() != LAZY_BLOCK || !(node instanceof LazyParseableElement)) return false;
+        if (((LazyParseableElement) node).isParsed()) return false;
+
+        PsiBuilder builder = PsiBuilderFactory.getInstance().createBuilder(new KotlinParserDefinition(), new KotlinLexer(), node.getChars());
+        KotlinParser.parseBlockExpressionExpandingLambdas(builder);
+        FlyweightCapableTreeStructure<LighterASTNode> tree = builder.getLightTree();
+        return !hasErrorElements(tree, tree.getRoot());
+    }
+
+    private static boolean hasErrorElements(@NotNull FlyweightCapableTreeStructure<LighterASTNode> tree, @NotNull LighterASTNode node) {
+        if (node.getTokenType() == TokenType.ERROR_ELEMENT) return true;
+
+        Ref<LighterASTNode[]> childrenRef = Ref.create(null);
+        int count = tree.getChildren(node, childrenRef);
+        LighterASTNode[] children = childrenRef.get();
+        try {
+            for (int i = 0; i < count; i++) {
+                if (hasErrorElements(tree, children[i])) return true;
+            }
+            return false;
+        }
+        finally {
+            tree.disposeChildren(children, count);
+        }
+    }
+}
@@ -22,7 +22,7 @@ import org.jetbrains.kotlin.name.FqName
 import org.jetbrains.kotlin.name.Name
 import org.jetbrains.kotlin.resolve.scopes.BaseImportingScope
 import org.jetbrains.kotlin.resolve.scopes.DescriptorKindFilter
-import org.jetbrains.kotlin.resolve.scopes.ResolutionScope
+import org.jetbrains.kotlin.resolve.scopes.MemberScope
 import org.jetbrains.kotlin.utils.Printer
 
 class AllUnderImportScope(
@@ -30,7 +30,7 @@ class AllUnderImportScope(
         excludedImportNames: Collection<FqName>
 ) : BaseImportingScope(null) {
 
-    private val scopes: List<ResolutionScope> = if (descriptor is ClassDescriptor) {
+    private val scopes: List<MemberScope> = if (descriptor is ClassDescriptor) {
         listOf(descriptor.staticScope, descriptor.unsubstitutedInnerClassesScope)
     }
     else {
@@ -78,6 +78,11 @@ class AllUnderImportScope(
         return scopes.flatMap { it.getContributedFunctions(name, location) }
     }
 
+    override fun definitelyDoesNotContainFunctionsOrVariables(name: Name, location: LookupLocation): Boolean {
+        if (name in excludedNames) return true
+        return scopes.all { it.definitelyDoesNotContainFunctionsOrVariables(name, location) }
+    }
+
     override fun printStructure(p: Printer) {
         p.println(javaClass.simpleName)
     }
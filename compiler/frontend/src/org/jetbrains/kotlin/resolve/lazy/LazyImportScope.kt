@@ -163,6 +163,12 @@ class LazyImportResolver(
         }
     }
 
+    fun definitelyDoNotContainFunctionsOrVariables(name: Name, location: LookupLocation): Boolean {
+        return storageManager.compute {
+            indexedImports.importsForName(name).all { getImportScope(it).definitelyDoesNotContainFunctionsOrVariables(name, location) }
+        }
+    }
+
     fun getImportScope(directive: KtImportDirective): ImportingScope {
         return importedScopesProvider(directive) ?: ImportingScope.Empty
     }
@@ -204,6 +210,15 @@ class LazyImportScope(
 
     override fun getContributedPackage(name: Name) = null
 
+    // explicit imports are indexed by imported name, so a missing directive means nothing can be found here (and no lookups are made)
+    override fun definitelyDoesNotContainName(name: Name) = importResolver.indexedImports.importsForName(name).isEmpty()
+
+    // all-under imports are not indexed by name, so the imported scopes are asked (which is cheap for packages and classes, see AllUnderImportScope)
+    override fun definitelyDoesNotContainFunctionsOrVariables(name: Name, location: LookupLocation): Boolean {
+        if (filteringKind == FilteringKind.INVISIBLE_CLASSES) return true
+        return importResolver.definitelyDoNotContainFunctionsOrVariables(name, location)
+    }
+
     override fun getContributedVariables(name: Name, location: LookupLocation): Collection<VariableDescriptor> {
         if (filteringKind == FilteringKind.INVISIBLE_CLASSES) return listOf()
         return importResolver.collectFromImports(name) { scope, name -> scope.getContributedVariables(name, location) }
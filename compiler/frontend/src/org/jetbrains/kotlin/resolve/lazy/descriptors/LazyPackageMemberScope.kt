@@ -51,6 +51,12 @@ class LazyPackageMemberScope(
         // No extra properties
     }
 
+    // the declarations are indexed by name, and no functions or properties are added to the declared ones
+    override fun definitelyDoesNotContainFunctionsOrVariables(name: Name, location: LookupLocation): Boolean {
+        recordLookup(name, location)
+        return declarationProvider.getFunctionDeclarations(name).isEmpty() && declarationProvider.getPropertyDeclarations(name).isEmpty()
+    }
+
     override fun recordLookup(name: Name, from: LookupLocation) {
         c.lookupTracker.record(from, thisDescriptor, name)
     }
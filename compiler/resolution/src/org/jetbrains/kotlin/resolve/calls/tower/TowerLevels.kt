@@ -89,7 +89,7 @@ internal class MemberScopeTowerLevel(
     private val syntheticScopes = scopeTower.syntheticScopes
 
     private fun <D : CallableDescriptor> collectMembers(
-            getMembers: ResolutionScope.(KotlinType?) -> Collection<D>
+            getMembers: MemberScope.(KotlinType?) -> Collection<D>
     ): Collection<CandidateWithBoundDispatchReceiver<D>> {
         val result = ArrayList<CandidateWithBoundDispatchReceiver<D>>(0)
         val receiverValue = dispatchReceiver.receiverValue
@@ -136,7 +136,9 @@ internal class MemberScopeTowerLevel(
     }
 
     override fun getVariables(name: Name, extensionReceiver: ReceiverValueWithSmartCastInfo?): Collection<CandidateWithBoundDispatchReceiver<VariableDescriptor>> {
-        return collectMembers { getContributedVariables(name, location) }
+        return collectMembers {
+            if (definitelyDoesNotContainFunctionsOrVariables(name, location)) emptyList() else getContributedVariables(name, location)
+        }
     }
 
     override fun getObjects(name: Name, extensionReceiver: ReceiverValueWithSmartCastInfo?): Collection<CandidateWithBoundDispatchReceiver<VariableDescriptor>> {
@@ -145,8 +147,14 @@ internal class MemberScopeTowerLevel(
 
     override fun getFunctions(name: Name, extensionReceiver: ReceiverValueWithSmartCastInfo?): Collection<CandidateWithBoundDispatchReceiver<FunctionDescriptor>> {
         return collectMembers {
-            getContributedFunctions(name, location) + it.getInnerConstructors(name, location) +
-            syntheticScopes.collectSyntheticMemberFunctions(it.singletonOrEmptyList(), name, location)
+            // synthetic member functions (SAM adapters) are made from the member functions with the same name
+            if (definitelyDoesNotContainFunctionsOrVariables(name, location)) {
+                it.getInnerConstructors(name, location)
+            }
+            else {
+                getContributedFunctions(name, location) + it.getInnerConstructors(name, location) +
+                syntheticScopes.collectSyntheticMemberFunctions(it.singletonOrEmptyList(), name, location)
+            }
         }
     }
 }
@@ -176,20 +184,37 @@ internal open class ScopeBasedTowerLevel protected constructor(
 
     internal constructor(scopeTower: ImplicitScopeTower, lexicalScope: LexicalScope) : this(scopeTower, lexicalScope as ResolutionScope)
 
-    override fun getVariables(name: Name, extensionReceiver: ReceiverValueWithSmartCastInfo?): Collection<CandidateWithBoundDispatchReceiver<VariableDescriptor>>
-            = resolutionScope.getContributedVariables(name, location).map {
-                createCandidateDescriptor(it, dispatchReceiver = null)
-            }
+    private fun mayContainName(name: Name) =
+            !(resolutionScope is HierarchicalScope && resolutionScope.definitelyDoesNotContainName(name))
 
-    override fun getObjects(name: Name, extensionReceiver: ReceiverValueWithSmartCastInfo?): Collection<CandidateWithBoundDispatchReceiver<VariableDescriptor>>
-            = resolutionScope.getContributedObjectVariables(name, location).map {
-                createCandidateDescriptor(it, dispatchReceiver = null)
-            }
+    private fun mayContainFunctionsOrVariables(name: Name) =
+            !(resolutionScope is HierarchicalScope && resolutionScope.definitelyDoesNotContainFunctionsOrVariables(name, location))
 
-    override fun getFunctions(name: Name, extensionReceiver: ReceiverValueWithSmartCastInfo?): Collection<CandidateWithBoundDispatchReceiver<FunctionDescriptor>>
-            = resolutionScope.getContributedFunctionsAndConstructors(name, location, scopeTower.syntheticConstructorsProvider).map {
-                createCandidateDescriptor(it, dispatchReceiver = null)
-            }
+    override fun getVariables(name: Name, extensionReceiver: ReceiverValueWithSmartCastInfo?): Collection<CandidateWithBoundDispatchReceiver<VariableDescriptor>> {
+        if (!mayContainFunctionsOrVariables(name)) return emptyList()
+
+        return resolutionScope.getContributedVariables(name, location).map {
+            createCandidateDescriptor(it, dispatchReceiver = null)
+        }
+    }
+
+    override fun getObjects(name: Name, extensionReceiver: ReceiverValueWithSmartCastInfo?): Collection<CandidateWithBoundDispatchReceiver<VariableDescriptor>> {
+        if (!mayContainName(name)) return emptyList()
+
+        return resolutionScope.getContributedObjectVariables(name, location).map {
+            createCandidateDescriptor(it, dispatchReceiver = null)
+        }
+    }
+
+    override fun getFunctions(name: Name, extensionReceiver: ReceiverValueWithSmartCastInfo?): Collection<CandidateWithBoundDispatchReceiver<FunctionDescriptor>> {
+        if (!mayContainName(name)) return emptyList()
+
+        // the constructors are still looked for, since classifiers aren't covered by the function names
+        val includeFunctions = mayContainFunctionsOrVariables(name)
+        return resolutionScope.getContributedFunctionsAndConstructors(name, location, scopeTower.syntheticConstructorsProvider, includeFunctions).map {
+            createCandidateDescriptor(it, dispatchReceiver = null)
+        }
+    }
 }
 internal class ImportingScopeBasedTowerLevel(
         scopeTower: ImplicitScopeTower,
@@ -266,9 +291,10 @@ private fun KotlinType?.getInnerConstructors(name: Name, location: LookupLocatio
 private fun ResolutionScope.getContributedFunctionsAndConstructors(
         name: Name,
         location: LookupLocation,
-        syntheticConstructorsProvider: SyntheticConstructorsProvider
+        syntheticConstructorsProvider: SyntheticConstructorsProvider,
+        includeFunctions: Boolean = true
 ): Collection<FunctionDescriptor> {
-    val result = ArrayList<FunctionDescriptor>(getContributedFunctions(name, location))
+    val result = if (includeFunctions) ArrayList<FunctionDescriptor>(getContributedFunctions(name, location)) else ArrayList<FunctionDescriptor>(0)
 
     val classifier = getContributedClassifier(name, location)
     if (classifier != null) {
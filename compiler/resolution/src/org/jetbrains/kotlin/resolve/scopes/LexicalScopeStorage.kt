@@ -53,6 +53,9 @@ abstract class LexicalScopeStorage(
     override fun getContributedDescriptors(kindFilter: DescriptorKindFilter, nameFilter: (Name) -> Boolean)
             = addedDescriptors
 
+    override fun definitelyDoesNotContainName(name: Name)
+            = functionsByName?.containsKey(name) != true && variablesAndClassifiersByName?.containsKey(name) != true
+
     protected fun addVariableOrClassDescriptor(descriptor: DeclarationDescriptor) {
         val name = descriptor.name
         if (name.isSpecial) return
@@ -27,6 +27,20 @@ interface HierarchicalScope : ResolutionScope {
     val parent: HierarchicalScope?
 
     fun printStructure(p: Printer)
+
+    /**
+     * Is a cheap filter: `true` means that the scope contributes no classifiers, variables or functions with the given name,
+     * so resolution may skip querying it. `false` carries no information.
+     * Implementations must not create descriptors or record lookups here.
+     */
+    fun definitelyDoesNotContainName(name: Name): Boolean = false
+
+    /**
+     * The same filter as [definitelyDoesNotContainName] for functions and variables only, classifiers with the given name may still be contributed.
+     * Unlike [definitelyDoesNotContainName], records the lookup of the name where the corresponding queries would record it,
+     * see [MemberScope.definitelyDoesNotContainFunctionsOrVariables].
+     */
+    fun definitelyDoesNotContainFunctionsOrVariables(name: Name, location: LookupLocation): Boolean = definitelyDoesNotContainName(name)
 }
 
 interface LexicalScope: HierarchicalScope {
@@ -0,0 +1,5 @@
+fun lambda(): () -> String = { "OK" }
+
+fun main(args: Array<String>) {
+    println(lambda()())
+}
@@ -0,0 +1,5 @@
+fun greet(name: String) = "Hello, $name!"
+
+fun main(args: Array<String>) {
+    println(greet("world"))
+}
@@ -0,0 +1,40 @@
+fun sumInts(list: List<Int>): Int {
+    var sum = 0
+    list.forEach { sum += it }
+    return sum
+}
+
+fun sumLongs(list: List<Int>): Long {
+    var sum = 0L
+    list.forEach { sum += it }
+    return sum
+}
+
+fun sumDoubles(list: List<Int>): Double {
+    var sum = 0.0
+    list.forEach { sum += it }
+    return sum
+}
+
+fun join(list: List<Int>): String {
+    var result = ""
+    list.forEach { result += it }
+    return result
+}
+
+fun hasNegative(list: List<Int>): Boolean {
+    var found = false
+    list.forEach { if (it < 0) found = true }
+    return found
+}
+
+fun box(): String {
+    val list = listOf(1, 2, 3)
+    if (sumInts(list) != 6) return "Fail Int: ${sumInts(list)}"
+    if (sumLongs(list) != 6L) return "Fail Long: ${sumLongs(list)}"
+    if (sumDoubles(list) != 6.0) return "Fail Double: ${sumDoubles(list)}"
+    if (join(list) != "123") return "Fail String: ${join(list)}"
+    if (hasNegative(list)) return "Fail Boolean"
+    if (!hasNegative(listOf(1, -1))) return "Fail Boolean 2"
+    return "OK"
+}
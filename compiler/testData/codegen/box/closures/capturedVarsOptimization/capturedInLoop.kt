@@ -0,0 +1,10 @@
+fun box(): String {
+    val result = StringBuilder()
+    for (i in 1..3) {
+        var x = i
+        run { x *= 10 }
+        result.append(x).append(";")
+    }
+    if (result.toString() != "10;20;30;") return "Fail: $result"
+    return "OK"
+}
@@ -0,0 +1,9 @@
+fun box(): String {
+    var x = 1
+    val increment = { x++ }
+    run { x += 10 }
+    increment()
+    increment()
+    if (x != 13) return "Fail: $x"
+    return "OK"
+}
@@ -0,0 +1,18 @@
+fun test(fail: Boolean): Int {
+    var x = 0
+    try {
+        run { x = 1 }
+        if (fail) throw RuntimeException()
+        run { x = 2 }
+    }
+    catch (e: RuntimeException) {
+        x += 10
+    }
+    return x
+}
+
+fun box(): String {
+    if (test(false) != 2) return "Fail 1: ${test(false)}"
+    if (test(true) != 11) return "Fail 2: ${test(true)}"
+    return "OK"
+}
@@ -0,0 +1,19 @@
+fun postfix(): String {
+    var x = 1
+    var old = 0
+    run { old = x++ }
+    return "$old $x"
+}
+
+fun postfixLong(): String {
+    var x = 1L
+    var old = 0L
+    run { old = x-- }
+    return "$old $x"
+}
+
+fun box(): String {
+    if (postfix() != "1 2") return "fail postfix: ${postfix()}"
+    if (postfixLong() != "1 0") return "fail postfixLong: ${postfixLong()}"
+    return "OK"
+}
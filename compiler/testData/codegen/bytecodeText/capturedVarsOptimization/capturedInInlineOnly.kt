@@ -0,0 +1,21 @@
+fun sumInts(list: List<Int>): Int {
+    var sum = 0
+    list.forEach { sum += it }
+    return sum
+}
+
+fun sumLongs(list: List<Int>): Long {
+    var sum = 0L
+    list.forEach { sum += it }
+    return sum
+}
+
+fun join(list: List<Int>): String {
+    var result = ""
+    list.forEach { result += it }
+    return result
+}
+
+// 0 NEW kotlin/jvm/internal/Ref
+// 0 GETFIELD kotlin/jvm/internal/Ref
+// 0 PUTFIELD kotlin/jvm/internal/Ref
@@ -0,0 +1,9 @@
+fun test(): Int {
+    var x = 1
+    val increment = { x++ }
+    run { x += 10 }
+    increment()
+    return x
+}
+
+// 1 NEW kotlin/jvm/internal/Ref\$IntRef
@@ -0,0 +1,27 @@
+fun test(): String {
+    var z = false
+    var c = 'a'
+    var b: Byte = 0
+    var s: Short = 0
+    var i = 0
+    var l = 0L
+    var f = 0.0f
+    var d = 0.0
+    var o: Any? = null
+    run {
+        z = true
+        c = 'b'
+        b = 1
+        s = 2
+        i = 3
+        l = 4L
+        f = 5.0f
+        d = 6.0
+        o = "7"
+    }
+    return "$z$c$b$s$i$l$f$d$o"
+}
+
+// 0 NEW kotlin/jvm/internal/Ref
+// 0 GETFIELD kotlin/jvm/internal/Ref
+// 0 PUTFIELD kotlin/jvm/internal/Ref
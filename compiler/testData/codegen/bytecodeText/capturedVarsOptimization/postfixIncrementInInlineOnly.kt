@@ -0,0 +1,9 @@
+fun test(): Int {
+    var x = 1
+    var old = 0
+    run { old = x++ }
+    return old + x
+}
+
+// The old value of x is put below its wrapper with DUP_X1, so the wrapper of x is kept
+// 1 NEW kotlin/jvm/internal/Ref\$IntRef
@@ -0,0 +1,15 @@
+fun sink(s: String) {}
+
+inline fun log(enabled: Boolean, message: () -> String) {
+    if (enabled) {
+        sink(message())
+    }
+}
+
+fun test() {
+    log(false) { "unreachable" }
+}
+
+// only in the body of `log`
+// 1 IFEQ
+// 0 unreachable
@@ -0,0 +1,7 @@
+inline fun greet(prefix: String = "Hello", suffix: String = "!"): String = prefix + suffix
+
+fun test() = greet("Hi")
+
+// checks of the default mask are folded at the call site, only `greet$default` contains them
+// 2 IAND
+// 1 LDC "Hello"
@@ -0,0 +1,6 @@
+inline fun twice(x: Int) = x * 2
+
+fun test() = twice(21)
+
+// 1 IMUL
+// 1 BIPUSH 42
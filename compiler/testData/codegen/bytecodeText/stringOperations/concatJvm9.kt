@@ -0,0 +1,20 @@
+// JVM_TARGET: 9
+
+class A() {
+
+    override fun toString(): String {
+        return "A"
+    }
+}
+
+const val CONST = "const"
+
+fun box() : String {
+    val x = 1
+    val s = "1" + x + 3 + 4L + 5.0 + 6F + '7' + A() + CONST + intArrayOf()
+
+    return "OK"
+}
+
+// 0 NEW java/lang/StringBuilder
+// 1 INVOKEDYNAMIC makeConcatWithConstants
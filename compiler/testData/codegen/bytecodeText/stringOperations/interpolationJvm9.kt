@@ -0,0 +1,20 @@
+// JVM_TARGET: 9
+
+class A() {
+
+    override fun toString(): String {
+        return "A"
+    }
+}
+
+
+fun box() : String {
+    val p = 1
+    val s = "${p}${2}${3}${4L}${5.0}${6F}${7}${A()}"
+    val t = "p = $p, \u0001 ${A()}"
+
+    return "OK"
+}
+
+// 0 NEW java/lang/StringBuilder
+// 2 INVOKEDYNAMIC makeConcatWithConstants
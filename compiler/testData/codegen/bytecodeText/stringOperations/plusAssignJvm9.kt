@@ -0,0 +1,19 @@
+// JVM_TARGET: 9
+
+class A() {
+
+    override fun toString(): String {
+        return "A"
+    }
+}
+
+
+fun box() : String {
+    var s = "1"
+    s += "2" + 3 + 4L + 5.0 + 6F + '7' + A()
+
+    return "OK"
+}
+
+// 0 NEW java/lang/StringBuilder
+// 1 INVOKEDYNAMIC makeConcatWithConstants
@@ -0,0 +1,21 @@
+// JVM_TARGET: 1.8
+// KOTLIN_CONFIGURATION_FLAGS: +JVM.INDY_LAMBDAS
+
+fun apply(x: Int, f: (Int) -> Int) = f(x)
+
+fun box(): String {
+    val inc = { x: Int -> x + 1 }
+    if (apply(41, inc) != 42) return "fail 1"
+    if (!inc.javaClass.name.contains("\$\$Lambda\$")) return "fail 2: ${inc.javaClass.name}"
+
+    val ext: String.(Int) -> String = { this + it }
+    if ("O".ext(0) != "O0") return "fail 3"
+
+    val mixed: (Int, Long, String?) -> Double = { a, b, c -> a + b + (c?.length ?: 0) + 0.5 }
+    if (mixed(1, 2L, "abc") != 6.5) return "fail 4"
+
+    val unit = { x: Int -> x.toString() ; Unit }
+    unit(1)
+
+    return listOf("O", "K").map { it.toUpperCase() }.joinToString("")
+}
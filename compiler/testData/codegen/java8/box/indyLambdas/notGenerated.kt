@@ -0,0 +1,33 @@
+// JVM_TARGET: 1.8
+// KOTLIN_CONFIGURATION_FLAGS: +JVM.INDY_LAMBDAS
+
+fun isIndy(f: Any) = f.javaClass.name.contains("\$\$Lambda\$")
+
+inline fun <T> inlineRun(f: () -> T) = f()
+
+class A(val x: String) {
+    fun capturingThis() = { x }
+}
+
+fun box(): String {
+    val o = "O"
+    val capturing = { o }
+    if (isIndy(capturing)) return "fail 1"
+
+    if (isIndy(A("K").capturingThis())) return "fail 2"
+
+    val withNested = { { 1 } }
+    if (isIndy(withNested)) return "fail 3"
+    if (!isIndy(withNested())) return "fail 4"
+
+    val withObject = { object {}.toString() }
+    if (isIndy(withObject)) return "fail 5"
+
+    val withInlineCall = { inlineRun { 1 } }
+    if (isIndy(withInlineCall)) return "fail 6"
+
+    val unit = { }
+    if (isIndy(unit)) return "fail 7"
+
+    return capturing() + A("K").capturingThis()()
+}
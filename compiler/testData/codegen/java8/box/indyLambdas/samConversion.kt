@@ -0,0 +1,24 @@
+// JVM_TARGET: 1.8
+// KOTLIN_CONFIGURATION_FLAGS: +JVM.INDY_LAMBDAS
+// FILE: JavaSam.java
+
+public interface JavaSam {
+    int compute(int x, String s);
+}
+
+// FILE: test.kt
+
+fun call(sam: JavaSam) = sam.compute(2, "abc")
+
+fun box(): String {
+    val sam = JavaSam { x, s -> x + s.length }
+    if (call(sam) != 5) return "fail 1"
+    if (!sam.javaClass.name.contains("\$\$Lambda\$")) return "fail 2: ${sam.javaClass.name}"
+
+    val comparator = java.util.Comparator<String> { a, b -> a.length - b.length }
+    if (listOf("ccc", "a", "bb").sortedWith(comparator) != listOf("a", "bb", "ccc")) return "fail 3"
+
+    var result = "fail 4"
+    Runnable { result = "OK" }.run()
+    return result
+}
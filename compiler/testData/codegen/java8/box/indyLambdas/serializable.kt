@@ -0,0 +1,50 @@
+// JVM_TARGET: 1.8
+// KOTLIN_CONFIGURATION_FLAGS: +JVM.INDY_LAMBDAS
+// WITH_RUNTIME
+// FILE: JavaSam.java
+
+public interface JavaSam {
+    String compute(String s);
+}
+
+// FILE: SerializableJavaSam.java
+
+public interface SerializableJavaSam extends java.io.Serializable {
+    String compute(String s);
+}
+
+// FILE: test.kt
+
+import java.io.*
+
+class Loader
+
+fun <T> roundTrip(value: T): T {
+    val bytes = ByteArrayOutputStream()
+    ObjectOutputStream(bytes).use { it.writeObject(value) }
+    val input = object : ObjectInputStream(ByteArrayInputStream(bytes.toByteArray())) {
+        override fun resolveClass(desc: ObjectStreamClass): Class<*> =
+                Class.forName(desc.name, false, Loader::class.java.classLoader)
+    }
+    @Suppress("UNCHECKED_CAST")
+    return input.use { it.readObject() as T }
+}
+
+fun box(): String {
+    val function: (String) -> String = { it + "K" }
+    if (!function.javaClass.name.contains("\$\$Lambda\$")) return "fail 1: ${function.javaClass.name}"
+    if (function !is Serializable) return "fail 2"
+    if (roundTrip(function)("O") != "OK") return "fail 3"
+
+    val other: (Int) -> Int = { it * 2 }
+    if (roundTrip(other)(21) != 42) return "fail 4"
+
+    val serializableSam = SerializableJavaSam { it + "K" }
+    if (!serializableSam.javaClass.name.contains("\$\$Lambda\$")) return "fail 5: ${serializableSam.javaClass.name}"
+    if (roundTrip(serializableSam).compute("O") != "OK") return "fail 6"
+
+    val sam = JavaSam { it + "K" }
+    if (sam is Serializable) return "fail 7"
+
+    return "OK"
+}
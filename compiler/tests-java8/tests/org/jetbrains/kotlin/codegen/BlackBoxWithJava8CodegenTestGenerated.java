@@ -171,6 +171,39 @@ public class BlackBoxWithJava8CodegenTestGenerated extends AbstractBlackBoxCodeg
         }
     }
 
+    @TestMetadata("compiler/testData/codegen/java8/box/indyLambdas")
+    @TestDataPath("$PROJECT_ROOT")
+    @RunWith(JUnit3RunnerWithInners.class)
+    public static class IndyLambdas extends AbstractBlackBoxCodegenTest {
+        public void testAllFilesPresentInIndyLambdas() throws Exception {
+            KotlinTestUtils.assertAllTestsPresentByMetadata(this.getClass(), new File("compiler/testData/codegen/java8/box/indyLambdas"), Pattern.compile("^(.+)\\.kt$"), TargetBackend.ANY, true);
+        }
+
+        @TestMetadata("functionLiteral.kt")
+        public void testFunctionLiteral() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/java8/box/indyLambdas/functionLiteral.kt");
+            doTest(fileName);
+        }
+
+        @TestMetadata("notGenerated.kt")
+        public void testNotGenerated() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/java8/box/indyLambdas/notGenerated.kt");
+            doTest(fileName);
+        }
+
+        @TestMetadata("samConversion.kt")
+        public void testSamConversion() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/java8/box/indyLambdas/samConversion.kt");
+            doTest(fileName);
+        }
+
+        @TestMetadata("serializable.kt")
+        public void testSerializable() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/java8/box/indyLambdas/serializable.kt");
+            doTest(fileName);
+        }
+    }
+
     @TestMetadata("compiler/testData/codegen/java8/box/jvm8")
     @TestDataPath("$PROJECT_ROOT")
     @RunWith(JUnit3RunnerWithInners.class)
@@ -124,6 +124,21 @@ public abstract class AbstractCliTest extends TestCaseWithTmpdir {
             }
         }
 
+        List<String> classVersionList = InTextDirectivesUtils.findListWithPrefixes(content, "// CLASS_VERSION: ");
+        for (String classVersion : classVersionList) {
+            String[] fileNameAndVersion = classVersion.split(" ");
+            File file = new File(tmpdir, fileNameAndVersion[0]);
+            if (!file.isFile()) {
+                diagnostics.add("Class file does not exist: " + fileNameAndVersion[0]);
+                continue;
+            }
+            byte[] bytes = FilesKt.readBytes(file);
+            int majorVersion = ((bytes[6] & 0xFF) << 8) | (bytes[7] & 0xFF);
+            if (majorVersion != Integer.parseInt(fileNameAndVersion[1])) {
+                diagnostics.add("Class file " + fileNameAndVersion[0] + " has version " + majorVersion + ", expected " + fileNameAndVersion[1]);
+            }
+        }
+
         if (!diagnostics.isEmpty()) {
             diagnostics.add(0, diagnostics.size() + " problem(s) found:");
             Assert.fail(StringsKt.join(diagnostics, "\n"));
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2010-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.jvm.compiler
+
+import org.jetbrains.kotlin.backend.common.output.SimpleOutputBinaryFile
+import org.jetbrains.kotlin.backend.common.output.SimpleOutputFileCollection
+import org.jetbrains.kotlin.test.TestCaseWithTmpdir
+import org.jetbrains.org.objectweb.asm.ClassWriter
+import org.jetbrains.org.objectweb.asm.Opcodes
+import java.io.File
+
+class CompiledScriptCacheTest : TestCaseWithTmpdir() {
+    private val cache by lazy { CompiledScriptCache(File(tmpdir, "cache")) }
+    private val script by lazy { File(tmpdir, "script.kts").apply { writeText("println(1)") } }
+
+    fun testKeyDependsOnCompilerOptions() {
+        val key = entry(listOf("-language-version=1.1", "-jvm-target=1.6")).key
+
+        assertEquals(key, entry(listOf("-language-version=1.1", "-jvm-target=1.6")).key)
+        assertFalse(key == entry(listOf("-language-version=1.0", "-jvm-target=1.6")).key)
+        assertFalse(key == entry(listOf("-language-version=1.1", "-jvm-target=1.8")).key)
+    }
+
+    fun testKeyDependsOnCompilerPlugins() {
+        val plugin = File(tmpdir, "plugin.jar").apply { writeText("plugin") }
+        val key = entry(plugins = listOf(plugin)).key
+
+        assertFalse(key == entry().key)
+        plugin.writeText("changed plugin")
+        assertFalse(key == entry(plugins = listOf(plugin)).key)
+    }
+
+    fun testMissingScriptHasNoEntry() {
+        assertNull(cache.entry(File(tmpdir, "missing.kts"), emptyList(), emptyList(), emptyList(), emptyList()))
+    }
+
+    fun testSavedScriptIsLoaded() {
+        save(entry())
+
+        assertEquals(SCRIPT_CLASS_NAME, load(entry())?.name)
+    }
+
+    fun testCorruptEntryIsDeletedOnLoad() {
+        save(entry())
+        deleteClasses(entry())
+
+        assertNull(load(entry()))
+        assertFalse(entryDir(entry()).exists())
+
+        save(entry())
+        assertEquals(SCRIPT_CLASS_NAME, load(entry())?.name)
+    }
+
+    fun testCorruptEntryIsReplacedOnSave() {
+        save(entry())
+        deleteClasses(entry())
+
+        save(entry())
+        assertEquals(SCRIPT_CLASS_NAME, load(entry())?.name)
+    }
+
+    private fun entry(options: List<String> = emptyList(), plugins: List<File> = emptyList()): CompiledScriptCache.Entry =
+            cache.entry(script, emptyList(), emptyList(), options, plugins)!!
+
+    private fun entryDir(entry: CompiledScriptCache.Entry) = File(File(tmpdir, "cache"), entry.key)
+
+    private fun deleteClasses(entry: CompiledScriptCache.Entry) {
+        assertTrue(File(entryDir(entry), "classes").deleteRecursively())
+    }
+
+    private fun load(entry: CompiledScriptCache.Entry): Class<*>? = entry.load { javaClass.classLoader }
+
+    private fun save(entry: CompiledScriptCache.Entry) {
+        val classWriter = ClassWriter(0)
+        classWriter.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC, SCRIPT_CLASS_NAME, null, "java/lang/Object", null)
+        classWriter.visitEnd()
+
+        val outputFile = SimpleOutputBinaryFile(emptyList(), "$SCRIPT_CLASS_NAME.class", classWriter.toByteArray())
+        entry.save(SimpleOutputFileCollection(listOf(outputFile)), SCRIPT_CLASS_NAME, emptyList())
+    }
+
+    companion object {
+        private val SCRIPT_CLASS_NAME = "CachedScript"
+    }
+}
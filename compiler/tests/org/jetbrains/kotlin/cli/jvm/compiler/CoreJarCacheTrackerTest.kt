@@ -0,0 +1,105 @@
+/*
+ * Copyright 2010-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.jvm.compiler
+
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.openapi.vfs.impl.jar.CoreJarFileSystem
+import com.intellij.util.io.URLUtil
+import org.jetbrains.kotlin.test.TestCaseWithTmpdir
+import java.io.File
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+class CoreJarCacheTrackerTest : TestCaseWithTmpdir() {
+    private val jarFileSystem = CoreJarFileSystem()
+    private var originalMaxCachedJarsSize = Long.MAX_VALUE
+
+    override fun setUp() {
+        super.setUp()
+        originalMaxCachedJarsSize = CoreJarCacheTracker.maxCachedJarsSize
+        CoreJarCacheTracker.clearCaches(jarFileSystem)
+        CoreJarCacheTracker.takeStatistics()
+    }
+
+    override fun tearDown() {
+        CoreJarCacheTracker.clearCaches(jarFileSystem)
+        CoreJarCacheTracker.maxCachedJarsSize = originalMaxCachedJarsSize
+        super.tearDown()
+    }
+
+    fun testLeastRecentlyUsedJarsAreEvicted() {
+        val a = jar("a.jar", "a.txt" to "a")
+        val b = jar("b.jar", "b.txt" to "b")
+        val c = jar("c.jar", "c.txt" to "c")
+        CoreJarCacheTracker.maxCachedJarsSize = a.length() + b.length() + c.length() - 1
+
+        access(a)
+        access(b)
+        access(a)
+        assertEquals(listOf(b.path, a.path), CoreJarCacheTracker.cachedJars())
+
+        access(c)
+        assertEquals(listOf(a.path, c.path), CoreJarCacheTracker.cachedJars())
+
+        val statistics = CoreJarCacheTracker.takeStatistics()
+        assertEquals(3, statistics.opened)
+        assertEquals(1, statistics.reused)
+        assertEquals(1, statistics.evicted)
+        assertEquals(a.length() + c.length(), statistics.cachedSize)
+    }
+
+    fun testChangedJarIsReadAnew() {
+        val lib = jar("lib.jar", "old.txt" to "old")
+        assertNotNull(access(lib).findChild("old.txt"))
+
+        // rewritten in place, without touching the modification time explicitly
+        jar("lib.jar", "renamed.txt" to "new contents")
+        val root = access(lib)
+        assertNull(root.findChild("old.txt"))
+        assertNotNull(root.findChild("renamed.txt"))
+
+        assertEquals(1, CoreJarCacheTracker.takeStatistics().evicted)
+    }
+
+    fun testDeletedJarIsEvictedOnRelease() {
+        val lib = jar("lib.jar", "a.txt" to "a")
+        val other = jar("other.jar", "b.txt" to "b")
+        access(lib)
+        access(other)
+
+        assertTrue(lib.delete())
+        assertEquals(listOf(lib.path), CoreJarCacheTracker.evictChangedJars(jarFileSystem))
+        assertEquals(listOf(other.path), CoreJarCacheTracker.cachedJars())
+    }
+
+    private fun access(jar: File): VirtualFile {
+        CoreJarCacheTracker.recordAccess(jar, jarFileSystem)
+        return jarFileSystem.findFileByPath("${jar.path}${URLUtil.JAR_SEPARATOR}")!!
+    }
+
+    private fun jar(name: String, vararg entries: Pair<String, String>): File {
+        val file = File(tmpdir, name)
+        ZipOutputStream(file.outputStream()).use { zip ->
+            for ((entryName, content) in entries) {
+                zip.putNextEntry(ZipEntry(entryName))
+                zip.write(content.toByteArray())
+                zip.closeEntry()
+            }
+        }
+        return file
+    }
+}
@@ -3584,6 +3584,45 @@ public class LightAnalysisModeCodegenTestGenerated extends AbstractLightAnalysis
             }
         }
 
+        @TestMetadata("compiler/testData/codegen/box/closures/capturedVarsOptimization")
+        @TestDataPath("$PROJECT_ROOT")
+        @RunWith(JUnit3RunnerWithInners.class)
+        public static class CapturedVarsOptimization extends AbstractLightAnalysisModeCodegenTest {
+            public void testAllFilesPresentInCapturedVarsOptimization() throws Exception {
+                KotlinTestUtils.assertAllTestsPresentByMetadata(this.getClass(), new File("compiler/testData/codegen/box/closures/capturedVarsOptimization"), Pattern.compile("^(.+)\\.kt$"), TargetBackend.JVM, true);
+            }
+
+            @TestMetadata("capturedInInlineOnly.kt")
+            public void testCapturedInInlineOnly() throws Exception {
+                String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/box/closures/capturedVarsOptimization/capturedInInlineOnly.kt");
+                doTest(fileName);
+            }
+
+            @TestMetadata("capturedInLoop.kt")
+            public void testCapturedInLoop() throws Exception {
+                String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/box/closures/capturedVarsOptimization/capturedInLoop.kt");
+                doTest(fileName);
+            }
+
+            @TestMetadata("capturedInNoInline.kt")
+            public void testCapturedInNoInline() throws Exception {
+                String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/box/closures/capturedVarsOptimization/capturedInNoInline.kt");
+                doTest(fileName);
+            }
+
+            @TestMetadata("capturedInTryCatch.kt")
+            public void testCapturedInTryCatch() throws Exception {
+                String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/box/closures/capturedVarsOptimization/capturedInTryCatch.kt");
+                doTest(fileName);
+            }
+
+            @TestMetadata("postfixIncrement.kt")
+            public void testPostfixIncrement() throws Exception {
+                String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/codegen/box/closures/capturedVarsOptimization/postfixIncrement.kt");
+                doTest(fileName);
+            }
+        }
+
         @TestMetadata("compiler/testData/codegen/box/closures/closureInsideClosure")
         @TestDataPath("$PROJECT_ROOT")
         @RunWith(JUnit3RunnerWithInners.class)
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2010-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.daemon
+
+import junit.framework.TestCase
+import java.util.*
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import kotlin.concurrent.thread
+
+class CompilationSchedulerTest : TestCase() {
+    private val admitted = Collections.synchronizedList(arrayListOf<String>())
+    private val threads = arrayListOf<Thread>()
+
+    override fun tearDown() {
+        threads.forEach { it.join(TIMEOUT_MS) }
+        super.tearDown()
+    }
+
+    fun testCompilationsWhichFitAreRunConcurrently() {
+        val scheduler = CompilationScheduler(100)
+        val release = CountDownLatch(1)
+        val first = startCompilation(scheduler, "first", 40, release)
+        val second = startCompilation(scheduler, "second", 40, release)
+
+        assertTrue(first.await(TIMEOUT_MS, TimeUnit.MILLISECONDS))
+        assertTrue(second.await(TIMEOUT_MS, TimeUnit.MILLISECONDS))
+        assertEquals(2, scheduler.getInfo().runningCompilations)
+        release.countDown()
+    }
+
+    fun testCompilationWhichDoesNotFitIsQueued() {
+        val scheduler = CompilationScheduler(100)
+        val releaseFirst = CountDownLatch(1)
+        val first = startCompilation(scheduler, "first", 60, releaseFirst)
+        assertTrue(first.await(TIMEOUT_MS, TimeUnit.MILLISECONDS))
+
+        val second = startCompilation(scheduler, "second", 60, CountDownLatch(0))
+        waitForQueued(scheduler, 1)
+        assertEquals(1L, second.count)
+
+        releaseFirst.countDown()
+        assertTrue(second.await(TIMEOUT_MS, TimeUnit.MILLISECONDS))
+    }
+
+    fun testCompilationIsAlwaysAdmittedWhenNothingRuns() {
+        val scheduler = CompilationScheduler(100)
+        assertEquals("OK", scheduler.withAdmission(1000) { "OK" })
+        assertEquals(0, scheduler.getInfo().runningCompilations)
+        assertEquals(0L, scheduler.getInfo().reservedMemory)
+    }
+
+    fun testSmallerCompilationsGoFirst() {
+        val scheduler = CompilationScheduler(100)
+        val releaseFirst = CountDownLatch(1)
+        assertTrue(startCompilation(scheduler, "first", 100, releaseFirst).await(TIMEOUT_MS, TimeUnit.MILLISECONDS))
+
+        startCompilation(scheduler, "big", 95, CountDownLatch(0))
+        waitForQueued(scheduler, 1)
+        startCompilation(scheduler, "small", 10, CountDownLatch(0))
+        waitForQueued(scheduler, 2)
+
+        releaseFirst.countDown()
+        waitForAdmitted(3)
+        assertEquals(listOf("first", "small", "big"), admitted.toList())
+    }
+
+    fun testLongWaitingCompilationsAreNotBypassed() {
+        val scheduler = CompilationScheduler(100, maxBypassMilliseconds = 0)
+        val releaseFirst = CountDownLatch(1)
+        assertTrue(startCompilation(scheduler, "first", 100, releaseFirst).await(TIMEOUT_MS, TimeUnit.MILLISECONDS))
+
+        startCompilation(scheduler, "big", 95, CountDownLatch(0))
+        waitForQueued(scheduler, 1)
+        startCompilation(scheduler, "small", 10, CountDownLatch(0))
+        waitForQueued(scheduler, 2)
+
+        releaseFirst.countDown()
+        waitForAdmitted(3)
+        assertEquals(listOf("first", "big", "small"), admitted.toList())
+    }
+
+    fun testInvalidParametersAreRejected() {
+        assertFailsWithIllegalArgument { CompilationScheduler(0) }
+        assertFailsWithIllegalArgument { CompilationScheduler(100, maxBypassMilliseconds = -1) }
+    }
+
+    private fun startCompilation(scheduler: CompilationScheduler, name: String, estimate: Long, release: CountDownLatch): CountDownLatch {
+        val started = CountDownLatch(1)
+        threads.add(thread {
+            scheduler.withAdmission(estimate) {
+                admitted.add(name)
+                started.countDown()
+                release.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)
+            }
+        })
+        return started
+    }
+
+    private fun waitForQueued(scheduler: CompilationScheduler, count: Int) {
+        waitFor("$count compilations queued") { scheduler.getInfo().queuedCompilations == count }
+    }
+
+    private fun waitForAdmitted(count: Int) {
+        waitFor("$count compilations admitted") { admitted.size == count }
+    }
+
+    private fun waitFor(condition: String, predicate: () -> Boolean) {
+        val deadline = System.currentTimeMillis() + TIMEOUT_MS
+        while (!predicate()) {
+            if (System.currentTimeMillis() > deadline) fail("Timed out waiting for $condition")
+            Thread.sleep(10)
+        }
+    }
+
+    private fun assertFailsWithIllegalArgument(block: () -> Unit) {
+        try {
+            block()
+            fail("IllegalArgumentException expected")
+        }
+        catch (e: IllegalArgumentException) {
+        }
+    }
+
+    companion object {
+        private const val TIMEOUT_MS = 10000L
+    }
+}
@@ -254,6 +254,47 @@ class CompilerDaemonTest : KotlinIntegrationTestBase() {
         }
     }
 
+    fun testDaemonWarmUpStopsAtFirstCompilation() {
+        withFlagFile(getTestName(true), ".alive") { flagFile ->
+            val daemonOptions = DaemonOptions(warmUp = true, runFilesPath = File(tmpdir, getTestName(true)).absolutePath)
+            KotlinCompilerClient.shutdownCompileService(compilerId, daemonOptions)
+
+            val logFile = createTempFile("kotlin-daemon-test", ".log")
+            val daemonJVMOptions =
+                    configureDaemonJVMOptions("D$COMPILE_DAEMON_LOG_PATH_PROPERTY=\"${logFile.loggerCompatiblePath}\"",
+                                              inheritMemoryLimits = false, inheritAdditionalProperties = false)
+
+            val daemon = KotlinCompilerClient.connectToCompileService(compilerId, flagFile, daemonJVMOptions, daemonOptions, DaemonReportingTargets(out = System.err), autostart = true)
+            assertNotNull("failed to connect daemon", daemon)
+            daemon?.registerClient(flagFile.absolutePath)
+
+            // wait up to 30s for the first warm-up compilation, it runs on a cold JVM
+            for (attempts in 1..150) {
+                if (logFile.isLogContainsSequence("Warm-up compilation 1 of 5")) break
+                Thread.sleep(200)
+            }
+            logFile.assertLogContainsSequence("Warm-up compilation 1 of 5")
+
+            val jar = tmpdir.absolutePath + File.separator + "hello1.jar"
+            val strm = ByteArrayOutputStream()
+            val code = KotlinCompilerClient.compile(daemon!!, CompileService.NO_SESSION, CompileService.TargetPlatform.JVM, arrayOf("-include-runtime", File(getHelloAppBaseDir(), "hello.kt").absolutePath, "-d", jar), strm)
+            assertEquals("compilation failed:\n$strm", 0, code)
+
+            // the warm-up notices the request after its current pause at the latest
+            for (attempts in 1..100) {
+                if (logFile.isLogContainsSequence("Warm-up stopped after")) break
+                Thread.sleep(200)
+            }
+            logFile.assertLogContainsSequence("Warm-up stopped after")
+            assertFalse("warm-up should not run to the end after a compilation request",
+                        logFile.isLogContainsSequence("Warm-up compilation 5 of 5"))
+
+            KotlinCompilerClient.shutdownCompileService(compilerId, daemonOptions)
+            logFile.assertLogContainsSequence("Shutdown complete")
+            logFile.delete()
+        }
+    }
+
     fun testDaemonGracefulShutdown() {
         withFlagFile(getTestName(true), ".alive") { flagFile ->
             val daemonOptions = DaemonOptions(autoshutdownIdleSeconds = 1, runFilesPath = File(tmpdir, getTestName(true)).absolutePath)
@@ -353,6 +394,34 @@ class CompilerDaemonTest : KotlinIntegrationTestBase() {
     private val PARALLEL_THREADS_TO_COMPILE = 10
     private val PARALLEL_WAIT_TIMEOUT_S = 60L
 
+    fun testJarChangedBetweenCompilations() {
+        withFlagFile(getTestName(true), ".alive") { flagFile ->
+            val daemonOptions = DaemonOptions(runFilesPath = File(tmpdir, getTestName(true)).absolutePath)
+            val daemonJVMOptions = configureDaemonJVMOptions(inheritMemoryLimits = false, inheritAdditionalProperties = false)
+
+            val libJar = File(tmpdir, "lib.jar")
+            fun compile(name: String, source: String, vararg args: String): CompilerResults {
+                val sourceFile = File(tmpdir, name)
+                sourceFile.writeText(source)
+                return compileOnDaemon(flagFile, compilerId, daemonJVMOptions, daemonOptions, sourceFile.absolutePath, *args)
+            }
+            fun assertCompiled(results: CompilerResults) = assertEquals(results.out, 0, results.resultCode)
+
+            try {
+                assertCompiled(compile("lib1.kt", "package lib\nfun foo() = 1\n", "-d", libJar.absolutePath))
+                assertCompiled(compile("user1.kt", "fun bar() = lib.foo()\n", "-cp", libJar.absolutePath, "-d", File(tmpdir, "out1").absolutePath))
+
+                // the jar is rewritten in place, as a build tool does, while its old contents are cached by the daemon
+                assertCompiled(compile("lib2.kt", "package lib\nfun fooRenamed() = 2\n", "-d", libJar.absolutePath))
+
+                assertCompiled(compile("user2.kt", "fun bar() = lib.fooRenamed()\n", "-cp", libJar.absolutePath, "-d", File(tmpdir, "out2").absolutePath))
+            }
+            finally {
+                KotlinCompilerClient.shutdownCompileService(compilerId, daemonOptions)
+            }
+        }
+    }
+
     fun testParallelCompilationOnDaemon() {
 
         assertTrue(PARALLEL_THREADS_TO_COMPILE <= LoopbackNetworkInterface.SERVER_SOCKET_BACKLOG_SIZE)
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2010-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.daemon
+
+import junit.framework.TestCase
+import org.jetbrains.kotlin.daemon.common.CompilerCallbackServicesFacade
+import org.jetbrains.kotlin.incremental.components.LookupInfo
+import org.jetbrains.kotlin.load.kotlin.incremental.components.JvmPackagePartProto
+import org.jetbrains.kotlin.modules.TargetId
+
+class RemoteIncrementalCacheClientTest : TestCase() {
+    private val target = TargetId("module", "java-production")
+    private val facade = CountingFacade()
+
+    fun testDataIsFetchedOncePerTarget() {
+        val components = RemoteIncrementalCompilationComponentsClient(facade, NoEvents)
+        val cache = components.getIncrementalCache(target)
+        assertSame(cache, components.getIncrementalCache(target))
+
+        repeat(3) {
+            assertEquals(listOf("a/APackage"), cache.getObsoletePackageParts())
+            assertEquals(listOf("a/AFacade"), cache.getObsoleteMultifileClasses())
+            assertNull(cache.getModuleMappingData())
+            assertEquals(listOf("a/AFacade__A"), cache.getStableMultifileFacadeParts("a/AFacade"))
+            assertNull(cache.getStableMultifileFacadeParts("a/Missing"))
+            assertNull(cache.getPackagePartData("a/AKt"))
+        }
+
+        assertEquals(mapOf("obsoletePackageParts" to 1, "obsoleteMultifileClasses" to 1, "moduleMapping" to 1,
+                           "multifileFacadeParts" to 2, "packagePartData" to 1),
+                     facade.calls)
+    }
+
+    fun testDataIsFetchedAgainAfterClose() {
+        val cache = RemoteIncrementalCompilationComponentsClient(facade, NoEvents).getIncrementalCache(target)
+        cache.getObsoletePackageParts()
+        cache.getPackagePartData("a/AKt")
+
+        cache.close()
+        facade.obsoletePackageParts = listOf("b/BPackage")
+
+        assertEquals(listOf("b/BPackage"), cache.getObsoletePackageParts())
+        cache.getPackagePartData("a/AKt")
+        assertEquals(2, facade.calls["obsoletePackageParts"])
+        assertEquals(2, facade.calls["packagePartData"])
+        assertEquals(1, facade.calls["close"])
+    }
+
+    fun testNewCompilationDoesNotSeeDataOfPreviousOne() {
+        RemoteIncrementalCompilationComponentsClient(facade, NoEvents).getIncrementalCache(target).getObsoletePackageParts()
+        facade.obsoletePackageParts = listOf("b/BPackage")
+
+        val cache = RemoteIncrementalCompilationComponentsClient(facade, NoEvents).getIncrementalCache(target)
+        assertEquals(listOf("b/BPackage"), cache.getObsoletePackageParts())
+        assertEquals(2, facade.calls["obsoletePackageParts"])
+    }
+
+    private object NoEvents : EventManger {
+        override fun onCompilationFinished(f: () -> Unit) {}
+    }
+
+    private class CountingFacade : CompilerCallbackServicesFacade {
+        val calls = hashMapOf<String, Int>()
+        var obsoletePackageParts: Collection<String> = listOf("a/APackage")
+
+        private fun <T> count(name: String, result: T): T {
+            calls[name] = (calls[name] ?: 0) + 1
+            return result
+        }
+
+        override fun hasIncrementalCaches() = true
+        override fun hasLookupTracker() = false
+        override fun hasCompilationCanceledStatus() = false
+
+        override fun incrementalCache_getObsoletePackageParts(target: TargetId) = count("obsoletePackageParts", obsoletePackageParts)
+        override fun incrementalCache_getObsoleteMultifileClassFacades(target: TargetId) = count("obsoleteMultifileClasses", listOf("a/AFacade"))
+        override fun incrementalCache_getPackagePartData(target: TargetId, partInternalName: String): JvmPackagePartProto? = count("packagePartData", null)
+        override fun incrementalCache_getModuleMappingData(target: TargetId): ByteArray? = count("moduleMapping", null)
+        override fun incrementalCache_registerInline(target: TargetId, fromPath: String, jvmSignature: String, toPath: String) {}
+        override fun incrementalCache_getClassFilePath(target: TargetId, internalClassName: String) = internalClassName
+        override fun incrementalCache_close(target: TargetId) = count("close", Unit)
+        override fun incrementalCache_getMultifileFacadeParts(target: TargetId, internalName: String): Collection<String>? =
+                count("multifileFacadeParts", if (internalName == "a/AFacade") listOf("a/AFacade__A") else null)
+
+        override fun lookupTracker_requiresPosition() = false
+        override fun lookupTracker_record(lookups: Collection<LookupInfo>) {}
+        override fun lookupTracker_isDoNothing() = true
+
+        override fun compilationCanceledStatus_checkCanceled() {}
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2010-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.parsing
+
+import com.intellij.psi.PsiElement
+import com.intellij.psi.PsiFile
+import com.intellij.psi.impl.source.tree.LazyParseableElement
+import org.jetbrains.kotlin.KtNodeTypes
+import org.jetbrains.kotlin.cli.common.CLIConfigurationKeys
+import org.jetbrains.kotlin.cli.common.messages.AnalyzerWithCompilerReport
+import org.jetbrains.kotlin.cli.common.messages.DiagnosticMessageReporter
+import org.jetbrains.kotlin.cli.jvm.compiler.EnvironmentConfigFiles
+import org.jetbrains.kotlin.cli.jvm.compiler.KotlinCoreEnvironment
+import org.jetbrains.kotlin.diagnostics.Diagnostic
+import org.jetbrains.kotlin.psi.*
+import org.jetbrains.kotlin.test.KotlinTestUtils
+import org.jetbrains.kotlin.test.KotlinTestWithEnvironment
+
+class LazyDeclarationBodiesTest : KotlinTestWithEnvironment() {
+    fun testBodiesAreCollapsed() {
+        val file = createFile("fun foo() { val x = 1 }\nclass A { init { foo() } }")
+
+        val body = file.findFunction("foo").bodyExpression!!.node
+        assertEquals(KtLazyBlockElementType.LAZY_BLOCK, body.elementType)
+        assertFalse((body as LazyParseableElement).isParsed)
+    }
+
+    fun testBodyIsParsedOnAccess() {
+        val file = createFile("fun foo() { val x = 1\n x + 1 }")
+
+        val body = file.findFunction("foo").bodyExpression as KtBlockExpression
+        assertEquals(2, body.statements.size)
+        assertTrue(body.statements[0] is KtProperty)
+        assertTrue((body.node as LazyParseableElement).isParsed)
+    }
+
+    fun testBodiesStayCollapsedAfterSyntaxErrorReport() {
+        val file = createFile("fun foo() { listOf(1).map { it + 1 } }\nval x: Int get() { return 1 }")
+
+        val errors = reportSyntaxErrors(file)
+
+        assertEquals(emptyList<String>(), errors)
+        assertFalse((file.findFunction("foo").bodyExpression!!.node as LazyParseableElement).isParsed)
+    }
+
+    fun testErrorInLazyBodyIsReported() {
+        val file = createFile("fun foo() { val x = }\nfun bar() { }")
+
+        assertEquals(1, reportSyntaxErrors(file).size)
+        assertTrue((file.findFunction("foo").bodyExpression!!.node as LazyParseableElement).isParsed)
+        assertFalse((file.findFunction("bar").bodyExpression!!.node as LazyParseableElement).isParsed)
+    }
+
+    fun testErrorInLambdaInsideLazyBodyIsReported() {
+        val file = createFile("fun foo() { run { val x = } }")
+
+        assertEquals(1, reportSyntaxErrors(file).size)
+    }
+
+    fun testBodiesAreNotLazyByDefault() {
+        val defaultEnvironment = KotlinCoreEnvironment.createForTests(
+                testRootDisposable, KotlinTestUtils.newConfiguration(), EnvironmentConfigFiles.JVM_CONFIG_FILES
+        )
+        val file = KtPsiFactory(defaultEnvironment.project).createFile("fun foo() { val x = 1 }")
+
+        assertEquals(KtNodeTypes.BLOCK, file.findFunction("foo").bodyExpression!!.node.elementType)
+    }
+
+    private fun createFile(text: String): KtFile = KtPsiFactory(project).createFile(text)
+
+    private fun KtFile.findFunction(name: String): KtNamedFunction =
+            collectDescendantsOfType<KtNamedFunction>().single { it.name == name }
+
+    private inline fun <reified T : KtElement> KtFile.collectDescendantsOfType(): List<T> {
+        val result = arrayListOf<T>()
+        accept(object : KtTreeVisitorVoid() {
+            override fun visitElement(element: PsiElement) {
+                if (element is T) result.add(element)
+                // do not descend into bodies, so that the lookup itself doesn't expand them
+                if (element !is KtBlockExpression) super.visitElement(element)
+            }
+        })
+        return result
+    }
+
+    private fun reportSyntaxErrors(file: KtFile): List<String> {
+        val errors = arrayListOf<String>()
+        AnalyzerWithCompilerReport.reportSyntaxErrors(file, object : DiagnosticMessageReporter {
+            override fun report(diagnostic: Diagnostic, file: PsiFile, render: String) {
+                errors.add(render)
+            }
+        })
+        return errors
+    }
+
+    override fun createEnvironment(): KotlinCoreEnvironment {
+        val configuration = KotlinTestUtils.newConfiguration()
+        configuration.put(CLIConfigurationKeys.LAZY_BODY_PARSING, true)
+        return KotlinCoreEnvironment.createForTests(testRootDisposable, configuration, EnvironmentConfigFiles.JVM_CONFIG_FILES)
+    }
+}
@@ -445,6 +445,12 @@ public class ResolveTestGenerated extends AbstractResolveTest {
             String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/resolve/imports/ImportResolveOrderStable.resolve");
             doTest(fileName);
         }
+
+        @TestMetadata("NamesFromAllUnderImportsAndMembers.resolve")
+        public void testNamesFromAllUnderImportsAndMembers() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("compiler/testData/resolve/imports/NamesFromAllUnderImportsAndMembers.resolve");
+            doTest(fileName);
+        }
     }
 
     @TestMetadata("compiler/testData/resolve/labels")
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2010-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.resolve.calls.tower
+
+import org.jetbrains.kotlin.descriptors.ModuleDescriptor
+import org.jetbrains.kotlin.descriptors.resolveClassByFqName
+import org.jetbrains.kotlin.incremental.components.NoLookupLocation
+import org.jetbrains.kotlin.name.FqName
+import org.jetbrains.kotlin.name.Name
+import org.jetbrains.kotlin.psi.KtPsiFactory
+import org.jetbrains.kotlin.resolve.lazy.JvmResolveUtil
+import org.jetbrains.kotlin.resolve.scopes.MemberScope
+import org.jetbrains.kotlin.test.ConfigurationKind
+import org.jetbrains.kotlin.test.KotlinTestWithEnvironment
+
+class ScopeNamePruningTest : KotlinTestWithEnvironment() {
+    override fun createEnvironment() = createEnvironmentWithMockJdk(ConfigurationKind.JDK_ONLY)
+
+    private val module: ModuleDescriptor by lazy {
+        val file = KtPsiFactory(project).createFile("package test\n\nfun String.ext() {}\nval property = 1\nclass Source")
+        JvmResolveUtil.analyze(file, environment).moduleDescriptor
+    }
+
+    fun testDeserializedClass() {
+        val scope = classScope("kotlin.String")
+
+        assertMayContain(scope, "length", "plus", "toString")
+        assertDoesNotContain(scope, "ext", "noSuchName")
+    }
+
+    fun testJavaClass() {
+        val scope = classScope("java.util.ArrayList")
+
+        assertMayContain(scope, "add", "size", "hashCode")
+        assertDoesNotContain(scope, "ext", "noSuchName")
+    }
+
+    fun testLibraryPackages() {
+        assertDoesNotContain(packageScope("kotlin"), "noSuchName")
+        assertDoesNotContain(packageScope("java.util"), "ArrayList", "noSuchName")
+    }
+
+    fun testSourcePackage() {
+        val scope = packageScope("test")
+
+        assertMayContain(scope, "ext", "property")
+        assertDoesNotContain(scope, "Source", "noSuchName")
+    }
+
+    private fun classScope(fqName: String): MemberScope =
+            module.resolveClassByFqName(FqName(fqName), NoLookupLocation.FROM_TEST)!!.defaultType.memberScope
+
+    private fun packageScope(fqName: String): MemberScope = module.getPackage(FqName(fqName)).memberScope
+
+    private fun assertMayContain(scope: MemberScope, vararg names: String) {
+        for (name in names) {
+            assertFalse(name, scope.definitelyDoesNotContainFunctionsOrVariables(Name.identifier(name), NoLookupLocation.FROM_TEST))
+        }
+    }
+
+    private fun assertDoesNotContain(scope: MemberScope, vararg names: String) {
+        for (name in names) {
+            assertTrue(name, scope.definitelyDoesNotContainFunctionsOrVariables(Name.identifier(name), NoLookupLocation.FROM_TEST))
+        }
+    }
+}
@@ -21,6 +21,7 @@ import org.jetbrains.kotlin.utils.DescriptionAware
 enum class JvmTarget(override val description: String) : DescriptionAware {
     JVM_1_6("1.6"),
     JVM_1_8("1.8"),
+    JVM_9("9"),
     ;
 
     companion object {
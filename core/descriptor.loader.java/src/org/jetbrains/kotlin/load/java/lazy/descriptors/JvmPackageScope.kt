@@ -65,6 +65,12 @@ class JvmPackageScope(
         return getFromAllScopes(javaScope, kotlinScopes) { it.getContributedFunctions(name, location) }
     }
 
+    override fun definitelyDoesNotContainFunctionsOrVariables(name: Name, location: LookupLocation): Boolean {
+        recordLookup(location, name)
+        return javaScope.definitelyDoesNotContainFunctionsOrVariables(name, location) &&
+               kotlinScopes.all { it.definitelyDoesNotContainFunctionsOrVariables(name, location) }
+    }
+
     override fun getContributedDescriptors(
             kindFilter: DescriptorKindFilter, nameFilter: (Name) -> Boolean
     ): Collection<DeclarationDescriptor> =
@@ -662,6 +662,11 @@ class LazyJavaClassMemberScope(
         return super.getContributedVariables(name, location)
     }
 
+    override fun definitelyDoesNotContainFunctionsOrVariables(name: Name, location: LookupLocation): Boolean {
+        recordLookup(name, location)
+        return super.definitelyDoesNotContainFunctionsOrVariables(name, location)
+    }
+
     override fun computeClassNames(kindFilter: DescriptorKindFilter, nameFilter: ((Name) -> Boolean)?): Set<Name>
             = nestedClassIndex().keys + enumEntryIndex().keys
 
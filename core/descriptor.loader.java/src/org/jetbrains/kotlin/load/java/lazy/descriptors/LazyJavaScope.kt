@@ -226,6 +226,9 @@ abstract class LazyJavaScope(protected val c: LazyJavaResolverContext) : MemberS
         return functions(name)
     }
 
+    override fun definitelyDoesNotContainFunctionsOrVariables(name: Name, location: LookupLocation) =
+            name !in getFunctionNames() && name !in getVariableNames()
+
     protected open fun computeFunctionNames(kindFilter: DescriptorKindFilter, nameFilter: ((Name) -> Boolean)?): Set<Name> =
             declaredMemberIndex().getMethodNames()
 
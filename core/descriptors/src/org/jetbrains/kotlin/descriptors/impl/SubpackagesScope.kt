@@ -19,6 +19,7 @@ package org.jetbrains.kotlin.descriptors.impl
 import org.jetbrains.kotlin.descriptors.DeclarationDescriptor
 import org.jetbrains.kotlin.descriptors.ModuleDescriptor
 import org.jetbrains.kotlin.descriptors.PackageViewDescriptor
+import org.jetbrains.kotlin.incremental.components.LookupLocation
 import org.jetbrains.kotlin.name.FqName
 import org.jetbrains.kotlin.name.Name
 import org.jetbrains.kotlin.resolve.scopes.DescriptorKindExclude
@@ -57,6 +58,9 @@ open class SubpackagesScope(private val moduleDescriptor: ModuleDescriptor, priv
         return result
     }
 
+    // only packages are contributed here
+    override fun definitelyDoesNotContainFunctionsOrVariables(name: Name, location: LookupLocation) = true
+
     override fun printScopeStructure(p: Printer) {
         p.println(javaClass.simpleName, " {")
         p.pushIndent()
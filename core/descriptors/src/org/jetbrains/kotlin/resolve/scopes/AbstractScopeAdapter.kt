@@ -56,6 +56,9 @@ abstract class AbstractScopeAdapter : MemberScope {
     override fun getFunctionNames() = workerScope.getFunctionNames()
     override fun getVariableNames() = workerScope.getVariableNames()
 
+    override fun definitelyDoesNotContainFunctionsOrVariables(name: Name, location: LookupLocation) =
+            workerScope.definitelyDoesNotContainFunctionsOrVariables(name, location)
+
     override fun printScopeStructure(p: Printer) {
         p.println(javaClass.simpleName, " {")
         p.pushIndent()
@@ -44,6 +44,9 @@ class ChainedMemberScope(
     override fun getFunctionNames() = scopes.flatMapTo(mutableSetOf()) { it.getFunctionNames() }
     override fun getVariableNames() = scopes.flatMapTo(mutableSetOf()) { it.getVariableNames() }
 
+    override fun definitelyDoesNotContainFunctionsOrVariables(name: Name, location: LookupLocation) =
+            scopes.all { it.definitelyDoesNotContainFunctionsOrVariables(name, location) }
+
     override fun toString() = debugName
 
     override fun printScopeStructure(p: Printer) {
@@ -34,6 +34,13 @@ interface MemberScope : ResolutionScope {
     fun getFunctionNames(): Set<Name>
     fun getVariableNames(): Set<Name>
 
+    /**
+     * Returns true if the scope definitely contributes no functions and no variables with the given name, classifiers are not checked.
+     * Is only implemented by the scopes which have their name sets at hand, `false` carries no information.
+     * The lookup of the name is recorded in the same way as [getContributedFunctions] and [getContributedVariables] would do it.
+     */
+    fun definitelyDoesNotContainFunctionsOrVariables(name: Name, location: LookupLocation): Boolean = false
+
     /**
      * Is supposed to be used in tests and debug only
      */
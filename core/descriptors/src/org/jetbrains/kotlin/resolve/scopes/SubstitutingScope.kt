@@ -78,6 +78,9 @@ class SubstitutingScope(private val workerScope: MemberScope, givenSubstitutor:
     override fun getFunctionNames() = workerScope.getFunctionNames()
     override fun getVariableNames() = workerScope.getVariableNames()
 
+    override fun definitelyDoesNotContainFunctionsOrVariables(name: Name, location: LookupLocation) =
+            workerScope.definitelyDoesNotContainFunctionsOrVariables(name, location)
+
     override fun printScopeStructure(p: Printer) {
         p.println(javaClass.simpleName, " {")
         p.pushIndent()
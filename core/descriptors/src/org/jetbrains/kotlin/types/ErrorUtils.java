@@ -221,6 +221,11 @@ public class ErrorUtils {
             return emptySet();
         }
 
+        @Override
+        public boolean definitelyDoesNotContainFunctionsOrVariables(@NotNull Name name, @NotNull LookupLocation location) {
+            return false;
+        }
+
         @NotNull
         @Override
         public Collection<DeclarationDescriptor> getContributedDescriptors(
@@ -289,6 +294,11 @@ public class ErrorUtils {
             throw new IllegalStateException();
         }
 
+        @Override
+        public boolean definitelyDoesNotContainFunctionsOrVariables(@NotNull Name name, @NotNull LookupLocation location) {
+            throw new IllegalStateException();
+        }
+
         @Override
         public String toString() {
             return "ThrowingScope{" + debugMessage + '}';
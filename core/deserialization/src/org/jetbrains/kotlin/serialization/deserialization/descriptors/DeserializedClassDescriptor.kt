@@ -216,6 +216,11 @@ class DeserializedClassDescriptor(
             return super.getContributedVariables(name, location)
         }
 
+        override fun definitelyDoesNotContainFunctionsOrVariables(name: Name, location: LookupLocation): Boolean {
+            recordLookup(name, location)
+            return super.definitelyDoesNotContainFunctionsOrVariables(name, location)
+        }
+
         override fun computeNonDeclaredFunctions(name: Name, functions: MutableCollection<SimpleFunctionDescriptor>) {
             val fromSupertypes = ArrayList<SimpleFunctionDescriptor>()
             for (supertype in classDescriptor.getTypeConstructor().supertypes) {
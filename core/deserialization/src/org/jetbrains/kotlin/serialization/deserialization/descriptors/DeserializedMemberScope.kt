@@ -111,6 +111,9 @@ abstract class DeserializedMemberScope protected constructor(
         return functions(name)
     }
 
+    override fun definitelyDoesNotContainFunctionsOrVariables(name: Name, location: LookupLocation) =
+            name !in getFunctionNames() && name !in getVariableNames()
+
     private fun computeProperties(name: Name) =
             computeDescriptors(
                     name,
@@ -20,7 +20,9 @@ import com.sun.jdi.*
 import org.jetbrains.eval4j.*
 import org.jetbrains.eval4j.Value
 import org.jetbrains.org.objectweb.asm.Type
+import org.jetbrains.org.objectweb.asm.tree.*
 import java.lang.reflect.AccessibleObject
+import java.util.*
 import com.sun.jdi.Type as jdi_Type
 import com.sun.jdi.Value as jdi_Value
 
@@ -50,7 +52,16 @@ class JDIEval(
         return loadClass(classType, defaultClassLoader)
     }
 
+    // Every lookup below is a JDI round trip, and the interpreter repeats them for each executed instruction
+    private val loadedClassesCache = HashMap<Pair<Type, ClassLoaderReference?>, Value>()
+    private val fieldsCache = HashMap<FieldDescription, Field>()
+    private val methodsCache = HashMap<Pair<MethodDescription, ReferenceType>, Method>()
+
     fun loadClass(classType: Type, classLoader: ClassLoaderReference?): Value {
+        return loadedClassesCache.getOrPut(classType to classLoader) { doLoadClass(classType, classLoader) }
+    }
+
+    private fun doLoadClass(classType: Type, classLoader: ClassLoaderReference?): Value {
         val loadedClasses = vm.classesByName(classType.internalName)
         if (!loadedClasses.isEmpty()) {
             for (loadedClass in loadedClasses) {
@@ -166,6 +177,10 @@ class JDIEval(
     }
 
     private fun findField(fieldDesc: FieldDescription): Field {
+        return fieldsCache.getOrPut(fieldDesc) { doFindField(fieldDesc) }
+    }
+
+    private fun doFindField(fieldDesc: FieldDescription): Field {
         val _class = fieldDesc.ownerType.asReferenceType()
         val field = _class.fieldByName(fieldDesc.name)
         if (field == null) {
@@ -204,6 +219,10 @@ class JDIEval(
     }
 
     private fun findMethod(methodDesc: MethodDescription, _class: ReferenceType = methodDesc.ownerType.asReferenceType()): Method {
+        return methodsCache.getOrPut(methodDesc to _class) { doFindMethod(methodDesc, _class) }
+    }
+
+    private fun doFindMethod(methodDesc: MethodDescription, _class: ReferenceType): Method {
         val method = when (_class) {
             is ClassType -> {
                 val m = _class.concreteMethodByName(methodDesc.name, methodDesc.desc)
@@ -319,6 +338,44 @@ class JDIEval(
         }
     }
 
+    /**
+     * Checks whether [methodNode] may be run directly in the debuggee instead of being interpreted.
+     * This is only possible if the method refers to nothing but public classes and members (or the [definedClasses]),
+     * because the code runs in a separate class loader there and, unlike the interpreter, can't bypass access checks.
+     */
+    fun canRunInDebuggee(methodNode: MethodNode, definedClasses: Set<String>): Boolean {
+        fun isAccessible(type: Type): Boolean {
+            val elementType = if (type.sort == Type.ARRAY) type.elementType else type
+            if (elementType.sort != Type.OBJECT || elementType.internalName in definedClasses) return true
+            return elementType.asReferenceType().isPublic
+        }
+
+        fun isAccessible(member: TypeComponent, owner: String): Boolean {
+            return member.isPublic && member.declaringType().isPublic && isAccessible(Type.getObjectType(owner))
+        }
+
+        try {
+            for (insn in methodNode.instructions.toArray()) {
+                val accessible = when (insn) {
+                    is InvokeDynamicInsnNode -> false
+                    is MethodInsnNode -> insn.owner in definedClasses || insn.owner.startsWith("[") ||
+                                         isAccessible(findMethod(MethodDescription(insn)), insn.owner)
+                    is FieldInsnNode -> insn.owner in definedClasses || isAccessible(findField(FieldDescription(insn)), insn.owner)
+                    is TypeInsnNode -> isAccessible(Type.getObjectType(insn.desc))
+                    is MultiANewArrayInsnNode -> isAccessible(Type.getType(insn.desc))
+                    is LdcInsnNode -> (insn.cst as? Type)?.let { isAccessible(it) } ?: true
+                    else -> true
+                }
+                if (!accessible) return false
+            }
+            return true
+        }
+        catch (e: Exception) {
+            // Anything that can't be resolved here is left to the interpreter
+            return false
+        }
+    }
+
     private fun shouldInvokeMethodWithReflection(method: Method, args: List<com.sun.jdi.Value?>): Boolean {
         return !method.isVarArgs && args.zip(method.argumentTypes()).any { isArrayOfInterfaces(it.first?.type(), it.second) }
     }
@@ -18,7 +18,6 @@ package org.jetbrains.kotlin.idea.caches.resolve
 
 import com.intellij.openapi.roots.OrderRootType
 import com.intellij.psi.search.GlobalSearchScope
-import com.intellij.util.PathUtil
 import org.jetbrains.kotlin.analyzer.*
 import org.jetbrains.kotlin.container.get
 import org.jetbrains.kotlin.context.ModuleContext
@@ -35,7 +34,6 @@ import org.jetbrains.kotlin.resolve.lazy.ResolveSession
 import org.jetbrains.kotlin.resolve.lazy.declarations.DeclarationProviderFactoryService
 import org.jetbrains.kotlin.serialization.deserialization.DeserializationConfiguration
 import org.jetbrains.kotlin.serialization.js.KotlinJavascriptSerializationUtil
-import org.jetbrains.kotlin.utils.KotlinJavascriptMetadataUtils
 
 object JsAnalyzerFacade : AnalyzerFacade<PlatformAnalysisParameters>() {
 
@@ -66,13 +64,11 @@ object JsAnalyzerFacade : AnalyzerFacade<PlatformAnalysisParameters>() {
         var packageFragmentProvider = container.get<ResolveSession>().packageFragmentProvider
 
         if (moduleInfo is LibraryInfo && KotlinJavaScriptLibraryDetectionUtil.isKotlinJavaScriptLibrary(moduleInfo.library)) {
-            val providers = moduleInfo.library.getFiles(OrderRootType.CLASSES)
-                    .flatMap { KotlinJavascriptMetadataUtils.loadMetadata(PathUtil.getLocalPath(it)!!) }
-                    .filter { it.isAbiVersionCompatible }
+            val providers = SharedLibraryMetadataCache.getJsModules(project, moduleInfo.library.getFiles(OrderRootType.CLASSES).toList())
                     .mapNotNull {
-                        KotlinJavascriptSerializationUtil.readModule(
-                                it.body, moduleContext.storageManager, moduleDescriptor, container.get<DeserializationConfiguration>()
-                        ).data
+                        KotlinJavascriptSerializationUtil.createPackageFragmentProvider(
+                                moduleDescriptor, it.data, moduleContext.storageManager, container.get<DeserializationConfiguration>()
+                        )
                     }
 
             if (providers.isNotEmpty()) {
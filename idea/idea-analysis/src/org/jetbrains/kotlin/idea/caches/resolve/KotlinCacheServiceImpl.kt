@@ -20,6 +20,7 @@ import com.intellij.openapi.diagnostic.Logger
 import com.intellij.openapi.project.Project
 import com.intellij.openapi.projectRoots.Sdk
 import com.intellij.openapi.roots.ProjectRootModificationTracker
+import com.intellij.openapi.util.LowMemoryWatcher
 import com.intellij.openapi.util.ModificationTracker
 import com.intellij.psi.PsiCodeFragment
 import com.intellij.psi.PsiFile
@@ -94,7 +95,8 @@ class KotlinCacheServiceImpl(val project: Project) : KotlinCacheService {
     ): ProjectResolutionFacade {
         val sdk = findJdk(dependenciesModuleInfo.dependencies, project)
         val platform = JvmPlatform // TODO: Js scripts?
-        val sdkFacade = GlobalFacade(platform, sdk).facadeForSdk
+        // Reuse the sdk descriptors of the project instead of deserializing the same jdk once more for every script
+        val sdkFacade = getOrBuildGlobalFacade(platform, sdk).facadeForSdk
         val globalContext = sdkFacade.globalContext.contextWithNewLockAndCompositeExceptionTracker()
         return ProjectResolutionFacade(
                 "facadeForScriptDependencies",
@@ -305,10 +307,26 @@ class KotlinCacheServiceImpl(val project: Project) : KotlinCacheService {
 
     private val syntheticFileCachesLock = Any()
 
+    @Volatile private var syntheticFilesCache: SLRUCache<Set<KtFile>, ProjectResolutionFacade>? = null
+
     private val syntheticFilesCacheProvider = CachedValueProvider {
-        CachedValueProvider.Result(object : SLRUCache<Set<KtFile>, ProjectResolutionFacade>(2, 3) {
+        val cache = object : SLRUCache<Set<KtFile>, ProjectResolutionFacade>(2, 3) {
             override fun createValue(files: Set<KtFile>) = createFacadeForSyntheticFiles(files)
-        }, LibraryModificationTracker.getInstance(project), ProjectRootModificationTracker.getInstance(project))
+        }
+        syntheticFilesCache = cache
+        CachedValueProvider.Result(cache, LibraryModificationTracker.getInstance(project), ProjectRootModificationTracker.getInstance(project))
+    }
+
+    init {
+        // Facades for scripts and synthetic files are recreated on demand, so they are the first thing to drop when memory is low
+        LowMemoryWatcher.register(Runnable {
+            synchronized(facadesForScriptDependencies) {
+                facadesForScriptDependencies.clear()
+            }
+            syntheticFilesCache?.let { cache ->
+                synchronized(cache) { cache.clear() }
+            }
+        }, project)
     }
 
     private fun getFacadeForSyntheticFiles(files: Set<KtFile>): ProjectResolutionFacade {
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2010-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.idea.caches.resolve
+
+import com.intellij.openapi.Disposable
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.util.Disposer
+import com.intellij.openapi.util.LowMemoryWatcher
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.util.PathUtil
+import org.jetbrains.annotations.TestOnly
+import org.jetbrains.kotlin.serialization.js.JsModuleDescriptor
+import org.jetbrains.kotlin.serialization.js.KotlinJavascriptSerializationUtil
+import org.jetbrains.kotlin.utils.KotlinJavascriptMetadataUtils
+import java.io.File
+import java.lang.ref.SoftReference
+import java.util.*
+
+/**
+ * Application-wide cache of the unpacked metadata of Kotlin/JavaScript library roots, shared by all the open projects.
+ *
+ * Module and package descriptors can't be shared this way, because a library module descriptor belongs to the resolver
+ * of its project and resolves its dependencies through it. What is shared instead is everything the package fragment
+ * providers are built from: the library files are read, checked for ABI compatibility and unpacked into the metadata file
+ * contents only once for all the projects, so building a provider in another project only creates the lazy descriptors.
+ *
+ * An entry is keyed by the library roots, is reference-counted by the projects which have requested it and is released
+ * when the last of them is closed. The unpacked content is softly referenced, and all the entries are dropped when
+ * the IDE is low on memory; either way the content is read again on demand.
+ */
+object SharedLibraryMetadataCache {
+    private class Entry(val stamps: List<Long>, content: List<JsModuleDescriptor<Map<String, ByteArray>>>) {
+        val content = SoftReference(content)
+        val users = HashSet<Project>()
+    }
+
+    private val entries = HashMap<List<String>, Entry>()
+    private val projectsWithReleaseRegistered = HashSet<Project>()
+
+    // the watcher is only weakly referenced by LowMemoryWatcher, so it has to be kept here
+    private val lowMemoryWatcher = LowMemoryWatcher.register(Runnable { clear() })
+
+    /**
+     * Returns the unpacked metadata of the ABI-compatible Kotlin/JavaScript modules found in [roots].
+     */
+    fun getJsModules(project: Project, roots: Collection<VirtualFile>): List<JsModuleDescriptor<Map<String, ByteArray>>> {
+        val paths = roots.map { PathUtil.getLocalPath(it)!! }
+        val stamps = paths.map { stampOf(File(it)) }
+
+        synchronized(this) {
+            val cached = entries[paths]
+            val content = cached?.content?.get()
+            if (content != null && cached.stamps == stamps) {
+                cached.users.add(project)
+                registerRelease(project)
+                return content
+            }
+        }
+
+        // the library files are read outside of the lock, a concurrent reader of the same roots may do the same work
+        val content = paths
+                .flatMap { KotlinJavascriptMetadataUtils.loadMetadata(it) }
+                .filter { it.isAbiVersionCompatible }
+                .map { KotlinJavascriptSerializationUtil.readModuleContent(it.body, it.moduleName) }
+
+        synchronized(this) {
+            val entry = Entry(stamps, content)
+            entries[paths]?.let { entry.users.addAll(it.users) }
+            entry.users.add(project)
+            entries[paths] = entry
+            registerRelease(project)
+        }
+        return content
+    }
+
+    private fun registerRelease(project: Project) {
+        if (!projectsWithReleaseRegistered.add(project)) return
+
+        Disposer.register(project, Disposable { release(project) })
+    }
+
+    @Synchronized
+    private fun release(project: Project) {
+        projectsWithReleaseRegistered.remove(project)
+
+        val iterator = entries.values.iterator()
+        while (iterator.hasNext()) {
+            val entry = iterator.next()
+            if (entry.users.remove(project) && entry.users.isEmpty()) {
+                iterator.remove()
+            }
+        }
+    }
+
+    @Synchronized
+    fun clear() {
+        entries.clear()
+    }
+
+    @TestOnly
+    @Synchronized
+    fun cachedRootsCount(): Int = entries.size
+
+    private fun stampOf(file: File): Long = file.lastModified() * 31 + file.length()
+}
@@ -33,6 +33,7 @@ import org.jetbrains.kotlin.idea.debugger.stepping.KotlinSteppingConfigurableUi
     var DEBUG_RENDER_DELEGATED_PROPERTIES: Boolean = true
     var DEBUG_DISABLE_KOTLIN_INTERNAL_CLASSES: Boolean = true
     var DEBUG_IS_FILTER_FOR_STDLIB_ALREADY_ADDED: Boolean = false
+    var DEBUG_RUN_EVALUATED_CODE_IN_DEBUGGEE: Boolean = true
 
     companion object {
         fun getInstance(): KotlinDebuggerSettings {
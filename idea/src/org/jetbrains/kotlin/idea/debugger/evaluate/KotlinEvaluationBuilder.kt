@@ -58,6 +58,7 @@ import org.jetbrains.kotlin.idea.caches.resolve.getJavaClassDescriptor
 import org.jetbrains.kotlin.idea.core.quoteIfNeeded
 import org.jetbrains.kotlin.idea.core.quoteSegmentsIfNeeded
 import org.jetbrains.kotlin.idea.debugger.DebuggerUtils
+import org.jetbrains.kotlin.idea.debugger.KotlinDebuggerSettings
 import org.jetbrains.kotlin.idea.debugger.evaluate.KotlinDebuggerCaches.CompiledDataDescriptor
 import org.jetbrains.kotlin.idea.debugger.evaluate.KotlinDebuggerCaches.ParametersDescriptor
 import org.jetbrains.kotlin.idea.debugger.evaluate.compilingEvaluator.loadClasses
@@ -233,12 +234,15 @@ class KotlinEvaluator(val codeFragment: KtCodeFragment, val sourcePosition: Sour
         private fun runEval4j(context: EvaluationContextImpl, compiledData: CompiledDataDescriptor): InterpreterResult {
             val virtualMachine = context.debugProcess.virtualMachineProxy.virtualMachine
 
-            if (compiledData.additionalClasses.isNotEmpty()) {
-                loadClasses(context, compiledData.additionalClasses)
-            }
-
             var resultValue: InterpreterResult? = null
             ClassReader(compiledData.bytecodes).accept(object : ClassVisitor(ASM5) {
+                private lateinit var className: String
+
+                override fun visit(version: Int, access: Int, name: String, signature: String?, superName: String?, interfaces: Array<out String>?) {
+                    className = name
+                    super.visit(version, access, name, signature, superName, interfaces)
+                }
+
                 override fun visitMethod(access: Int, name: String, desc: String, signature: String?, exceptions: Array<out String>?): MethodVisitor? {
                     if (name == GENERATED_FUNCTION_NAME) {
                         val argumentTypes = Type.getArgumentTypes(desc)
@@ -250,16 +254,23 @@ class KotlinEvaluator(val codeFragment: KtCodeFragment, val sourcePosition: Sour
                                                   virtualMachine.eventRequestManager().classPrepareRequests()
                                 allRequests.forEach { it.disable() }
 
-                                val eval = JDIEval(virtualMachine,
-                                                   context.classLoader,
-                                                   context.suspendContext.thread?.threadReference!!,
-                                                   context.suspendContext.getInvokePolicy())
+                                // the evaluation class loader of the context changes when the classes are loaded, so a new eval is needed then
+                                fun createEval() = JDIEval(virtualMachine,
+                                                           context.classLoader,
+                                                           context.suspendContext.thread?.threadReference!!,
+                                                           context.suspendContext.getInvokePolicy())
+
+                                val eval = createEval()
+                                val arguments = args.zip(argumentTypes).map { boxOrUnboxArgumentIfNeeded(eval, it.first, it.second) }
 
-                                resultValue = interpreterLoop(
-                                        this,
-                                        makeInitialFrame(this, args.zip(argumentTypes).map { boxOrUnboxArgumentIfNeeded(eval, it.first, it.second) }),
-                                        eval
-                                )
+                                resultValue = tryRunInDebuggee(this, className, arguments, context, compiledData, eval, ::createEval)
+
+                                if (resultValue == null) {
+                                    if (compiledData.additionalClasses.isNotEmpty()) {
+                                        loadClasses(context, compiledData.additionalClasses)
+                                    }
+                                    resultValue = interpreterLoop(this, makeInitialFrame(this, arguments), createEval())
+                                }
 
                                 allRequests.forEach { it.enable() }
                             }
@@ -273,6 +284,46 @@ class KotlinEvaluator(val codeFragment: KtCodeFragment, val sourcePosition: Sour
             return resultValue ?: throw IllegalStateException("resultValue is null: cannot find method " + GENERATED_FUNCTION_NAME)
         }
 
+        // Running the compiled fragment in the debuggee avoids interpreting it instruction by instruction with a JDI request
+        // for each member access. Returns null if the fragment can't be run this way, and then it is interpreted
+        private fun tryRunInDebuggee(
+                methodNode: MethodNode,
+                className: String,
+                arguments: List<Value>,
+                context: EvaluationContextImpl,
+                compiledData: CompiledDataDescriptor,
+                eval: JDIEval,
+                createEval: () -> JDIEval
+        ): InterpreterResult? {
+            if (!KotlinDebuggerSettings.getInstance().DEBUG_RUN_EVALUATED_CODE_IN_DEBUGGEE) return null
+            if (!context.debugProcess.virtualMachineProxy.virtualMachine.canBeModified()) return null
+
+            val definedClasses = compiledData.additionalClasses.mapTo(HashSet()) { it.first.replace('.', '/') } + className
+            if (!eval.canRunInDebuggee(methodNode, definedClasses)) return null
+
+            try {
+                // All the classes are defined in the same loader, so that the lambda classes and the main class can see each other
+                loadClasses(context, compiledData.additionalClasses + (className.replace('/', '.') to compiledData.bytecodes))
+            }
+            catch (e: EvaluateException) {
+                LOG.debug("Couldn't load the evaluated code into the debuggee, falling back to the interpreter", e)
+                return null
+            }
+
+            val methodDescription = MethodDescription(className, methodNode.name, methodNode.desc, true)
+            try {
+                return ValueReturned(createEval().invokeStaticMethod(methodDescription, arguments))
+            }
+            catch (e: ThrownFromEvaluatedCodeException) {
+                return ExceptionThrown(e.exception, ExceptionThrown.ExceptionKind.FROM_EVALUATED_CODE)
+            }
+            catch (e: ThrownFromEvalExceptionBase) {
+                val exception = e.cause!!
+                val kind = if (e is BrokenCode) ExceptionThrown.ExceptionKind.BROKEN_CODE else ExceptionThrown.ExceptionKind.FROM_EVALUATOR
+                return ExceptionThrown(ObjectValue(exception, Type.getType(exception.javaClass)), kind)
+            }
+        }
+
         private fun boxOrUnboxArgumentIfNeeded(eval: JDIEval, argumentValue: Value, parameterType: Type): Value {
             val argumentType = argumentValue.asmType
 
@@ -0,0 +1,17 @@
+package ceLambdaInDebuggee
+
+fun main(args: Array<String>) {
+    val a = 1
+    //Breakpoint!
+    args.size
+}
+
+fun foo(p: () -> Int) = p()
+
+// Only public declarations are used, so the fragment and its lambdas are run in the debuggee
+
+// EXPRESSION: foo { foo { 20 } * 2 + 2 }
+// RESULT: 42: I
+
+// EXPRESSION: foo { foo { a } + a }
+// RESULT: 2: I
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2010-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.idea.caches.resolve
+
+import com.intellij.openapi.util.Disposer
+import com.intellij.openapi.vfs.LocalFileSystem
+import com.intellij.openapi.vfs.VirtualFile
+import org.jetbrains.kotlin.idea.test.KotlinLightCodeInsightFixtureTestCase
+import org.jetbrains.kotlin.idea.test.KotlinStdJSProjectDescriptor
+import org.jetbrains.kotlin.test.testFramework.MockProjectEx
+import org.jetbrains.kotlin.utils.PathUtil
+
+class SharedLibraryMetadataCacheTest : KotlinLightCodeInsightFixtureTestCase() {
+    override fun getProjectDescriptor() = KotlinStdJSProjectDescriptor.instance
+
+    override fun setUp() {
+        super.setUp()
+        SharedLibraryMetadataCache.clear()
+    }
+
+    override fun tearDown() {
+        SharedLibraryMetadataCache.clear()
+        super.tearDown()
+    }
+
+    fun testContentIsSharedBetweenProjects() {
+        val roots = listOf(stdlibRoot())
+
+        val otherProjectDisposable = Disposer.newDisposable()
+        try {
+            val otherProject = MockProjectEx(otherProjectDisposable)
+
+            val modules = SharedLibraryMetadataCache.getJsModules(project, roots)
+            assertNotEmpty(modules)
+            assertTrue(modules.all { it.data.isNotEmpty() })
+
+            assertSame(modules, SharedLibraryMetadataCache.getJsModules(otherProject, roots))
+            assertEquals(1, SharedLibraryMetadataCache.cachedRootsCount())
+        }
+        finally {
+            Disposer.dispose(otherProjectDisposable)
+        }
+
+        // the entry is still used by this project
+        assertEquals(1, SharedLibraryMetadataCache.cachedRootsCount())
+    }
+
+    fun testEntryIsReleasedWithLastProject() {
+        val roots = listOf(stdlibRoot())
+
+        val otherProjectDisposable = Disposer.newDisposable()
+        SharedLibraryMetadataCache.getJsModules(MockProjectEx(otherProjectDisposable), roots)
+        assertEquals(1, SharedLibraryMetadataCache.cachedRootsCount())
+
+        Disposer.dispose(otherProjectDisposable)
+        assertEquals(0, SharedLibraryMetadataCache.cachedRootsCount())
+    }
+
+    fun testContentIsReadAgainAfterClear() {
+        val roots = listOf(stdlibRoot())
+
+        val modules = SharedLibraryMetadataCache.getJsModules(project, roots)
+        SharedLibraryMetadataCache.clear()
+        assertEquals(0, SharedLibraryMetadataCache.cachedRootsCount())
+
+        val reread = SharedLibraryMetadataCache.getJsModules(project, roots)
+        assertNotSame(modules, reread)
+        assertEquals(modules.map { it.data.keys }, reread.map { it.data.keys })
+        assertEquals(1, SharedLibraryMetadataCache.cachedRootsCount())
+    }
+
+    private fun stdlibRoot(): VirtualFile =
+            LocalFileSystem.getInstance().findFileByIoFile(PathUtil.getKotlinPathsForDistDirectory().jsStdLibJarPath)!!
+}
@@ -406,6 +406,12 @@ public class KotlinEvaluateExpressionTestGenerated extends AbstractKotlinEvaluat
                 doSingleBreakpointTest(fileName);
             }
 
+            @TestMetadata("ceLambdaInDebuggee.kt")
+            public void testCeLambdaInDebuggee() throws Exception {
+                String fileName = KotlinTestUtils.navigationMetadata("idea/testData/debugger/tinyApp/src/evaluate/singleBreakpoint/compilingEvaluator/ceLambdaInDebuggee.kt");
+                doSingleBreakpointTest(fileName);
+            }
+
             @TestMetadata("ceLocalClass.kt")
             public void testCeLocalClass() throws Exception {
                 String fileName = KotlinTestUtils.navigationMetadata("idea/testData/debugger/tinyApp/src/evaluate/singleBreakpoint/compilingEvaluator/ceLocalClass.kt");
@@ -17,6 +17,9 @@
 package org.jetbrains.kotlin.jps.build
 
 import com.intellij.util.PathUtil
+import org.jetbrains.jps.api.GlobalOptions
+import org.jetbrains.jps.builders.JpsBuildTestCase
+import org.jetbrains.jps.cmdline.BuildRunner
 import org.jetbrains.jps.model.java.JpsJavaExtensionService
 import org.jetbrains.kotlin.daemon.common.*
 import org.jetbrains.kotlin.test.KotlinTestUtils
@@ -64,6 +67,47 @@ class SimpleKotlinJpsBuildTest : AbstractKotlinJpsBuildTestCase() {
         rebuildAll()
     }
 
+    fun testParallelBuildWithInlineFunctionsAdded() {
+        // every library is a separate chunk, so the libraries with the added inline functions are compiled in parallel
+        val libraryFiles = (1..PARALLEL_MODULES_COUNT).map { i ->
+            val libraryFile = createFile("lib$i/lib$i.kt", "package lib$i\n\nfun foo$i() = $i\n")
+            val library = addModule("lib$i", PathUtil.getParentPath(libraryFile))
+
+            val usageFile = createFile("usage$i/usage$i.kt", "package usage$i\n\nfun bar$i() = lib$i.foo$i()\n")
+            val usage = addModule("usage$i", PathUtil.getParentPath(usageFile))
+            JpsJavaExtensionService.getInstance().getOrCreateDependencyExtension(
+                    usage.dependenciesList.addModuleDependency(library)
+            ).isExported = false
+
+            libraryFile
+        }
+        addKotlinRuntimeDependency()
+
+        withParallelBuild {
+            rebuildAll()
+
+            libraryFiles.forEachIndexed { index, libraryFile ->
+                val i = index + 1
+                JpsBuildTestCase.change(libraryFile, "package lib$i\n\nfun foo$i() = $i\n\ninline fun inlineFoo$i() = $i\n")
+            }
+            makeAll().assertSuccessful()
+            makeAll().assertUpToDate()
+        }
+    }
+
+    private fun withParallelBuild(body: () -> Unit) {
+        val wasEnabled = BuildRunner.PARALLEL_BUILD_ENABLED
+        BuildRunner.PARALLEL_BUILD_ENABLED = true
+        System.setProperty(GlobalOptions.COMPILE_PARALLEL_OPTION, "true")
+        try {
+            body()
+        }
+        finally {
+            System.clearProperty(GlobalOptions.COMPILE_PARALLEL_OPTION)
+            BuildRunner.PARALLEL_BUILD_ENABLED = wasEnabled
+        }
+    }
+
     // TODO: add JS tests
     fun testDaemon() {
         System.setProperty(COMPILE_DAEMON_ENABLED_PROPERTY, "")
@@ -86,6 +130,8 @@ class SimpleKotlinJpsBuildTest : AbstractKotlinJpsBuildTestCase() {
     }
 }
 
+private const val PARALLEL_MODULES_COUNT = 8
+
 // copied from CompilerDaemonTest.kt
 // TODO: find shared place for this function
 // java.util.Logger used in the daemon silently forgets to log into a file specified in the config on Windows,
@@ -768,18 +768,26 @@ private fun CompilationResult.doProcessChanges(
 ) {
     KotlinBuilder.LOG.debug("compilationResult = $this")
 
-    when {
-        inlineAdded -> {
-            allCompiledFiles.clear()
-            fsOperations.markChunk(recursively = true, kotlinOnly = true, excludeFiles = compiledFiles)
-            return
-        }
-        constantsChanged -> {
-            fsOperations.markChunk(recursively = true, kotlinOnly = false, excludeFiles = allCompiledFiles)
-            return
-        }
-        protoChanged -> {
-            fsOperations.markChunk(recursively = false, kotlinOnly = true, excludeFiles = allCompiledFiles)
+    // chunks built in parallel share allCompiledFiles, so it's cleared and read under its lock (it's a synchronized set);
+    // the files of this chunk are added again in case another chunk has cleared them since they were compiled
+    synchronized(allCompiledFiles) {
+        if (!inlineAdded) {
+            allCompiledFiles.addAll(compiledFiles)
+        }
+
+        when {
+            inlineAdded -> {
+                allCompiledFiles.clear()
+                fsOperations.markChunk(recursively = true, kotlinOnly = true, excludeFiles = compiledFiles)
+                return
+            }
+            constantsChanged -> {
+                fsOperations.markChunk(recursively = true, kotlinOnly = false, excludeFiles = allCompiledFiles)
+                return
+            }
+            protoChanged -> {
+                fsOperations.markChunk(recursively = false, kotlinOnly = true, excludeFiles = allCompiledFiles)
+            }
         }
     }
 
@@ -876,26 +884,27 @@ fun getDependentTargets(
 private fun getDependenciesRecursively(module: JpsModule, kind: JpsJavaClasspathKind): Set<JpsModule> =
         JpsJavaExtensionService.dependencies(module).includedIn(kind).recursivelyExportedOnly().modules
 
-// TODO: investigate thread safety
+// chunks are built in parallel when parallel compilation is enabled, so the containers shared by them are synchronized
+private val CONTEXT_CONTAINERS_LOCK = Any()
+
 private val ALL_COMPILED_FILES_KEY = Key.create<MutableSet<File>>("_all_kotlin_compiled_files_")
-private fun getAllCompiledFilesContainer(context: CompileContext): MutableSet<File> {
+private fun getAllCompiledFilesContainer(context: CompileContext): MutableSet<File> = synchronized(CONTEXT_CONTAINERS_LOCK) {
     var allCompiledFiles = ALL_COMPILED_FILES_KEY.get(context)
     if (allCompiledFiles == null) {
-        allCompiledFiles = THashSet(FileUtil.FILE_HASHING_STRATEGY)
+        allCompiledFiles = Collections.synchronizedSet(THashSet(FileUtil.FILE_HASHING_STRATEGY))
         ALL_COMPILED_FILES_KEY.set(context, allCompiledFiles)
     }
-    return allCompiledFiles
+    allCompiledFiles
 }
 
-// TODO: investigate thread safety
 private val PROCESSED_TARGETS_WITH_REMOVED_FILES = Key.create<MutableSet<ModuleBuildTarget>>("_processed_targets_with_removed_files_")
-private fun getProcessedTargetsWithRemovedFilesContainer(context: CompileContext): MutableSet<ModuleBuildTarget> {
+private fun getProcessedTargetsWithRemovedFilesContainer(context: CompileContext): MutableSet<ModuleBuildTarget> = synchronized(CONTEXT_CONTAINERS_LOCK) {
     var set = PROCESSED_TARGETS_WITH_REMOVED_FILES.get(context)
     if (set == null) {
-        set = HashSet<ModuleBuildTarget>()
+        set = Collections.synchronizedSet(HashSet<ModuleBuildTarget>())
         PROCESSED_TARGETS_WITH_REMOVED_FILES.set(context, set)
     }
-    return set
+    set
 }
 
 private fun hasKotlinDirtyOrRemovedFiles(
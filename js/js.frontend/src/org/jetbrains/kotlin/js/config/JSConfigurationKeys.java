@@ -40,4 +40,12 @@ public class JSConfigurationKeys {
 
     public static final CompilerConfigurationKey<ModuleKind> MODULE_KIND =
             CompilerConfigurationKey.create("module kind");
+
+    public static final CompilerConfigurationKey<Boolean> DEAD_CODE_ELIMINATION =
+            CompilerConfigurationKey.create("remove unreachable declarations from output and libraries");
+    public static final CompilerConfigurationKey<List<String>> DEAD_CODE_ELIMINATION_KEEP =
+            CompilerConfigurationKey.create("declarations kept by dead code elimination");
+
+    public static final CompilerConfigurationKey<Boolean> TYPED_ARRAYS =
+            CompilerConfigurationKey.create("translate primitive arrays to JS typed arrays");
 }
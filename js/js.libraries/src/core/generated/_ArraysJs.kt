@@ -77,56 +77,56 @@ public inline fun CharArray.asList(): List<Char> {
  * Returns a *typed* object array containing all of the elements of this primitive array.
  */
 public fun ByteArray.toTypedArray(): Array<Byte> {
-    return copyOf().unsafeCast<Array<Byte>>()
+    return js("Array").prototype.slice.call(this)
 }
 
 /**
  * Returns a *typed* object array containing all of the elements of this primitive array.
  */
 public fun ShortArray.toTypedArray(): Array<Short> {
-    return copyOf().unsafeCast<Array<Short>>()
+    return js("Array").prototype.slice.call(this)
 }
 
 /**
  * Returns a *typed* object array containing all of the elements of this primitive array.
  */
 public fun IntArray.toTypedArray(): Array<Int> {
-    return copyOf().unsafeCast<Array<Int>>()
+    return js("Array").prototype.slice.call(this)
 }
 
 /**
  * Returns a *typed* object array containing all of the elements of this primitive array.
  */
 public fun LongArray.toTypedArray(): Array<Long> {
-    return copyOf().unsafeCast<Array<Long>>()
+    return js("Array").prototype.slice.call(this)
 }
 
 /**
  * Returns a *typed* object array containing all of the elements of this primitive array.
  */
 public fun FloatArray.toTypedArray(): Array<Float> {
-    return copyOf().unsafeCast<Array<Float>>()
+    return js("Array").prototype.slice.call(this)
 }
 
 /**
  * Returns a *typed* object array containing all of the elements of this primitive array.
  */
 public fun DoubleArray.toTypedArray(): Array<Double> {
-    return copyOf().unsafeCast<Array<Double>>()
+    return js("Array").prototype.slice.call(this)
 }
 
 /**
  * Returns a *typed* object array containing all of the elements of this primitive array.
  */
 public fun BooleanArray.toTypedArray(): Array<Boolean> {
-    return copyOf().unsafeCast<Array<Boolean>>()
+    return js("Array").prototype.slice.call(this)
 }
 
 /**
  * Returns a *typed* object array containing all of the elements of this primitive array.
  */
 public fun CharArray.toTypedArray(): Array<Char> {
-    return copyOf().unsafeCast<Array<Char>>()
+    return js("Array").prototype.slice.call(this)
 }
 
 /**
@@ -142,7 +142,7 @@ public inline fun <T> Array<out T>.copyOfRange(fromIndex: Int, toIndex: Int): Ar
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline fun ByteArray.copyOfRange(fromIndex: Int, toIndex: Int): ByteArray {
-    return this.asDynamic().slice(fromIndex, toIndex)
+    return js("Kotlin").primitiveArraySlice(this, fromIndex, toIndex)
 }
 
 /**
@@ -150,7 +150,7 @@ public inline fun ByteArray.copyOfRange(fromIndex: Int, toIndex: Int): ByteArray
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline fun ShortArray.copyOfRange(fromIndex: Int, toIndex: Int): ShortArray {
-    return this.asDynamic().slice(fromIndex, toIndex)
+    return js("Kotlin").primitiveArraySlice(this, fromIndex, toIndex)
 }
 
 /**
@@ -158,7 +158,7 @@ public inline fun ShortArray.copyOfRange(fromIndex: Int, toIndex: Int): ShortArr
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline fun IntArray.copyOfRange(fromIndex: Int, toIndex: Int): IntArray {
-    return this.asDynamic().slice(fromIndex, toIndex)
+    return js("Kotlin").primitiveArraySlice(this, fromIndex, toIndex)
 }
 
 /**
@@ -166,7 +166,7 @@ public inline fun IntArray.copyOfRange(fromIndex: Int, toIndex: Int): IntArray {
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline fun LongArray.copyOfRange(fromIndex: Int, toIndex: Int): LongArray {
-    return this.asDynamic().slice(fromIndex, toIndex)
+    return js("Kotlin").primitiveArraySlice(this, fromIndex, toIndex)
 }
 
 /**
@@ -174,7 +174,7 @@ public inline fun LongArray.copyOfRange(fromIndex: Int, toIndex: Int): LongArray
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline fun FloatArray.copyOfRange(fromIndex: Int, toIndex: Int): FloatArray {
-    return this.asDynamic().slice(fromIndex, toIndex)
+    return js("Kotlin").primitiveArraySlice(this, fromIndex, toIndex)
 }
 
 /**
@@ -182,7 +182,7 @@ public inline fun FloatArray.copyOfRange(fromIndex: Int, toIndex: Int): FloatArr
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline fun DoubleArray.copyOfRange(fromIndex: Int, toIndex: Int): DoubleArray {
-    return this.asDynamic().slice(fromIndex, toIndex)
+    return js("Kotlin").primitiveArraySlice(this, fromIndex, toIndex)
 }
 
 /**
@@ -190,7 +190,7 @@ public inline fun DoubleArray.copyOfRange(fromIndex: Int, toIndex: Int): DoubleA
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline fun BooleanArray.copyOfRange(fromIndex: Int, toIndex: Int): BooleanArray {
-    return this.asDynamic().slice(fromIndex, toIndex)
+    return js("Kotlin").primitiveArraySlice(this, fromIndex, toIndex)
 }
 
 /**
@@ -198,7 +198,7 @@ public inline fun BooleanArray.copyOfRange(fromIndex: Int, toIndex: Int): Boolea
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline fun CharArray.copyOfRange(fromIndex: Int, toIndex: Int): CharArray {
-    return this.asDynamic().slice(fromIndex, toIndex)
+    return js("Kotlin").primitiveArraySlice(this, fromIndex, toIndex)
 }
 
 /**
@@ -214,7 +214,7 @@ public inline fun <T> Array<out T>.copyOf(): Array<T> {
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline fun ByteArray.copyOf(): ByteArray {
-    return this.asDynamic().slice()
+    return js("Kotlin").primitiveArraySlice(this)
 }
 
 /**
@@ -222,7 +222,7 @@ public inline fun ByteArray.copyOf(): ByteArray {
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline fun ShortArray.copyOf(): ShortArray {
-    return this.asDynamic().slice()
+    return js("Kotlin").primitiveArraySlice(this)
 }
 
 /**
@@ -230,7 +230,7 @@ public inline fun ShortArray.copyOf(): ShortArray {
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline fun IntArray.copyOf(): IntArray {
-    return this.asDynamic().slice()
+    return js("Kotlin").primitiveArraySlice(this)
 }
 
 /**
@@ -238,7 +238,7 @@ public inline fun IntArray.copyOf(): IntArray {
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline fun LongArray.copyOf(): LongArray {
-    return this.asDynamic().slice()
+    return js("Kotlin").primitiveArraySlice(this)
 }
 
 /**
@@ -246,7 +246,7 @@ public inline fun LongArray.copyOf(): LongArray {
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline fun FloatArray.copyOf(): FloatArray {
-    return this.asDynamic().slice()
+    return js("Kotlin").primitiveArraySlice(this)
 }
 
 /**
@@ -254,7 +254,7 @@ public inline fun FloatArray.copyOf(): FloatArray {
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline fun DoubleArray.copyOf(): DoubleArray {
-    return this.asDynamic().slice()
+    return js("Kotlin").primitiveArraySlice(this)
 }
 
 /**
@@ -262,7 +262,7 @@ public inline fun DoubleArray.copyOf(): DoubleArray {
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline fun BooleanArray.copyOf(): BooleanArray {
-    return this.asDynamic().slice()
+    return js("Kotlin").primitiveArraySlice(this)
 }
 
 /**
@@ -270,7 +270,7 @@ public inline fun BooleanArray.copyOf(): BooleanArray {
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline fun CharArray.copyOf(): CharArray {
-    return this.asDynamic().slice()
+    return js("Kotlin").primitiveArraySlice(this)
 }
 
 /**
@@ -357,7 +357,7 @@ public inline operator fun <T> Array<out T>.plus(element: T): Array<T> {
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline operator fun ByteArray.plus(element: Byte): ByteArray {
-    return this.asDynamic().concat(arrayOf(element))
+    return js("Kotlin").primitiveArrayConcat(this, arrayOf(element))
 }
 
 /**
@@ -365,7 +365,7 @@ public inline operator fun ByteArray.plus(element: Byte): ByteArray {
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline operator fun ShortArray.plus(element: Short): ShortArray {
-    return this.asDynamic().concat(arrayOf(element))
+    return js("Kotlin").primitiveArrayConcat(this, arrayOf(element))
 }
 
 /**
@@ -373,7 +373,7 @@ public inline operator fun ShortArray.plus(element: Short): ShortArray {
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline operator fun IntArray.plus(element: Int): IntArray {
-    return this.asDynamic().concat(arrayOf(element))
+    return js("Kotlin").primitiveArrayConcat(this, arrayOf(element))
 }
 
 /**
@@ -381,7 +381,7 @@ public inline operator fun IntArray.plus(element: Int): IntArray {
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline operator fun LongArray.plus(element: Long): LongArray {
-    return this.asDynamic().concat(arrayOf(element))
+    return js("Kotlin").primitiveArrayConcat(this, arrayOf(element))
 }
 
 /**
@@ -389,7 +389,7 @@ public inline operator fun LongArray.plus(element: Long): LongArray {
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline operator fun FloatArray.plus(element: Float): FloatArray {
-    return this.asDynamic().concat(arrayOf(element))
+    return js("Kotlin").primitiveArrayConcat(this, arrayOf(element))
 }
 
 /**
@@ -397,7 +397,7 @@ public inline operator fun FloatArray.plus(element: Float): FloatArray {
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline operator fun DoubleArray.plus(element: Double): DoubleArray {
-    return this.asDynamic().concat(arrayOf(element))
+    return js("Kotlin").primitiveArrayConcat(this, arrayOf(element))
 }
 
 /**
@@ -405,7 +405,7 @@ public inline operator fun DoubleArray.plus(element: Double): DoubleArray {
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline operator fun BooleanArray.plus(element: Boolean): BooleanArray {
-    return this.asDynamic().concat(arrayOf(element))
+    return js("Kotlin").primitiveArrayConcat(this, arrayOf(element))
 }
 
 /**
@@ -413,7 +413,7 @@ public inline operator fun BooleanArray.plus(element: Boolean): BooleanArray {
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline operator fun CharArray.plus(element: Char): CharArray {
-    return this.asDynamic().concat(arrayOf(element))
+    return js("Kotlin").primitiveArrayConcat(this, arrayOf(element))
 }
 
 /**
@@ -492,7 +492,7 @@ public inline operator fun <T> Array<out T>.plus(elements: Array<out T>): Array<
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline operator fun ByteArray.plus(elements: ByteArray): ByteArray {
-    return this.asDynamic().concat(elements)
+    return js("Kotlin").primitiveArrayConcat(this, elements)
 }
 
 /**
@@ -500,7 +500,7 @@ public inline operator fun ByteArray.plus(elements: ByteArray): ByteArray {
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline operator fun ShortArray.plus(elements: ShortArray): ShortArray {
-    return this.asDynamic().concat(elements)
+    return js("Kotlin").primitiveArrayConcat(this, elements)
 }
 
 /**
@@ -508,7 +508,7 @@ public inline operator fun ShortArray.plus(elements: ShortArray): ShortArray {
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline operator fun IntArray.plus(elements: IntArray): IntArray {
-    return this.asDynamic().concat(elements)
+    return js("Kotlin").primitiveArrayConcat(this, elements)
 }
 
 /**
@@ -516,7 +516,7 @@ public inline operator fun IntArray.plus(elements: IntArray): IntArray {
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline operator fun LongArray.plus(elements: LongArray): LongArray {
-    return this.asDynamic().concat(elements)
+    return js("Kotlin").primitiveArrayConcat(this, elements)
 }
 
 /**
@@ -524,7 +524,7 @@ public inline operator fun LongArray.plus(elements: LongArray): LongArray {
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline operator fun FloatArray.plus(elements: FloatArray): FloatArray {
-    return this.asDynamic().concat(elements)
+    return js("Kotlin").primitiveArrayConcat(this, elements)
 }
 
 /**
@@ -532,7 +532,7 @@ public inline operator fun FloatArray.plus(elements: FloatArray): FloatArray {
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline operator fun DoubleArray.plus(elements: DoubleArray): DoubleArray {
-    return this.asDynamic().concat(elements)
+    return js("Kotlin").primitiveArrayConcat(this, elements)
 }
 
 /**
@@ -540,7 +540,7 @@ public inline operator fun DoubleArray.plus(elements: DoubleArray): DoubleArray
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline operator fun BooleanArray.plus(elements: BooleanArray): BooleanArray {
-    return this.asDynamic().concat(elements)
+    return js("Kotlin").primitiveArrayConcat(this, elements)
 }
 
 /**
@@ -548,7 +548,7 @@ public inline operator fun BooleanArray.plus(elements: BooleanArray): BooleanArr
  */
 @Suppress("NOTHING_TO_INLINE")
 public inline operator fun CharArray.plus(elements: CharArray): CharArray {
-    return this.asDynamic().concat(elements)
+    return js("Kotlin").primitiveArrayConcat(this, elements)
 }
 
 /**
@@ -72,6 +72,8 @@ internal fun <T> arrayOfNulls(reference: Array<out T>, size: Int): Array<T> {
 }
 
 internal fun arrayCopyResize(source: dynamic, newSize: Int, defaultValue: Any?): dynamic {
+    if (js("Kotlin").isTypedArray(source)) return js("Kotlin").typedArrayCopyResize(source, newSize)
+
     val result = source.slice(0, newSize)
     var index: Int = source.length
     if (newSize > index) {
@@ -82,9 +84,15 @@ internal fun arrayCopyResize(source: dynamic, newSize: Int, defaultValue: Any?):
 }
 
 internal fun <T> arrayPlusCollection(array: dynamic, collection: Collection<T>): dynamic {
-    val result = array.slice()
-    result.length += collection.size
     var index: Int = array.length
+    val result = if (js("Kotlin").isTypedArray(array)) {
+        js("Kotlin").typedArrayCopyResize(array, index + collection.size)
+    }
+    else {
+        val copy = array.slice()
+        copy.length += collection.size
+        copy
+    }
     for (element in collection) result[index++] = element
     return result
 }
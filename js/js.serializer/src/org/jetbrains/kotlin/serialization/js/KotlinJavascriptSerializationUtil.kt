@@ -63,12 +63,20 @@ object KotlinJavascriptSerializationUtil {
     fun readModule(
             metadata: ByteArray, storageManager: StorageManager, kotlinModule: ModuleDescriptor, configuration: DeserializationConfiguration
     ): JsModuleDescriptor<PackageFragmentProvider?> {
-        val jsModule = metadata.readAsContentMap(kotlinModule.name.asString())
+        val jsModule = readModuleContent(metadata, kotlinModule.name.asString())
         return jsModule.copy(createPackageFragmentProvider(kotlinModule, jsModule.data, storageManager, configuration))
     }
 
+    /**
+     * Unpacks the library metadata into a map from the metadata file paths to their content. Unlike the package fragment provider,
+     * the result doesn't depend on a module descriptor and can be shared between the modules which depend on the same library.
+     */
     @JvmStatic
-    private fun createPackageFragmentProvider(
+    fun readModuleContent(metadata: ByteArray, moduleName: String): JsModuleDescriptor<Map<String, ByteArray>> =
+            metadata.readAsContentMap(moduleName)
+
+    @JvmStatic
+    fun createPackageFragmentProvider(
             moduleDescriptor: ModuleDescriptor,
             contentMap: Map<String, ByteArray>,
             storageManager: StorageManager,
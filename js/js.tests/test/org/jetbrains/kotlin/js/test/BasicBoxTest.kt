@@ -260,6 +260,7 @@ abstract class BasicBoxTest(
 
         //configuration.put(JSConfigurationKeys.SOURCE_MAP, shouldGenerateSourceMap())
         configuration.put(JSConfigurationKeys.META_INFO, multiModule)
+        configuration.put(JSConfigurationKeys.TYPED_ARRAYS, module.typedArrays)
 
         return LibrarySourcesConfig(project, configuration)
     }
@@ -290,6 +291,10 @@ abstract class BasicBoxTest(
                 currentModule.inliningDisabled = true
             }
 
+            if (TYPED_ARRAYS_PATTERN.matcher(text).find()) {
+                currentModule.typedArrays = true
+            }
+
             val temporaryFile = File(tmpDir, "${currentModule.name}/$fileName")
             KotlinTestUtils.mkdirs(temporaryFile.parentFile)
             temporaryFile.writeText(text, Charsets.UTF_8)
@@ -319,6 +324,7 @@ abstract class BasicBoxTest(
         val dependencies = dependencies.toMutableList()
         var moduleKind = ModuleKind.PLAIN
         var inliningDisabled = false
+        var typedArrays = false
         val files = mutableListOf<TestFile>()
     }
 
@@ -332,6 +338,7 @@ abstract class BasicBoxTest(
         private val MODULE_KIND_PATTERN = Pattern.compile("^// *MODULE_KIND: *(.+)$", Pattern.MULTILINE)
         private val NO_MODULE_SYSTEM_PATTERN = Pattern.compile("^// *NO_JS_MODULE_SYSTEM", Pattern.MULTILINE)
         private val NO_INLINE_PATTERN = Pattern.compile("^// *NO_INLINE *$", Pattern.MULTILINE)
+        private val TYPED_ARRAYS_PATTERN = Pattern.compile("^// *TYPED_ARRAYS *$", Pattern.MULTILINE)
         private val SKIP_NODE_JS = Pattern.compile("^// *SKIP_NODE_JS *$", Pattern.MULTILINE)
     }
 }
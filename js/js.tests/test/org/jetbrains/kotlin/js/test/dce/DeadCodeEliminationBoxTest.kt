@@ -0,0 +1,112 @@
+/*
+ * Copyright 2010-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.js.test.dce
+
+import com.intellij.openapi.vfs.StandardFileSystems
+import com.intellij.openapi.vfs.VirtualFileManager
+import com.intellij.psi.PsiManager
+import org.jetbrains.kotlin.cli.common.output.outputUtils.writeAllTo
+import org.jetbrains.kotlin.cli.jvm.compiler.EnvironmentConfigFiles
+import org.jetbrains.kotlin.cli.jvm.compiler.KotlinCoreEnvironment
+import org.jetbrains.kotlin.config.CommonConfigurationKeys
+import org.jetbrains.kotlin.config.CompilerConfiguration
+import org.jetbrains.kotlin.js.config.EcmaVersion
+import org.jetbrains.kotlin.js.config.JSConfigurationKeys
+import org.jetbrains.kotlin.js.config.LibrarySourcesConfig
+import org.jetbrains.kotlin.js.facade.K2JSTranslator
+import org.jetbrains.kotlin.js.facade.MainCallParameters
+import org.jetbrains.kotlin.js.facade.TranslationResult
+import org.jetbrains.kotlin.js.test.BasicBoxTest
+import org.jetbrains.kotlin.psi.KtFile
+import org.jetbrains.kotlin.serialization.js.ModuleKind
+import org.jetbrains.kotlin.test.KotlinTestUtils
+import org.jetbrains.kotlin.test.KotlinTestWithEnvironment
+import org.jetbrains.kotlin.utils.JsLibraryUtils
+import org.mozilla.javascript.Context
+import java.io.File
+
+/**
+ * Compiles a test with dead code elimination against the real standard library and runs it with the trimmed kotlin.js only.
+ */
+class DeadCodeEliminationBoxTest : KotlinTestWithEnvironment() {
+    fun testStdlibUsage() {
+        doTest("stdlibUsage")
+    }
+
+    private fun doTest(name: String) {
+        val sourceFile = File("${BasicBoxTest.TEST_DATA_DIR_PATH}js-dce/box/$name.kt")
+        val outputDir = KotlinTestUtils.tmpDir("js-dce-box")
+        val outputFile = File(outputDir, "$name.js")
+
+        val warnings = arrayListOf<String>()
+        translate(sourceFile).getOutputFiles(outputFile, null, null) { warnings.add(it) }.writeAllTo(outputDir)
+        assertEquals(emptyList<String>(), warnings)
+
+        val trimmedStdlib = File(outputDir, STDLIB_FILE_NAME)
+        assertTrue("Trimmed standard library is not written", trimmedStdlib.isFile)
+        assertTrue("Source map of the trimmed standard library is not written", File(outputDir, "$STDLIB_FILE_NAME.map").isFile)
+
+        var originalStdlibSize = 0
+        JsLibraryUtils.traverseJsLibrary(File(LibrarySourcesConfig.JS_STDLIB.single())) { content, path ->
+            if (path == STDLIB_FILE_NAME) originalStdlibSize = content.length
+        }
+        assertTrue("Nothing is removed from the standard library", trimmedStdlib.readText().length < originalStdlibSize)
+
+        assertEquals("OK", evaluate(listOf(trimmedStdlib, outputFile), "$MODULE_NAME.foo.box()"))
+    }
+
+    private fun translate(sourceFile: File): TranslationResult.Success {
+        val configuration = environment.configuration.copy()
+        configuration.put(CommonConfigurationKeys.MODULE_NAME, MODULE_NAME)
+        configuration.put(JSConfigurationKeys.LIBRARY_FILES, LibrarySourcesConfig.JS_STDLIB)
+        configuration.put(JSConfigurationKeys.MODULE_KIND, ModuleKind.PLAIN)
+        configuration.put(JSConfigurationKeys.TARGET, EcmaVersion.v5)
+        configuration.put(JSConfigurationKeys.SOURCE_MAP, true)
+        configuration.put(JSConfigurationKeys.DEAD_CODE_ELIMINATION, true)
+
+        val fileSystem = VirtualFileManager.getInstance().getFileSystem(StandardFileSystems.FILE_PROTOCOL)
+        val psiFile = PsiManager.getInstance(project).findFile(fileSystem.findFileByPath(sourceFile.absolutePath)!!) as KtFile
+
+        val result = K2JSTranslator(LibrarySourcesConfig(project, configuration)).translate(listOf(psiFile), MainCallParameters.noCall())
+        return result as? TranslationResult.Success ?: throw AssertionError("Translation failed: ${result.diagnostics.all()}")
+    }
+
+    private fun evaluate(files: List<File>, expression: String): Any? {
+        val context = Context.enter()
+        try {
+            context.optimizationLevel = -1
+            context.languageVersion = Context.VERSION_1_8
+            val scope = context.initStandardObjects()
+            for (file in files) {
+                context.evaluateString(scope, file.readText(), file.path, 1, null)
+            }
+            return context.evaluateString(scope, expression, "box", 1, null)
+        }
+        finally {
+            Context.exit()
+        }
+    }
+
+    override fun createEnvironment(): KotlinCoreEnvironment {
+        return KotlinCoreEnvironment.createForTests(testRootDisposable, CompilerConfiguration(), EnvironmentConfigFiles.JS_CONFIG_FILES)
+    }
+
+    companion object {
+        private val MODULE_NAME = "main"
+        private val STDLIB_FILE_NAME = "kotlin.js"
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.js.test.dce
+
+import com.google.dart.compiler.backend.js.ast.JsProgram
+import com.google.dart.compiler.util.TextOutputImpl
+import com.google.gwt.dev.js.ThrowExceptionOnErrorReporter
+import com.intellij.openapi.util.io.FileUtil
+import org.jetbrains.kotlin.js.dce.UnusedDeclarationElimination
+import org.jetbrains.kotlin.js.parser.parse
+import org.jetbrains.kotlin.js.sourceMap.JsSourceGenerationVisitor
+import org.jetbrains.kotlin.js.test.BasicTest
+import org.junit.Assert
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TestName
+import java.io.File
+
+class UnusedDeclarationEliminationTest {
+    @Rule
+    @JvmField
+    var testName = TestName()
+
+    @Test fun classMembers() = box()
+
+    @Test fun exports() = box(keep = listOf("app.keptByName"))
+
+    @Test fun exportedClassMembers() = box()
+
+    private fun box(keep: List<String> = emptyList()) {
+        val baseName = "${BasicTest.TEST_DATA_DIR_PATH}/js-dce/${testName.methodName}"
+
+        val program = parseFile("$baseName.js")
+        val library = parseFile("$baseName.lib.js")
+        UnusedDeclarationElimination(keep).apply(listOf(program), listOf(library))
+
+        Assert.assertEquals(astToString(parseFile("$baseName.dce.js")), astToString(program))
+        Assert.assertEquals(astToString(parseFile("$baseName.lib.dce.js")), astToString(library))
+    }
+
+    private fun parseFile(fileName: String): JsProgram {
+        val program = JsProgram()
+        program.globalBlock.statements += parse(FileUtil.loadFile(File(fileName)), ThrowExceptionOnErrorReporter, program.scope)
+        return program
+    }
+
+    private fun astToString(program: JsProgram): String {
+        val output = TextOutputImpl()
+        program.accept(JsSourceGenerationVisitor(output, null))
+        return output.toString()
+    }
+}
@@ -6029,6 +6029,18 @@ public class BoxJsTestGenerated extends AbstractBoxJsTest {
             doTest(fileName);
         }
 
+        @TestMetadata("longRangeLoop.kt")
+        public void testLongRangeLoop() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("js/js.translator/testData/box/number/longRangeLoop.kt");
+            doTest(fileName);
+        }
+
+        @TestMetadata("longSafeIntegerArithmetic.kt")
+        public void testLongSafeIntegerArithmetic() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("js/js.translator/testData/box/number/longSafeIntegerArithmetic.kt");
+            doTest(fileName);
+        }
+
         @TestMetadata("longUnaryOperations.kt")
         public void testLongUnaryOperations() throws Exception {
             String fileName = KotlinTestUtils.navigationMetadata("js/js.translator/testData/box/number/longUnaryOperations.kt");
@@ -7198,6 +7210,18 @@ public class BoxJsTestGenerated extends AbstractBoxJsTest {
             String fileName = KotlinTestUtils.navigationMetadata("js/js.translator/testData/box/standardClasses/stringBuilder.kt");
             doTest(fileName);
         }
+
+        @TestMetadata("typedArrays.kt")
+        public void testTypedArrays() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("js/js.translator/testData/box/standardClasses/typedArrays.kt");
+            doTest(fileName);
+        }
+
+        @TestMetadata("typedArraysStdlib.kt")
+        public void testTypedArraysStdlib() throws Exception {
+            String fileName = KotlinTestUtils.navigationMetadata("js/js.translator/testData/box/standardClasses/typedArraysStdlib.kt");
+            doTest(fileName);
+        }
     }
 
     @TestMetadata("js/js.translator/testData/box/superCall")
@@ -0,0 +1,288 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.js.dce
+
+import com.google.dart.compiler.backend.js.ast.*
+import org.jetbrains.kotlin.js.inline.util.IdentitySet
+import java.util.*
+
+/**
+ * Removes top-level declarations which are unreachable in a whole program, i.e. in a module together with its libraries.
+ *
+ * Top-level statements are statements of the global block, and statements of functions which are called or passed
+ * to a call in other top-level statements, which covers module wrappers of all module kinds. Of them, declarations are:
+ *  - function declarations: `function Foo() {...}`
+ *  - variables with side-effect-free initializers: `var bar = Kotlin.kotlin.bar;`
+ *  - property definitions: `Foo.prototype.baz = function() {...}`, `Object.defineProperty(Foo.prototype, 'qux', {...})`
+ *
+ * Other top-level statements (including the call of `main`) are entry points, as well as exported declarations
+ * (property definitions on anything but a declared function) of `entryPrograms` passed to [apply], and declarations named in [keep].
+ *
+ * References are resolved by name only: an identifier keeps all top-level declarations with this name, and a property access
+ * (`a.baz`, `a['baz']` or any `'baz'` string literal) keeps all definitions of `baz`, for class members only if the class is kept.
+ * Members of classes declared in `entryPrograms` are kept whenever their class is kept, since they may be called from outside.
+ */
+class UnusedDeclarationElimination(private val keep: Collection<String>) {
+    private val containers = IdentitySet<JsFunction>()
+    private val containerStatements = ArrayList<Pair<MutableList<JsStatement>, Boolean>>()
+    private val functionDeclarations = HashSet<String>()
+
+    private val declarations = ArrayList<Declaration>()
+    private val declarationsByIdentifier = HashMap<String, MutableList<Declaration>>()
+    private val definitionsByProperty = HashMap<String, MutableList<Declaration>>()
+    private val definitionsByClass = HashMap<String, MutableList<Declaration>>()
+    private val entryPoints = ArrayList<JsNode>()
+
+    private val referencedIdentifiers = HashSet<String>()
+    private val referencedProperties = HashSet<String>()
+    private val nodesToVisit = ArrayDeque<JsNode>()
+
+    fun apply(entryPrograms: List<JsProgram>, libraryPrograms: List<JsProgram>) {
+        entryPrograms.forEach { findContainers(it.globalBlock.statements, keepExports = true) }
+        libraryPrograms.forEach { findContainers(it.globalBlock.statements, keepExports = false) }
+        for ((statements, keepExports) in containerStatements) {
+            collectDeclarations(statements, keepExports)
+        }
+
+        for (name in keep) {
+            val simpleName = name.substringAfterLast('.')
+            markIdentifier(simpleName)
+            markProperty(simpleName)
+        }
+        IMPLICITLY_USED_PROPERTIES.forEach { markProperty(it) }
+        nodesToVisit.addAll(entryPoints)
+
+        val visitor = ReferenceVisitor()
+        while (nodesToVisit.isNotEmpty()) {
+            visitor.accept(nodesToVisit.poll())
+        }
+
+        removeUnreachableDeclarations()
+    }
+
+    private fun findContainers(statements: MutableList<JsStatement>, keepExports: Boolean) {
+        containerStatements += statements to keepExports
+
+        for (statement in statements) {
+            val functionName = statement.declaredFunction()?.name
+            if (functionName != null) {
+                functionDeclarations += functionName.ident
+                continue
+            }
+
+            val nestedContainers = ArrayList<JsFunction>()
+            statement.accept(object : RecursiveJsVisitor() {
+                override fun visitInvocation(invocation: JsInvocation) {
+                    nestedContainers += (listOf(invocation.qualifier) + invocation.arguments).filterIsInstance<JsFunction>()
+                    super.visitInvocation(invocation)
+                }
+
+                override fun visitFunction(x: JsFunction) {}
+            })
+
+            for (function in nestedContainers) {
+                if (containers.add(function)) {
+                    findContainers(function.body.statements, keepExports)
+                }
+            }
+        }
+    }
+
+    private fun collectDeclarations(statements: List<JsStatement>, keepExports: Boolean) {
+        for (statement in statements) {
+            val function = statement.declaredFunction()
+            if (function != null) {
+                addDeclaration(declarationsByIdentifier, function.name.ident, Declaration(statement, function))
+                continue
+            }
+
+            if (statement is JsVars && statement.vars.all { it.initExpression?.isSideEffectFree() ?: true }) {
+                for (variable in statement.vars) {
+                    addDeclaration(declarationsByIdentifier, variable.name.ident, Declaration(statement, variable))
+                }
+                continue
+            }
+
+            val definition = getPropertyDefinition(statement, keepExports)
+            if (definition != null && (definition.owner != null || !keepExports)) {
+                addDeclaration(definitionsByProperty, definition.property!!, definition)
+                definition.owner?.let { definitionsByClass.getOrPut(it) { ArrayList() } += definition }
+                continue
+            }
+
+            entryPoints += statement
+        }
+    }
+
+    // Members of classes are only removed together with the class, so their values may have side effects (e.g. `$metadata$`),
+    // other definitions may be removed alone and must not have side effects
+    private fun getPropertyDefinition(statement: JsStatement, keepExports: Boolean): Declaration? {
+        val expression = (statement as? JsExpressionStatement)?.expression ?: return null
+
+        val qualifier: JsExpression
+        val property: String
+        val value: JsExpression
+        if (expression is JsBinaryOperation && expression.operator == JsBinaryOperator.ASG) {
+            val target = expression.arg1 as? JsNameRef ?: return null
+            qualifier = target.qualifier ?: return null
+            property = target.ident
+            value = expression.arg2
+        }
+        else if (expression is JsInvocation && expression.isDefineProperty()) {
+            qualifier = expression.arguments[0]
+            property = (expression.arguments[1] as? JsStringLiteral)?.value ?: return null
+            value = expression.arguments[2]
+        }
+        else {
+            return null
+        }
+
+        if (!qualifier.isSideEffectFree()) return null
+        val owner = qualifier.rootIdentifier()?.let { if (it in functionDeclarations) it else null }
+        if (owner == null && !value.isSideEffectFree()) return null
+
+        // A class of the module itself may be used from outside through any of its members
+        return Declaration(statement, expression, property, owner, keepWithOwner = owner != null && keepExports)
+    }
+
+    private fun addDeclaration(map: MutableMap<String, MutableList<Declaration>>, key: String, declaration: Declaration) {
+        map.getOrPut(key) { ArrayList() } += declaration
+        declarations += declaration
+    }
+
+    private fun markIdentifier(name: String) {
+        if (!referencedIdentifiers.add(name)) return
+
+        declarationsByIdentifier[name]?.forEach { reach(it) }
+        definitionsByClass[name]?.forEach { if (it.keepWithOwner || it.property in referencedProperties) reach(it) }
+    }
+
+    private fun markProperty(name: String) {
+        if (!referencedProperties.add(name)) return
+
+        definitionsByProperty[name]?.forEach { definition ->
+            val owner = definition.owner
+            if (owner == null || owner in referencedIdentifiers) reach(definition)
+        }
+    }
+
+    private fun reach(declaration: Declaration) {
+        if (declaration.reachable) return
+        declaration.reachable = true
+        nodesToVisit += declaration.node
+    }
+
+    private fun removeUnreachableDeclarations() {
+        val declaredStatements = IdentitySet<JsStatement>()
+        val reachableNodes = IdentitySet<JsNode>()
+        for (declaration in declarations) {
+            declaredStatements += declaration.statement
+            if (declaration.reachable) {
+                reachableNodes += declaration.node
+            }
+        }
+
+        for ((statements) in containerStatements) {
+            statements.removeAll { statement ->
+                when {
+                    statement !in declaredStatements -> false
+                    statement is JsVars -> {
+                        statement.vars.retainAll { it in reachableNodes }
+                        statement.vars.isEmpty()
+                    }
+                    else -> (statement as JsExpressionStatement).expression !in reachableNodes
+                }
+            }
+        }
+    }
+
+    private inner class ReferenceVisitor : RecursiveJsVisitor() {
+        override fun visitNameRef(nameRef: JsNameRef) {
+            if (nameRef.qualifier == null) {
+                markIdentifier(nameRef.ident)
+            }
+            else {
+                markProperty(nameRef.ident)
+            }
+            super.visitNameRef(nameRef)
+        }
+
+        override fun visitString(x: JsStringLiteral) {
+            markProperty(x.value)
+        }
+
+        // Keys of object literals are not references
+        override fun visitPropertyInitializer(x: JsPropertyInitializer) {
+            accept(x.valueExpr)
+        }
+
+        // Statements of containers are processed separately
+        override fun visitFunction(x: JsFunction) {
+            if (x !in containers) {
+                super.visitFunction(x)
+            }
+        }
+    }
+
+    private class Declaration(
+            val statement: JsStatement,
+            val node: JsNode,
+            val property: String? = null,
+            val owner: String? = null,
+            val keepWithOwner: Boolean = false
+    ) {
+        var reachable = false
+    }
+
+    companion object {
+        // Used by the JS engine, or by the runtime without mentioning their names
+        private val IMPLICITLY_USED_PROPERTIES = setOf("prototype", "constructor", "toString", "valueOf", "toJSON", "\$metadata\$")
+    }
+}
+
+private fun JsStatement.declaredFunction(): JsFunction? =
+        ((this as? JsExpressionStatement)?.expression as? JsFunction)?.let { if (it.name != null) it else null }
+
+private fun JsInvocation.isDefineProperty(): Boolean {
+    val callee = qualifier as? JsNameRef ?: return false
+    val receiver = callee.qualifier as? JsNameRef ?: return false
+    return callee.ident == "defineProperty" && receiver.ident == "Object" && receiver.qualifier == null && arguments.size == 3
+}
+
+private fun JsExpression.rootIdentifier(): String? {
+    val nameRef = this as? JsNameRef ?: return null
+    val qualifier = nameRef.qualifier ?: return nameRef.ident
+    return qualifier.rootIdentifier()
+}
+
+private fun JsExpression.isSideEffectFree(): Boolean =
+        when (this) {
+            is JsLiteral, is JsFunction -> true
+            is JsNameRef -> qualifier?.isSideEffectFree() ?: true
+            is JsArrayAccess -> arrayExpression.isSideEffectFree() && indexExpression.isSideEffectFree()
+            is JsObjectLiteral -> propertyInitializers.all { it.valueExpr.isSideEffectFree() }
+            is JsArrayLiteral -> expressions.all { it.isSideEffectFree() }
+            is JsConditional -> testExpression.isSideEffectFree() && thenExpression.isSideEffectFree() && elseExpression.isSideEffectFree()
+            is JsUnaryOperation -> !operator.isModifying && arg.isSideEffectFree()
+            is JsBinaryOperation -> when {
+                // `package$foo = _.foo || (_.foo = {})` declares a package
+                operator == JsBinaryOperator.ASG -> (arg1 as? JsNameRef)?.qualifier != null && arg2.isSideEffectFree()
+                operator.isAssignment -> false
+                else -> arg1.isSideEffectFree() && arg2.isSideEffectFree()
+            }
+            else -> false
+        }
@@ -16,26 +16,38 @@
 
 package org.jetbrains.kotlin.js.facade
 
+import com.google.dart.compiler.backend.js.ast.JsNode
 import com.google.dart.compiler.backend.js.ast.JsProgram
+import com.google.dart.compiler.backend.js.ast.RecursiveJsVisitor
+import com.google.dart.compiler.backend.js.ast.metadata.HasMetadata
 import com.google.dart.compiler.util.TextOutput
 import com.google.dart.compiler.util.TextOutputImpl
+import com.google.gwt.dev.js.ThrowExceptionOnErrorReporter
+import com.google.gwt.dev.js.parserExceptions.JsParserException
 import com.intellij.openapi.util.text.StringUtil
 import com.intellij.openapi.vfs.VfsUtilCore
+import com.intellij.util.PairConsumer
 import org.jetbrains.kotlin.backend.common.output.*
 import org.jetbrains.kotlin.descriptors.ModuleDescriptor
 import org.jetbrains.kotlin.js.config.JSConfigurationKeys
 import org.jetbrains.kotlin.js.config.JsConfig
+import org.jetbrains.kotlin.js.dce.UnusedDeclarationElimination
+import org.jetbrains.kotlin.js.parser.parse
 import org.jetbrains.kotlin.js.sourceMap.JsSourceGenerationVisitor
 import org.jetbrains.kotlin.js.sourceMap.SourceMap3Builder
 import org.jetbrains.kotlin.js.sourceMap.SourceMapBuilder
 import org.jetbrains.kotlin.psi.KtFile
 import org.jetbrains.kotlin.resolve.BindingContext
 import org.jetbrains.kotlin.resolve.diagnostics.Diagnostics
-import org.jetbrains.kotlin.serialization.js.JsModuleDescriptor
 import org.jetbrains.kotlin.serialization.js.KotlinJavascriptSerializationUtil
+import org.jetbrains.kotlin.utils.JsLibraryUtils
 import org.jetbrains.kotlin.utils.KotlinJavascriptMetadataUtils
 import java.io.File
 import java.util.*
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
 
 abstract class TranslationResult protected constructor(val diagnostics: Diagnostics) {
     class Fail(diagnostics: Diagnostics) : TranslationResult(diagnostics)
@@ -50,63 +62,204 @@ abstract class TranslationResult protected constructor(val diagnostics: Diagnost
             private val bindingContext: BindingContext
     ) : TranslationResult(diagnostics) {
         @Suppress("unused") // Used in kotlin-web-demo in WebDemoTranslatorFacade
-        fun getCode(): String = getCode(TextOutputImpl(), sourceMapBuilder = null)
+        fun getCode(): String = getCode(program, TextOutputImpl(), sourceMapBuilder = null)
+
+        private val sourceFiles: List<File> by lazy {
+            files.map {
+                val virtualFile = it.originalFile.virtualFile
+
+                when {
+                    virtualFile == null -> File(it.name)
+                    else -> VfsUtilCore.virtualToIoFile(virtualFile)
+                }
+            }
+        }
+
+        @JvmOverloads
+        fun getOutputFiles(
+                outputFile: File,
+                outputPrefixFile: File?,
+                outputPostfixFile: File?,
+                reportWarning: (String) -> Unit = {}
+        ): OutputFileCollection {
+            val libraryFiles =
+                    if (config.configuration.getBoolean(JSConfigurationKeys.DEAD_CODE_ELIMINATION)) {
+                        eliminateUnusedDeclarations(outputFile, reportWarning)
+                    }
+                    else {
+                        emptyList()
+                    }
 
-        fun getOutputFiles(outputFile: File, outputPrefixFile: File?, outputPostfixFile: File?): OutputFileCollection {
             val output = TextOutputImpl()
             val sourceMapBuilder =
                     if (config.configuration.getBoolean(JSConfigurationKeys.SOURCE_MAP))
                         SourceMap3Builder(outputFile, output, SourceMapBuilderConsumer())
                     else null
 
-            val code = getCode(output, sourceMapBuilder)
-            val prefix = outputPrefixFile?.readText() ?: ""
-            val postfix = outputPostfixFile?.readText() ?: ""
-            val sourceFiles = files.map {
-                val virtualFile = it.originalFile.virtualFile
-
-                when {
-                    virtualFile == null -> File(it.name)
-                    else -> VfsUtilCore.virtualToIoFile(virtualFile)
+            val code: String
+            val metadataFiles: List<OutputFile>
+            if (sourceMapBuilder != null) {
+                // The source map is built from the PSI, which is only read in this thread
+                code = getCode(program, output, sourceMapBuilder)
+                metadataFiles = getMetadataFiles(outputFile)
+            }
+            else {
+                // Without the source map the code is generated from the AST only, so it's generated in parallel with metadata,
+                // which is serialized in this thread: descriptors may still resolve lazily and record to the binding trace,
+                // which is not thread-safe
+                val codeGeneration = codeGenerationExecutor.submit(Callable { getCode(program, output, sourceMapBuilder = null) })
+                metadataFiles = getMetadataFiles(outputFile)
+                code = try {
+                    codeGeneration.get()
+                }
+                catch (e: ExecutionException) {
+                    throw e.cause ?: e
                 }
             }
 
+            val prefix = outputPrefixFile?.readText() ?: ""
+            val postfix = outputPostfixFile?.readText() ?: ""
+
             val jsFile = SimpleOutputFile(sourceFiles, outputFile.name, prefix + code + postfix)
             val outputFiles = arrayListOf<OutputFile>(jsFile)
+            outputFiles.addAll(libraryFiles)
+            outputFiles.addAll(metadataFiles)
+
+            if (sourceMapBuilder != null) {
+                sourceMapBuilder.skipLinesAtBeginning(StringUtil.getLineBreakCount(prefix))
+                val sourceMapFile = SimpleOutputFile(sourceFiles, sourceMapBuilder.outFile.name, sourceMapBuilder.build())
+                outputFiles.add(sourceMapFile)
+            }
+
+            return SimpleOutputFileCollection(outputFiles)
+        }
 
-            if (config.configuration.getBoolean(JSConfigurationKeys.META_INFO)) {
+        private fun getMetadataFiles(outputFile: File): List<OutputFile> {
+            val generateMetaInfo = config.configuration.getBoolean(JSConfigurationKeys.META_INFO)
+            val generateKjsm = config.configuration.getBoolean(JSConfigurationKeys.KJSM)
+            if (!generateMetaInfo && !generateKjsm) return emptyList()
+
+            // Serialized once for both .meta.js and .kjsm files
+            val contentMap = KotlinJavascriptSerializationUtil.toContentMap(bindingContext, moduleDescriptor)
+            val outputFiles = arrayListOf<OutputFile>()
+
+            if (generateMetaInfo) {
                 val metaFileName = KotlinJavascriptMetadataUtils.replaceSuffix(outputFile.name)
-                val moduleDescription = JsModuleDescriptor(
-                    name = config.moduleId,
-                    data = moduleDescriptor,
-                    kind = config.moduleKind,
-                    imported = importedModules
-                )
-                val metaFileContent = KotlinJavascriptSerializationUtil.metadataAsString(bindingContext, moduleDescription)
+                val metadata = KotlinJavascriptSerializationUtil.contentMapToByteArray(contentMap, config.moduleKind, importedModules)
+                val metaFileContent = KotlinJavascriptMetadataUtils.formatMetadataAsString(config.moduleId, metadata)
                 val sourceFilesForMetaFile = ArrayList(sourceFiles)
                 val jsMetaFile = SimpleOutputFile(sourceFilesForMetaFile, metaFileName, metaFileContent)
                 outputFiles.add(jsMetaFile)
             }
 
-            if (config.configuration.getBoolean(JSConfigurationKeys.KJSM)) {
-                KotlinJavascriptSerializationUtil.toContentMap(bindingContext, moduleDescriptor).forEach {
+            if (generateKjsm) {
+                contentMap.forEach {
                     // TODO Add correct source files
                     outputFiles.add(SimpleOutputBinaryFile(emptyList(), config.moduleId + VfsUtilCore.VFS_SEPARATOR_CHAR + it.key, it.value))
                 }
             }
 
-            if (sourceMapBuilder != null) {
-                sourceMapBuilder.skipLinesAtBeginning(StringUtil.getLineBreakCount(prefix))
-                val sourceMapFile = SimpleOutputFile(sourceFiles, sourceMapBuilder.outFile.name, sourceMapBuilder.build())
-                outputFiles.add(sourceMapFile)
-            }
-
-            return SimpleOutputFileCollection(outputFiles)
+            return outputFiles
         }
 
-        private fun getCode(output: TextOutput, sourceMapBuilder: SourceMapBuilder?): String {
+        private fun getCode(program: JsProgram, output: TextOutput, sourceMapBuilder: SourceMapBuilder?): String {
             program.accept(JsSourceGenerationVisitor(output, sourceMapBuilder))
             return output.toString()
         }
+
+        // The source map of the output stays correct, since the output is generated from the trimmed AST.
+        // Trimmed libraries get source maps pointing to the lines of the original library files.
+        // If some library can't be parsed, its references are unknown, so nothing is removed at all
+        private fun eliminateUnusedDeclarations(outputFile: File, reportWarning: (String) -> Unit): List<OutputFile> {
+            val generateSourceMap = config.configuration.getBoolean(JSConfigurationKeys.SOURCE_MAP)
+            val libraries = linkedMapOf<String, JsProgram>()
+            val takenNames = hashSetOf(outputFile.name)
+            var libraryPath: String? = null
+            try {
+                for (library in config.configuration.getList(JSConfigurationKeys.LIBRARY_FILES).map(::File)) {
+                    if (library.isFile && library.name.endsWith(KotlinJavascriptMetadataUtils.JS_EXT)) {
+                        if (!library.name.endsWith(KotlinJavascriptMetadataUtils.META_JS_SUFFIX)) {
+                            libraryPath = library.path
+                            libraries[uniqueOutputName(takenNames, library.name, library)] =
+                                    parseLibrary(library.readText(), library.path, generateSourceMap)
+                        }
+                        continue
+                    }
+                    JsLibraryUtils.traverseJsLibrary(library) { content, path ->
+                        if (!path.endsWith(KotlinJavascriptMetadataUtils.META_JS_SUFFIX)) {
+                            val entryPath = library.path + "!/" + path
+                            libraryPath = entryPath
+                            libraries[uniqueOutputName(takenNames, path, library)] = parseLibrary(content, entryPath, generateSourceMap)
+                        }
+                    }
+                }
+            }
+            catch (e: JsParserException) {
+                reportWarning("Unused declarations are not eliminated, because library '$libraryPath' can't be parsed: ${e.message}")
+                return emptyList()
+            }
+
+            val keep = config.configuration.getList(JSConfigurationKeys.DEAD_CODE_ELIMINATION_KEEP)
+            UnusedDeclarationElimination(keep).apply(listOf(program), libraries.values.toList())
+
+            val outputFiles = arrayListOf<OutputFile>()
+            for ((name, library) in libraries) {
+                val output = TextOutputImpl()
+                val sourceMapBuilder = if (generateSourceMap) SourceMap3Builder(File(name), output, LibrarySourceMapConsumer) else null
+                outputFiles.add(SimpleOutputFile(emptyList(), name, getCode(library, output, sourceMapBuilder)))
+                if (sourceMapBuilder != null) {
+                    outputFiles.add(SimpleOutputFile(emptyList(), name + ".map", sourceMapBuilder.build()))
+                }
+            }
+            return outputFiles
+        }
+
+        // Files of different libraries may have the same name (e.g. two jars both containing kotlin.js),
+        // such files are put to subdirectories named after their libraries
+        private fun uniqueOutputName(takenNames: MutableSet<String>, name: String, library: File): String {
+            var result = name
+            var index = 1
+            while (result in takenNames || result + ".map" in takenNames) {
+                result = library.nameWithoutExtension + (if (index > 1) "-$index" else "") + "/" + name
+                index++
+            }
+            takenNames.add(result)
+            return result
+        }
+
+        private fun parseLibrary(code: String, path: String, generateSourceMap: Boolean): JsProgram {
+            val library = JsProgram()
+            library.globalBlock.statements += parse(code, ThrowExceptionOnErrorReporter, library.scope)
+            if (generateSourceMap) {
+                library.accept(object : RecursiveJsVisitor() {
+                    override fun visitElement(node: JsNode) {
+                        val line = (node as? HasMetadata)?.getData<Int?>("line")
+                        if (line != null) {
+                            node.source = LibraryLocation(path, line)
+                        }
+                        super.visitElement(node)
+                    }
+                })
+            }
+            return library
+        }
+    }
+
+    private class LibraryLocation(val path: String, val line: Int)
+
+    private companion object {
+        // Shared by all the translations in the process, e.g. by the concurrent compilations of the daemon.
+        // Idle threads are released, and the threads are daemon ones, so they never keep the process alive
+        val codeGenerationExecutor: ExecutorService = Executors.newCachedThreadPool { runnable ->
+            Thread(runnable, "Kotlin/JS code generation").apply { isDaemon = true }
+        }
+    }
+
+    private object LibrarySourceMapConsumer : PairConsumer<SourceMapBuilder, Any> {
+        override fun consume(builder: SourceMapBuilder, sourceInfo: Any) {
+            if (sourceInfo is LibraryLocation) {
+                builder.addMapping(sourceInfo.path, sourceInfo.line, 0)
+            }
+        }
     }
 }
@@ -58,6 +58,9 @@ public final class Namer {
     public static final String LONG_FROM_NUMBER = "fromNumber";
     public static final String LONG_TO_NUMBER = "toNumber";
     public static final String LONG_FROM_INT = "fromInt";
+    public static final String LONG_COMPARE_TO_INT = "compareToInt";
+    public static final String LONG_NOT_EQUALS = "notEqualsLong";
+    public static final String LONG_INC = "inc";
     public static final String LONG_ZERO = "ZERO";
     public static final String LONG_ONE = "ONE";
     public static final String LONG_NEG_ONE = "NEG_ONE";
@@ -22,6 +22,7 @@ import com.google.dart.compiler.backend.js.ast.*
 import org.jetbrains.kotlin.builtins.KotlinBuiltIns
 import org.jetbrains.kotlin.descriptors.FunctionDescriptor
 import org.jetbrains.kotlin.js.translate.callTranslator.CallTranslator
+import org.jetbrains.kotlin.js.translate.context.Namer
 import org.jetbrains.kotlin.js.translate.context.TranslationContext
 import org.jetbrains.kotlin.js.translate.general.Translation
 import org.jetbrains.kotlin.js.translate.intrinsic.functions.factories.CompositeFIF
@@ -32,6 +33,7 @@ import org.jetbrains.kotlin.js.translate.utils.TranslationUtils
 import org.jetbrains.kotlin.lexer.KtTokens
 import org.jetbrains.kotlin.psi.KtBinaryExpression
 import org.jetbrains.kotlin.psi.KtDestructuringDeclaration
+import org.jetbrains.kotlin.psi.KtExpression
 import org.jetbrains.kotlin.psi.KtForExpression
 import org.jetbrains.kotlin.psi.KtWhileExpressionBase
 import org.jetbrains.kotlin.resolve.calls.model.ResolvedCall
@@ -89,6 +91,11 @@ fun translateForExpression(expression: KtForExpression, context: TranslationCont
     fun isForOverRangeLiteral(): Boolean =
             loopRange is KtBinaryExpression && loopRange.operationToken == KtTokens.RANGE && isForOverRange()
 
+    fun isForOverLongRangeLiteral(): Boolean {
+        if (loopRange !is KtBinaryExpression || loopRange.operationToken != KtTokens.RANGE) return false
+        return rangeType.constructor.declarationDescriptor?.fqNameSafe?.asString() == "kotlin.ranges.LongRange"
+    }
+
    fun isForOverArray(): Boolean {
         return KotlinBuiltIns.isArray(rangeType) || KotlinBuiltIns.isPrimitiveArray(rangeType)
     }
@@ -145,6 +152,36 @@ fun translateForExpression(expression: KtForExpression, context: TranslationCont
         return JsFor(newVar(parameterName, rangeStart), conditionExpression, incrementExpression, body)
     }
 
+    // Longs are objects, so unlike translateForOverLiteralRange the loop can't use `<=` and `++`;
+    // it also must not increment the counter past the end, which may be Long.MAX_VALUE
+    fun translateForOverLongRangeLiteral(): JsStatement {
+        if (loopRange !is KtBinaryExpression) throw IllegalStateException("expected JetBinaryExpression, but ${loopRange.text}")
+
+        fun toLong(jsExpression: JsExpression, expression: KtExpression?): JsExpression {
+            val type = expression?.let { getTypeForExpression(context.bindingContext(), it) }
+            return if (type == null || KotlinBuiltIns.isLong(type)) jsExpression else longFromInt(jsExpression)
+        }
+
+        val startBlock = JsBlock()
+        val leftExpression = toLong(TranslationUtils.translateLeftExpression(context, loopRange, startBlock), loopRange.left)
+        val endBlock = JsBlock()
+        val rightExpression = toLong(TranslationUtils.translateRightExpression(context, loopRange, endBlock), loopRange.right)
+        val rangeStart = context.cacheExpressionIfNeeded(leftExpression)
+        context.addStatementsToCurrentBlockFrom(startBlock)
+        context.addStatementsToCurrentBlockFrom(endBlock)
+        val rangeEnd = context.defineTemporary(rightExpression)
+        val hasNext = context.declareTemporary(lessThanEq(compareForObject(rangeStart, rangeEnd), JsNumberLiteral.ZERO))
+        context.addStatementToCurrentBlock(hasNext.assignmentStatement())
+
+        val body = translateBody(null)
+        val incrementExpression = newSequence(listOf(
+                assignment(hasNext.reference(), invokeMethod(parameterName.makeRef(), Namer.LONG_NOT_EQUALS, rangeEnd.deepCopy())),
+                assignment(parameterName.makeRef(), invokeMethod(parameterName.makeRef(), Namer.LONG_INC))
+        ))
+
+        return JsFor(newVar(parameterName, rangeStart.deepCopy()), hasNext.reference(), incrementExpression, body)
+    }
+
     fun translateForOverRange(): JsStatement {
         val rangeExpression = context.defineTemporary(Translation.translateAsExpression(loopRange, context))
 
@@ -204,6 +241,9 @@ fun translateForExpression(expression: KtForExpression, context: TranslationCont
         isForOverRangeLiteral() ->
             translateForOverLiteralRange()
 
+        isForOverLongRangeLiteral() ->
+            translateForOverLongRangeLiteral()
+
         isForOverRange() ->
             translateForOverRange()
 
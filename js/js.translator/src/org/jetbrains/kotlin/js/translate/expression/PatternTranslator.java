@@ -31,6 +31,7 @@ import org.jetbrains.kotlin.js.translate.context.TemporaryVariable;
 import org.jetbrains.kotlin.js.translate.context.TranslationContext;
 import org.jetbrains.kotlin.js.translate.general.AbstractTranslator;
 import org.jetbrains.kotlin.js.translate.general.Translation;
+import org.jetbrains.kotlin.js.translate.intrinsic.functions.factories.ArrayFIF;
 import org.jetbrains.kotlin.js.translate.intrinsic.functions.factories.TopLevelFIF;
 import org.jetbrains.kotlin.js.translate.utils.AnnotationsUtils;
 import org.jetbrains.kotlin.js.translate.reference.ReferenceTranslator;
@@ -190,6 +191,13 @@ public final class PatternTranslator extends AbstractTranslator {
 
         if (isArray(type)) return Namer.IS_ARRAY_FUN_REF;
 
+        ClassifierDescriptor classifier = type.getConstructor().getDeclarationDescriptor();
+        if (classifier instanceof ClassDescriptor) {
+            PrimitiveType arrayElementType = KotlinBuiltIns.getPrimitiveTypeByArrayClassFqName(DescriptorUtils.getFqName(classifier));
+            JsNameRef typedArray = arrayElementType != null ? ArrayFIF.getTypedArrayConstructor(arrayElementType, context()) : null;
+            if (typedArray != null) return new JsInvocation(namer().kotlin("isPrimitiveArrayOf"), typedArray);
+        }
+
         if (TypePredicatesKt.getCHAR_SEQUENCE().apply(type)) return namer().isCharSequence();
 
         if (TypePredicatesKt.getCOMPARABLE().apply(type)) return namer().isComparable();
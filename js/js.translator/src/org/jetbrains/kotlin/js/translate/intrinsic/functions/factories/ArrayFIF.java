@@ -17,12 +17,12 @@
 package org.jetbrains.kotlin.js.translate.intrinsic.functions.factories;
 
 import com.google.common.collect.Lists;
-import com.google.dart.compiler.backend.js.ast.JsArrayAccess;
-import com.google.dart.compiler.backend.js.ast.JsExpression;
+import com.google.dart.compiler.backend.js.ast.*;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.builtins.KotlinBuiltIns;
 import org.jetbrains.kotlin.builtins.PrimitiveType;
+import org.jetbrains.kotlin.js.config.JSConfigurationKeys;
 import org.jetbrains.kotlin.js.patterns.DescriptorPredicate;
 import org.jetbrains.kotlin.js.patterns.NamePredicate;
 import org.jetbrains.kotlin.js.translate.context.Namer;
@@ -30,11 +30,14 @@ import org.jetbrains.kotlin.js.translate.context.TranslationContext;
 import org.jetbrains.kotlin.js.translate.intrinsic.functions.basic.FunctionIntrinsic;
 import org.jetbrains.kotlin.name.Name;
 
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 import static com.intellij.openapi.util.text.StringUtil.decapitalize;
 import static org.jetbrains.kotlin.js.patterns.PatternBuilder.pattern;
 import static org.jetbrains.kotlin.js.translate.utils.JsAstUtils.assignment;
+import static org.jetbrains.kotlin.js.translate.utils.JsAstUtils.pureFqn;
 
 public final class ArrayFIF extends CompositeFIF {
     private static final NamePredicate NUMBER_ARRAY;
@@ -44,6 +47,9 @@ public final class ArrayFIF extends CompositeFIF {
     private static final NamePredicate ARRAYS;
     private static final DescriptorPredicate ARRAY_FACTORY_METHODS;
 
+    // Chars are strings and Longs are objects in JS, and a typed array can't give booleans back
+    private static final Map<PrimitiveType, String> TYPED_ARRAY_CONSTRUCTORS = new EnumMap<PrimitiveType, String>(PrimitiveType.class);
+
     static {
         List<Name> arrayTypeNames = Lists.newArrayList();
         List<Name> arrayFactoryMethodNames = Lists.newArrayList(Name.identifier("arrayOf"));
@@ -71,6 +77,53 @@ public final class ArrayFIF extends CompositeFIF {
         arrayTypeNames.add(arrayName);
         ARRAYS = new NamePredicate(arrayTypeNames);
         ARRAY_FACTORY_METHODS = pattern(Namer.KOTLIN_LOWER_NAME, new NamePredicate(arrayFactoryMethodNames));
+
+        TYPED_ARRAY_CONSTRUCTORS.put(PrimitiveType.BYTE, "Int8Array");
+        TYPED_ARRAY_CONSTRUCTORS.put(PrimitiveType.SHORT, "Int16Array");
+        TYPED_ARRAY_CONSTRUCTORS.put(PrimitiveType.INT, "Int32Array");
+        TYPED_ARRAY_CONSTRUCTORS.put(PrimitiveType.FLOAT, "Float32Array");
+        TYPED_ARRAY_CONSTRUCTORS.put(PrimitiveType.DOUBLE, "Float64Array");
+    }
+
+    /**
+     * Returns the typed array constructor which represents arrays of the given primitive type,
+     * or null if they are plain JS arrays, as all of them are without the {@link JSConfigurationKeys#TYPED_ARRAYS} option.
+     */
+    @Nullable
+    public static JsNameRef getTypedArrayConstructor(@NotNull PrimitiveType type, @NotNull TranslationContext context) {
+        if (!context.getConfig().getConfiguration().getBoolean(JSConfigurationKeys.TYPED_ARRAYS)) return null;
+
+        String name = TYPED_ARRAY_CONSTRUCTORS.get(type);
+        return name != null ? pureFqn(name, null) : null;
+    }
+
+    private abstract static class TypedArrayIntrinsic extends FunctionIntrinsic {
+        @NotNull
+        private final PrimitiveType type;
+        @NotNull
+        private final FunctionIntrinsic plainArrayIntrinsic;
+
+        TypedArrayIntrinsic(@NotNull PrimitiveType type, @NotNull FunctionIntrinsic plainArrayIntrinsic) {
+            this.type = type;
+            this.plainArrayIntrinsic = plainArrayIntrinsic;
+        }
+
+        @NotNull
+        @Override
+        public JsExpression apply(
+                @Nullable JsExpression receiver,
+                @NotNull List<JsExpression> arguments,
+                @NotNull TranslationContext context
+        ) {
+            JsNameRef constructor = getTypedArrayConstructor(type, context);
+            if (constructor == null) {
+                return plainArrayIntrinsic.apply(receiver, arguments, context);
+            }
+            return createTypedArray(constructor, arguments);
+        }
+
+        @NotNull
+        protected abstract JsExpression createTypedArray(@NotNull JsNameRef constructor, @NotNull List<JsExpression> arguments);
     }
 
     private static final FunctionIntrinsic ARRAY_INTRINSIC = new FunctionIntrinsic() {
@@ -120,6 +173,36 @@ public final class ArrayFIF extends CompositeFIF {
     public static final FunctionIntrinsicFactory INSTANCE = new ArrayFIF();
 
     private ArrayFIF() {
+        for (PrimitiveType type : TYPED_ARRAY_CONSTRUCTORS.keySet()) {
+            NamePredicate arrayType = new NamePredicate(type.getArrayTypeName());
+
+            add(pattern(arrayType, "<init>(Int)"), new TypedArrayIntrinsic(type, new KotlinFunctionIntrinsic("numberArrayOfSize")) {
+                @NotNull
+                @Override
+                protected JsExpression createTypedArray(@NotNull JsNameRef constructor, @NotNull List<JsExpression> arguments) {
+                    return new JsNew(constructor, arguments);
+                }
+            });
+            add(pattern(arrayType, "<init>(Int,Function1)"), new TypedArrayIntrinsic(type, new KotlinFunctionIntrinsic("arrayFromFun")) {
+                @NotNull
+                @Override
+                protected JsExpression createTypedArray(@NotNull JsNameRef constructor, @NotNull List<JsExpression> arguments) {
+                    JsExpression array = new JsNew(constructor, arguments.subList(0, 1));
+                    return new JsInvocation(pureFqn("fillArrayFromFun", Namer.kotlinObject()), array, arguments.get(1));
+                }
+            });
+
+            String factoryMethodName = decapitalize(type.getArrayTypeName().asString() + "Of");
+            add(pattern(Namer.KOTLIN_LOWER_NAME, new NamePredicate(factoryMethodName)), new TypedArrayIntrinsic(type, ARRAY_INTRINSIC) {
+                @NotNull
+                @Override
+                protected JsExpression createTypedArray(@NotNull JsNameRef constructor, @NotNull List<JsExpression> arguments) {
+                    assert arguments.size() == 1;
+                    return new JsNew(constructor, arguments);
+                }
+            });
+        }
+
         add(pattern(ARRAYS, "get"), GET_INTRINSIC);
         add(pattern(ARRAYS, "set"), SET_INTRINSIC);
         add(pattern(ARRAYS, "<get-size>"), LENGTH_PROPERTY_INTRINSIC);
@@ -25,9 +25,11 @@ import org.jetbrains.kotlin.js.patterns.PatternBuilder.pattern
 import org.jetbrains.kotlin.js.translate.context.Namer
 import org.jetbrains.kotlin.js.translate.context.TranslationContext
 import org.jetbrains.kotlin.js.translate.operation.OperatorTable
+import org.jetbrains.kotlin.js.translate.utils.BindingUtils.getCompileTimeValue
 import org.jetbrains.kotlin.js.translate.utils.JsAstUtils.*
 import org.jetbrains.kotlin.js.translate.utils.PsiUtils.getOperationToken
 import org.jetbrains.kotlin.psi.KtBinaryExpression
+import org.jetbrains.kotlin.psi.KtExpression
 import org.jetbrains.kotlin.types.expressions.OperatorConventions
 import org.jetbrains.kotlin.utils.identity as ID
 
@@ -63,11 +65,54 @@ object LongCompareToBOIF : BinaryOperationIntrinsicFactory {
         }
     }
 
-    private val INTEGER_COMPARE_TO_LONG = CompareToBinaryIntrinsic( { longFromInt(it) }, ID())
+    // Compares a Long with an Int without converting the latter to a Long
+    private class CompareToIntBinaryIntrinsic(val toRight: (JsExpression) -> JsExpression) : AbstractBinaryOperationIntrinsic() {
+        override fun apply(expression: KtBinaryExpression, left: JsExpression, right: JsExpression, context: TranslationContext): JsExpression {
+            val operator = OperatorTable.getBinaryOperator(getOperationToken(expression))
+            return JsBinaryOperation(operator, compareToInt(left, toRight(right)), JsNumberLiteral.ZERO)
+        }
+    }
+
+    private object INTEGER_COMPARE_TO_LONG : AbstractBinaryOperationIntrinsic() {
+        override fun apply(expression: KtBinaryExpression, left: JsExpression, right: JsExpression, context: TranslationContext): JsExpression {
+            val operator = OperatorTable.getBinaryOperator(getOperationToken(expression))
+            // A literal has no side effects, so it may be evaluated after the Long
+            if (left is JsNumberLiteral.JsIntLiteral) {
+                return JsBinaryOperation(operator, JsNumberLiteral.ZERO, compareToInt(right, left))
+            }
+            return JsBinaryOperation(operator, compareForObject(longFromInt(left), right), JsNumberLiteral.ZERO)
+        }
+    }
+
+    private object LONG_COMPARE_TO_LONG : AbstractBinaryOperationIntrinsic() {
+        override fun apply(expression: KtBinaryExpression, left: JsExpression, right: JsExpression, context: TranslationContext): JsExpression {
+            val operator = OperatorTable.getBinaryOperator(getOperationToken(expression))
+
+            val rightConstant = getIntConstant(expression.right, context)
+            if (rightConstant != null) {
+                return JsBinaryOperation(operator, compareToInt(left, context.program().getNumberLiteral(rightConstant)), JsNumberLiteral.ZERO)
+            }
+
+            val leftConstant = getIntConstant(expression.left, context)
+            if (leftConstant != null) {
+                return JsBinaryOperation(operator, JsNumberLiteral.ZERO, compareToInt(right, context.program().getNumberLiteral(leftConstant)))
+            }
+
+            return JsBinaryOperation(operator, compareForObject(left, right), JsNumberLiteral.ZERO)
+        }
+
+        // Long constants which fit into Int, e.g. `x < 1000L` or `x > MAX_SIZE`
+        private fun getIntConstant(expression: KtExpression?, context: TranslationContext): Int? {
+            val value = expression?.let { getCompileTimeValue(context.bindingContext(), it) } as? Long ?: return null
+            return if (value >= Int.MIN_VALUE && value <= Int.MAX_VALUE) value.toInt() else null
+        }
+    }
+
     private val CHAR_COMPARE_TO_LONG  = CompareToBinaryIntrinsic( { longFromInt(charToInt(it)) }, ID())
-    private val LONG_COMPARE_TO_INTEGER  = CompareToBinaryIntrinsic( ID(), { longFromInt(it) })
-    private val LONG_COMPARE_TO_CHAR  = CompareToBinaryIntrinsic( ID(), { longFromInt(charToInt(it)) })
-    private val LONG_COMPARE_TO_LONG  = CompareToBinaryIntrinsic( ID(), ID() )
+    private val LONG_COMPARE_TO_INTEGER  = CompareToIntBinaryIntrinsic(ID())
+    private val LONG_COMPARE_TO_CHAR  = CompareToIntBinaryIntrinsic { charToInt(it) }
+
+    private fun compareToInt(long: JsExpression, int: JsExpression) = invokeMethod(long, Namer.LONG_COMPARE_TO_INT, int)
 
     override fun getSupportTokens() = OperatorConventions.COMPARISON_OPERATIONS
 
@@ -0,0 +1,41 @@
+// CHECK_NOT_CALLED_IN_SCOPE: scope=sum function=iterator
+// CHECK_NOT_CALLED_IN_SCOPE: scope=countToMax function=iterator
+package foo
+
+fun sum(from: Long, to: Int): Long {
+    var result = 0L
+    for (i in from..to) {
+        if (i % 2L == 0L) continue
+        result += i
+    }
+    return result
+}
+
+fun countToMax(from: Long): Int {
+    var count = 0
+    for (i in from..Long.MAX_VALUE) {
+        count++
+        if (count > 10) break
+    }
+    return count
+}
+
+fun box(): String {
+    assertEquals(25L, sum(1L, 10))
+    assertEquals(0L, sum(1L, 0))
+    assertEquals(0L, sum(5L, 1))
+    assertEquals(5L, sum(5L, 5))
+    assertEquals(0L, sum(-5L, 5))
+
+    assertEquals(3, countToMax(Long.MAX_VALUE - 2))
+    assertEquals(1, countToMax(Long.MAX_VALUE))
+
+    val captured = mutableListOf<() -> Long>()
+    for (i in 1L..3L) {
+        val value = i
+        captured += { value }
+    }
+    assertEquals(listOf(1L, 2L, 3L), captured.map { it() })
+
+    return "OK"
+}
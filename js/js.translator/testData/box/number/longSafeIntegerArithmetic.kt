@@ -0,0 +1,44 @@
+package foo
+
+// Operations on Longs in the range of exactly representable doubles take shortcuts, check the values around its ends
+fun box(): String {
+    val maxSafe = 9007199254740991L
+    val twoPow53 = 9007199254740992L
+    val three = 3L
+    val maxInt = 2147483647L
+    val minInt = -2147483648L
+    val twoPow32 = 4294967296L
+
+    assertEquals(9007199254740993L, maxSafe + 2L, "plus")
+    assertEquals(-9007199254740993L, -maxSafe - 2L, "minus")
+    assertEquals(4294967294L, maxInt + maxInt, "plus Int values")
+    assertEquals(-4294967295L, minInt - maxInt, "minus Int values")
+    assertEquals(9007199254740993L, 3002399751580331L * three, "times just above 2^53")
+    assertEquals(-9007199254740993L, -3002399751580331L * three, "times just below -2^53")
+    assertEquals(5188146770730811392L, twoPow53 * 1000L * 1000L, "times overflow")
+    assertEquals(3002399751580331L, 9007199254740993L / three, "div")
+    assertEquals(-3002399751580329L, -maxSafe / three + 1L, "div negative")
+    assertEquals(0L, -9007199254740993L % three, "rem")
+    assertEquals(-1L, -maxSafe % 2L, "rem negative")
+    val minValue = Long.MIN_VALUE
+    assertEquals(Long.MIN_VALUE, -minValue, "unaryMinus")
+    assertEquals(-4294967296L, -twoPow32, "unaryMinus carry")
+
+    assertEquals("9007199254740993", (maxSafe + 2L).toString(), "toString")
+    assertEquals("-9007199254740991", (-maxSafe).toString(), "toString negative")
+
+    val values = listOf(Long.MIN_VALUE, -twoPow53 - 1L, -1L, 0L, 1L, 4294967295L, 4294967296L, maxSafe, twoPow53, Long.MAX_VALUE)
+    for (i in values.indices) {
+        for (j in values.indices) {
+            assertEquals(i.compareTo(j), values[i].compareTo(values[j]), "compareTo ${values[i]}, ${values[j]}")
+        }
+    }
+
+    assertEquals(true, twoPow32 > 1000, "Long > Int")
+    assertEquals(true, twoPow32 > 1000L, "Long > constant")
+    assertEquals(true, 1000L < twoPow32, "constant < Long")
+    assertEquals(true, 1000 < twoPow32, "Int literal < Long")
+    assertEquals(false, -1L > 'a', "Long > Char")
+
+    return "OK"
+}
@@ -0,0 +1,36 @@
+// TYPED_ARRAYS
+package foo
+
+fun checkConstructor(array: Any, expected: String): String? {
+    val actual: String = array.asDynamic().constructor.name
+    return if (actual != expected) "$expected expected, got $actual" else null
+}
+
+fun box(): String {
+    val ints = IntArray(3)
+    checkConstructor(ints, "Int32Array")?.let { return it }
+    if (ints.size != 3 || ints[2] != 0) return "fail: IntArray(3)"
+    ints[1] = 5
+    if (ints[1] != 5) return "fail: set"
+
+    val doubles = DoubleArray(3) { it * 0.5 }
+    checkConstructor(doubles, "Float64Array")?.let { return it }
+    if (doubles[2] != 1.0) return "fail: DoubleArray(3) { ... }"
+
+    checkConstructor(byteArrayOf(1, 2), "Int8Array")?.let { return it }
+    checkConstructor(shortArrayOf(1, 2), "Int16Array")?.let { return it }
+    checkConstructor(floatArrayOf(1.0f), "Float32Array")?.let { return it }
+    checkConstructor(CharArray(1), "Array")?.let { return it }
+    checkConstructor(BooleanArray(1), "Array")?.let { return it }
+    checkConstructor(LongArray(1), "Array")?.let { return it }
+
+    val any: Any = intArrayOf(1, 2, 3)
+    if (any !is IntArray) return "fail: is IntArray"
+    if (any is DoubleArray) return "fail: is DoubleArray"
+    if (any is Array<*>) return "fail: is Array"
+
+    if (!intArrayOf(1, 2, 3).contentEquals(any)) return "fail: contentEquals"
+    if (intArrayOf(1, 2, 3).contentToString() != "[1, 2, 3]") return "fail: contentToString"
+
+    return "OK"
+}
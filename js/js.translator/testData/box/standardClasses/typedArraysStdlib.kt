@@ -0,0 +1,59 @@
+// TYPED_ARRAYS
+package foo
+
+fun constructorName(array: Any): String = array.asDynamic().constructor.name
+
+fun box(): String {
+    val ints = intArrayOf(1, 2)
+
+    val plusElement = ints + 3
+    if (constructorName(plusElement) != "Int32Array") return "fail: plus(element) gives ${constructorName(plusElement)}"
+    if (plusElement.contentToString() != "[1, 2, 3]") return "fail: plus(element) gives ${plusElement.contentToString()}"
+
+    val plusArray = ints + intArrayOf(3, 4)
+    if (constructorName(plusArray) != "Int32Array") return "fail: plus(array) gives ${constructorName(plusArray)}"
+    if (plusArray.contentToString() != "[1, 2, 3, 4]") return "fail: plus(array) gives ${plusArray.contentToString()}"
+
+    val plusCollection = ints + listOf(3, 4)
+    if (constructorName(plusCollection) != "Int32Array") return "fail: plus(collection) gives ${constructorName(plusCollection)}"
+    if (plusCollection.contentToString() != "[1, 2, 3, 4]") return "fail: plus(collection) gives ${plusCollection.contentToString()}"
+
+    val copy = ints.copyOf()
+    copy[0] = 5
+    if (constructorName(copy) != "Int32Array" || ints[0] != 1) return "fail: copyOf()"
+
+    val longer = doubleArrayOf(1.5).copyOf(3)
+    if (constructorName(longer) != "Float64Array") return "fail: copyOf(newSize) gives ${constructorName(longer)}"
+    if (longer.contentToString() != "[1.5, 0, 0]") return "fail: copyOf(newSize) gives ${longer.contentToString()}"
+
+    val range = intArrayOf(1, 2, 3, 4).copyOfRange(1, 3)
+    if (constructorName(range) != "Int32Array") return "fail: copyOfRange gives ${constructorName(range)}"
+    if (range.contentToString() != "[2, 3]") return "fail: copyOfRange gives ${range.contentToString()}"
+
+    val boxed: Any = ints.toTypedArray()
+    if (boxed !is Array<*> || boxed.size != 2) return "fail: toTypedArray"
+
+    // arrays created by the stdlib, which is compiled without typed arrays, are plain ones
+    val fromStdlib: Any = listOf(1, 2).toIntArray()
+    if (fromStdlib !is IntArray) return "fail: is IntArray for an array created by the stdlib"
+    if (!fromStdlib.contentEquals(ints) || !ints.contentEquals(fromStdlib)) return "fail: contentEquals with an array created by the stdlib"
+
+    val mixed = fromStdlib + ints
+    if (mixed.contentToString() != "[1, 2, 1, 2]") return "fail: plain array plus typed array gives ${mixed.contentToString()}"
+
+    val typed: Any = ints
+    if (typed !is IntArray) return "fail: is IntArray"
+    if (typed is ShortArray) return "fail: is ShortArray"
+
+    // a plain array is only taken for a primitive array if the typed array can hold its elements
+    val strings: Any = arrayOf("a", "b")
+    if (strings is IntArray) return "fail: is IntArray for an array of strings"
+    val wide: Any = listOf(1, 300).toIntArray()
+    if (wide is ByteArray) return "fail: is ByteArray for an array with a value out of the byte range"
+    if (wide !is ShortArray) return "fail: is ShortArray for an array created by the stdlib"
+    val fractions: Any = listOf(0.5).toDoubleArray()
+    if (fractions is IntArray) return "fail: is IntArray for an array of fractions"
+    if (fractions !is DoubleArray) return "fail: is DoubleArray for an array created by the stdlib"
+
+    return "OK"
+}
@@ -0,0 +1,47 @@
+package foo
+
+interface Shape {
+    fun area(): Int
+}
+
+data class Rect(val width: Int, val height: Int) : Shape {
+    override fun area() = width * height
+}
+
+class Square(val side: Int) : Shape {
+    override fun area() = side * side
+
+    override fun toString() = "Square($side)"
+}
+
+fun box(): String {
+    val shapes = listOf(Rect(2, 3), Square(2), Rect(1, 1))
+
+    val total = shapes.map { it.area() }.sum()
+    if (total != 11) return "fail total: $total"
+
+    val byArea = shapes.sortedBy { it.area() }.joinToString()
+    if (byArea != "Rect(width=1, height=1), Square(2), Rect(width=2, height=3)") return "fail sorted: $byArea"
+
+    if (Rect(2, 3) != shapes[0]) return "fail equals"
+    if (Rect(2, 3).hashCode() != shapes[0].hashCode()) return "fail hashCode"
+
+    val map = hashMapOf<String, Shape>()
+    shapes.forEach { map[it.toString()] = it }
+    if (map["Square(2)"] !is Square) return "fail map"
+
+    try {
+        shapes[10]
+        return "fail: no exception"
+    }
+    catch (e: IndexOutOfBoundsException) {
+    }
+
+    val builder = StringBuilder()
+    for (i in 3 downTo 1 step 2) {
+        builder.append(i)
+    }
+    if (builder.toString() != "31") return "fail range: $builder"
+
+    return "OK"
+}
@@ -0,0 +1,9 @@
+var app = function (_, Kotlin, $module$lib) {
+    'use strict';
+    var Foo = $module$lib.lib.Foo;
+    function main() {
+        return new Foo().used();
+    }
+    main();
+    return _;
+}(typeof app === 'undefined' ? {} : app, kotlin, lib);
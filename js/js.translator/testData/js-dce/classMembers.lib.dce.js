@@ -0,0 +1,15 @@
+var lib = function (_, Kotlin) {
+    'use strict';
+    function Foo() {
+    }
+    Foo.prototype.used = function () {
+        return helper();
+    };
+    Foo.$metadata$ = {kind: Kotlin.Kind.CLASS, simpleName: 'Foo', interfaces: []};
+    function helper() {
+        return 'OK';
+    }
+    var package$lib = _.lib || (_.lib = {});
+    package$lib.Foo = Foo;
+    return _;
+}(typeof lib === 'undefined' ? {} : lib, kotlin);
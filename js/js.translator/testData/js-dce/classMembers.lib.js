@@ -0,0 +1,29 @@
+var lib = function (_, Kotlin) {
+    'use strict';
+    function Foo() {
+    }
+    Foo.prototype.used = function () {
+        return helper();
+    };
+    Foo.prototype.unused = function () {
+        return 'unused';
+    };
+    Foo.$metadata$ = {kind: Kotlin.Kind.CLASS, simpleName: 'Foo', interfaces: []};
+    function Bar() {
+    }
+    Bar.prototype.used = function () {
+        return 'bar';
+    };
+    Bar.$metadata$ = {kind: Kotlin.Kind.CLASS, simpleName: 'Bar', interfaces: []};
+    function helper() {
+        return 'OK';
+    }
+    function bar() {
+        return 'bar';
+    }
+    var package$lib = _.lib || (_.lib = {});
+    package$lib.Foo = Foo;
+    package$lib.Bar = Bar;
+    package$lib.bar = bar;
+    return _;
+}(typeof lib === 'undefined' ? {} : lib, kotlin);
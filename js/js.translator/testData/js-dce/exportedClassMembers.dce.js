@@ -0,0 +1,16 @@
+var app = function (_, Kotlin, $module$lib) {
+    'use strict';
+    var helper = $module$lib.lib.helper;
+    function Api() {
+    }
+    Api.prototype.calledFromOutside = function () {
+        return helper();
+    };
+    Api.prototype.neverCalled = function () {
+        return 'kept';
+    };
+    Api.$metadata$ = {kind: Kotlin.Kind.CLASS, simpleName: 'Api', interfaces: []};
+    var package$app = _.app || (_.app = {});
+    package$app.Api = Api;
+    return _;
+}(typeof app === 'undefined' ? {} : app, kotlin, lib);
@@ -0,0 +1,9 @@
+var lib = function (_, Kotlin) {
+    'use strict';
+    function helper() {
+        return 'OK';
+    }
+    var package$lib = _.lib || (_.lib = {});
+    package$lib.helper = helper;
+    return _;
+}(typeof lib === 'undefined' ? {} : lib, kotlin);
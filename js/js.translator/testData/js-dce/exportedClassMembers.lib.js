@@ -0,0 +1,15 @@
+var lib = function (_, Kotlin) {
+    'use strict';
+    function helper() {
+        return 'OK';
+    }
+    function Unused() {
+    }
+    Unused.prototype.calledFromOutside = function () {
+        return 'removed';
+    };
+    var package$lib = _.lib || (_.lib = {});
+    package$lib.helper = helper;
+    package$lib.Unused = Unused;
+    return _;
+}(typeof lib === 'undefined' ? {} : lib, kotlin);
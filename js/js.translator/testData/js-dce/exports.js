@@ -0,0 +1,24 @@
+(function (root, factory) {
+    if (typeof define === 'function' && define.amd)
+        define(['exports', 'kotlin', 'lib'], factory);
+    else if (typeof exports === 'object')
+        factory(module.exports, require('kotlin'), require('lib'));
+    else {
+        root.app = factory(typeof app === 'undefined' ? {} : app, kotlin, lib);
+    }
+}(this, function (_, Kotlin, $module$lib) {
+    'use strict';
+    var exported = $module$lib.lib.exported;
+    function internal() {
+        return 'internal';
+    }
+    function api() {
+        return exported();
+    }
+    function keptByName() {
+        return 'kept';
+    }
+    var package$app = _.app || (_.app = {});
+    package$app.api = api;
+    return _;
+}));
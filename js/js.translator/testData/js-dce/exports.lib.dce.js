@@ -0,0 +1,12 @@
+var lib = function (_, Kotlin) {
+    'use strict';
+    function exported() {
+        return notExported();
+    }
+    function notExported() {
+        return 'OK';
+    }
+    var package$lib = _.lib || (_.lib = {});
+    package$lib.exported = exported;
+    return _;
+}(typeof lib === 'undefined' ? {} : lib, kotlin);
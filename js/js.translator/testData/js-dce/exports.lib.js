@@ -0,0 +1,16 @@
+var lib = function (_, Kotlin) {
+    'use strict';
+    function exported() {
+        return notExported();
+    }
+    function notExported() {
+        return 'OK';
+    }
+    function unused() {
+        return 'unused';
+    }
+    var package$lib = _.lib || (_.lib = {});
+    package$lib.exported = exported;
+    package$lib.unused = unused;
+    return _;
+}(typeof lib === 'undefined' ? {} : lib, kotlin);
@@ -76,11 +76,51 @@ Kotlin.hashCode = function (obj) {
     return getStringHashCode(str);
 };
 
+/**
+ * Primitive arrays are typed arrays (e.g. `Int32Array`) in code compiled with `-Xtyped-arrays`, and plain arrays otherwise.
+ */
+Kotlin.isArrayish = function (a) {
+    return Array.isArray(a) || Kotlin.isTypedArray(a);
+};
+
+Kotlin.isTypedArray = function (a) {
+    return typeof ArrayBuffer !== "undefined" && ArrayBuffer.isView && ArrayBuffer.isView(a) && !(a instanceof DataView);
+};
+
+/**
+ * Returns the `is` check for a primitive array which is a typed array in code compiled with `-Xtyped-arrays`.
+ * The arrays created by code compiled without the option, the stdlib included, are plain arrays, so a plain array
+ * passes the check if all its elements are numbers the typed array can hold.
+ */
+Kotlin.isPrimitiveArrayOf = function (typedArrayConstructor) {
+    var isElement;
+    if (typedArrayConstructor === Float32Array || typedArrayConstructor === Float64Array) {
+        isElement = function (e) {
+            return typeof e === "number";
+        };
+    }
+    else {
+        var max = Math.pow(2, typedArrayConstructor.BYTES_PER_ELEMENT * 8 - 1) - 1;
+        isElement = function (e) {
+            return typeof e === "number" && (e | 0) === e && e >= -max - 1 && e <= max;
+        };
+    }
+
+    return function (object) {
+        if (object instanceof typedArrayConstructor) return true;
+        if (!Array.isArray(object)) return false;
+        for (var i = 0, n = object.length; i < n; i++) {
+            if (!isElement(object[i])) return false;
+        }
+        return true;
+    };
+};
+
 Kotlin.toString = function (o) {
     if (o == null) {
         return "null";
     }
-    else if (Array.isArray(o)) {
+    else if (Kotlin.isArrayish(o)) {
         return "[...]";
     }
     else {
@@ -89,13 +129,13 @@ Kotlin.toString = function (o) {
 };
 
 Kotlin.arrayToString = function (a) {
-    return "[" + a.map(Kotlin.toString).join(", ") + "]";
+    return "[" + Array.prototype.map.call(a, Kotlin.toString).join(", ") + "]";
 };
 
 Kotlin.arrayDeepToString = function (a, visited) {
     visited = visited || [a];
-    return "[" + a.map(function(e) {
-            if (Array.isArray(e) && visited.indexOf(e) < 0) {
+    return "[" + Array.prototype.map.call(a, function(e) {
+            if (Kotlin.isArrayish(e) && visited.indexOf(e) < 0) {
                 visited.push(e);
                 var result = Kotlin.arrayDeepToString(e, visited);
                 visited.pop();
@@ -248,7 +288,7 @@ Kotlin.arrayEquals = function (a, b) {
     if (a === b) {
         return true;
     }
-    if (!Array.isArray(b) || a.length !== b.length) {
+    if (!Kotlin.isArrayish(b) || a.length !== b.length) {
         return false;
     }
 
@@ -264,12 +304,12 @@ Kotlin.arrayDeepEquals = function (a, b) {
     if (a === b) {
         return true;
     }
-    if (!Array.isArray(b) || a.length !== b.length) {
+    if (!Kotlin.isArrayish(b) || a.length !== b.length) {
         return false;
     }
 
     for (var i = 0, n = a.length; i < n; i++) {
-        if (Array.isArray(a[i])) {
+        if (Kotlin.isArrayish(a[i])) {
             if (!Kotlin.arrayDeepEquals(a[i], b[i])) {
                 return false;
             }
@@ -292,7 +332,7 @@ Kotlin.arrayDeepHashCode = function (arr) {
     var result = 1;
     for (var i = 0, n = arr.length; i < n; i++) {
         var e = arr[i];
-        result = ((31 * result | 0) + (Array.isArray(e) ? Kotlin.arrayDeepHashCode(e) : Kotlin.hashCode(e))) | 0;
+        result = ((31 * result | 0) + (Kotlin.isArrayish(e) ? Kotlin.arrayDeepHashCode(e) : Kotlin.hashCode(e))) | 0;
     }
     return result;
 };
@@ -371,6 +411,51 @@ Kotlin.arrayFromFun = function (size, initFun) {
     return result;
 };
 
+Kotlin.fillArrayFromFun = function (array, initFun) {
+    for (var i = 0, n = array.length; i < n; i++) {
+        array[i] = initFun(i);
+    }
+    return array;
+};
+
+/**
+ * The following helpers back the stdlib operations on primitive arrays, which may be typed arrays or plain ones.
+ * Typed arrays have neither `concat` nor a writable `length`, so the result is created by the constructor of the source.
+ */
+Kotlin.primitiveArrayConcat = function (a, b) {
+    if (!Kotlin.isTypedArray(a)) {
+        return a.concat(Kotlin.isTypedArray(b) ? Array.prototype.slice.call(b) : b);
+    }
+    var result = new a.constructor(a.length + b.length);
+    copyArrayElements(a, result, a.length);
+    for (var i = 0, n = b.length; i < n; i++) {
+        result[a.length + i] = b[i];
+    }
+    return result;
+};
+
+Kotlin.primitiveArraySlice = function (a, fromIndex, toIndex) {
+    if (!Kotlin.isTypedArray(a)) {
+        return a.slice(fromIndex, toIndex);
+    }
+    return new a.constructor(a.subarray(fromIndex === void 0 ? 0 : fromIndex, toIndex === void 0 ? a.length : toIndex));
+};
+
+/**
+ * Elements of a typed array are zero-initialized, which is the default value of the numbers it holds.
+ */
+Kotlin.typedArrayCopyResize = function (a, newSize) {
+    var result = new a.constructor(newSize);
+    copyArrayElements(a, result, Math.min(a.length, newSize));
+    return result;
+};
+
+function copyArrayElements(source, target, count) {
+    for (var i = 0; i < count; i++) {
+        target[i] = source[i];
+    }
+}
+
 Kotlin.deleteProperty = function (object, property) {
     delete object[property];
 };
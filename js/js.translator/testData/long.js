@@ -129,10 +129,26 @@ Kotlin.Long.fromNumber = function(value) {
  * @return {!Kotlin.Long} The corresponding Long value.
  */
 Kotlin.Long.fromBits = function(lowBits, highBits) {
+  if (highBits === (lowBits >> 31) && -128 <= lowBits && lowBits < 128) {
+    return Kotlin.Long.fromInt(lowBits);
+  }
   return new Kotlin.Long(lowBits, highBits);
 };
 
 
+/**
+ * Returns a Long representing the given value, which must be an integer in
+ * the range [-2^53, 2^53], so that its bits can be taken directly.
+ * @param {number} value The number in question.
+ * @return {!Kotlin.Long} The corresponding Long value.
+ * @private
+ */
+Kotlin.Long.fromSafeNumber_ = function(value) {
+  return Kotlin.Long.fromBits(
+      value | 0, Math.floor(value / Kotlin.Long.TWO_PWR_32_DBL_) | 0);
+};
+
+
 /**
  * Returns a Long representation of the given string, written using the given
  * radix.
@@ -236,6 +252,14 @@ Kotlin.Long.TWO_PWR_63_DBL_ =
     Kotlin.Long.TWO_PWR_64_DBL_ / 2;
 
 
+/**
+ * @type {number}
+ * @private
+ */
+Kotlin.Long.TWO_PWR_53_DBL_ =
+    Kotlin.Long.TWO_PWR_32_DBL_ * (1 << 21);
+
+
 /** @type {!Kotlin.Long} */
 Kotlin.Long.ZERO = Kotlin.Long.fromInt(0);
 
@@ -296,6 +320,11 @@ Kotlin.Long.prototype.toString = function(opt_radix) {
     return '0';
   }
 
+  if (this.isSafeInteger_()) {
+    // Number.prototype.toString is exact for integers
+    return this.toNumber().toString(radix);
+  }
+
   if (this.isNegative()) {
     if (this.equalsLong(Kotlin.Long.MIN_VALUE)) {
       // We need to change the Long value before it can be negated, so we remove
@@ -375,6 +404,26 @@ Kotlin.Long.prototype.getNumBitsAbs = function() {
 };
 
 
+/**
+ * @return {boolean} Whether this value fits into a 32-bit integer.
+ * @private
+ */
+Kotlin.Long.prototype.isInt_ = function() {
+  return this.high_ === (this.low_ >> 31);
+};
+
+
+/**
+ * @return {boolean} Whether this value is in the range [-2^53, 2^53), so that
+ *     it is represented exactly by toNumber().
+ * @private
+ */
+Kotlin.Long.prototype.isSafeInteger_ = function() {
+  var high = this.high_;
+  return -0x200000 <= high && high < 0x200000;
+};
+
+
 /** @return {boolean} Whether this value is zero. */
 Kotlin.Long.prototype.isZero = function() {
   return this.high_ == 0 && this.low_ == 0;
@@ -454,35 +503,46 @@ Kotlin.Long.prototype.greaterThanOrEqual = function(other) {
  *     if the given one is greater.
  */
 Kotlin.Long.prototype.compare = function(other) {
-  if (this.equalsLong(other)) {
-    return 0;
-  }
+  return Kotlin.Long.compareBits_(this.low_, this.high_, other.low_, other.high_);
+};
 
-  var thisNeg = this.isNegative();
-  var otherNeg = other.isNegative();
-  if (thisNeg && !otherNeg) {
-    return -1;
-  }
-  if (!thisNeg && otherNeg) {
-    return 1;
-  }
 
-  // at this point, the signs are the same, so subtraction will not overflow
-  if (this.subtract(other).isNegative()) {
-    return -1;
-  } else {
-    return 1;
+/**
+ * Compares this Long with the given 32-bit integer without converting it to
+ * a Long.
+ * @param {number} value The 32-bit integer to compare against.
+ * @return {number} 0 if they are the same, 1 if the this is greater, and -1
+ *     if the given one is greater.
+ */
+Kotlin.Long.prototype.compareToInt = function(value) {
+  return Kotlin.Long.compareBits_(this.low_, this.high_, value | 0, value >> 31);
+};
+
+
+/**
+ * Compares two longs given by their bits: high bits as signed values, then
+ * low bits as unsigned ones.
+ * @return {number} 0 if they are the same, 1 if the first is greater, and -1
+ *     if the second is greater.
+ * @private
+ */
+Kotlin.Long.compareBits_ = function(low1, high1, low2, high2) {
+  if (high1 !== high2) {
+    return high1 < high2 ? -1 : 1;
   }
+  if (low1 === low2) {
+    return 0;
+  }
+  return (low1 >>> 0) < (low2 >>> 0) ? -1 : 1;
 };
 
 
 /** @return {!Kotlin.Long} The negation of this value. */
 Kotlin.Long.prototype.negate = function() {
-  if (this.equalsLong(Kotlin.Long.MIN_VALUE)) {
-    return Kotlin.Long.MIN_VALUE;
-  } else {
-    return this.not().add(Kotlin.Long.ONE);
-  }
+  // -x == ~x + 1, the carry only reaches the high bits if the low bits are 0;
+  // -MIN_VALUE == MIN_VALUE comes out naturally
+  var low = -this.low_ | 0;
+  return Kotlin.Long.fromBits(low, (~this.high_ + (low === 0 ? 1 : 0)) | 0);
 };
 
 
@@ -492,6 +552,10 @@ Kotlin.Long.prototype.negate = function() {
  * @return {!Kotlin.Long} The sum of this and the given Long.
  */
 Kotlin.Long.prototype.add = function(other) {
+  if (this.isInt_() && other.isInt_()) {
+    return Kotlin.Long.fromSafeNumber_(this.low_ + other.low_);
+  }
+
   // Divide each number into 4 chunks of 16 bits, and then sum the chunks.
 
   var a48 = this.high_ >>> 16;
@@ -526,6 +590,9 @@ Kotlin.Long.prototype.add = function(other) {
  * @return {!Kotlin.Long} The difference of this and the given Long.
  */
 Kotlin.Long.prototype.subtract = function(other) {
+  if (this.isInt_() && other.isInt_()) {
+    return Kotlin.Long.fromSafeNumber_(this.low_ - other.low_);
+  }
   return this.add(other.negate());
 };
 
@@ -542,6 +609,14 @@ Kotlin.Long.prototype.multiply = function(other) {
     return Kotlin.Long.ZERO;
   }
 
+  // The floating-point product is exact if its magnitude is less than 2^53
+  if (this.isSafeInteger_() && other.isSafeInteger_()) {
+    var product = this.toNumber() * other.toNumber();
+    if (-Kotlin.Long.TWO_PWR_53_DBL_ < product && product < Kotlin.Long.TWO_PWR_53_DBL_) {
+      return Kotlin.Long.fromSafeNumber_(product);
+    }
+  }
+
   if (this.equalsLong(Kotlin.Long.MIN_VALUE)) {
     return other.isOdd() ? Kotlin.Long.MIN_VALUE : Kotlin.Long.ZERO;
   } else if (other.equalsLong(Kotlin.Long.MIN_VALUE)) {
@@ -614,6 +689,13 @@ Kotlin.Long.prototype.div = function(other) {
     return Kotlin.Long.ZERO;
   }
 
+  if (this.isSafeInteger_() && other.isSafeInteger_()) {
+    // % is exact, so the division of the difference is too
+    var thisNumber = this.toNumber();
+    var otherNumber = other.toNumber();
+    return Kotlin.Long.fromSafeNumber_((thisNumber - thisNumber % otherNumber) / otherNumber);
+  }
+
   if (this.equalsLong(Kotlin.Long.MIN_VALUE)) {
     if (other.equalsLong(Kotlin.Long.ONE) ||
         other.equalsLong(Kotlin.Long.NEG_ONE)) {
@@ -692,6 +774,9 @@ Kotlin.Long.prototype.div = function(other) {
  * @return {!Kotlin.Long} This Long modulo the given one.
  */
 Kotlin.Long.prototype.modulo = function(other) {
+  if (this.isSafeInteger_() && other.isSafeInteger_() && !other.isZero()) {
+    return Kotlin.Long.fromSafeNumber_(this.toNumber() % other.toNumber());
+  }
   return this.subtract(this.div(other).multiply(other));
 };
 
@@ -4,6 +4,10 @@ import org.objectweb.asm.*
 import org.objectweb.asm.tree.*
 import java.io.File
 import java.io.InputStream
+import java.security.MessageDigest
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
 import java.util.jar.JarFile
 
 fun main(args: Array<String>) {
@@ -18,33 +22,101 @@ fun main(args: Array<String>) {
 fun JarFile.classEntries() = entries().asSequence().filter { !it.isDirectory && it.name.endsWith(".class") }
 
 
-fun getBinaryAPI(jar: JarFile, visibilityMap: Map<String, ClassVisibility>): List<ClassBinarySignature> =
-        getBinaryAPI(jar.classEntries().map { entry -> jar.getInputStream(entry) }, visibilityMap)
+/**
+ * Reads the class entries of [jar] sequentially and parses them on [parallelism] threads.
+ */
+fun getBinaryAPI(jar: JarFile, visibilityMap: Map<String, ClassVisibility>, parallelism: Int = Runtime.getRuntime().availableProcessors()): List<ClassBinarySignature> {
+    val executor = Executors.newFixedThreadPool(parallelism)
+    try {
+        val signatures = jar.classEntries().map { entry ->
+            val bytes = jar.getInputStream(entry).use { it.readBytes() }
+            executor.submit(Callable { ClassReader(bytes).toBinarySignature(visibilityMap) })
+        }.toList()
+
+        return signatures.map {
+            try {
+                it.get()
+            }
+            catch (e: ExecutionException) {
+                throw e.cause ?: e
+            }
+        }.sortedBy { it.name }
+    }
+    finally {
+        executor.shutdown()
+    }
+}
 
 fun getBinaryAPI(classStreams: Sequence<InputStream>, visibilityMap: Map<String, ClassVisibility>): List<ClassBinarySignature> =
-        classStreams.map { it.use { stream ->
-                val classNode = ClassNode()
-                ClassReader(stream).accept(classNode, ClassReader.SKIP_CODE)
-                classNode
-            }
+        classStreams.map { it.use { stream -> ClassReader(stream).toBinarySignature(visibilityMap) } }
+        .asIterable()
+        .sortedBy { it.name }
+
+private fun ClassReader.toBinarySignature(visibilityMap: Map<String, ClassVisibility>): ClassBinarySignature {
+    // only the declarations are needed for the signatures, neither the code nor the debug info
+    val classNode = ClassNode()
+    accept(classNode, ClassReader.SKIP_CODE or ClassReader.SKIP_DEBUG or ClassReader.SKIP_FRAMES)
+
+    return with(classNode) {
+        val classVisibility = visibilityMap[name]
+        val classAccess = AccessFlags(effectiveAccess and Opcodes.ACC_STATIC.inv())
+
+        val supertypes = listOf(superName) - "java/lang/Object" + interfaces.sorted()
+
+        val memberSignatures = (
+                fields.map { with(it) { FieldBinarySignature(name, desc, isPublishedApi(), AccessFlags(access)) } } +
+                methods.map { with(it) { MethodBinarySignature(name, desc, isPublishedApi(), AccessFlags(access)) } }
+        ).filter {
+            it.isEffectivelyPublic(classAccess, classVisibility)
         }
-        .map { with(it) {
-            val classVisibility = visibilityMap[name]
-            val classAccess = AccessFlags(effectiveAccess and Opcodes.ACC_STATIC.inv())
 
-            val supertypes = listOf(superName) - "java/lang/Object" + interfaces.sorted()
+        ClassBinarySignature(name, superName, outerClassName, supertypes, memberSignatures, classAccess, isEffectivelyPublic(classVisibility), isFileOrMultipartFacade() || isDefaultImpls())
+    }
+}
 
-            val memberSignatures = (
-                    fields.map { with(it) { FieldBinarySignature(name, desc, isPublishedApi(), AccessFlags(access)) } } +
-                    methods.map { with(it) { MethodBinarySignature(name, desc, isPublishedApi(), AccessFlags(access)) } }
-            ).filter {
-                it.isEffectivelyPublic(classAccess, classVisibility)
-            }
+/**
+ * Returns the public API dump of [jarFile], reusing the dump stored in [cacheDir]
+ * while the content of the jar, the visibility map and [PUBLIC_API_DUMP_FORMAT_VERSION] stay unchanged.
+ */
+fun dumpPublicAPICached(jarFile: File, visibilityMap: Map<String, ClassVisibility>, cacheDir: File): String {
+    val cacheFile = File(cacheDir, publicAPICacheKey(jarFile, visibilityMap) + ".txt")
+    if (cacheFile.isFile) return cacheFile.readText()
+
+    val api = JarFile(jarFile).use { getBinaryAPI(it, visibilityMap) }
+    val dump = api.filterOutNonPublic().dump(to = StringBuilder()).toString()
+
+    cacheDir.mkdirs()
+    val tempFile = File(cacheDir, cacheFile.name + ".tmp")
+    tempFile.writeText(dump)
+    if (!tempFile.renameTo(cacheFile)) {
+        tempFile.delete()
+    }
+    return dump
+}
 
-            ClassBinarySignature(name, superName, outerClassName, supertypes, memberSignatures, classAccess, isEffectivelyPublic(classVisibility), isFileOrMultipartFacade() || isDefaultImpls())
-        }}
-        .asIterable()
-        .sortedBy { it.name }
+/**
+ * Version of the cached dumps, has to be incremented whenever the signatures or the dump format change,
+ * so that the dumps made by the previous version of the tool are not reused.
+ */
+const val PUBLIC_API_DUMP_FORMAT_VERSION = 1
+
+internal fun publicAPICacheKey(jarFile: File, visibilityMap: Map<String, ClassVisibility>): String {
+    val digest = MessageDigest.getInstance("SHA-1")
+    digest.update("$PUBLIC_API_DUMP_FORMAT_VERSION\n".toByteArray())
+    jarFile.inputStream().use { stream ->
+        val buffer = ByteArray(64 * 1024)
+        while (true) {
+            val read = stream.read(buffer)
+            if (read < 0) break
+            digest.update(buffer, 0, read)
+        }
+    }
+    // the hash code of the map is too weak to tell visibility maps apart, their content is digested instead
+    for ((name, visibility) in visibilityMap.entries.sortedBy { it.key }) {
+        digest.update("$name\t${visibility.visibility}\t${visibility.members.entries.map { it.value }.sortedBy { it.toString() }}\n".toByteArray())
+    }
+    return "v$PUBLIC_API_DUMP_FORMAT_VERSION-" + digest.digest().joinToString("") { String.format("%02x", it) }
+}
 
 
 
@@ -0,0 +1,66 @@
+package org.jetbrains.kotlin.tools.tests
+
+import org.jetbrains.kotlin.tools.*
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.File
+import java.util.jar.JarFile
+import java.util.jar.JarOutputStream
+import java.util.zip.ZipEntry
+import kotlin.test.assertEquals
+import kotlin.test.assertNotEquals
+import kotlin.test.assertTrue
+
+class PublicApiDumpCacheTest {
+
+    @[Rule JvmField]
+    val tmpDir = TemporaryFolder()
+
+    @Test fun cachedDumpIsEqualToUncached() {
+        val jarFile = jarOf("public")
+        val cacheDir = tmpDir.newFolder("cache")
+
+        val uncached = JarFile(jarFile).use { getBinaryAPI(it, CasesPublicAPITest.visibilities) }
+                .filterOutNonPublic().dump(to = StringBuilder()).toString()
+
+        assertEquals(uncached, dumpPublicAPICached(jarFile, CasesPublicAPITest.visibilities, cacheDir))
+        assertEquals(uncached, dumpPublicAPICached(jarFile, CasesPublicAPITest.visibilities, cacheDir))
+    }
+
+    @Test fun cachedDumpIsReused() {
+        val jarFile = jarOf("public")
+        val cacheDir = tmpDir.newFolder("cache")
+
+        dumpPublicAPICached(jarFile, CasesPublicAPITest.visibilities, cacheDir)
+        val cacheFile = cacheDir.listFiles()!!.single()
+        assertTrue(cacheFile.name.startsWith("v$PUBLIC_API_DUMP_FORMAT_VERSION-"), cacheFile.name)
+
+        cacheFile.writeText("cached")
+        assertEquals("cached", dumpPublicAPICached(jarFile, CasesPublicAPITest.visibilities, cacheDir))
+    }
+
+    @Test fun keyDependsOnJarAndVisibilities() {
+        val publicJar = jarOf("public")
+        val privateJar = jarOf("private")
+        val visibilities = CasesPublicAPITest.visibilities
+
+        assertEquals(publicAPICacheKey(publicJar, visibilities), publicAPICacheKey(publicJar, visibilities))
+        assertNotEquals(publicAPICacheKey(publicJar, visibilities), publicAPICacheKey(privateJar, visibilities))
+        assertNotEquals(publicAPICacheKey(publicJar, visibilities), publicAPICacheKey(publicJar, emptyMap()))
+    }
+
+    private fun jarOf(testCase: String): File {
+        val classes = CasesPublicAPITest.baseClassPath.resolve(testCase).listFiles { file -> file.name.endsWith(".class") }
+                      ?: throw IllegalStateException("Cannot list files in $testCase")
+        val jarFile = File(tmpDir.root, "$testCase.jar")
+        JarOutputStream(jarFile.outputStream()).use { jar ->
+            for (classFile in classes.sortedBy { it.name }) {
+                jar.putNextEntry(ZipEntry("cases/$testCase/${classFile.name}"))
+                jar.write(classFile.readBytes())
+                jar.closeEntry()
+            }
+        }
+        return jarFile
+    }
+}
@@ -22,7 +22,6 @@ import org.junit.Rule
 import org.junit.Test
 import org.junit.rules.TestName
 import java.io.File
-import java.util.jar.JarFile
 
 class RuntimePublicAPITest {
 
@@ -56,7 +55,7 @@ class RuntimePublicAPITest {
                 .filterKeys { name -> publicPackagePrefixes.none { name.startsWith(it) } }
 
         println("Reading binary API from $jarFile")
-        val api = getBinaryAPI(JarFile(jarFile), visibilities).filterOutNonPublic()
+        val api = dumpPublicAPICached(jarFile, visibilities, File("target/public-api-cache"))
 
         val target = File("reference-public-api")
                 .resolve(testName.methodName.replaceCamelCaseWithDashedLowerCase() + ".txt")
@@ -7,14 +7,15 @@ import kotlin.test.fail
 
 private val OVERWRITE_EXPECTED_OUTPUT = System.getProperty("overwrite.output")?.toBoolean() ?: false // use -Doverwrite.output=true
 
-fun List<ClassBinarySignature>.dumpAndCompareWith(to: File) {
+fun List<ClassBinarySignature>.dumpAndCompareWith(to: File) = dump(to = StringBuilder()).dumpAndCompareWith(to)
+
+fun CharSequence.dumpAndCompareWith(to: File) {
     if (!to.exists()) {
         to.parentFile?.mkdirs()
-        to.bufferedWriter().use { dump(to = it) }
+        to.writeText(toString())
         fail("Expected data file did not exist. Generating: $to")
     } else {
-        val actual = dump(to = StringBuilder())
-        assertEqualsToFile(to, actual)
+        assertEqualsToFile(to, this)
     }
 }
 
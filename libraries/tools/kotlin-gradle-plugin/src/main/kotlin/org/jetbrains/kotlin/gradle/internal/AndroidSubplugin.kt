@@ -80,6 +80,7 @@ class AndroidSubplugin : KotlinGradleSubplugin<KotlinCompile> {
             ""
         }
         pluginOptions += SubpluginOption("package", applicationPackage)
+        pluginOptions += SubpluginOption("cache", File(kotlinCompile.taskBuildDirectory, "android-layouts").canonicalPath)
 
         fun addVariant(sourceSet: AndroidSourceSet) {
             pluginOptions += SubpluginOption("variant", sourceSet.name + ';' +
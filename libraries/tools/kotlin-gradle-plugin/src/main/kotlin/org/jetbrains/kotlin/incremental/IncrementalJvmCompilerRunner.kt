@@ -106,6 +106,9 @@ internal class IncrementalJvmCompilerRunner(
     private val cacheDirectory = File(workingDir, CACHES_DIR_NAME)
     private val dirtySourcesSinceLastTimeFile = File(workingDir, DIRTY_SOURCES_FILE_NAME)
     private val lastBuildInfoFile = File(workingDir, LAST_BUILD_INFO_FILE_NAME)
+    private val classpathSnapshotsDir = File(workingDir, CLASSPATH_SNAPSHOTS_DIR_NAME)
+    private var modifiedClasspathJars: List<File> = emptyList()
+    private val newClasspathSnapshots = HashMap<File, ClasspathEntrySnapshot>()
 
     fun compile(
             allKotlinSources: List<File>,
@@ -180,6 +183,7 @@ internal class IncrementalJvmCompilerRunner(
 
         val classpathSet = args.classpathAsList.toHashSet()
         val modifiedClasspathEntries = changedFiles.modified.filter {it in classpathSet}
+        modifiedClasspathJars = modifiedClasspathEntries.filter(File::isJar)
         val lastBuildInfo = BuildInfo.read(lastBuildInfoFile)
         reporter.report { "Last Kotlin Build info -- $lastBuildInfo" }
         val classpathChanges = getClasspathChanges(modifiedClasspathEntries, lastBuildInfo)
@@ -233,43 +237,83 @@ internal class IncrementalJvmCompilerRunner(
             reporter.report {"No classpath changes"}
             return ChangesEither.Known()
         }
+
+        val symbols = HashSet<LookupSymbol>()
+        val fqNames = HashSet<FqName>()
+        for (file in modifiedClasspath) {
+            val dirtyData = getChangesFromArtifactHistory(file, lastBuildInfo) ?: getChangesFromClasspathSnapshot(file)
+            if (dirtyData == null) {
+                reporter.report {"Could not get changes for file: $file"}
+                return ChangesEither.Unknown()
+            }
+
+            symbols.addAll(dirtyData.dirtyLookupSymbols)
+            fqNames.addAll(dirtyData.dirtyClassesFqNames)
+        }
+
+        return ChangesEither.Known(symbols, fqNames)
+    }
+
+    private fun getChangesFromArtifactHistory(file: File, lastBuildInfo: BuildInfo?): DirtyData? {
         if (artifactDifferenceRegistryProvider == null) {
             reporter.report {"No artifact history provider"}
-            return ChangesEither.Unknown()
+            return null
         }
 
         val lastBuildTS = lastBuildInfo?.startTS
         if (lastBuildTS == null) {
             reporter.report {"Could not determine last build timestamp"}
-            return ChangesEither.Unknown()
+            return null
         }
 
-        val symbols = HashSet<LookupSymbol>()
-        val fqNames = HashSet<FqName>()
-        for (file in modifiedClasspath) {
-            val diffs = artifactDifferenceRegistryProvider.withRegistry(reporter) {artifactDifferenceRegistry ->
-                artifactDifferenceRegistry[file]
-            }
-            if (diffs == null) {
-                reporter.report {"Could not get changes for file: $file"}
-                return ChangesEither.Unknown()
-            }
+        val diffs = artifactDifferenceRegistryProvider.withRegistry(reporter) {artifactDifferenceRegistry ->
+            artifactDifferenceRegistry[file]
+        }
+        if (diffs == null) {
+            reporter.report {"No artifact history for file: $file"}
+            return null
+        }
 
-            val (beforeLastBuild, afterLastBuild) = diffs.partition {it.buildTS < lastBuildTS}
-            if (beforeLastBuild.isEmpty()) {
-                reporter.report {"No known build preceding timestamp $lastBuildTS for file $file"}
-                return ChangesEither.Unknown()
-            }
+        val (beforeLastBuild, afterLastBuild) = diffs.partition {it.buildTS < lastBuildTS}
+        if (beforeLastBuild.isEmpty()) {
+            reporter.report {"No known build preceding timestamp $lastBuildTS for file $file"}
+            return null
+        }
 
-            afterLastBuild.forEach {
-                symbols.addAll(it.dirtyData.dirtyLookupSymbols)
-                fqNames.addAll(it.dirtyData.dirtyClassesFqNames)
-            }
+        return DirtyData(afterLastBuild.flatMap { it.dirtyData.dirtyLookupSymbols },
+                         afterLastBuild.flatMap { it.dirtyData.dirtyClassesFqNames })
+    }
+
+    private fun getChangesFromClasspathSnapshot(file: File): DirtyData? {
+        if (!file.isJar()) return null
+
+        val oldSnapshot = ClasspathEntrySnapshot.read(classpathSnapshotFile(file))
+        if (oldSnapshot == null) {
+            reporter.report {"No ABI snapshot for file: $file"}
+            return null
         }
 
-        return ChangesEither.Known(symbols, fqNames)
+        val newSnapshot = ClasspathEntrySnapshot.create(file)
+        newClasspathSnapshots[file] = newSnapshot
+        reporter.report {"Comparing ABI snapshots of $file"}
+        return newSnapshot.compareTo(oldSnapshot)
+    }
+
+    private fun saveClasspathSnapshots(jars: Iterable<File>) {
+        for (jar in jars) {
+            if (!jar.isJar()) continue
+
+            val snapshotFile = classpathSnapshotFile(jar)
+            val snapshot = newClasspathSnapshots[jar] ?:
+                           if (ClasspathEntrySnapshot.readStamp(snapshotFile) == ClasspathEntrySnapshot.stampOf(jar)) continue
+                           else ClasspathEntrySnapshot.create(jar)
+            ClasspathEntrySnapshot.write(snapshot, snapshotFile)
+        }
     }
 
+    private fun classpathSnapshotFile(jar: File): File =
+            File(classpathSnapshotsDir, jar.nameWithoutExtension + "-" + java.lang.Long.toHexString(jar.canonicalPath.toByteArray().md5()) + ".bin")
+
     private fun compileIncrementally(
             args: K2JVMCompilerArguments,
             caches: IncrementalCachesManager,
@@ -396,6 +440,7 @@ internal class IncrementalJvmCompilerRunner(
         if (exitCode == ExitCode.OK) {
             sourceAnnotationsRegistry?.flush()
             cacheVersions.forEach { it.saveIfNeeded() }
+            saveClasspathSnapshots(if (compilationMode is CompilationMode.Rebuild) args.classpathAsList else modifiedClasspathJars)
         }
 
         return exitCode
@@ -501,6 +546,7 @@ internal class IncrementalJvmCompilerRunner(
         const val CACHES_DIR_NAME = "caches"
         const val DIRTY_SOURCES_FILE_NAME = "dirty-sources.txt"
         const val LAST_BUILD_INFO_FILE_NAME = "last-build.bin"
+        const val CLASSPATH_SNAPSHOTS_DIR_NAME = "classpath-snapshots"
     }
 }
 
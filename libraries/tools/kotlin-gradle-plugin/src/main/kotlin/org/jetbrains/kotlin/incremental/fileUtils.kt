@@ -30,6 +30,9 @@ internal fun File.isKotlinFile(): Boolean =
 internal fun File.isClassFile(): Boolean =
         extension.equals("class", ignoreCase = true)
 
+internal fun File.isJar(): Boolean =
+        isFile && extension.equals("jar", ignoreCase = true)
+
 internal fun listClassFiles(path: String): Sequence<File> =
         File(path).walk().filter { it.isFile && it.isClassFile() }
 
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.maven;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.Processor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Remembers the compilation environment (versions of the compiler, of the plugin and of the JDK), the compiler arguments,
+ * the input files and the files produced by the last successful compilation, so that a compilation with the same inputs
+ * can be skipped while its outputs are still in place, or an incremental compilation can find the changed input files.
+ */
+class CompilationInputsState {
+    private static final String ENVIRONMENT_PREFIX = "env ";
+    private static final String ARGUMENT_PREFIX = "arg ";
+    private static final String INPUT_PREFIX = "in ";
+    private static final String OUTPUT_PREFIX = "out ";
+
+    private final File stateFile;
+    private final List<String> environment;
+    private final List<String> arguments;
+    private final List<File> inputRoots;
+    private final List<File> outputRoots;
+
+    private Map<String, String> inputStamps;
+    private Map<String, String> outputStampsBeforeCompilation;
+    private Map<String, String> savedOutputs = new HashMap<String, String>();
+
+    CompilationInputsState(
+            @NotNull File stateFile,
+            @NotNull List<String> environment,
+            @NotNull List<String> arguments,
+            @NotNull List<File> inputRoots,
+            @NotNull List<File> outputRoots
+    ) {
+        this.stateFile = stateFile;
+        this.environment = environment;
+        this.arguments = arguments;
+        this.inputRoots = inputRoots;
+        this.outputRoots = outputRoots;
+    }
+
+    boolean isUpToDate() throws IOException {
+        Set<File> changedInputs = getChangedInputs();
+        return changedInputs != null && changedInputs.isEmpty();
+    }
+
+    /**
+     * @return the input files added, modified or removed since the last successful compilation, or null if they are unknown:
+     * there was no such compilation, the environment or the arguments have changed, or its outputs were changed by someone else
+     */
+    @Nullable
+    Set<File> getChangedInputs() throws IOException {
+        outputStampsBeforeCompilation = stamps(outputRoots);
+        inputStamps = stamps(inputRoots);
+        // outputs of the previous compilation may be on the classpath, e.g. for Kotlin/JS
+        inputStamps.keySet().removeAll(outputStampsBeforeCompilation.keySet());
+
+        if (!stateFile.exists()) return null;
+
+        List<String> savedEnvironment = new ArrayList<String>();
+        List<String> savedArguments = new ArrayList<String>();
+        Map<String, String> savedInputs = new HashMap<String, String>();
+        Map<String, String> savedOutputs = new HashMap<String, String>();
+
+        for (String line : FileUtil.loadLines(stateFile)) {
+            if (line.startsWith(ENVIRONMENT_PREFIX)) {
+                savedEnvironment.add(line.substring(ENVIRONMENT_PREFIX.length()));
+            }
+            else if (line.startsWith(ARGUMENT_PREFIX)) {
+                savedArguments.add(line.substring(ARGUMENT_PREFIX.length()));
+            }
+            else if (line.startsWith(INPUT_PREFIX)) {
+                addStamp(savedInputs, line.substring(INPUT_PREFIX.length()));
+            }
+            else if (line.startsWith(OUTPUT_PREFIX)) {
+                addStamp(savedOutputs, line.substring(OUTPUT_PREFIX.length()));
+            }
+        }
+
+        if (!savedEnvironment.equals(environment) || !savedArguments.equals(arguments)) return null;
+
+        for (Map.Entry<String, String> output : savedOutputs.entrySet()) {
+            if (!output.getValue().equals(outputStampsBeforeCompilation.get(output.getKey()))) return null;
+        }
+        this.savedOutputs = savedOutputs;
+
+        Set<File> changedInputs = new HashSet<File>();
+        for (Map.Entry<String, String> input : savedInputs.entrySet()) {
+            if (!input.getValue().equals(inputStamps.get(input.getKey()))) {
+                changedInputs.add(new File(input.getKey()));
+            }
+        }
+        for (String path : inputStamps.keySet()) {
+            if (!savedInputs.containsKey(path)) {
+                changedInputs.add(new File(path));
+            }
+        }
+        return changedInputs;
+    }
+
+    void save() throws IOException {
+        assert inputStamps != null : "isUpToDate() or getChangedInputs() should be called before compilation";
+
+        StringBuilder builder = new StringBuilder();
+        for (String value : environment) {
+            builder.append(ENVIRONMENT_PREFIX).append(value).append('\n');
+        }
+        for (String argument : arguments) {
+            builder.append(ARGUMENT_PREFIX).append(argument).append('\n');
+        }
+        for (Map.Entry<String, String> input : inputStamps.entrySet()) {
+            builder.append(INPUT_PREFIX).append(input.getValue()).append('\t').append(input.getKey()).append('\n');
+        }
+
+        // other plugins may write to the same output directory, so only the files written by this compilation are tracked,
+        // and by the previous ones: an incremental compilation doesn't rewrite the outputs of unchanged sources
+        for (Map.Entry<String, String> output : stamps(outputRoots).entrySet()) {
+            if (savedOutputs.containsKey(output.getKey()) ||
+                !output.getValue().equals(outputStampsBeforeCompilation.get(output.getKey()))) {
+                builder.append(OUTPUT_PREFIX).append(output.getValue()).append('\t').append(output.getKey()).append('\n');
+            }
+        }
+
+        FileUtil.writeToFile(stateFile, builder.toString());
+    }
+
+    void invalidate() {
+        FileUtil.delete(stateFile);
+    }
+
+    private static void addStamp(@NotNull Map<String, String> stamps, @NotNull String line) {
+        int separator = line.indexOf('\t');
+        if (separator >= 0) {
+            stamps.put(line.substring(separator + 1), line.substring(0, separator));
+        }
+    }
+
+    @NotNull
+    private static Map<String, String> stamps(@NotNull List<File> roots) {
+        final Map<String, String> result = new HashMap<String, String>();
+
+        for (File root : roots) {
+            if (!root.exists()) continue;
+
+            FileUtil.processFilesRecursively(root, new Processor<File>() {
+                @Override
+                public boolean process(File file) {
+                    if (file.isFile()) {
+                        result.put(file.getAbsolutePath(), file.length() + ":" + file.lastModified());
+                    }
+                    return true;
+                }
+            });
+        }
+
+        return result;
+    }
+}
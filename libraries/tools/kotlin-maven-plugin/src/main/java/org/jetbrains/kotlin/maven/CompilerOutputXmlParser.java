@@ -0,0 +1,112 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.maven;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.cli.common.messages.CompilerMessageLocation;
+import org.jetbrains.kotlin.cli.common.messages.CompilerMessageSeverity;
+import org.jetbrains.kotlin.cli.common.messages.MessageCollector;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.SAXParserFactory;
+import java.io.StringReader;
+
+/**
+ * Reports the messages of a compilation run with the XML output (as in the daemon) to a {@link MessageCollector},
+ * with the severities and the locations they were reported with.
+ */
+class CompilerOutputXmlParser {
+    private CompilerOutputXmlParser() {}
+
+    static void parse(@NotNull String output, @NotNull MessageCollector messageCollector) {
+        if (output.trim().isEmpty()) return;
+
+        try {
+            SAXParserFactory.newInstance().newSAXParser().parse(new InputSource(new StringReader(output)), new Handler(messageCollector));
+        }
+        catch (Exception e) {
+            // the compiler may print plain text, e.g. the usage for invalid arguments
+            messageCollector.report(CompilerMessageSeverity.ERROR, output, CompilerMessageLocation.NO_LOCATION);
+        }
+    }
+
+    private static class Handler extends DefaultHandler {
+        private final MessageCollector messageCollector;
+        private final StringBuilder message = new StringBuilder();
+        private int depth;
+        private String path;
+        private int line;
+        private int column;
+
+        Handler(@NotNull MessageCollector messageCollector) {
+            this.messageCollector = messageCollector;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            depth++;
+            message.setLength(0);
+            path = attributes.getValue("path");
+            line = parseInt(attributes.getValue("line"));
+            column = parseInt(attributes.getValue("column"));
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            // text directly inside the root element is not a message
+            if (depth > 1) {
+                message.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            depth--;
+            if (depth == 0) return;
+
+            CompilerMessageSeverity severity = severityOf(qName);
+            // OUTPUT messages list the files written by the compiler, they are not shown in Maven
+            if (severity == CompilerMessageSeverity.OUTPUT) return;
+
+            messageCollector.report(severity, message.toString(), CompilerMessageLocation.create(path, line, column, null));
+        }
+
+        @NotNull
+        private static CompilerMessageSeverity severityOf(@NotNull String tag) {
+            try {
+                return CompilerMessageSeverity.valueOf(tag.toUpperCase());
+            }
+            catch (IllegalArgumentException e) {
+                return CompilerMessageSeverity.INFO;
+            }
+        }
+
+        private static int parseInt(@Nullable String value) {
+            if (value == null) return -1;
+
+            try {
+                return Integer.parseInt(value.trim());
+            }
+            catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.maven;
+
+import org.apache.maven.plugin.logging.Log;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.cli.common.ExitCode;
+import org.jetbrains.kotlin.cli.common.messages.MessageCollector;
+import org.jetbrains.kotlin.config.KotlinCompilerVersion;
+import org.jetbrains.kotlin.daemon.client.*;
+import org.jetbrains.kotlin.daemon.common.*;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.rmi.NoSuchObjectException;
+import java.rmi.Remote;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs compilations in a Kotlin compile daemon, which keeps the compiler loaded and JIT-compiled between Maven builds.
+ */
+class DaemonCompilation {
+    private DaemonCompilation() {}
+
+    /**
+     * @return the exit code of the compilation, or null if the daemon could not be used
+     */
+    @Nullable
+    static ExitCode compile(
+            @NotNull CompileService.TargetPlatform targetPlatform,
+            @NotNull List<String> arguments,
+            @NotNull MessageCollector messageCollector,
+            @NotNull Log log
+    ) {
+        File compilerJar = getCompilerJar();
+        if (compilerJar == null) {
+            log.warn("Could not locate the Kotlin compiler jar, falling back to compilation without daemon");
+            return null;
+        }
+
+        List<DaemonReportMessage> daemonReportMessages = new ArrayList<DaemonReportMessage>();
+        CompileService daemon = KotlinCompilerClient.INSTANCE.connectToCompileService(
+                CompilerId.makeCompilerId(compilerJar),
+                DaemonParamsKt.configureDaemonJVMOptions(new String[0], true, true),
+                DaemonParamsKt.configureDaemonOptions(),
+                new DaemonReportingTargets(null, daemonReportMessages),
+                true,
+                true);
+
+        for (DaemonReportMessage message : daemonReportMessages) {
+            log.debug("Kotlin daemon: " + message.getMessage());
+        }
+
+        if (daemon == null) {
+            log.warn("Could not connect to the Kotlin compile daemon, falling back to compilation without daemon");
+            return null;
+        }
+
+        ByteArrayOutputStream compilerOut = new ByteArrayOutputStream();
+        ByteArrayOutputStream daemonOut = new ByteArrayOutputStream();
+        int port = NetworkUtilsKt.getSOCKET_ANY_FREE_PORT();
+        CompilerCallbackServicesFacadeServer servicesFacade = null;
+        RemoteOutputStreamServer compilerOutStream = null;
+        RemoteOutputStreamServer daemonOutStream = null;
+        int exitCode;
+        try {
+            servicesFacade = new CompilerCallbackServicesFacadeServer(null, null, port);
+            compilerOutStream = new RemoteOutputStreamServer(compilerOut, port);
+            daemonOutStream = new RemoteOutputStreamServer(daemonOut, port);
+            // the messages are requested as XML, so that their severities are kept
+            exitCode = daemon.remoteCompile(
+                    CompileService.Companion.getNO_SESSION(), targetPlatform, arguments.toArray(new String[arguments.size()]),
+                    servicesFacade, compilerOutStream, CompileService.OutputFormat.XML, daemonOutStream, null
+            ).get();
+        }
+        catch (Exception e) {
+            // RMI exceptions are not declared by the Kotlin client, so they can't be caught more precisely
+            log.warn("Kotlin compile daemon connection error, falling back to compilation without daemon: " + e.getMessage());
+            return null;
+        }
+        finally {
+            // the objects are exported on creation and would keep RMI threads of the Maven process alive
+            unexport(servicesFacade);
+            unexport(compilerOutStream);
+            unexport(daemonOutStream);
+        }
+
+        CompilerOutputXmlParser.parse(compilerOut.toString(), messageCollector);
+        reportDaemonOutput(daemonOut, log);
+
+        for (ExitCode code : ExitCode.values()) {
+            if (code.getCode() == exitCode) return code;
+        }
+        return ExitCode.INTERNAL_ERROR;
+    }
+
+    private static void unexport(@Nullable Remote object) {
+        if (object == null) return;
+
+        try {
+            UnicastRemoteObject.unexportObject(object, true);
+        }
+        catch (NoSuchObjectException ignored) {
+            // not exported
+        }
+    }
+
+    private static void reportDaemonOutput(@NotNull ByteArrayOutputStream daemonOut, @NotNull Log log) {
+        BufferedReader reader = new BufferedReader(new StringReader(daemonOut.toString()));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                log.debug("Kotlin daemon: " + line);
+            }
+        }
+        catch (IOException ignored) {
+            // reading from a string
+        }
+    }
+
+    @Nullable
+    private static File getCompilerJar() {
+        try {
+            File file = new File(KotlinCompilerVersion.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            return file.isFile() ? file : null;
+        }
+        catch (URISyntaxException e) {
+            return null;
+        }
+        catch (SecurityException e) {
+            return null;
+        }
+    }
+}
@@ -18,6 +18,7 @@ package org.jetbrains.kotlin.maven;
 
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.util.Disposer;
+import kotlin.jvm.functions.Function1;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.DefaultArtifact;
 import org.apache.maven.artifact.handler.ArtifactHandler;
@@ -37,6 +38,7 @@ import org.codehaus.plexus.component.repository.ComponentDependency;
 import org.jetbrains.kotlin.cli.common.CLIConfigurationKeys;
 import org.jetbrains.kotlin.utils.ReflectionUtilKt;
 import org.jetbrains.kotlin.cli.jvm.K2JVMCompiler;
+import org.jetbrains.kotlin.cli.jvm.compiler.CompiledScriptCache;
 import org.jetbrains.kotlin.cli.jvm.compiler.EnvironmentConfigFiles;
 import org.jetbrains.kotlin.cli.jvm.compiler.KotlinCoreEnvironment;
 import org.jetbrains.kotlin.cli.jvm.compiler.KotlinToJVMBytecodeCompiler;
@@ -57,6 +59,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 
@@ -116,6 +119,19 @@ public class ExecuteKotlinScriptMojo extends AbstractMojo {
     @Parameter(property = "kotlin.compiler.scriptClasspath", required = false, readonly = false)
     protected List<String> scriptClasspath;
 
+    /**
+     * Cache compiled scripts in {@link #scriptCacheDirectory} and reuse them while the script, its templates and classpath
+     * stay unchanged.
+     */
+    @Parameter(property = "kotlin.script.cache", defaultValue = "false")
+    private boolean useScriptCache;
+
+    /**
+     * The directory of the compiled scripts cache, used when {@link #useScriptCache} is set.
+     */
+    @Parameter(property = "kotlin.script.cacheDirectory", defaultValue = "${project.build.directory}/kotlin-script-cache")
+    private File scriptCacheDirectory;
+
     @Component
     private ArtifactHandlerManager artifactHandlerManager;
 
@@ -182,31 +198,32 @@ public class ExecuteKotlinScriptMojo extends AbstractMojo {
                 }
             }
 
-            configuration.add(JVMConfigurationKeys.CONTENT_ROOTS, new KotlinSourceRoot(scriptFile.getAbsolutePath()));
-            configuration.put(CommonConfigurationKeys.MODULE_NAME, JvmAbi.DEFAULT_MODULE_NAME);
-
-            K2JVMCompiler.Companion.configureScriptDefinitions(scriptTemplates.toArray(new String[scriptTemplates.size()]), configuration, messageCollector, new HashMap<String, Object>());
-
-            KotlinCoreEnvironment environment = KotlinCoreEnvironment.createForProduction(rootDisposable, configuration, EnvironmentConfigFiles.JVM_CONFIG_FILES);
-
-            GenerationState state = KotlinToJVMBytecodeCompiler.INSTANCE.analyzeAndGenerate(environment);
-
-            if (state == null) {
-                throw new ScriptExecutionException(scriptFile, "compile error");
+            CompiledScriptCache.Entry cacheEntry = null;
+            Class<?> klass = null;
+            if (useScriptCache) {
+                // the script is compiled with the default compiler options and without compiler plugins
+                cacheEntry = new CompiledScriptCache(scriptCacheDirectory, CompiledScriptCache.DEFAULT_MAX_SIZE_BYTES)
+                        .entry(scriptFile, scriptTemplates, deps, Collections.<String>emptyList(), Collections.<File>emptyList());
+                if (cacheEntry != null) {
+                    klass = cacheEntry.load(new Function1<List<? extends File>, ClassLoader>() {
+                        @Override
+                        public ClassLoader invoke(List<? extends File> classpath) {
+                            return ExecuteKotlinScriptMojo.class.getClassLoader();
+                        }
+                    });
+                }
+                if (klass != null) {
+                    getLog().debug("Using cached compiled script " + cacheEntry.getKey() + " for " + scriptFile.getAbsolutePath());
+                }
             }
 
-            GeneratedClassLoader classLoader = new GeneratedClassLoader(state.getFactory(), getClass().getClassLoader());
-            KtScript script = environment.getSourceFiles().get(0).getScript();
-            FqName nameForScript = script.getFqName();
-
-            try {
-                Class<?> klass = classLoader.loadClass(nameForScript.asString());
-                ExecuteKotlinScriptMojo.INSTANCE = this;
-                if (ReflectionUtilKt.tryConstructClassFromStringArgs(klass, scriptArguments) == null)
-                    throw new ScriptExecutionException(scriptFile, "unable to construct script");
-            } catch (ClassNotFoundException e) {
-                throw new ScriptExecutionException(scriptFile, "internal error", e);
+            if (klass == null) {
+                klass = compileScript(scriptFile, configuration, messageCollector, cacheEntry, deps, rootDisposable);
             }
+
+            ExecuteKotlinScriptMojo.INSTANCE = this;
+            if (ReflectionUtilKt.tryConstructClassFromStringArgs(klass, scriptArguments) == null)
+                throw new ScriptExecutionException(scriptFile, "unable to construct script");
         }
         finally {
             rootDisposable.dispose();
@@ -214,6 +231,43 @@ public class ExecuteKotlinScriptMojo extends AbstractMojo {
         }
     }
 
+    private Class<?> compileScript(
+            File scriptFile,
+            CompilerConfiguration configuration,
+            MavenPluginLogMessageCollector messageCollector,
+            CompiledScriptCache.Entry cacheEntry,
+            List<File> deps,
+            Disposable rootDisposable
+    ) throws MojoExecutionException {
+        configuration.add(JVMConfigurationKeys.CONTENT_ROOTS, new KotlinSourceRoot(scriptFile.getAbsolutePath()));
+        configuration.put(CommonConfigurationKeys.MODULE_NAME, JvmAbi.DEFAULT_MODULE_NAME);
+
+        K2JVMCompiler.Companion.configureScriptDefinitions(scriptTemplates.toArray(new String[scriptTemplates.size()]), configuration, messageCollector, new HashMap<String, Object>());
+
+        KotlinCoreEnvironment environment = KotlinCoreEnvironment.createForProduction(rootDisposable, configuration, EnvironmentConfigFiles.JVM_CONFIG_FILES);
+
+        GenerationState state = KotlinToJVMBytecodeCompiler.INSTANCE.analyzeAndGenerate(environment);
+
+        if (state == null) {
+            throw new ScriptExecutionException(scriptFile, "compile error");
+        }
+
+        KtScript script = environment.getSourceFiles().get(0).getScript();
+        FqName nameForScript = script.getFqName();
+
+        if (cacheEntry != null) {
+            cacheEntry.save(state.getFactory(), nameForScript.asString(), deps);
+        }
+
+        GeneratedClassLoader classLoader = new GeneratedClassLoader(state.getFactory(), getClass().getClassLoader());
+
+        try {
+            return classLoader.loadClass(nameForScript.asString());
+        } catch (ClassNotFoundException e) {
+            throw new ScriptExecutionException(scriptFile, "internal error", e);
+        }
+    }
+
     private List<File> getDependenciesForScript() throws MojoExecutionException {
         List<File> deps = new ArrayList<File>();
 
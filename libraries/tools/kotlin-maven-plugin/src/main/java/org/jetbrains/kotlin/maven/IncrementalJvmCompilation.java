@@ -0,0 +1,421 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.maven;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.Processor;
+import kotlin.jvm.functions.Function0;
+import org.apache.maven.plugin.logging.Log;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.build.GeneratedFile;
+import org.jetbrains.kotlin.build.GeneratedFilesKt;
+import org.jetbrains.kotlin.build.GeneratedJvmClass;
+import org.jetbrains.kotlin.cli.common.ExitCode;
+import org.jetbrains.kotlin.cli.common.arguments.K2JVMCompilerArguments;
+import org.jetbrains.kotlin.cli.common.messages.CompilerMessageLocation;
+import org.jetbrains.kotlin.cli.common.messages.CompilerMessageSeverity;
+import org.jetbrains.kotlin.cli.common.messages.MessageCollector;
+import org.jetbrains.kotlin.cli.common.messages.OutputMessageUtil;
+import org.jetbrains.kotlin.cli.jvm.K2JVMCompiler;
+import org.jetbrains.kotlin.config.IncrementalCompilation;
+import org.jetbrains.kotlin.config.Services;
+import org.jetbrains.kotlin.incremental.*;
+import org.jetbrains.kotlin.incremental.components.LookupTracker;
+import org.jetbrains.kotlin.load.kotlin.header.KotlinClassHeader;
+import org.jetbrains.kotlin.load.kotlin.incremental.components.IncrementalCache;
+import org.jetbrains.kotlin.modules.TargetId;
+import org.jetbrains.kotlin.resolve.jvm.JvmClassName;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Compiles the Kotlin sources changed since the last build and the ones affected by their changes, using the incremental caches
+ * and the lookup storage of build-common, as the Gradle plugin does. Changes of anything else, e.g. of the classpath or of Java
+ * sources, rebuild the whole module.
+ */
+class IncrementalJvmCompilation {
+    private static final String CACHES_DIR_NAME = "caches";
+    private static final String DIRTY_SOURCES_FILE_NAME = "dirty-sources.txt";
+
+    private final File cachesDir;
+    private final File dirtySourcesFile;
+    private final K2JVMCompilerArguments arguments;
+    private final List<File> sourceRoots;
+    private final Log log;
+    private final IncReporter reporter;
+
+    private final TargetId targetId;
+    private final File outputDir;
+    private final List<File> classpath;
+
+    IncrementalJvmCompilation(
+            @NotNull File workingDir,
+            @NotNull K2JVMCompilerArguments arguments,
+            @NotNull List<File> sourceRoots,
+            @NotNull Log log
+    ) {
+        this.cachesDir = new File(workingDir, CACHES_DIR_NAME);
+        this.dirtySourcesFile = new File(workingDir, DIRTY_SOURCES_FILE_NAME);
+        this.arguments = arguments;
+        this.sourceRoots = sourceRoots;
+        this.log = log;
+        this.reporter = new LogIncReporter(log);
+
+        targetId = new TargetId(arguments.moduleName, "java-production");
+        outputDir = new File(arguments.destination);
+        classpath = new ArrayList<File>();
+        if (arguments.classpath != null) {
+            for (String entry : arguments.classpath.split(File.pathSeparator)) {
+                classpath.add(new File(entry));
+            }
+        }
+    }
+
+    /**
+     * Sources compiled by a failed incremental build are compiled again by the next one, even when they haven't changed since.
+     * A failed rebuild leaves no dirty sources and no caches behind: the next build is a rebuild again.
+     */
+    boolean hasDirtySources() {
+        return dirtySourcesFile.exists();
+    }
+
+    /**
+     * @param changedInputs the input files changed since the last build, or null if they are unknown
+     */
+    @NotNull
+    ExitCode compile(@Nullable Set<File> changedInputs, @NotNull MessageCollector messageCollector) {
+        boolean wasEnabled = IncrementalCompilation.isEnabled();
+        boolean wasExperimental = IncrementalCompilation.isExperimental();
+        // the caches only keep the subtypes and the sources of classes with the experimental incremental compilation
+        IncrementalCompilation.setIsEnabled(true);
+        IncrementalCompilation.setIsExperimental(true);
+        try {
+            List<File> dirtySources = changedInputs == null ? null : getDirtySources(changedInputs);
+            try {
+                return compileWithCaches(dirtySources, messageCollector);
+            }
+            catch (IOException e) {
+                // also thrown when the caches are corrupted
+                log.warn("Kotlin incremental caches can't be used, rebuilding the module: " + e);
+                return compileWithCaches(null, messageCollector);
+            }
+        }
+        catch (IOException e) {
+            messageCollector.report(CompilerMessageSeverity.EXCEPTION, OutputMessageUtil.renderException(e), CompilerMessageLocation.NO_LOCATION);
+            return ExitCode.INTERNAL_ERROR;
+        }
+        finally {
+            IncrementalCompilation.setIsEnabled(wasEnabled);
+            IncrementalCompilation.setIsExperimental(wasExperimental);
+        }
+    }
+
+    /**
+     * @return the Kotlin sources to compile before their changes are known, or null if the whole module should be rebuilt
+     */
+    @Nullable
+    private List<File> getDirtySources(@NotNull Set<File> changedInputs) throws IOException {
+        Set<File> result = new LinkedHashSet<File>();
+        for (File file : changedInputs) {
+            if (!isKotlinSource(file)) {
+                log.info("Kotlin module will be rebuilt: " + file + " has changed");
+                return null;
+            }
+            result.add(file);
+        }
+
+        if (dirtySourcesFile.exists()) {
+            for (String path : FileUtil.loadLines(dirtySourcesFile)) {
+                if (!path.isEmpty()) {
+                    result.add(new File(path));
+                }
+            }
+        }
+
+        return new ArrayList<File>(result);
+    }
+
+    private boolean isKotlinSource(@NotNull File file) {
+        if (!file.getName().endsWith(".kt")) return false;
+
+        for (File root : sourceRoots) {
+            if (FileUtil.isAncestor(root, file, false)) return true;
+        }
+        return false;
+    }
+
+    @NotNull
+    private ExitCode compileWithCaches(@Nullable List<File> changedSources, @NotNull MessageCollector messageCollector) throws IOException {
+        boolean rebuild = changedSources == null;
+        if (rebuild) {
+            FileUtil.delete(cachesDir);
+            FileUtil.delete(dirtySourcesFile);
+        }
+
+        IncrementalCacheImpl<TargetId> cache = new IncrementalCacheImpl<TargetId>(
+                new File(cachesDir, "increCache." + targetId.getName()), outputDir, targetId);
+        LookupStorage lookupStorage = new LookupStorage(new File(cachesDir, "lookups"));
+        try {
+            List<File> dirtySources = rebuild ? getAllKotlinSources() : changedSources;
+            List<IncrementalCacheImpl<TargetId>> caches = Collections.singletonList(cache);
+            Set<File> allCompiledSources = new LinkedHashSet<File>();
+            ExitCode exitCode = ExitCode.OK;
+
+            while (!dirtySources.isEmpty()) {
+                LookupTrackerImpl lookupTracker = new LookupTrackerImpl(LookupTracker.Companion.getDO_NOTHING());
+
+                for (JvmClassName className : cache.classesBySources(dirtySources)) {
+                    FileUtil.delete(new File(outputDir, className.getInternalName() + ".class"));
+                }
+                cache.markOutputClassesDirty(dirtySources);
+
+                List<File> sourcesToCompile = new ArrayList<File>();
+                List<File> removedSources = new ArrayList<File>();
+                for (File source : dirtySources) {
+                    (source.exists() ? sourcesToCompile : removedSources).add(source);
+                }
+
+                // the sources are compiled again by the next build if this one fails
+                if (!rebuild) {
+                    allCompiledSources.addAll(sourcesToCompile);
+                    FileUtil.writeToFile(dirtySourcesFile, joinPaths(allCompiledSources));
+                }
+
+                log.debug("Kotlin incremental compilation of " + sourcesToCompile.size() + " files: " + reporter.pathsAsString(sourcesToCompile));
+                List<GeneratedFile<TargetId>> generatedFiles = new ArrayList<GeneratedFile<TargetId>>();
+                exitCode = compileSources(sourcesToCompile, cache, lookupTracker, messageCollector, generatedFiles);
+                if (exitCode != ExitCode.OK) break;
+
+                if (!rebuild) {
+                    Set<File> additionalDirtySources = getAdditionalDirtySources(cache, generatedFiles);
+                    additionalDirtySources.removeAll(dirtySources);
+                    if (!additionalDirtySources.isEmpty()) {
+                        dirtySources = new ArrayList<File>(dirtySources);
+                        dirtySources.addAll(additionalDirtySources);
+                        continue;
+                    }
+                }
+
+                CompilationResult changes = updateCache(cache, generatedFiles);
+                BuildUtilKt.update(lookupStorage, lookupTracker, sourcesToCompile, removedSources);
+
+                if (rebuild) break;
+
+                DirtyData dirtyData = BuildUtilKt.getDirtyData(changes, caches, reporter);
+                Set<File> compiledSources = new HashSet<File>(sourcesToCompile);
+                Set<File> affectedSources = new LinkedHashSet<File>();
+                affectedSources.addAll(BuildUtilKt.mapLookupSymbolsToFiles(lookupStorage, dirtyData.getDirtyLookupSymbols(), reporter, compiledSources));
+                affectedSources.addAll(BuildUtilKt.mapClassesFqNamesToFiles(caches, dirtyData.getDirtyClassesFqNames(), reporter, compiledSources));
+                dirtySources = new ArrayList<File>(affectedSources);
+            }
+
+            if (exitCode == ExitCode.OK) {
+                FileUtil.delete(dirtySourcesFile);
+            }
+            return exitCode;
+        }
+        finally {
+            cache.flush(false);
+            cache.close();
+            lookupStorage.flush(false);
+            lookupStorage.close();
+        }
+    }
+
+    @NotNull
+    private ExitCode compileSources(
+            @NotNull List<File> sources,
+            @NotNull IncrementalCacheImpl<TargetId> cache,
+            @NotNull LookupTracker lookupTracker,
+            @NotNull MessageCollector messageCollector,
+            @NotNull List<GeneratedFile<TargetId>> generatedFiles
+    ) {
+        List<File> friendDirs = new ArrayList<File>();
+        if (arguments.friendPaths != null) {
+            for (String path : arguments.friendPaths) {
+                friendDirs.add(new File(path));
+            }
+        }
+
+        // the classes compiled before are read from the output directory
+        List<File> classpathWithOutput = new ArrayList<File>(classpath);
+        classpathWithOutput.add(outputDir);
+
+        File moduleFile = BuildUtilKt.makeModuleFile(
+                arguments.moduleName, false, outputDir, sources, sourceRoots, classpathWithOutput, friendDirs);
+        String destination = arguments.destination;
+        List<String> freeArgs = arguments.freeArgs;
+        try {
+            // the sources, the output directory and the classpath are taken from the module file
+            arguments.module = moduleFile.getAbsolutePath();
+            arguments.destination = null;
+            arguments.freeArgs = new ArrayList<String>();
+
+            Services services = BuildUtilKt.makeCompileServices(
+                    Collections.<TargetId, IncrementalCache>singletonMap(targetId, cache), lookupTracker, null, null);
+
+            return new K2JVMCompiler().exec(new OutputCollectingMessageCollector(messageCollector, generatedFiles), services, arguments);
+        }
+        finally {
+            arguments.module = null;
+            arguments.destination = destination;
+            arguments.freeArgs = freeArgs;
+            FileUtil.delete(moduleFile);
+        }
+    }
+
+    @NotNull
+    private CompilationResult updateCache(@NotNull IncrementalCacheImpl<TargetId> cache, @NotNull List<GeneratedFile<TargetId>> generatedFiles) {
+        CompilationResult result = CompilationResult.Companion.getNO_CHANGES();
+        for (GeneratedFile<TargetId> file : generatedFiles) {
+            if (file instanceof GeneratedJvmClass) {
+                result = result.plus(cache.saveFileToCache((GeneratedJvmClass<TargetId>) file));
+            }
+            else if (GeneratedFilesKt.isModuleMappingFile(file.getOutputFile())) {
+                result = result.plus(cache.saveModuleMappingToCache(file.getSourceFiles(), file.getOutputFile()));
+            }
+        }
+        return result.plus(cache.clearCacheForRemovedClasses());
+    }
+
+    /**
+     * Sources which should be compiled together with the compiled ones: the previous sources of the compiled classes,
+     * and the other parts of the compiled multifile classes.
+     */
+    @NotNull
+    private static Set<File> getAdditionalDirtySources(
+            @NotNull IncrementalCacheImpl<TargetId> cache,
+            @NotNull List<GeneratedFile<TargetId>> generatedFiles
+    ) {
+        Set<File> result = new LinkedHashSet<File>();
+
+        for (GeneratedFile<TargetId> file : generatedFiles) {
+            if (!(file instanceof GeneratedJvmClass)) continue;
+
+            LocalFileKotlinClass outputClass = ((GeneratedJvmClass<TargetId>) file).getOutputClass();
+            KotlinClassHeader header = outputClass.getClassHeader();
+            switch (header.getKind()) {
+                case CLASS:
+                    File previousSource = cache.getSourceFileIfClass(outputClass.getClassName().getFqNameForClassNameWithoutDollars());
+                    if (previousSource != null) {
+                        result.add(previousSource);
+                    }
+                    break;
+                case MULTIFILE_CLASS:
+                    addMultifileClassParts(cache, outputClass.getClassName().getInternalName(), result);
+                    break;
+                case MULTIFILE_CLASS_PART:
+                    String facadeName = header.getMultifileClassName();
+                    if (facadeName != null) {
+                        addMultifileClassParts(cache, facadeName, result);
+                    }
+                    break;
+            }
+        }
+
+        return result;
+    }
+
+    private static void addMultifileClassParts(@NotNull IncrementalCacheImpl<TargetId> cache, @NotNull String facadeName, @NotNull Set<File> result) {
+        Collection<String> parts = cache.getStableMultifileFacadeParts(facadeName);
+        if (parts == null) return;
+
+        for (String part : parts) {
+            result.addAll(cache.sourcesByInternalName(part));
+        }
+    }
+
+    @NotNull
+    private List<File> getAllKotlinSources() {
+        final List<File> result = new ArrayList<File>();
+        for (File root : sourceRoots) {
+            FileUtil.processFilesRecursively(root, new Processor<File>() {
+                @Override
+                public boolean process(File file) {
+                    if (file.isFile() && file.getName().endsWith(".kt")) {
+                        result.add(file);
+                    }
+                    return true;
+                }
+            });
+        }
+        return result;
+    }
+
+    @NotNull
+    private static String joinPaths(@NotNull Collection<File> files) {
+        StringBuilder builder = new StringBuilder();
+        for (File file : files) {
+            builder.append(file.getAbsolutePath()).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Collects the files written by the compiler from its OUTPUT messages, which map them to their sources.
+     */
+    private class OutputCollectingMessageCollector implements MessageCollector {
+        private final MessageCollector delegate;
+        private final List<GeneratedFile<TargetId>> generatedFiles;
+
+        OutputCollectingMessageCollector(@NotNull MessageCollector delegate, @NotNull List<GeneratedFile<TargetId>> generatedFiles) {
+            this.delegate = delegate;
+            this.generatedFiles = generatedFiles;
+        }
+
+        @Override
+        public void clear() {
+            delegate.clear();
+        }
+
+        @Override
+        public void report(@NotNull CompilerMessageSeverity severity, @NotNull String message, @NotNull CompilerMessageLocation location) {
+            if (severity == CompilerMessageSeverity.OUTPUT) {
+                OutputMessageUtil.Output output = OutputMessageUtil.parseOutputMessage(message);
+                if (output != null && output.outputFile != null) {
+                    generatedFiles.add(output.outputFile.getName().endsWith(".class")
+                                       ? new GeneratedJvmClass<TargetId>(targetId, output.sourceFiles, output.outputFile)
+                                       : new GeneratedFile<TargetId>(targetId, output.sourceFiles, output.outputFile));
+                }
+            }
+            delegate.report(severity, message, location);
+        }
+
+        @Override
+        public boolean hasErrors() {
+            return delegate.hasErrors();
+        }
+    }
+
+    private static class LogIncReporter extends IncReporter {
+        private final Log log;
+
+        LogIncReporter(@NotNull Log log) {
+            this.log = log;
+        }
+
+        @Override
+        public void report(@NotNull Function0<String> message) {
+            if (log.isDebugEnabled()) {
+                log.debug(message.invoke());
+            }
+        }
+    }
+}
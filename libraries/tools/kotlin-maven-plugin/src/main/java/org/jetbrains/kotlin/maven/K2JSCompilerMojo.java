@@ -27,12 +27,14 @@ import org.apache.maven.plugins.annotations.ResolutionScope;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.kotlin.cli.common.arguments.K2JSCompilerArguments;
 import org.jetbrains.kotlin.cli.js.K2JSCompiler;
+import org.jetbrains.kotlin.daemon.common.CompileService;
 import org.jetbrains.kotlin.utils.LibraryUtils;
 import org.jetbrains.kotlin.utils.KotlinJavascriptMetadataUtils;
 import org.jetbrains.kotlin.js.JavaScript;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentSkipListSet;
@@ -148,6 +150,30 @@ public class K2JSCompilerMojo extends KotlinCompileMojoBase<K2JSCompilerArgument
         return libraries;
     }
 
+    @NotNull
+    @Override
+    protected CompileService.TargetPlatform getTargetPlatform() {
+        return CompileService.TargetPlatform.JS;
+    }
+
+    @NotNull
+    @Override
+    protected List<File> getClasspathFiles(@NotNull K2JSCompilerArguments arguments) {
+        List<File> result = new ArrayList<File>();
+        if (arguments.libraryFiles != null) {
+            for (String library : arguments.libraryFiles) {
+                result.add(new File(library));
+            }
+        }
+        return result;
+    }
+
+    @NotNull
+    @Override
+    protected List<File> getOutputFiles(@NotNull K2JSCompilerArguments arguments) {
+        return Collections.singletonList(new File(arguments.outputFile).getParentFile());
+    }
+
     @NotNull
     @Override
     protected K2JSCompilerArguments createCompilerArguments() {
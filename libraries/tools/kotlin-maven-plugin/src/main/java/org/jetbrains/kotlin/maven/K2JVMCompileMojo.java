@@ -22,10 +22,14 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.cli.common.arguments.K2JVMCompilerArguments;
 import org.jetbrains.kotlin.cli.jvm.K2JVMCompiler;
+import org.jetbrains.kotlin.daemon.common.CompileService;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static com.intellij.openapi.util.text.StringUtil.join;
@@ -77,6 +81,39 @@ public class K2JVMCompileMojo extends KotlinCompileMojoBase<K2JVMCompilerArgumen
         return new K2JVMCompilerArguments();
     }
 
+    @NotNull
+    @Override
+    protected CompileService.TargetPlatform getTargetPlatform() {
+        return CompileService.TargetPlatform.JVM;
+    }
+
+    @NotNull
+    @Override
+    protected List<File> getClasspathFiles(@NotNull K2JVMCompilerArguments arguments) {
+        List<File> result = new ArrayList<File>();
+        if (arguments.classpath != null) {
+            for (String entry : arguments.classpath.split(File.pathSeparator)) {
+                result.add(new File(entry));
+            }
+        }
+        return result;
+    }
+
+    @NotNull
+    @Override
+    protected List<File> getOutputFiles(@NotNull K2JVMCompilerArguments arguments) {
+        return Collections.singletonList(new File(arguments.destination));
+    }
+
+    @Nullable
+    @Override
+    protected IncrementalJvmCompilation createIncrementalCompilation(@NotNull K2JVMCompilerArguments arguments, @NotNull File cachesDir) {
+        // the sources of a module file given explicitly are not tracked
+        if (arguments.module != null) return null;
+
+        return new IncrementalJvmCompilation(cachesDir, arguments, getSourceDirs(), getLog());
+    }
+
     @Override
     protected void configureSpecificCompilerArguments(@NotNull K2JVMCompilerArguments arguments) throws MojoExecutionException {
         arguments.destination = output;
@@ -32,13 +32,17 @@ import org.apache.maven.repository.RepositorySystem;
 import org.codehaus.plexus.PlexusContainer;
 import org.codehaus.plexus.component.repository.exception.ComponentLookupException;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.cli.common.CLICompiler;
 import org.jetbrains.kotlin.cli.common.ExitCode;
 import org.jetbrains.kotlin.cli.common.arguments.CommonCompilerArguments;
+import org.jetbrains.kotlin.compilerRunner.ArgumentUtils;
 import org.jetbrains.kotlin.config.KotlinCompilerVersion;
 import org.jetbrains.kotlin.config.Services;
+import org.jetbrains.kotlin.daemon.common.CompileService;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.*;
 import java.util.regex.Matcher;
@@ -145,6 +149,30 @@ public abstract class KotlinCompileMojoBase<A extends CommonCompilerArguments> e
     @Parameter
     public List<String> args;
 
+    /**
+     * Skip compilation when sources, classpath, compiler plugins, compiler arguments, the compiler and the JDK haven't changed
+     * since the last successful one. Any change recompiles the whole module, unless {@link #incremental} is set.
+     * The state is kept under ${project.build.directory}/kotlin-ic.
+     */
+    @Parameter(property = "kotlin.compiler.skipUpToDate", defaultValue = "false")
+    public boolean skipUpToDate;
+
+    /**
+     * Compile only the Kotlin sources changed since the last build and the sources affected by their changes.
+     * Changes of the classpath, of Java sources, of compiler plugins or of compiler arguments recompile the whole module.
+     * Supported for JVM compilation only, which then runs in the Maven process even if {@link #useDaemon} is set.
+     * The caches are kept under ${project.build.directory}/kotlin-ic.
+     */
+    @Parameter(property = "kotlin.compiler.incremental", defaultValue = "false")
+    public boolean incremental;
+
+    /**
+     * Compile in a Kotlin compile daemon, which stays warmed up between builds, instead of the Maven process.
+     * Falls back to compilation in the Maven process if the daemon can't be used.
+     */
+    @Parameter(property = "kotlin.compiler.daemon", defaultValue = "false")
+    public boolean useDaemon;
+
     private final static Pattern OPTION_PATTERN = Pattern.compile("([^:]+):([^=]+)=(.*)");
 
     @Override
@@ -163,13 +191,120 @@ public abstract class KotlinCompileMojoBase<A extends CommonCompilerArguments> e
         configureCompilerArguments(arguments, compiler);
         printCompilerArgumentsIfDebugEnabled(arguments, compiler);
 
+        IncrementalJvmCompilation incrementalCompilation = incremental ? createIncrementalCompilation(arguments, getIncrementalCachesDir()) : null;
+        if (incremental && incrementalCompilation == null) {
+            getLog().warn("Kotlin incremental compilation is not supported for this compilation, compiling the whole module");
+        }
+        else if (incrementalCompilation != null && useDaemon) {
+            getLog().info("Kotlin incremental compilation runs in the Maven process, the compile daemon is not used");
+        }
+
+        List<String> argumentsList = (skipUpToDate || useDaemon || incrementalCompilation != null) ? convertArgumentsToStringList(arguments) : null;
+
+        CompilationInputsState inputsState = null;
+        Set<File> changedInputs = null;
+        if (skipUpToDate || incrementalCompilation != null) {
+            inputsState = new CompilationInputsState(getIncrementalStateFile(), getCompilationEnvironment(), argumentsList,
+                                                     getInputFiles(arguments), getOutputFiles(arguments));
+            try {
+                changedInputs = inputsState.getChangedInputs();
+            }
+            catch (IOException e) {
+                getLog().warn("Failed to read Kotlin incremental compilation state: " + e, e);
+            }
+
+            if (changedInputs != null && changedInputs.isEmpty() &&
+                (incrementalCompilation == null || !incrementalCompilation.hasDirtySources())) {
+                getLog().info("Kotlin sources are up to date, skipping compilation");
+                return;
+            }
+        }
+
         MavenPluginLogMessageCollector messageCollector = new MavenPluginLogMessageCollector(getLog());
 
-        ExitCode exitCode = compiler.exec(messageCollector, Services.EMPTY, arguments);
+        ExitCode exitCode;
+        if (incrementalCompilation != null) {
+            exitCode = incrementalCompilation.compile(changedInputs, messageCollector);
+        }
+        else {
+            exitCode = useDaemon ? DaemonCompilation.compile(getTargetPlatform(), argumentsList, messageCollector, getLog()) : null;
+            if (exitCode == null) {
+                exitCode = compiler.exec(messageCollector, Services.EMPTY, arguments);
+            }
+        }
 
         if (exitCode != ExitCode.OK) {
+            if (inputsState != null) {
+                // after a failed incremental compilation the sources to compile again are known, so the changes are not lost
+                if (incrementalCompilation != null && incrementalCompilation.hasDirtySources()) {
+                    saveInputsState(inputsState);
+                }
+                else {
+                    inputsState.invalidate();
+                }
+            }
             messageCollector.throwKotlinCompilerException();
         }
+
+        if (inputsState != null) {
+            saveInputsState(inputsState);
+        }
+    }
+
+    private void saveInputsState(@NotNull CompilationInputsState inputsState) {
+        try {
+            inputsState.save();
+        }
+        catch (IOException e) {
+            getLog().warn("Failed to save Kotlin incremental compilation state: " + e, e);
+        }
+    }
+
+    @NotNull
+    private List<String> convertArgumentsToStringList(@NotNull A arguments) throws MojoExecutionException {
+        try {
+            return ArgumentUtils.convertArgumentsToStringList(arguments);
+        }
+        catch (InstantiationException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+        catch (IllegalAccessException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+    }
+
+    @NotNull
+    private File getIncrementalStateFile() {
+        return new File(project.getBuild().getDirectory(), "kotlin-ic/" + mojoExecution.getExecutionId() + ".txt");
+    }
+
+    @NotNull
+    private File getIncrementalCachesDir() {
+        return new File(project.getBuild().getDirectory(), "kotlin-ic/" + mojoExecution.getExecutionId());
+    }
+
+    /**
+     * What the outputs depend on besides the arguments and the input files: the compiler, this plugin and the JDK running them.
+     */
+    @NotNull
+    private List<String> getCompilationEnvironment() {
+        return Arrays.asList(
+                "compiler " + KotlinCompilerVersion.VERSION,
+                "plugin " + mojoExecution.getMojoDescriptor().getPluginDescriptor().getVersion(),
+                "jdk " + System.getProperty("java.version") + " " + System.getProperty("java.home")
+        );
+    }
+
+    @NotNull
+    private List<File> getInputFiles(@NotNull A arguments) {
+        List<File> result = new ArrayList<File>(getSourceDirs());
+        result.addAll(getClasspathFiles(arguments));
+        if (arguments.pluginClasspaths != null) {
+            for (String path : arguments.pluginClasspaths) {
+                result.add(new File(path));
+            }
+        }
+        return result;
     }
 
     private boolean hasKotlinFilesInSources() throws MojoExecutionException {
@@ -228,6 +363,29 @@ public abstract class KotlinCompileMojoBase<A extends CommonCompilerArguments> e
 
     protected abstract void configureSpecificCompilerArguments(@NotNull A arguments) throws MojoExecutionException;
 
+    @NotNull
+    protected abstract CompileService.TargetPlatform getTargetPlatform();
+
+    /**
+     * @return the incremental compilation keeping its caches in the given directory, or null if it is not supported
+     */
+    @Nullable
+    protected IncrementalJvmCompilation createIncrementalCompilation(@NotNull A arguments, @NotNull File cachesDir) {
+        return null;
+    }
+
+    /**
+     * Libraries the sources are compiled against, checked for changes when {@link #skipUpToDate} is set.
+     */
+    @NotNull
+    protected abstract List<File> getClasspathFiles(@NotNull A arguments);
+
+    /**
+     * Files and directories the compiler writes to, checked for changes when {@link #skipUpToDate} is set.
+     */
+    @NotNull
+    protected abstract List<File> getOutputFiles(@NotNull A arguments);
+
     private List<String> getCompilerPluginClassPaths() {
         ArrayList<String> result = new ArrayList<String>();
 
@@ -0,0 +1,140 @@
+package org.jetbrains.kotlin.maven;
+
+import com.intellij.openapi.util.io.FileUtil;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CompilationInputsStateTest {
+    private static final List<String> ENVIRONMENT = Arrays.asList("compiler 1.1.0", "plugin 1.1.0", "jdk 1.8.0_121 /jdk");
+    private static final List<String> ARGUMENTS = Arrays.asList("-d", "out", "-jvm-target", "1.6");
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File stateFile;
+    private File sources;
+    private File output;
+
+    @Before
+    public void setUp() throws IOException {
+        stateFile = new File(tmp.getRoot(), "kotlin-ic/default-compile.txt");
+        sources = tmp.newFolder("src");
+        output = tmp.newFolder("out");
+        FileUtil.writeToFile(new File(sources, "a.kt"), "fun a() {}");
+    }
+
+    @Test
+    public void testUpToDateAfterSuccessfulCompilation() throws IOException {
+        compile(ENVIRONMENT, ARGUMENTS);
+
+        assertTrue(state(ENVIRONMENT, ARGUMENTS).isUpToDate());
+    }
+
+    @Test
+    public void testNotUpToDateWithoutState() throws IOException {
+        assertFalse(state(ENVIRONMENT, ARGUMENTS).isUpToDate());
+    }
+
+    @Test
+    public void testArgumentsChanged() throws IOException {
+        compile(ENVIRONMENT, ARGUMENTS);
+
+        assertFalse(state(ENVIRONMENT, Arrays.asList("-d", "out", "-jvm-target", "1.8")).isUpToDate());
+    }
+
+    @Test
+    public void testCompilerVersionChanged() throws IOException {
+        compile(ENVIRONMENT, ARGUMENTS);
+
+        assertFalse(state(Arrays.asList("compiler 1.1.1", "plugin 1.1.0", "jdk 1.8.0_121 /jdk"), ARGUMENTS).isUpToDate());
+    }
+
+    @Test
+    public void testJdkChanged() throws IOException {
+        compile(ENVIRONMENT, ARGUMENTS);
+
+        assertFalse(state(Arrays.asList("compiler 1.1.0", "plugin 1.1.0", "jdk 9 /jdk9"), ARGUMENTS).isUpToDate());
+    }
+
+    @Test
+    public void testSourceChanged() throws IOException {
+        compile(ENVIRONMENT, ARGUMENTS);
+        FileUtil.writeToFile(new File(sources, "a.kt"), "fun a() { println() }");
+
+        assertFalse(state(ENVIRONMENT, ARGUMENTS).isUpToDate());
+    }
+
+    @Test
+    public void testOutputDeleted() throws IOException {
+        compile(ENVIRONMENT, ARGUMENTS);
+        FileUtil.delete(new File(output, "AKt.class"));
+
+        assertFalse(state(ENVIRONMENT, ARGUMENTS).isUpToDate());
+    }
+
+    @Test
+    public void testFailedCompilationInvalidatesState() throws IOException {
+        compile(ENVIRONMENT, ARGUMENTS);
+        state(ENVIRONMENT, ARGUMENTS).invalidate();
+
+        assertFalse(state(ENVIRONMENT, ARGUMENTS).isUpToDate());
+    }
+
+    @Test
+    public void testNoChangedInputsWithoutState() throws IOException {
+        assertNull(state(ENVIRONMENT, ARGUMENTS).getChangedInputs());
+    }
+
+    @Test
+    public void testChangedInputs() throws IOException {
+        File b = new File(sources, "b.kt");
+        FileUtil.writeToFile(b, "fun b() {}");
+        compile(ENVIRONMENT, ARGUMENTS);
+
+        File a = new File(sources, "a.kt");
+        File c = new File(sources, "c.kt");
+        FileUtil.writeToFile(a, "fun a() { println() }");
+        FileUtil.delete(b);
+        FileUtil.writeToFile(c, "fun c() {}");
+
+        assertEquals(new HashSet<File>(Arrays.asList(a.getAbsoluteFile(), b.getAbsoluteFile(), c.getAbsoluteFile())),
+                     state(ENVIRONMENT, ARGUMENTS).getChangedInputs());
+    }
+
+    @Test
+    public void testOutputsOfPreviousCompilationAreKept() throws IOException {
+        compile(ENVIRONMENT, ARGUMENTS);
+
+        // an incremental compilation writes the outputs of the changed sources only
+        FileUtil.writeToFile(new File(sources, "b.kt"), "fun b() {}");
+        CompilationInputsState state = state(ENVIRONMENT, ARGUMENTS);
+        assertEquals(1, state.getChangedInputs().size());
+        FileUtil.writeToFile(new File(output, "BKt.class"), "class");
+        state.save();
+
+        FileUtil.delete(new File(output, "AKt.class"));
+        assertNull(state(ENVIRONMENT, ARGUMENTS).getChangedInputs());
+    }
+
+    private void compile(List<String> environment, List<String> arguments) throws IOException {
+        CompilationInputsState state = state(environment, arguments);
+        assertFalse(state.isUpToDate());
+        FileUtil.writeToFile(new File(output, "AKt.class"), "class");
+        state.save();
+    }
+
+    private CompilationInputsState state(List<String> environment, List<String> arguments) {
+        return new CompilationInputsState(stateFile, environment, arguments, Collections.singletonList(sources), Collections.singletonList(output));
+    }
+}
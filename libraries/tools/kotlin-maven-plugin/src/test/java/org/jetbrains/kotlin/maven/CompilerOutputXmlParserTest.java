@@ -0,0 +1,66 @@
+package org.jetbrains.kotlin.maven;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.cli.common.messages.CompilerMessageLocation;
+import org.jetbrains.kotlin.cli.common.messages.CompilerMessageSeverity;
+import org.jetbrains.kotlin.cli.common.messages.MessageCollector;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class CompilerOutputXmlParserTest {
+    @Test
+    public void testSeverityIsTakenFromTag() {
+        List<String> messages = parse(
+                "<MESSAGES>\n" +
+                "<ERROR path=\"/src/a.kt\" line=\"1\" column=\"5\"><![CDATA[Unresolved reference: foo]]></ERROR>\n" +
+                "<WARNING path=\"/src/b.kt\" line=\"2\" column=\"3\"><![CDATA[Parameter 'error: x' is never used]]></WARNING>\n" +
+                "<INFO><![CDATA[Kotlin compiler]]></INFO>\n" +
+                "</MESSAGES>"
+        );
+
+        assertEquals(3, messages.size());
+        assertEquals("ERROR /src/a.kt:1:5 Unresolved reference: foo", messages.get(0));
+        assertEquals("WARNING /src/b.kt:2:3 Parameter 'error: x' is never used", messages.get(1));
+        assertEquals("INFO null:-1:-1 Kotlin compiler", messages.get(2));
+    }
+
+    @Test
+    public void testOutputMessagesAreSkipped() {
+        List<String> messages = parse("<MESSAGES><OUTPUT><![CDATA[Output:\n/out/AKt.class\nSources:\n/src/a.kt]]></OUTPUT></MESSAGES>");
+
+        assertEquals(0, messages.size());
+    }
+
+    @Test
+    public void testPlainTextIsReportedAsError() {
+        List<String> messages = parse("Invalid argument: -foo\nUsage: kotlinc-jvm <options> <source files>");
+
+        assertEquals(1, messages.size());
+        assertEquals("ERROR null:-1:-1 Invalid argument: -foo\nUsage: kotlinc-jvm <options> <source files>", messages.get(0));
+    }
+
+    private static List<String> parse(String output) {
+        final List<String> messages = new ArrayList<String>();
+        CompilerOutputXmlParser.parse(output, new MessageCollector() {
+            @Override
+            public void clear() {
+                messages.clear();
+            }
+
+            @Override
+            public void report(@NotNull CompilerMessageSeverity severity, @NotNull String message, @NotNull CompilerMessageLocation location) {
+                messages.add(severity + " " + location.getPath() + ":" + location.getLine() + ":" + location.getColumn() + " " + message);
+            }
+
+            @Override
+            public boolean hasErrors() {
+                return false;
+            }
+        });
+        return messages;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2010-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.script.util.resolvers
+
+import java.io.File
+import java.io.IOException
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Memoizes resolved dependency files by a key made of the requested coordinates and the repository set.
+ * Entries are shared by all resolvers of the process and persisted to [cacheFile], so that the following script runs
+ * can skip the resolution. A cached entry is only returned while all of its files still exist.
+ */
+class DependencyResolutionCache(private val cacheFile: File) {
+    private val entries: ConcurrentHashMap<String, List<File>> by lazy { ConcurrentHashMap(readEntries()) }
+
+    fun get(key: String): List<File>? {
+        val files = entries[key] ?: return null
+        if (files.all { it.exists() }) return files
+
+        entries.remove(key, files)
+        return null
+    }
+
+    fun put(key: String, files: List<File>) {
+        entries[key] = files
+        persist()
+    }
+
+    // merges the entries with the ones written by other processes meanwhile, the last writer wins for the same key
+    @Synchronized
+    private fun persist() {
+        val merged = readEntries() + entries
+        val tempFile = File(cacheFile.path + ".tmp")
+        try {
+            cacheFile.parentFile?.mkdirs()
+            tempFile.writeText(merged.entries.joinToString("") { entry ->
+                (listOf(entry.key) + entry.value.map { it.absolutePath }).joinToString(SEPARATOR) + "\n"
+            })
+            if (!tempFile.renameTo(cacheFile)) {
+                cacheFile.delete()
+                tempFile.renameTo(cacheFile)
+            }
+        }
+        catch (e: IOException) {
+            // the cache is an optimization only
+            tempFile.delete()
+        }
+    }
+
+    private fun readEntries(): Map<String, List<File>> {
+        if (!cacheFile.isFile) return emptyMap()
+
+        val lines = try {
+            cacheFile.readLines()
+        }
+        catch (e: IOException) {
+            return emptyMap()
+        }
+        return lines.map { it.split(SEPARATOR) }
+                .filter { it.size > 1 }
+                .associate { it.first() to it.drop(1).map(::File) }
+    }
+
+    companion object {
+        const val CACHE_FILE_NAME = ".kotlin-script-resolution-cache"
+
+        private const val SEPARATOR = "\t"
+
+        private val caches = ConcurrentHashMap<File, DependencyResolutionCache>()
+
+        /** Returns the cache persisted next to the given local repository. */
+        fun forLocalRepository(localRepo: File): DependencyResolutionCache =
+                caches.getOrPut(localRepo.absoluteFile) { DependencyResolutionCache(File(localRepo, CACHE_FILE_NAME)) }
+    }
+}
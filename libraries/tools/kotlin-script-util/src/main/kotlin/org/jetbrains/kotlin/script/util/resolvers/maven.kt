@@ -34,13 +34,25 @@ import java.net.URL
 
 val mavenCentral = RemoteRepository("maven-central", "default", "http://repo1.maven.org/maven2/")
 
-class MavenResolver(val reportError: ((String) -> Unit)? = null): Resolver {
+const val OFFLINE_PROPERTY = "kotlin.script.resolver.offline"
+
+/**
+ * Resolves maven coordinates using the local repository and the repositories added by [tryAddRepo].
+ * The resolved files are memoized in a [DependencyResolutionCache] next to the local repository.
+ * In the [offline] mode only the local repository and the `file:` repositories are used.
+ */
+class MavenResolver(
+        val reportError: ((String) -> Unit)? = null,
+        val offline: Boolean = System.getProperty(OFFLINE_PROPERTY)?.toBoolean() ?: false
+): Resolver {
 
     // TODO: make robust
     val localRepo = File(File(System.getProperty("user.home")!!, ".m2"), "repository")
 
     val repos: ArrayList<RemoteRepository> = arrayListOf()
 
+    private val cache by lazy { DependencyResolutionCache.forLocalRepository(localRepo) }
+
     private fun currentRepos() = if (repos.isEmpty()) arrayListOf(mavenCentral) else repos
 
     private fun String.isValidParam() = isNotBlank()
@@ -66,10 +78,21 @@ class MavenResolver(val reportError: ((String) -> Unit)? = null): Resolver {
             }
         }
 
+        // the key doesn't depend on the offline mode, so that offline runs reuse the resolution results of online ones;
+        // snapshots, version ranges and LATEST/RELEASE may resolve to other files later, so they are not cached
+        val currentRepos = currentRepos()
+        val cacheKey = if (isDynamicVersion(artifactId.version)) null else "$artifactId@" + currentRepos.map { it.url }.joinToString(",")
+        cacheKey?.let { cache.get(it) }?.let { return it }
+
         try {
-            val deps = Aether(currentRepos(), localRepo).resolve( artifactId, JavaScopes.RUNTIME)
-            if (deps != null)
-                return deps.map { it.file }
+            val files = Aether(if (offline) currentRepos.filter { it.protocol == "file" } else currentRepos, localRepo)
+                    .resolve(artifactId, JavaScopes.RUNTIME)?.map { it.file }
+            if (files != null) {
+                if (cacheKey != null) {
+                    cache.put(cacheKey, files)
+                }
+                return files
+            }
             else {
                 error("resolving ${artifactId.artifactId} failed: no results")
             }
@@ -96,3 +119,7 @@ class MavenResolver(val reportError: ((String) -> Unit)? = null): Resolver {
         return true
     }
 }
+
+internal fun isDynamicVersion(version: String?): Boolean =
+        version == null || version.isBlank() || version.endsWith("-SNAPSHOT") || version == "LATEST" || version == "RELEASE" ||
+        version.startsWith("[") || version.startsWith("(")
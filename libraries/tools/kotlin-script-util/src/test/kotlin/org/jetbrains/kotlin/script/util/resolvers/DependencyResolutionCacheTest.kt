@@ -0,0 +1,61 @@
+/*
+ * Copyright 2010-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.script.util.resolvers
+
+import org.junit.After
+import org.junit.Test
+import java.io.File
+import kotlin.test.*
+
+class DependencyResolutionCacheTest {
+    private val tmpDir = createTempDir("resolutionCache")
+
+    @After
+    fun tearDown() {
+        tmpDir.deleteRecursively()
+    }
+
+    @Test
+    fun testDynamicVersionsAreNotCached() {
+        for (version in listOf(null, "", "1.0-SNAPSHOT", "LATEST", "RELEASE", "[1.0,2.0)", "(,1.0]", "[1.5]")) {
+            assertTrue(isDynamicVersion(version), "$version should not be cached")
+        }
+        for (version in listOf("1.0", "1.0.2", "2.0-beta-1")) {
+            assertFalse(isDynamicVersion(version), "$version should be cached")
+        }
+    }
+
+    @Test
+    fun testEntryIsPersisted() {
+        val cacheFile = File(tmpDir, DependencyResolutionCache.CACHE_FILE_NAME)
+        val jar = File(tmpDir, "a.jar").apply { writeText("a") }
+        DependencyResolutionCache(cacheFile).put("a:a:1.0@repo", listOf(jar))
+
+        assertEquals(listOf(jar.absoluteFile), DependencyResolutionCache(cacheFile).get("a:a:1.0@repo"))
+    }
+
+    @Test
+    fun testEntryWithMissingFilesIsDropped() {
+        val cache = DependencyResolutionCache(File(tmpDir, DependencyResolutionCache.CACHE_FILE_NAME))
+        val jar = File(tmpDir, "a.jar").apply { writeText("a") }
+        cache.put("a:a:1.0@repo", listOf(jar))
+        jar.delete()
+
+        assertNull(cache.get("a:a:1.0@repo"))
+    }
+
+}
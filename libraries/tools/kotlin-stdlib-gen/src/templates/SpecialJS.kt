@@ -46,7 +46,7 @@ fun specialJS(): List<GenericFunction> {
         }
         body {
             """
-            return copyOf().unsafeCast<Array<T>>()
+            return js("Array").prototype.slice.call(this)
             """
         }
     }
@@ -62,6 +62,9 @@ fun specialJS(): List<GenericFunction> {
         body {
             "return this.asDynamic().slice(fromIndex, toIndex)"
         }
+        body(ArraysOfPrimitives) {
+            "return js(\"Kotlin\").primitiveArraySlice(this, fromIndex, toIndex)"
+        }
     }
 
     templates add f("copyOf()") {
@@ -74,6 +77,9 @@ fun specialJS(): List<GenericFunction> {
         body {
             "return this.asDynamic().slice()"
         }
+        body(ArraysOfPrimitives) {
+            "return js(\"Kotlin\").primitiveArraySlice(this)"
+        }
     }
 
     val allArrays = PrimitiveType.defaultPrimitives.map { ArraysOfPrimitives to it } + (ArraysOfObjects to null)
@@ -132,6 +138,11 @@ fun specialJS(): List<GenericFunction> {
             return this.asDynamic().concat(arrayOf(element))
             """
         }
+        body(ArraysOfPrimitives) {
+            """
+            return js("Kotlin").primitiveArrayConcat(this, arrayOf(element))
+            """
+        }
     }
 
     templates add f("plus(elements: Collection<T>)") {
@@ -163,6 +174,11 @@ fun specialJS(): List<GenericFunction> {
             return this.asDynamic().concat(elements)
             """
         }
+        body(ArraysOfPrimitives) {
+            """
+            return js("Kotlin").primitiveArrayConcat(this, elements)
+            """
+        }
     }
 
     templates add f("contentEquals(other: SELF)") {
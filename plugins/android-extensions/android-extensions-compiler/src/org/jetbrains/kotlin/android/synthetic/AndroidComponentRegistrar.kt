@@ -41,10 +41,12 @@ import org.jetbrains.kotlin.extensions.StorageComponentContainerContributor
 import org.jetbrains.kotlin.resolve.TargetPlatform
 import org.jetbrains.kotlin.resolve.jvm.extensions.PackageFragmentProviderExtension
 import org.jetbrains.kotlin.resolve.jvm.platform.JvmPlatform
+import java.io.File
 
 object AndroidConfigurationKeys {
     val VARIANT: CompilerConfigurationKey<List<String>> = CompilerConfigurationKey.create<List<String>>("Android build variant")
     val PACKAGE: CompilerConfigurationKey<String> = CompilerConfigurationKey.create<String>("application package fq name")
+    val CACHE_DIRECTORY: CompilerConfigurationKey<String> = CompilerConfigurationKey.create<String>("parsed layouts cache directory")
 }
 
 class AndroidCommandLineProcessor : CommandLineProcessor {
@@ -53,11 +55,12 @@ class AndroidCommandLineProcessor : CommandLineProcessor {
 
         val VARIANT_OPTION: CliOption = CliOption("variant", "<name;path>", "Android build variant", allowMultipleOccurrences = true)
         val PACKAGE_OPTION: CliOption = CliOption("package", "<fq name>", "Application package")
+        val CACHE_OPTION: CliOption = CliOption("cache", "<path>", "Directory for caching parsed layout files", required = false)
     }
 
     override val pluginId: String = ANDROID_COMPILER_PLUGIN_ID
 
-    override val pluginOptions: Collection<CliOption> = listOf(VARIANT_OPTION, PACKAGE_OPTION)
+    override val pluginOptions: Collection<CliOption> = listOf(VARIANT_OPTION, PACKAGE_OPTION, CACHE_OPTION)
 
     override fun processOption(option: CliOption, value: String, configuration: CompilerConfiguration) {
         when (option) {
@@ -67,6 +70,7 @@ class AndroidCommandLineProcessor : CommandLineProcessor {
                 configuration.put(AndroidConfigurationKeys.VARIANT, paths)
             }
             PACKAGE_OPTION -> configuration.put(AndroidConfigurationKeys.PACKAGE, value)
+            CACHE_OPTION -> configuration.put(AndroidConfigurationKeys.CACHE_DIRECTORY, value)
             else -> throw CliOptionProcessingException("Unknown option: ${option.name}")
         }
     }
@@ -77,9 +81,10 @@ class AndroidComponentRegistrar : ComponentRegistrar {
     override fun registerProjectComponents(project: MockProject, configuration: CompilerConfiguration) {
         val applicationPackage = configuration.get(AndroidConfigurationKeys.PACKAGE)
         val variants = configuration.get(AndroidConfigurationKeys.VARIANT)?.mapNotNull { parseVariant(it) } ?: emptyList()
+        val cacheDirectory = configuration.get(AndroidConfigurationKeys.CACHE_DIRECTORY)?.let(::File)
 
         if (variants.isNotEmpty() && !applicationPackage.isNullOrBlank()) {
-            val layoutXmlFileManager = CliAndroidLayoutXmlFileManager(project, applicationPackage!!, variants)
+            val layoutXmlFileManager = CliAndroidLayoutXmlFileManager(project, applicationPackage!!, variants, cacheDirectory)
             project.registerService(AndroidLayoutXmlFileManager::class.java, layoutXmlFileManager)
 
             ExpressionCodegenExtension.registerExtension(project, AndroidExpressionCodegenExtension())
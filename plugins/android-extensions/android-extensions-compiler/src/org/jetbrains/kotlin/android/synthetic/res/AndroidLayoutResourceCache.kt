@@ -0,0 +1,95 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.android.synthetic.res
+
+import com.intellij.openapi.diagnostic.Logger
+import java.io.*
+import java.security.MessageDigest
+
+class CachedLayoutElement(val id: ResourceIdentifier, val tag: String)
+
+/**
+ * Persists elements parsed from layout files between compilations.
+ * Every layout gets its own cache file (named after the layout path), which keeps the digest of the layout content
+ * the elements were parsed from, so a changed layout is simply re-parsed and rewritten.
+ */
+class AndroidLayoutResourceCache(private val cacheDirectory: File) {
+    private companion object {
+        val LOG = Logger.getInstance(AndroidLayoutResourceCache::class.java)
+
+        val VERSION = 1
+    }
+
+    fun getOrParse(layoutPath: String, content: ByteArray, parse: (ByteArray) -> List<CachedLayoutElement>): List<CachedLayoutElement> {
+        val cacheFile = File(cacheDirectory, digest(layoutPath.toByteArray()))
+        val contentDigest = digest(content)
+
+        read(cacheFile, contentDigest)?.let { return it }
+
+        val elements = parse(content)
+        write(cacheFile, contentDigest, elements)
+        return elements
+    }
+
+    private fun read(cacheFile: File, contentDigest: String): List<CachedLayoutElement>? {
+        if (!cacheFile.exists()) return null
+
+        try {
+            DataInputStream(BufferedInputStream(cacheFile.inputStream())).use { input ->
+                if (input.readInt() != VERSION || input.readUTF() != contentDigest) return null
+
+                val size = input.readInt()
+                val elements = ArrayList<CachedLayoutElement>(size)
+                repeat(size) {
+                    val name = input.readUTF()
+                    val packageName = if (input.readBoolean()) input.readUTF() else null
+                    elements += CachedLayoutElement(ResourceIdentifier(name, packageName), input.readUTF())
+                }
+                return elements
+            }
+        }
+        catch (e: IOException) {
+            LOG.warn("Could not read cached layout data from $cacheFile", e)
+            return null
+        }
+    }
+
+    private fun write(cacheFile: File, contentDigest: String, elements: List<CachedLayoutElement>) {
+        try {
+            cacheDirectory.mkdirs()
+            DataOutputStream(BufferedOutputStream(cacheFile.outputStream())).use { output ->
+                output.writeInt(VERSION)
+                output.writeUTF(contentDigest)
+                output.writeInt(elements.size)
+                for (element in elements) {
+                    output.writeUTF(element.id.name)
+                    output.writeBoolean(element.id.packageName != null)
+                    element.id.packageName?.let { output.writeUTF(it) }
+                    output.writeUTF(element.tag)
+                }
+            }
+        }
+        catch (e: IOException) {
+            LOG.warn("Could not write cached layout data to $cacheFile", e)
+            cacheFile.delete()
+        }
+    }
+
+    private fun digest(bytes: ByteArray): String {
+        return MessageDigest.getInstance("MD5").digest(bytes).joinToString("") { String.format("%02x", it) }
+    }
+}
@@ -51,24 +51,19 @@ abstract class AndroidLayoutXmlFileManager(val project: Project) {
         val psiManager = PsiManager.getInstance(project)
         val fileManager = VirtualFileManager.getInstance()
 
-        fun VirtualFile.getAllChildren(): List<VirtualFile> {
-            val allChildren = arrayListOf<VirtualFile>()
-            val currentChildren = children ?: emptyArray()
-            for (child in currentChildren) {
-                if (child.isDirectory) {
-                    allChildren.addAll(child.getAllChildren())
-                }
-                else {
-                    allChildren.add(child)
+        // Resource directories are flat, so only the 'layout*' ones need to be listed (other resources like drawables are skipped)
+        fun VirtualFile.getLayoutFiles(): List<VirtualFile> {
+            val layoutFiles = arrayListOf<VirtualFile>()
+            for (child in children ?: emptyArray()) {
+                if (child.isDirectory && child.name.startsWith("layout")) {
+                    child.children?.filterTo(layoutFiles) { !it.isDirectory && it.name.toLowerCase().endsWith(".xml") }
                 }
             }
-            return allChildren
+            return layoutFiles
         }
 
         val resDirectories = variant.resDirectories.map { fileManager.findFileByUrl("file://$it") }
-        val allChildren = resDirectories.flatMap { it?.getAllChildren() ?: listOf() }
-
-        val allLayoutFiles = allChildren.filter { it.parent.name.startsWith("layout") && it.name.toLowerCase().endsWith(".xml") }
+        val allLayoutFiles = resDirectories.flatMap { it?.getLayoutFiles() ?: listOf() }
         val allLayoutPsiFiles = allLayoutFiles.fold(ArrayList<PsiFile>(allLayoutFiles.size)) { list, file ->
             val psiFile = psiManager.findFile(file)
             if (psiFile != null && psiFile.parent != null) {
@@ -50,8 +50,10 @@ abstract class AndroidPackageFragmentProviderExtension : PackageFragmentProvider
         // Packages with synthetic properties
         for (variantData in moduleData) {
             for ((layoutName, layouts) in variantData) {
+                // Both the activity and the view fragments of a layout are built from the same resources
+                val resources = layoutXmlFileManager.extractResources(layouts, module)
+
                 fun createPackageFragment(fqName: String, forView: Boolean, isDeprecated: Boolean = false) {
-                    val resources = layoutXmlFileManager.extractResources(layouts, module)
                     val packageData = AndroidSyntheticPackageData(layoutName, moduleData, forView, isDeprecated, resources)
                     val packageDescriptor = AndroidSyntheticPackageFragmentDescriptor(
                             module, FqName(fqName), packageData, lazyContext, storageManager)
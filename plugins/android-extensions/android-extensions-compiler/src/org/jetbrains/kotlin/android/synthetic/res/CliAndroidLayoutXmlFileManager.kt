@@ -22,13 +22,15 @@ import com.intellij.psi.PsiFile
 import org.jetbrains.kotlin.android.synthetic.AndroidXmlHandler
 import org.jetbrains.kotlin.descriptors.ModuleDescriptor
 import java.io.ByteArrayInputStream
+import java.io.File
 import javax.xml.parsers.SAXParser
 import javax.xml.parsers.SAXParserFactory
 
 class CliAndroidLayoutXmlFileManager(
         project: Project,
         applicationPackage: String,
-        variants: List<AndroidVariant>
+        variants: List<AndroidVariant>,
+        cacheDirectory: File? = null
 ) : AndroidLayoutXmlFileManager(project) {
     private companion object {
         val LOG = Logger.getInstance(CliAndroidLayoutXmlFileManager::class.java)
@@ -38,17 +40,17 @@ class CliAndroidLayoutXmlFileManager(
 
     private val saxParser: SAXParser = initSAX()
 
+    private val layoutCache = cacheDirectory?.let { AndroidLayoutResourceCache(it) }
+
     override fun doExtractResources(files: List<PsiFile>, module: ModuleDescriptor): List<AndroidResource> {
         val resources = arrayListOf<AndroidResource>()
 
-        val handler = AndroidXmlHandler { id, tag ->
-            resources += parseAndroidResource(id, tag, null)
-        }
-
         for (file in files) {
             try {
-                val inputStream = ByteArrayInputStream(file.virtualFile.contentsToByteArray())
-                saxParser.parse(inputStream, handler)
+                val virtualFile = file.virtualFile
+                val content = virtualFile.contentsToByteArray()
+                val elements = layoutCache?.getOrParse(virtualFile.path, content) { parseLayout(it) } ?: parseLayout(content)
+                elements.mapTo(resources) { parseAndroidResource(it.id, it.tag, null) }
             } catch (e: Throwable) {
                 LOG.error(e)
             }
@@ -57,6 +59,17 @@ class CliAndroidLayoutXmlFileManager(
         return resources
     }
 
+    private fun parseLayout(content: ByteArray): List<CachedLayoutElement> {
+        val elements = arrayListOf<CachedLayoutElement>()
+
+        val handler = AndroidXmlHandler { id, tag ->
+            elements += CachedLayoutElement(id, tag)
+        }
+
+        saxParser.parse(ByteArrayInputStream(content), handler)
+        return elements
+    }
+
     private fun initSAX(): SAXParser {
         val saxFactory = SAXParserFactory.newInstance()
         saxFactory.isNamespaceAware = true
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.lang.resolve.android.test
+
+import org.jetbrains.kotlin.android.synthetic.res.AndroidLayoutResourceCache
+import org.jetbrains.kotlin.android.synthetic.res.CachedLayoutElement
+import org.jetbrains.kotlin.android.synthetic.res.ResourceIdentifier
+import org.jetbrains.kotlin.test.KotlinTestUtils
+import org.jetbrains.kotlin.test.testFramework.KtUsefulTestCase
+
+class AndroidLayoutResourceCacheTest : KtUsefulTestCase() {
+    fun testLayoutIsParsedOnlyWhenChanged() {
+        val cacheDirectory = KotlinTestUtils.tmpDirForTest(this)
+        var parseCount = 0
+
+        fun parse(content: ByteArray): List<CachedLayoutElement> {
+            parseCount++
+            return listOf(CachedLayoutElement(ResourceIdentifier(String(content), "test"), "Button"),
+                          CachedLayoutElement(ResourceIdentifier("fragment", null), "fragment"))
+        }
+
+        val layoutPath = "/res/layout/main.xml"
+        val first = AndroidLayoutResourceCache(cacheDirectory).getOrParse(layoutPath, "login".toByteArray(), ::parse)
+        assertEquals(1, parseCount)
+
+        // A new cache instance (as in the next compilation) reads the stored elements back
+        val second = AndroidLayoutResourceCache(cacheDirectory).getOrParse(layoutPath, "login".toByteArray(), ::parse)
+        assertEquals(1, parseCount)
+        assertEquals(first.map { it.id.name to it.id.packageName }, second.map { it.id.name to it.id.packageName })
+        assertEquals(first.map { it.tag }, second.map { it.tag })
+
+        val changed = AndroidLayoutResourceCache(cacheDirectory).getOrParse(layoutPath, "logout".toByteArray(), ::parse)
+        assertEquals(2, parseCount)
+        assertEquals("logout", changed.first().id.name)
+    }
+}